@@ -13,7 +13,17 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.ValidationException; 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,17 +40,21 @@ public class ControladorAut {
 
     private final UsuarioService usuarioService;
 
+    private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
+
     // Inyección por constructor para evitar dependencias circulares
     public ControladorAut(UsuarioService usuarioService) {
         this.usuarioService = usuarioService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request,
+                                   HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
         try {
             return usuarioService.autenticarUsuario(request.getCorreo(), request.getContrasena())
                     .map(user -> {
-                        
+                        guardarSesion(user, httpRequest, httpResponse);
+
                         Map<String, Object> response = new HashMap<>();
                         response.put("success", true);
 
@@ -74,6 +88,19 @@ public class ControladorAut {
         }
     }
 
+    /**
+     * Deja el usuario autenticado en la sesión HTTP, de modo que el handshake
+     * de WebSocket (/ws) lleve su Principal y se le puedan enviar mensajes propios.
+     */
+    private void guardarSesion(Usuario user, HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        Authentication auth = UsernamePasswordAuthenticationToken.authenticated(user.getCorreo(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRol().name())));
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(auth);
+        SecurityContextHolder.setContext(context);
+        securityContextRepository.saveContext(context, httpRequest, httpResponse);
+    }
+
     @PostMapping("/register/cliente")
     public ResponseEntity<?> registerCliente(@Valid @RequestBody RegisterClienteRequest request) {
         log.info("Intentando registrar nuevo cliente con correo: {}", request.getCorreo()); // Usando log.info y el correo
@@ -4,18 +4,35 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.access.prepost.PreAuthorize;
 import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.ColaTrabajoService;
+import com.mycompany.vcsystems.modelo.service.ImportacionIncidenciasService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaHistorialService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaBusquedaService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaExportService;
+import com.mycompany.vcsystems.modelo.service.VersionColecciones;
 import com.mycompany.vcsystems.modelo.service.IncidenciaOperationResult;
 import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaFiltro;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPagina;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasiva;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/incidencias")
@@ -29,13 +46,123 @@ import java.util.HashMap;
 
 public class IncidenciaControlador {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private IncidenciaService incidenciaService;
 
+    @Autowired
+    private IncidenciaBusquedaService incidenciaBusquedaService;
+
+    @Autowired
+    private IncidenciaExportService incidenciaExportService;
+
+    @Autowired
+    private VersionColecciones versionColecciones;
+
+    @Autowired
+    private ColaTrabajoService colaTrabajoService;
+
+    @Autowired
+    private ImportacionIncidenciasService importacionIncidenciasService;
+
+    @Autowired
+    private IncidenciaHistorialService incidenciaHistorialService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
-    public List<Incidencia> listarTodas() {
-        return incidenciaService.listAll();
+    public ResponseEntity<?> listarTodas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return paginaResponse(incidenciaService.listarPagina(cursor, limit));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "success", false));
+        }
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'TECNICO')")
+    public ResponseEntity<?> buscar(
+            @ModelAttribute IncidenciaFiltro filtro,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return paginaResponse(incidenciaService.buscar(filtro, cursor, limit));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "success", false));
+        }
+    }
+
+    @GetMapping("/buscar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'TECNICO')")
+    public ResponseEntity<?> buscarTexto(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        // El índice de texto se actualiza con los mismos eventos que versionan la colección
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(incidenciaBusquedaService.buscar(q, limit));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "success", false));
+        }
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "NDJSON") IncidenciaExportService.Formato formato) {
+        StreamingResponseBody body = out -> incidenciaExportService.exportar(out, formato);
+        MediaType tipo = formato == IncidenciaExportService.Formato.NDJSON
+            ? MediaType.APPLICATION_NDJSON
+            : MediaType.APPLICATION_JSON;
+        return ResponseEntity.ok().contentType(tipo).body(body);
+    }
+
+    @GetMapping("/nuevas")
+    @PreAuthorize("hasAnyRole('TECNICO', 'GERENTE')")
+    public ResponseEntity<?> listarNuevas(
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(colaTrabajoService.nuevas(limit));
+    }
+
+    @GetMapping("/mis-incidencias")
+    @PreAuthorize("hasRole('TECNICO')")
+    public ResponseEntity<?> listarMisIncidencias(
+            @RequestParam(required = false) Integer limit,
+            Principal principal,
+            WebRequest request) {
+        Optional<Long> idTecnico = colaTrabajoService.idTecnicoPorCorreo(principal.getName());
+        if (idTecnico.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "El usuario no es un técnico", "success", false));
+        }
+        // La respuesta depende del técnico, así que el ETag también
+        if (request.checkNotModified(
+                versionColecciones.etag(VersionColecciones.Coleccion.INCIDENCIAS) + "-t" + idTecnico.get(),
+                versionColecciones.ultimaModificacion(VersionColecciones.Coleccion.INCIDENCIAS))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate())
+            .body(colaTrabajoService.deTecnico(idTecnico.get(), limit));
     }
 
     @PostMapping
@@ -53,6 +180,42 @@ public class IncidenciaControlador {
         }
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
+    public ResponseEntity<?> aplicarMasivo(@RequestBody List<OperacionMasiva> operaciones) {
+        try {
+            return ResponseEntity.ok(incidenciaService.aplicarMasivo(operaciones));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "success", false));
+        } catch (Exception e) {
+            log.error("Error aplicando operación masiva sobre incidencias", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor", "success", false));
+        }
+    }
+
+    /**
+     * Importa incidencias desde un CSV enviado como cuerpo de la petición (text/csv).
+     * El cuerpo se procesa en streaming; reenviar el archivo con el mismo id de
+     * importación continúa desde la última fila confirmada.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
+    public ResponseEntity<?> importar(@RequestParam String importacion, HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(importacionIncidenciasService.importar(importacion, request.getInputStream()));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "success", false));
+        } catch (IllegalStateException e) {
+            // Otra petición con el mismo id avanzó el checkpoint: se puede reenviar para continuar
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "success", false));
+        } catch (Exception e) {
+            log.error("Error importando incidencias ({})", importacion, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor", "success", false));
+        }
+    }
+
     @PutMapping("/{id}/tecnico")
     @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
     public ResponseEntity<?> asignarTecnico(
@@ -64,6 +227,21 @@ public class IncidenciaControlador {
         return createResponseFromResult(result);
     }
 
+    // El técnico autenticado toma una incidencia de la cola de nuevas
+    @PostMapping("/{id}/asignar")
+    @PreAuthorize("hasRole('TECNICO')")
+    public ResponseEntity<?> tomarIncidencia(@PathVariable Long id, Principal principal) {
+        Optional<Usuario> tecnico = usuarioRepository.findByCorreo(principal.getName());
+        if (tecnico.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Usuario no encontrado", "success", false));
+        }
+
+        IncidenciaOperationResult result = incidenciaService.asignarTecnico(id, tecnico.get());
+
+        return createResponseFromResult(result);
+    }
+
     @PutMapping("/{id}/estado")
     @PreAuthorize("hasAnyRole('TECNICO', 'GERENTE')")
     public ResponseEntity<?> cambiarEstado(
@@ -77,17 +255,40 @@ public class IncidenciaControlador {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'TECNICO', 'CLIENTE')")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id, WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
         IncidenciaOperationResult result = incidenciaService.buscarPorId(id);
+        if (result.isSuccess()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(result.getIncidencia());
+        }
         return createResponseFromResult(result);
     }
 
+    @GetMapping("/{id}/historial")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'TECNICO')")
+    public ResponseEntity<?> historial(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        IncidenciaHistorialService.PaginaHistorial pagina = incidenciaHistorialService.pagina(id, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.siguiente() != null) {
+            response.header(NEXT_CURSOR_HEADER, pagina.siguiente().toString());
+        }
+        return response.body(pagina.items());
+    }
+
     @GetMapping("/estadisticas")
     @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
-    public ResponseEntity<?> obtenerEstadisticas() {
+    public ResponseEntity<?> obtenerEstadisticas(WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
         try {
             IncidenciaService.IncidenciaStatistics stats = incidenciaService.getStatistics();
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(stats);
         } catch (Exception e) {
             log.error("Error obteniendo estadísticas de incidencias", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -95,6 +296,25 @@ public class IncidenciaControlador {
         }
     }
 
+    /**
+     * Responde 304 si el cliente ya tiene la versión vigente de las incidencias.
+     * Solo compara contra la versión en memoria, sin consultar la BD.
+     */
+    private boolean noModificado(WebRequest request) {
+        return request.checkNotModified(
+            versionColecciones.etag(VersionColecciones.Coleccion.INCIDENCIAS),
+            versionColecciones.ultimaModificacion(VersionColecciones.Coleccion.INCIDENCIAS));
+    }
+
+    private ResponseEntity<?> paginaResponse(IncidenciaPagina pagina) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        // El cursor viaja en cabecera para que el cuerpo siga siendo un arreglo
+        if (pagina.hasMore()) {
+            response.header(NEXT_CURSOR_HEADER, pagina.getNextCursor());
+        }
+        return response.body(pagina.getItems());
+    }
+
     private ResponseEntity<?> createResponseFromResult(IncidenciaOperationResult result) {
         if (result.isSuccess()) {
             return ResponseEntity.ok(result.getIncidencia());
@@ -0,0 +1,29 @@
+package com.mycompany.vcsystems.api.controlador;
+
+import com.mycompany.vcsystems.modelo.dto.ReanudacionDeltas;
+import com.mycompany.vcsystems.modelo.service.DeltaIncidenciasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Reanudación del flujo de deltas de incidencias por STOMP: el cliente envía
+ * a /app/incidencias/deltas/reanudar su época y última secuencia y recibe la
+ * respuesta en /user/queue/incidencias-delta.
+ */
+@Controller
+public class IncidenciaDeltaControlador {
+
+    public record SolicitudReanudar(String epoca, Long desde) {
+    }
+
+    @Autowired
+    private DeltaIncidenciasService deltaIncidenciasService;
+
+    @MessageMapping("/incidencias/deltas/reanudar")
+    @SendToUser(destinations = "/queue/incidencias-delta", broadcast = false)
+    public ReanudacionDeltas reanudar(SolicitudReanudar solicitud) {
+        return deltaIncidenciasService.reanudar(solicitud.epoca(), solicitud.desde() != null ? solicitud.desde() : -1);
+    }
+}
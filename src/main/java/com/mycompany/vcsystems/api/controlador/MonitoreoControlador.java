@@ -0,0 +1,116 @@
+package com.mycompany.vcsystems.api.controlador;
+
+import com.mycompany.vcsystems.configuracion.AsyncConfig;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.service.DeltaIncidenciasService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaOutboxService;
+import com.mycompany.vcsystems.modelo.service.JobLeaseService;
+import com.mycompany.vcsystems.modelo.service.NotificacionMetricas;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocket;
+import com.mycompany.vcsystems.modelo.service.ReintentoEmailService;
+import com.mycompany.vcsystems.modelo.service.SesionesWebSocket;
+import com.mycompany.vcsystems.modelo.service.SlaIncidenciasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Métricas internas de los procesos en segundo plano (solo administradores).
+ */
+@RestController
+@RequestMapping("/api/monitoreo")
+public class MonitoreoControlador {
+
+    public record WebSocketMetricas(SubProtocolWebSocketHandler.Stats sesiones,
+                                    StompSubProtocolHandler.Stats stomp,
+                                    String canalEntrada, String canalSalida,
+                                    Map<Usuario.Rol, Integer> sesionesPorRol,
+                                    DeltaIncidenciasService.DeltaMetricas deltas,
+                                    RelayWebSocket.Metricas relay) {
+    }
+
+    @Autowired
+    private IncidenciaOutboxService incidenciaOutboxService;
+
+    @Autowired
+    private NotificacionMetricas notificacionMetricas;
+
+    @Autowired
+    private ReintentoEmailService reintentoEmailService;
+
+    @Autowired
+    private WebSocketMessageBrokerStats webSocketMessageBrokerStats;
+
+    @Autowired
+    private SesionesWebSocket sesionesWebSocket;
+
+    @Autowired
+    private DeltaIncidenciasService deltaIncidenciasService;
+
+    @Autowired
+    private RelayWebSocket relayWebSocket;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private SlaIncidenciasService slaIncidenciasService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.NOTIFICACION_EXECUTOR)
+    private ThreadPoolTaskExecutor notificacionExecutor;
+
+    @GetMapping("/outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IncidenciaOutboxService.OutboxMetricas> outbox() {
+        return ResponseEntity.ok(incidenciaOutboxService.metricas());
+    }
+
+    @GetMapping("/notificaciones")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<NotificacionMetricas.Instantanea> notificaciones() {
+        return ResponseEntity.ok(notificacionMetricas.instantanea(notificacionExecutor));
+    }
+
+    @GetMapping("/reintentos-email")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReintentoEmailService.ReintentoMetricas> reintentosEmail() {
+        return ResponseEntity.ok(reintentoEmailService.metricas());
+    }
+
+    @GetMapping("/websocket")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<WebSocketMetricas> websocket() {
+        return ResponseEntity.ok(new WebSocketMetricas(
+            webSocketMessageBrokerStats.getWebSocketSessionStats(),
+            webSocketMessageBrokerStats.getStompSubProtocolStats(),
+            webSocketMessageBrokerStats.getClientInboundExecutorStatsInfo(),
+            webSocketMessageBrokerStats.getClientOutboundExecutorStatsInfo(),
+            sesionesWebSocket.sesionesPorRol(),
+            deltaIncidenciasService.metricas(),
+            relayWebSocket.metricas()));
+    }
+
+    @GetMapping("/leases")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<JobLeaseService.Concesion>> leases() {
+        return ResponseEntity.ok(jobLeaseService.concesiones());
+    }
+
+    @GetMapping("/sla")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SlaIncidenciasService.SlaMetricas> sla() {
+        return ResponseEntity.ok(slaIncidenciasService.metricas());
+    }
+}
@@ -0,0 +1,60 @@
+package com.mycompany.vcsystems.api.controlador;
+
+import com.mycompany.vcsystems.modelo.entidades.EmailFallido;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaOutbox;
+import com.mycompany.vcsystems.modelo.service.IncidenciaOutboxService;
+import com.mycompany.vcsystems.modelo.service.ReintentoEmailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administración de los emails y de los eventos del outbox de incidencias
+ * que agotaron sus reintentos (dead-letter).
+ */
+@RestController
+@RequestMapping("/api/notificaciones")
+public class NotificacionControlador {
+
+    @Autowired
+    private ReintentoEmailService reintentoEmailService;
+
+    @Autowired
+    private IncidenciaOutboxService incidenciaOutboxService;
+
+    @GetMapping("/fallidas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EmailFallido>> listarFallidas(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(reintentoEmailService.listarFallidos(limit));
+    }
+
+    /**
+     * Vuelve a encolar los emails fallidos indicados (o todos si no se envían ids).
+     */
+    @PostMapping("/fallidas/reintentar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reintentarFallidas(@RequestBody(required = false) List<Long> ids) {
+        int reencolados = reintentoEmailService.reencolarFallidos(ids);
+        return ResponseEntity.ok(Map.of("reencolados", reencolados, "success", true));
+    }
+
+    @GetMapping("/outbox-fallidos")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<IncidenciaOutbox>> listarOutboxFallidos(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(incidenciaOutboxService.listarAgotados(limit));
+    }
+
+    /**
+     * Devuelve al relay los eventos de outbox fallidos indicados (o todos si no se envían ids).
+     */
+    @PostMapping("/outbox-fallidos/reintentar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reintentarOutboxFallidos(@RequestBody(required = false) List<Long> ids) {
+        int reencolados = incidenciaOutboxService.reencolarAgotados(ids);
+        return ResponseEntity.ok(Map.of("reencolados", reencolados, "success", true));
+    }
+}
@@ -6,7 +6,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import com.mycompany.vcsystems.modelo.repository.SolicitudRepuestoRepository;
 import com.mycompany.vcsystems.modelo.entidades.SolicitudRepuesto;
+import com.mycompany.vcsystems.modelo.dto.VersionSolicitudes;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/solicitudes")
@@ -36,16 +39,24 @@ public class SolicitudControlador {
         return solicitudRepository.findById(id)
             .map(existing -> {
                 solicitud.setIdSolicitud(id);
-                return ResponseEntity.ok(solicitudRepository.save(solicitud));
+                SolicitudRepuesto actualizada = solicitudRepository.save(solicitud);
+                        return ResponseEntity.ok(actualizada);
             })
             .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping
-    public ResponseEntity<?> listarPorEstado(@RequestParam(required = false) String estado) {
+    public ResponseEntity<?> listarPorEstado(@RequestParam(required = false) String estado, WebRequest request) {
+        // La versión sale de la BD (COUNT + MAX(actualizado_at)) para que coincida en todos los nodos;
+        // si el cliente ya la tiene, 304 sin cargar ni serializar las solicitudes
+        VersionSolicitudes version = solicitudRepository.obtenerVersion();
+        if (request.checkNotModified(version.etag(), version.ultimaModificacionMillis())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
         if (estado != null) {
-            return ResponseEntity.ok(solicitudRepository.findByEstado(estado));
+            return response.body(solicitudRepository.findByEstado(estado));
         }
-        return ResponseEntity.ok(solicitudRepository.findAll());
+        return response.body(solicitudRepository.findAll());
     }
 }
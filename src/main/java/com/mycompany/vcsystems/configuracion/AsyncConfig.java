@@ -0,0 +1,104 @@
+package com.mycompany.vcsystems.configuracion;
+
+import com.mycompany.vcsystems.modelo.service.NotificacionMetricas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+@Slf4j
+/**
+ * Ejecutor de las notificaciones (@Async("notificacionExecutor")): pool con
+ * cola acotada para que un servidor SMTP lento no frene a quien publica el
+ * evento. Cuando la cola se llena se aplica la política configurada:
+ * RECHAZAR (la tarea falla y el outbox la vuelve a entregar más tarde),
+ * EJECUTAR_EN_LLAMADOR (contrapresión sobre el relay) o DESCARTAR (el futuro
+ * no se completa y el relay reintenta la fila al vencer su espera).
+ * Los resúmenes de email tienen su propio hilo (emailExecutor) para que un
+ * SMTP lento no ocupe el planificador compartido de las tareas periódicas.
+ */
+public class AsyncConfig {
+
+    public static final String NOTIFICACION_EXECUTOR = "notificacionExecutor";
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+
+    public enum PoliticaRechazo { RECHAZAR, EJECUTAR_EN_LLAMADOR, DESCARTAR }
+
+    @Value("${app.notificaciones.executor.hilos:4}")
+    private int hilos;
+
+    @Value("${app.notificaciones.executor.max-hilos:16}")
+    private int maxHilos;
+
+    @Value("${app.notificaciones.executor.capacidad:1000}")
+    private int capacidad;
+
+    @Value("${app.notificaciones.executor.politica-rechazo:RECHAZAR}")
+    private PoliticaRechazo politicaRechazo;
+
+    // Hilos virtuales (requiere Java 21); el pool sigue acotando la concurrencia
+    @Value("${app.notificaciones.executor.hilos-virtuales:false}")
+    private boolean hilosVirtuales;
+
+    @Value("${app.notificaciones.executor.espera-cierre-segundos:30}")
+    private int esperaCierreSegundos;
+
+    @Bean(name = NOTIFICACION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificacionExecutor(NotificacionMetricas metricas) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(Math.max(hilos, maxHilos));
+        executor.setQueueCapacity(capacidad);
+        executor.setThreadNamePrefix("notificacion-");
+        if (hilosVirtuales) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("notificacion-").getVirtualThreadFactory());
+        }
+        executor.setTaskDecorator(metricas);
+        executor.setRejectedExecutionHandler(rechazo(metricas));
+        // Al cerrar se terminan las notificaciones ya encoladas
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(esperaCierreSegundos);
+        executor.initialize();
+        log.info("Ejecutor de notificaciones: {}-{} hilos{}, cola {}, política {}",
+            hilos, Math.max(hilos, maxHilos), hilosVirtuales ? " virtuales" : "", capacidad, politicaRechazo);
+        return executor;
+    }
+
+    /**
+     * Un solo hilo y sin cola: si el envío anterior sigue en curso, el
+     * siguiente disparo se rechaza y lo pendiente sale en la próxima ventana.
+     */
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(esperaCierreSegundos);
+        executor.initialize();
+        return executor;
+    }
+
+    private RejectedExecutionHandler rechazo(NotificacionMetricas metricas) {
+        RejectedExecutionHandler delegado = switch (politicaRechazo) {
+            case RECHAZAR -> new ThreadPoolExecutor.AbortPolicy();
+            case EJECUTAR_EN_LLAMADOR -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DESCARTAR -> new ThreadPoolExecutor.DiscardPolicy();
+        };
+        return (tarea, pool) -> {
+            metricas.registrarRechazo();
+            log.warn("Cola de notificaciones llena ({} tareas), política {}", pool.getQueue().size(), politicaRechazo);
+            delegado.rejectedExecution(tarea, pool);
+        };
+    }
+}
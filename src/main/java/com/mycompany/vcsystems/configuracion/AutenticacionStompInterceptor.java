@@ -0,0 +1,81 @@
+package com.mycompany.vcsystems.configuracion;
+
+import com.mycompany.vcsystems.modelo.service.UsuarioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Autenticación y control de suscripciones STOMP. El usuario normalmente
+ * llega con el handshake (sesión HTTP tras /api/auth/login); los clientes sin
+ * sesión pueden autenticarse en el CONNECT con las cabeceras login/passcode.
+ * Los topics de rol (/topic/rol/{ROL}/...) solo admiten usuarios de ese rol.
+ */
+@Component
+@Slf4j
+public class AutenticacionStompInterceptor implements ChannelInterceptor {
+
+    public static final String PREFIJO_ROL = "/topic/rol/";
+
+    @Autowired
+    @Lazy
+    private UsuarioService usuarioService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT && accessor.getUser() == null) {
+            String login = accessor.getLogin();
+            String passcode = accessor.getPasscode();
+            if (login != null && passcode != null) {
+                usuarioService.autenticarUsuario(login, passcode).ifPresentOrElse(
+                    u -> accessor.setUser(UsernamePasswordAuthenticationToken.authenticated(u.getCorreo(), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + u.getRol().name())))),
+                    () -> {
+                        throw new MessageDeliveryException("Credenciales STOMP inválidas");
+                    });
+            }
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            String destino = accessor.getDestination();
+            if (destino != null && destino.startsWith(PREFIJO_ROL)
+                    && !tieneRol(accessor.getUser(), rolDe(destino))) {
+                log.warn("Suscripción rechazada a {} para {}", destino,
+                    accessor.getUser() != null ? accessor.getUser().getName() : "anónimo");
+                throw new MessageDeliveryException("No autorizado para " + destino);
+            }
+        }
+        return message;
+    }
+
+    // /topic/rol/TECNICO y /topic/rol/TECNICO/incidencias son ambos del rol TECNICO
+    private static String rolDe(String destino) {
+        String resto = destino.substring(PREFIJO_ROL.length());
+        int barra = resto.indexOf('/');
+        return barra >= 0 ? resto.substring(0, barra) : resto;
+    }
+
+    private static boolean tieneRol(Principal user, String rol) {
+        if (!(user instanceof Authentication auth)) {
+            return false;
+        }
+        String autoridad = "ROLE_" + rol;
+        return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(autoridad));
+    }
+}
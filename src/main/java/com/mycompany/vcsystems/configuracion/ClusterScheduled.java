@@ -0,0 +1,34 @@
+package com.mycompany.vcsystems.configuracion;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tarea periódica que debe ejecutarse en un solo nodo. Se usa en lugar de
+ * {@code @Scheduled}: en cada disparo el nodo comprueba (y renueva) la
+ * concesión {@link #lease()} en job_lease y solo ejecuta el método si es suya;
+ * los demás nodos no hacen nada. Los métodos que comparten lease corren todos
+ * en el mismo nodo.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ClusterScheduled {
+
+    /**
+     * Nombre de la concesión; por defecto Clase.metodo.
+     */
+    String lease() default "";
+
+    /**
+     * Espera entre ejecuciones, en ms o ISO-8601 (admite ${...}).
+     */
+    String fixedDelayString() default "";
+
+    String initialDelayString() default "";
+
+    String cron() default "";
+}
@@ -0,0 +1,115 @@
+package com.mycompany.vcsystems.configuracion;
+
+import com.mycompany.vcsystems.modelo.service.JobLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registra los métodos {@link ClusterScheduled} como tareas del planificador
+ * de @Scheduled, envueltas en la comprobación de la concesión: en cada disparo
+ * solo el nodo que tiene el lease ejecuta el método.
+ */
+@Component
+@Slf4j
+public class ClusterScheduledProcessor implements BeanPostProcessor, SchedulingConfigurer, EmbeddedValueResolverAware {
+
+    private record Tarea(String lease, Object bean, Method metodo, ClusterScheduled anotacion) {
+    }
+
+    // Se resuelve al registrar las tareas: un BeanPostProcessor no debe crear beans de servicio antes de tiempo
+    private final ObjectProvider<JobLeaseService> jobLeaseService;
+
+    private final List<Tarea> tareas = new ArrayList<>();
+    private StringValueResolver resolver;
+
+    public ClusterScheduledProcessor(ObjectProvider<JobLeaseService> jobLeaseService) {
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> clase = AopUtils.getTargetClass(bean);
+        Map<Method, ClusterScheduled> anotados = MethodIntrospector.selectMethods(clase,
+            (MethodIntrospector.MetadataLookup<ClusterScheduled>) m ->
+                AnnotatedElementUtils.findMergedAnnotation(m, ClusterScheduled.class));
+        anotados.forEach((metodo, anotacion) -> {
+            if (metodo.getParameterCount() > 0) {
+                throw new IllegalStateException("@ClusterScheduled requiere un método sin parámetros: " + metodo);
+            }
+            String lease = StringUtils.hasText(anotacion.lease())
+                ? anotacion.lease() : clase.getSimpleName() + "." + metodo.getName();
+            Method invocable = AopUtils.selectInvocableMethod(metodo, bean.getClass());
+            ReflectionUtils.makeAccessible(invocable);
+            synchronized (tareas) {
+                tareas.add(new Tarea(lease, bean, invocable, anotacion));
+            }
+        });
+        return bean;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        JobLeaseService leases = jobLeaseService.getObject();
+        synchronized (tareas) {
+            for (Tarea tarea : tareas) {
+                Runnable ejecucion = () -> ejecutar(leases, tarea);
+                ClusterScheduled a = tarea.anotacion();
+                if (StringUtils.hasText(a.cron())) {
+                    registrar.addCronTask(ejecucion, resolver.resolveStringValue(a.cron()));
+                } else {
+                    Duration intervalo = duracion(a.fixedDelayString());
+                    Duration inicial = StringUtils.hasText(a.initialDelayString())
+                        ? duracion(a.initialDelayString()) : Duration.ZERO;
+                    registrar.addFixedDelayTask(new FixedDelayTask(ejecucion, intervalo, inicial));
+                }
+                log.debug("Tarea de clúster {} registrada ({})", tarea.lease(), tarea.metodo());
+            }
+        }
+    }
+
+    private static void ejecutar(JobLeaseService leases, Tarea tarea) {
+        if (!leases.adquirir(tarea.lease())) {
+            return;
+        }
+        try {
+            tarea.metodo().invoke(tarea.bean());
+        } catch (InvocationTargetException e) {
+            log.error("Error en la tarea de clúster {}", tarea.lease(), e.getTargetException());
+        } catch (IllegalAccessException e) {
+            log.error("No se pudo invocar la tarea de clúster {}", tarea.lease(), e);
+        }
+    }
+
+    private Duration duracion(String valor) {
+        String resuelto = resolver != null ? resolver.resolveStringValue(valor) : valor;
+        if (!StringUtils.hasText(resuelto)) {
+            throw new IllegalStateException("@ClusterScheduled requiere cron o fixedDelayString");
+        }
+        return resuelto.startsWith("P") || resuelto.startsWith("p")
+            ? Duration.parse(resuelto) : Duration.ofMillis(Long.parseLong(resuelto.trim()));
+    }
+}
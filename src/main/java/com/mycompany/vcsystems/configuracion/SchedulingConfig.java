@@ -0,0 +1,12 @@
+package com.mycompany.vcsystems.configuracion;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+/**
+ * Habilita las tareas periódicas (@Scheduled) de la aplicación
+ */
+public class SchedulingConfig {
+}
@@ -1,27 +1,114 @@
 package com.mycompany.vcsystems.configuracion;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 /**
+ * Broker STOMP en memoria. Los canales de entrada y salida tienen pools y
+ * colas acotados, el broker envía heartbeats con su propio planificador (no
+ * compite con las tareas @Scheduled) y cada sesión tiene un límite de tiempo
+ * y de buffer de envío: un navegador lento que los supera se desconecta en
+ * lugar de retener los hilos de salida del resto.
  *
  * @author MatiasCarmen
  */
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer, DisposableBean {
+
+    @Autowired
+    private AutenticacionStompInterceptor autenticacionStompInterceptor;
+
+    @Value("${app.websocket.entrada.hilos:4}")
+    private int hilosEntrada;
+
+    @Value("${app.websocket.entrada.max-hilos:16}")
+    private int maxHilosEntrada;
+
+    @Value("${app.websocket.entrada.capacidad:10000}")
+    private int capacidadEntrada;
+
+    @Value("${app.websocket.salida.hilos:8}")
+    private int hilosSalida;
+
+    @Value("${app.websocket.salida.max-hilos:32}")
+    private int maxHilosSalida;
+
+    @Value("${app.websocket.salida.capacidad:50000}")
+    private int capacidadSalida;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${app.websocket.envio.limite-ms:10000}")
+    private int limiteEnvioMs;
+
+    @Value("${app.websocket.envio.buffer-bytes:524288}")
+    private int bufferEnvioBytes;
+
+    @Value("${app.websocket.mensaje.max-bytes:65536}")
+    private int maxBytesMensaje;
+
+    private final ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+        heartbeatScheduler.initialize();
+
+        // /topic para roles, /queue para los mensajes de cada usuario (/user/queue/...)
+        config.enableSimpleBroker("/topic", "/queue")
+            .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+            .setTaskScheduler(heartbeatScheduler);
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+        // Con varios hilos de salida, los mensajes de una misma sesión se entregan en orden de publicación
+        // (los deltas de incidencias dependen de ello para detectar huecos)
+        config.setPreservePublishOrder(true);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(autenticacionStompInterceptor);
+        registration.taskExecutor()
+            .corePoolSize(hilosEntrada)
+            .maxPoolSize(maxHilosEntrada)
+            .queueCapacity(capacidadEntrada);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+            .corePoolSize(hilosSalida)
+            .maxPoolSize(maxHilosSalida)
+            .queueCapacity(capacidadSalida);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+            .setSendTimeLimit(limiteEnvioMs)
+            .setSendBufferSizeLimit(bufferEnvioBytes)
+            .setMessageSizeLimit(maxBytesMensaje);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeatScheduler.shutdown();
+    }
 }
@@ -0,0 +1,32 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación de incidencias. Los totales son acumulados:
+ * incluyen lo procesado en ejecuciones anteriores de la misma importación.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionResultado {
+
+    private String idImportacion;
+    private long filasProcesadas;
+    private long importadas;
+    private long rechazadas;
+    // Filas saltadas en esta ejecución porque ya se habían procesado antes
+    private long omitidas;
+    private boolean completada;
+    private long duracionMs;
+    // Solo las primeras filas rechazadas de esta ejecución
+    private List<Rechazo> rechazos = new ArrayList<>();
+
+    public record Rechazo(long fila, String motivo) {
+    }
+}
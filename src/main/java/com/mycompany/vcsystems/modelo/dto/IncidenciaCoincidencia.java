@@ -0,0 +1,20 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de la búsqueda de texto sobre la descripción de incidencias.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidenciaCoincidencia {
+
+    private Long idIncidencia;
+    private Incidencia.Estado estado;
+    private String descripcion;
+    private double score;
+}
@@ -0,0 +1,60 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cambio de una incidencia en el flujo de deltas de los técnicos. secuencia
+ * crece de uno en uno; FILA trae la fila completa (la primera vez que se
+ * publica la incidencia), CAMBIO solo los campos listados en campos (el resto
+ * va nulo y no se serializa), BAJA solo el id y RECARGAR indica que el
+ * cliente debe volver a pedir sus listas.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IncidenciaDelta(long secuencia, Tipo tipo, Long idIncidencia, List<String> campos,
+                              Incidencia.Estado estado, Incidencia.Prioridad prioridad, String descripcion,
+                              String nombreEmpresa, Long idTecnico, LocalDateTime creadoAt) {
+
+    public enum Tipo { FILA, CAMBIO, BAJA, RECARGAR }
+
+    public static IncidenciaDelta fila(long secuencia, IncidenciaTrabajo t) {
+        return new IncidenciaDelta(secuencia, Tipo.FILA, t.idIncidencia(), null, t.estado(), t.prioridad(),
+            t.descripcion(), t.nombreEmpresa(), t.idTecnico(), t.creadoAt());
+    }
+
+    /**
+     * Solo los campos de {@code actual} que difieren de la última versión publicada.
+     */
+    public static IncidenciaDelta cambio(long secuencia, IncidenciaTrabajo anterior, IncidenciaTrabajo actual) {
+        List<String> campos = new ArrayList<>();
+        Incidencia.Estado estado = distinto(campos, "estado", anterior.estado(), actual.estado());
+        Incidencia.Prioridad prioridad = distinto(campos, "prioridad", anterior.prioridad(), actual.prioridad());
+        String descripcion = distinto(campos, "descripcion", anterior.descripcion(), actual.descripcion());
+        String nombreEmpresa = distinto(campos, "nombreEmpresa", anterior.nombreEmpresa(), actual.nombreEmpresa());
+        Long idTecnico = distinto(campos, "idTecnico", anterior.idTecnico(), actual.idTecnico());
+        LocalDateTime creadoAt = distinto(campos, "creadoAt", anterior.creadoAt(), actual.creadoAt());
+        return new IncidenciaDelta(secuencia, Tipo.CAMBIO, actual.idIncidencia(), campos,
+            estado, prioridad, descripcion, nombreEmpresa, idTecnico, creadoAt);
+    }
+
+    public static IncidenciaDelta baja(long secuencia, Long idIncidencia) {
+        return new IncidenciaDelta(secuencia, Tipo.BAJA, idIncidencia, null, null, null, null, null, null, null);
+    }
+
+    public static IncidenciaDelta recargar(long secuencia) {
+        return new IncidenciaDelta(secuencia, Tipo.RECARGAR, null, null, null, null, null, null, null, null);
+    }
+
+    private static <T> T distinto(List<String> campos, String campo, T anterior, T actual) {
+        if (Objects.equals(anterior, actual)) {
+            return null;
+        }
+        campos.add(campo);
+        return actual;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+
+/**
+ * Estado y técnico actuales de una incidencia, leídos sin cargar la entidad.
+ * Sirve como valor esperado para las actualizaciones condicionales e incluye
+ * los datos mínimos que necesitan los eventos (falla y correo del cliente).
+ */
+public record IncidenciaEstadoActual(Long idIncidencia, Incidencia.Estado estado, Long idTecnico,
+                                     String nombreTecnico, Long idFalla, String correoCliente) {
+
+    public boolean tieneTecnico() {
+        return idTecnico != null;
+    }
+
+    public IncidenciaEstadoActual conEstado(Incidencia.Estado nuevoEstado) {
+        return new IncidenciaEstadoActual(idIncidencia, nuevoEstado, idTecnico, nombreTecnico, idFalla, correoCliente);
+    }
+
+    public IncidenciaEstadoActual conTecnico(Long nuevoIdTecnico, String nuevoNombreTecnico) {
+        return new IncidenciaEstadoActual(idIncidencia, estado, nuevoIdTecnico, nuevoNombreTecnico, idFalla, correoCliente);
+    }
+}
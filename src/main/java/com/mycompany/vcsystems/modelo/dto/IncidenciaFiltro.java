@@ -0,0 +1,27 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criterios opcionales para la búsqueda de incidencias.
+ * Los campos nulos no se aplican como filtro.
+ */
+@Data
+public class IncidenciaFiltro {
+
+    private Incidencia.Estado estado;
+    private Incidencia.Prioridad prioridad;
+    private Long tecnico;
+    private Long cliente;
+    private Long falla;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime desde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime hasta;
+}
@@ -0,0 +1,22 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de incidencias obtenida por keyset.
+ * nextCursor es null cuando no quedan más resultados.
+ */
+@Getter
+@AllArgsConstructor
+public class IncidenciaPagina {
+
+    private final List<IncidenciaResumen> items;
+    private final String nextCursor;
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+
+import java.time.LocalDateTime;
+
+/**
+ * Datos de una incidencia abierta para calcular su plazo de SLA. slaEscaladoAt
+ * es nulo si nunca se escaló.
+ */
+public record IncidenciaPlazo(Long idIncidencia, Incidencia.Estado estado, Incidencia.Prioridad prioridad,
+                              LocalDateTime creadoAt, LocalDateTime actualizadoAt, String correoTecnico,
+                              LocalDateTime slaEscaladoAt) {
+}
@@ -0,0 +1,26 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección ligera de una incidencia para los listados.
+ * Se construye directamente desde JPQL, sin cargar el grafo de entidades.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidenciaResumen {
+
+    private Long idIncidencia;
+    private Incidencia.Estado estado;
+    private Incidencia.Prioridad prioridad;
+    private String descripcion;
+    private String nombreEmpresa;
+    private String nombreTecnico;
+    private LocalDateTime creadoAt;
+}
@@ -0,0 +1,14 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada de la cola de trabajo de los técnicos. Es inmutable porque se guarda
+ * en conjuntos ordenados: para reflejar un cambio se reemplaza la entrada completa.
+ */
+public record IncidenciaTrabajo(Long idIncidencia, Incidencia.Estado estado, Incidencia.Prioridad prioridad,
+                                String descripcion, String nombreEmpresa, Long idTecnico,
+                                LocalDateTime creadoAt) {
+}
@@ -0,0 +1,22 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Una operación dentro de una petición masiva: asignar técnico o cambiar estado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionMasiva {
+
+    public enum Tipo { ASIGNAR_TECNICO, CAMBIAR_ESTADO }
+
+    private Tipo tipo;
+    private Long idIncidencia;
+    private Long idTecnico;
+    private Incidencia.Estado estado;
+}
@@ -0,0 +1,30 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import com.mycompany.vcsystems.modelo.service.IncidenciaOperationResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una operación masiva, en la misma posición que la operación pedida.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionMasivaResultado {
+
+    private Long idIncidencia;
+    private OperacionMasiva.Tipo tipo;
+    private boolean success;
+    private String message;
+    private String code;
+
+    public static OperacionMasivaResultado exito(OperacionMasiva operacion) {
+        return new OperacionMasivaResultado(operacion.getIdIncidencia(), operacion.getTipo(), true, "Operación exitosa", null);
+    }
+
+    public static OperacionMasivaResultado de(OperacionMasiva operacion, IncidenciaOperationResult result) {
+        return new OperacionMasivaResultado(operacion.getIdIncidencia(), operacion.getTipo(),
+            result.isSuccess(), result.getMessage(), result.getErrorCode());
+    }
+}
@@ -0,0 +1,11 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta a "reanudar desde la secuencia N": los deltas perdidos, o
+ * recargar=true si ya no están en el buffer (o el servidor se reinició y
+ * cambió la época). ultima es la secuencia desde la que seguir.
+ */
+public record ReanudacionDeltas(String epoca, long ultima, boolean recargar, List<IncidenciaDelta> deltas) {
+}
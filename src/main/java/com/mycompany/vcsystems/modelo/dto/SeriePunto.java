@@ -0,0 +1,21 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Punto de una serie temporal de incidencias: inicio del periodo,
+ * valor de la dimensión agrupada (estado, id de falla o id de técnico) y total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeriePunto {
+
+    private LocalDate periodo;
+    private String clave;
+    private long total;
+}
@@ -0,0 +1,31 @@
+package com.mycompany.vcsystems.modelo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Huella de la tabla de solicitudes: número de filas y última modificación.
+ * Se lee de la base de datos, así que todos los nodos calculan el mismo ETag
+ * sin tener que avisarse de las escrituras.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionSolicitudes {
+
+    private long total;
+    private LocalDateTime ultimaModificacion;
+
+    public long ultimaModificacionMillis() {
+        return ultimaModificacion == null ? 0L
+                : ultimaModificacion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public String etag() {
+        return "solicitudes-" + total + "-" + ultimaModificacionMillis();
+    }
+}
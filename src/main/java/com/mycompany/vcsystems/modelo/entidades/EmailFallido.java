@@ -0,0 +1,45 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_fallido")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Email descartado tras agotar los reintentos (dead-letter). Un administrador
+ * puede devolverlo a la cola de reintentos desde /api/notificaciones/fallidas.
+ */
+public class EmailFallido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_fallido")
+    private Long idFallido;
+
+    @Column(name = "destinatario", nullable = false)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false)
+    private String asunto;
+
+    @Lob
+    @Column(name = "contenido", columnDefinition = "TEXT", nullable = false)
+    private String contenido;
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "creado_at", nullable = false)
+    private LocalDateTime creadoAt;
+
+    @Column(name = "fallido_at", nullable = false)
+    private LocalDateTime fallidoAt;
+}
@@ -0,0 +1,46 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_reintento", indexes = {
+    @Index(name = "idx_reintento_proximo", columnList = "proximo_intento_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Email cuyo envío falló y espera un nuevo intento (ReintentoEmailService).
+ */
+public class EmailReintento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reintento")
+    private Long idReintento;
+
+    @Column(name = "destinatario", nullable = false)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false)
+    private String asunto;
+
+    @Lob
+    @Column(name = "contenido", columnDefinition = "TEXT", nullable = false)
+    private String contenido;
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "proximo_intento_at", nullable = false)
+    private LocalDateTime proximoIntentoAt;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "creado_at", nullable = false)
+    private LocalDateTime creadoAt;
+}
@@ -0,0 +1,35 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_resumen")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Email en espera del próximo resumen de su destinatario (ResumenEmailService).
+ */
+public class EmailResumen {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_resumen")
+    private Long idResumen;
+
+    @Column(name = "destinatario", nullable = false)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false)
+    private String asunto;
+
+    @Lob
+    @Column(name = "contenido", columnDefinition = "TEXT", nullable = false)
+    private String contenido;
+
+    @Column(name = "creado_at", nullable = false)
+    private LocalDateTime creadoAt;
+}
@@ -0,0 +1,39 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "importacion_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Avance de una importación masiva de incidencias. Se actualiza en la misma
+ * transacción que cada tramo insertado, así que al reanudar se continúa
+ * exactamente después de la última fila confirmada.
+ */
+public class ImportacionCheckpoint {
+
+    @Id
+    @Column(name = "id_importacion", length = 100)
+    private String idImportacion;
+
+    // Filas de datos ya procesadas (importadas o rechazadas), sin contar la cabecera
+    @Column(name = "filas_procesadas", nullable = false)
+    private long filasProcesadas;
+
+    @Column(name = "importadas", nullable = false)
+    private long importadas;
+
+    @Column(name = "rechazadas", nullable = false)
+    private long rechazadas;
+
+    @Column(name = "completada", nullable = false)
+    private boolean completada;
+
+    @Column(name = "actualizado_at", nullable = false)
+    private LocalDateTime actualizadoAt;
+}
@@ -10,7 +10,27 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "incidencia")
+@NamedEntityGraph(name = Incidencia.GRAFO_DETALLE,
+    attributeNodes = {
+        @NamedAttributeNode(value = "cliente", subgraph = "cliente-usuario"),
+        @NamedAttributeNode("tecnico"),
+        @NamedAttributeNode("falla")
+    },
+    subgraphs = @NamedSubgraph(name = "cliente-usuario", attributeNodes = @NamedAttributeNode("usuario")))
+@NamedEntityGraph(name = Incidencia.GRAFO_NOTIFICACION,
+    attributeNodes = {
+        @NamedAttributeNode(value = "cliente", subgraph = "cliente-usuario"),
+        @NamedAttributeNode("tecnico")
+    },
+    subgraphs = @NamedSubgraph(name = "cliente-usuario", attributeNodes = @NamedAttributeNode("usuario")))
+@Table(name = "incidencia", indexes = {
+    @Index(name = "idx_incidencia_creado", columnList = "creado_at, id_incidencia"),
+    @Index(name = "idx_incidencia_estado_creado", columnList = "estado, creado_at, id_incidencia"),
+    @Index(name = "idx_incidencia_tecnico_estado", columnList = "id_tecnico, estado, creado_at"),
+    @Index(name = "idx_incidencia_cliente_creado", columnList = "id_cliente, creado_at"),
+    @Index(name = "idx_incidencia_falla_creado", columnList = "id_falla, creado_at"),
+    @Index(name = "idx_incidencia_prioridad_creado", columnList = "prioridad, creado_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,20 +41,30 @@ import java.time.LocalDateTime;
  */
 public class Incidencia {
 
+    // Grafos de carga por caso de uso; por defecto las asociaciones son LAZY
+    public static final String GRAFO_DETALLE = "Incidencia.detalle";
+    public static final String GRAFO_NOTIFICACION = "Incidencia.notificacion";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_incidencia")
     private Long idIncidencia;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "id_cliente", nullable = false)
     private Cliente cliente;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "id_tecnico")
     private Usuario tecnico;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "id_falla")
     private DiccionarioFallas falla;
 
@@ -42,6 +72,10 @@ public class Incidencia {
     @Column(name = "estado", nullable = false)
     private Estado estado;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "prioridad")
+    private Prioridad prioridad;
+
     @NotBlank
     @Column(name = "descripcion", nullable = false)
     private String descripcion;
@@ -54,6 +88,10 @@ public class Incidencia {
     @Column(name = "actualizado_at", nullable = false)
     private LocalDateTime actualizadoAt;
 
+    // Cuándo se escaló el SLA del plazo en curso; solo lo escribe SlaIncidenciasService
+    @Column(name = "sla_escalado_at", insertable = false, updatable = false)
+    private LocalDateTime slaEscaladoAt;
+
     public enum Estado {
         PENDIENTE,
         ASIGNADA,
@@ -61,4 +99,10 @@ public class Incidencia {
         RESUELTA,
         CERRADA
     }
+
+    public enum Prioridad {
+        BAJA,
+        MEDIA,
+        ALTA
+    }
 }
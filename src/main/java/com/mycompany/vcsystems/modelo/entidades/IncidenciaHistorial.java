@@ -0,0 +1,47 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "incidencia_historial", indexes = {
+    @Index(name = "idx_historial_incidencia", columnList = "id_incidencia, id_historial")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Registro inmutable de una transición de incidencia. La tabla solo recibe
+ * INSERT (desde IncidenciaHistorialService); nunca se actualiza ni se borra.
+ */
+public class IncidenciaHistorial {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_historial")
+    private Long idHistorial;
+
+    @Column(name = "id_incidencia", nullable = false)
+    private Long idIncidencia;
+
+    // null en el alta de la incidencia
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_anterior")
+    private Incidencia.Estado estadoAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_nuevo", nullable = false)
+    private Incidencia.Estado estadoNuevo;
+
+    @Column(name = "id_tecnico")
+    private Long idTecnico;
+
+    // Correo del usuario autenticado, o "sistema" para tareas internas
+    @Column(name = "actor", nullable = false, length = 100)
+    private String actor;
+
+    @Column(name = "registrado_at", nullable = false, updatable = false)
+    private LocalDateTime registradoAt;
+}
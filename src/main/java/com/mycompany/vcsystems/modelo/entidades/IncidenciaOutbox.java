@@ -0,0 +1,62 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "incidencia_outbox", indexes = {
+    @Index(name = "idx_outbox_pendientes", columnList = "procesado_at, id_outbox")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Evento de incidencia pendiente de entregar a los listeners de notificación.
+ * Se inserta en la misma transacción que el cambio y lo marca como procesado
+ * el relay de IncidenciaOutboxService (entrega al menos una vez).
+ * Si agota sus intentos queda como fallido hasta que un administrador la reencola.
+ */
+public class IncidenciaOutbox {
+
+    public enum Tipo { CREADA, TECNICO_ASIGNADO, ESTADO_CAMBIADO, MASIVA }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_outbox")
+    private Long idOutbox;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private Tipo tipo;
+
+    // null para las operaciones masivas, que abarcan varias incidencias
+    @Column(name = "id_incidencia")
+    private Long idIncidencia;
+
+    // Datos del evento en JSON (estados, técnico, cambios de la operación masiva)
+    @Lob
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "creado_at", nullable = false)
+    private LocalDateTime creadoAt;
+
+    @Column(name = "procesado_at")
+    private LocalDateTime procesadoAt;
+
+    // Hasta cuándo la fila está reservada por el relay que la está entregando
+    @Column(name = "reclamado_hasta")
+    private LocalDateTime reclamadoHasta;
+
+    // Cuándo agotó sus intentos; el relay ya no la toma hasta que se reencola
+    @Column(name = "fallido_at")
+    private LocalDateTime fallidoAt;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+}
@@ -0,0 +1,52 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "incidencia_rollup_diaria")
+@IdClass(IncidenciaRollupDiaria.RollupId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Agregado diario de incidencias que entraron a cada estado, por falla y técnico.
+ * Las incidencias sin falla o sin técnico se guardan con id 0.
+ */
+public class IncidenciaRollupDiaria {
+
+    public static final long SIN_ASIGNAR = 0L;
+
+    @Id
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    private Incidencia.Estado estado;
+
+    @Id
+    @Column(name = "id_falla", nullable = false)
+    private Long idFalla;
+
+    @Id
+    @Column(name = "id_tecnico", nullable = false)
+    private Long idTecnico;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RollupId implements Serializable {
+        private LocalDate dia;
+        private Incidencia.Estado estado;
+        private Long idFalla;
+        private Long idTecnico;
+    }
+}
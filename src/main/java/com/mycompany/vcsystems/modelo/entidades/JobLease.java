@@ -0,0 +1,34 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "job_lease")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Concesión temporal de una tarea programada a un nodo (JobLeaseService).
+ * Solo el nodo titular ejecuta la tarea mientras expira_at no haya pasado.
+ */
+public class JobLease {
+
+    @Id
+    @Column(name = "nombre", length = 100)
+    private String nombre;
+
+    @Column(name = "nodo", nullable = false, length = 64)
+    private String nodo;
+
+    @Column(name = "expira_at", nullable = false)
+    private LocalDateTime expiraAt;
+
+    @Column(name = "adquirido_at", nullable = false)
+    private LocalDateTime adquiridoAt;
+
+    @Column(name = "renovado_at", nullable = false)
+    private LocalDateTime renovadoAt;
+}
@@ -0,0 +1,49 @@
+package com.mycompany.vcsystems.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "relay_mensaje", indexes = {
+    @Index(name = "idx_relay_creado", columnList = "creado_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Mensaje WebSocket publicado por un nodo para que lo entreguen los demás
+ * (RelayWebSocketBaseDatos). Se purga pasados unos minutos.
+ */
+public class RelayMensaje {
+
+    public enum Tipo {
+        USUARIO, TOPIC, INCIDENCIAS, RECARGA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_mensaje")
+    private Long idMensaje;
+
+    @Column(name = "nodo", nullable = false, length = 64)
+    private String nodo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false)
+    private Tipo tipo;
+
+    @Column(name = "destino")
+    private String destino;
+
+    @Column(name = "usuario")
+    private String usuario;
+
+    @Lob
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "creado_at", nullable = false)
+    private LocalDateTime creadoAt;
+}
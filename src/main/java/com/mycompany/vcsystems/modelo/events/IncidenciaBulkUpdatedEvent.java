@@ -0,0 +1,56 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Evento único publicado tras aplicar una operación masiva,
+ * con todos los cambios confirmados en lugar de un evento por incidencia.
+ */
+public class IncidenciaBulkUpdatedEvent extends ApplicationEvent {
+
+    /**
+     * Cambio aplicado a una incidencia. tecnicoAsignado solo viene informado
+     * cuando la operación fue una asignación.
+     */
+    public record Cambio(Long idIncidencia, Long idFalla, Long idTecnico, String correoCliente,
+                         Incidencia.Estado estadoAnterior, Incidencia.Estado estadoNuevo,
+                         Usuario tecnicoAsignado) {
+
+        public boolean esAsignacion() {
+            return tecnicoAsignado != null;
+        }
+    }
+
+    private final List<Cambio> cambios;
+
+    public IncidenciaBulkUpdatedEvent(Object source, List<Cambio> cambios) {
+        super(source);
+        this.cambios = List.copyOf(cambios);
+    }
+
+    public List<Cambio> getCambios() {
+        return cambios;
+    }
+
+    // Ids de incidencias asignadas, agrupados por correo del técnico
+    public Map<String, List<Long>> asignacionesPorTecnico() {
+        return cambios.stream()
+            .filter(Cambio::esAsignacion)
+            .collect(Collectors.groupingBy(c -> c.tecnicoAsignado().getCorreo(), LinkedHashMap::new,
+                Collectors.mapping(Cambio::idIncidencia, Collectors.toList())));
+    }
+
+    // Cambios de estado (no asignaciones), agrupados por correo del cliente
+    public Map<String, List<Cambio>> cambiosDeEstadoPorCliente() {
+        return cambios.stream()
+            .filter(c -> !c.esAsignacion() && c.correoCliente() != null)
+            .collect(Collectors.groupingBy(Cambio::correoCliente, LinkedHashMap::new, Collectors.toList()));
+    }
+}
@@ -1,15 +1,25 @@
 package com.mycompany.vcsystems.modelo.events;
 
+import com.mycompany.vcsystems.configuracion.AsyncConfig;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
 import com.mycompany.vcsystems.modelo.service.NotificacionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 /**
  * Listener que maneja los eventos de incidencias y envía notificaciones
- * de forma desacoplada del servicio principal
+ * de forma desacoplada del servicio principal. No escucha los eventos en
+ * proceso: los recibe del relay del outbox (IncidenciaOutboxService) una vez
+ * confirmada la transacción que los originó. El envío corre en el ejecutor
+ * acotado de notificaciones (ver AsyncConfig), fuera del hilo del relay; cada
+ * handler devuelve un futuro que se completa al terminar el envío.
  */
 @Component
 @Slf4j
@@ -22,85 +32,118 @@ public class IncidenciaEventListener {
     @Autowired
     private NotificacionService notificacionService;
 
+    // Los errores de envío no se capturan aquí: completan el futuro con error y el relay,
+    // que espera cada futuro antes de marcar la fila, suma el intento y la reintenta
+
     /**
      * Maneja el evento de creación de incidencia
      */
-    @EventListener
-    @Async
-    public void handleIncidenciaCreated(IncidenciaCreatedEvent event) {
-        try {
-            log.info("Procesando evento de incidencia creada: {}", event.getIncidencia().getIdIncidencia());
-
-            notificacionService.notificarIncidencia(
-                event.getNotificationRecipient(),
-                event.getNotificationSubject(),
-                event.getNotificationMessage()
-            );
-
-            log.debug("Notificación enviada exitosamente para incidencia creada: {}",
-                event.getIncidencia().getIdIncidencia());
-
-        } catch (Exception e) {
-            log.error("Error enviando notificación para incidencia creada: {}",
-                event.getIncidencia().getIdIncidencia(), e);
-        }
+    @Async(AsyncConfig.NOTIFICACION_EXECUTOR)
+    public CompletableFuture<Void> handleIncidenciaCreated(IncidenciaCreatedEvent event) {
+        log.info("Procesando evento de incidencia creada: {}", event.getIncidencia().getIdIncidencia());
+
+        notificacionService.notificarIncidencia(
+            event.getNotificationRecipient(),
+            event.getNotificationSubject(),
+            event.getNotificationMessage()
+        );
+        // Los gerentes conectados la ven en su topic de rol
+        notificacionService.notificarRol(Usuario.Rol.GERENTE,
+            event.getNotificationSubject(), event.getNotificationMessage());
+
+        log.debug("Notificación enviada exitosamente para incidencia creada: {}",
+            event.getIncidencia().getIdIncidencia());
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
      * Maneja el evento de asignación de técnico
      */
-    @EventListener
-    @Async
-    public void handleTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
-        try {
-            log.info("Procesando evento de técnico asignado para incidencia: {}",
+    @Async(AsyncConfig.NOTIFICACION_EXECUTOR)
+    public CompletableFuture<Void> handleTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        log.info("Procesando evento de técnico asignado para incidencia: {}",
+            event.getIncidencia().getIdIncidencia());
+
+        notificacionService.notificarIncidencia(
+            event.getNotificationRecipient(),
+            event.getNotificationSubject(),
+            event.getNotificationMessage()
+        );
+
+        log.debug("Notificación de asignación enviada exitosamente a técnico: {}",
+            event.getTecnico().getCorreo());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Maneja el evento de cambio de estado
+     */
+    @Async(AsyncConfig.NOTIFICACION_EXECUTOR)
+    public CompletableFuture<Void> handleStatusChanged(IncidenciaStatusChangedEvent event) {
+        String recipient = event.getNotificationRecipient();
+        if (recipient == null) {
+            log.warn("No se encontró destinatario para notificación de cambio de estado de incidencia: {}",
                 event.getIncidencia().getIdIncidencia());
+            return CompletableFuture.completedFuture(null);
+        }
 
-            notificacionService.notificarIncidencia(
-                event.getNotificationRecipient(),
-                event.getNotificationSubject(),
-                event.getNotificationMessage()
-            );
+        log.info("Procesando evento de cambio de estado para incidencia: {} de {} a {}",
+            event.getIncidencia().getIdIncidencia(),
+            event.getEstadoAnterior(),
+            event.getNuevoEstado());
 
-            log.debug("Notificación de asignación enviada exitosamente a técnico: {}",
-                event.getTecnico().getCorreo());
+        notificacionService.notificarIncidencia(
+            recipient,
+            event.getNotificationSubject(),
+            event.getNotificationMessage()
+        );
 
-        } catch (Exception e) {
-            log.error("Error enviando notificación de asignación para incidencia: {}",
-                event.getIncidencia().getIdIncidencia(), e);
-        }
+        log.debug("Notificación de cambio de estado enviada exitosamente");
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
-     * Maneja el evento de cambio de estado
+     * Maneja el evento de operación masiva: un solo aviso por técnico y por cliente.
+     * Se intenta con todos los destinatarios y, si alguno falló, se propaga el
+     * primer error para que el relay reintente el evento.
      */
-    @EventListener
-    @Async
-    public void handleStatusChanged(IncidenciaStatusChangedEvent event) {
-        try {
-            String recipient = event.getNotificationRecipient();
-            if (recipient == null) {
-                log.warn("No se encontró destinatario para notificación de cambio de estado de incidencia: {}",
-                    event.getIncidencia().getIdIncidencia());
-                return;
+    @Async(AsyncConfig.NOTIFICACION_EXECUTOR)
+    public CompletableFuture<Void> handleBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        log.info("Procesando evento de operación masiva con {} cambios", event.getCambios().size());
+        List<RuntimeException> errores = new ArrayList<>();
+
+        event.asignacionesPorTecnico().forEach((correo, ids) -> {
+            try {
+                notificacionService.notificarIncidencia(correo, "Nuevas Incidencias Asignadas",
+                    "Se te han asignado las incidencias " + formatearIds(ids));
+            } catch (RuntimeException e) {
+                log.error("Error enviando notificación de asignación masiva para incidencias: {}", ids, e);
+                errores.add(e);
             }
+        });
+
+        event.cambiosDeEstadoPorCliente().forEach((correo, cambios) -> {
+            try {
+                String detalle = cambios.stream()
+                    .map(c -> String.format("#%d: %s", c.idIncidencia(), c.estadoNuevo()))
+                    .collect(Collectors.joining(", "));
+                notificacionService.notificarIncidencia(correo, "Actualización de Incidencias",
+                    "Sus incidencias han cambiado de estado: " + detalle);
+            } catch (RuntimeException e) {
+                log.error("Error enviando notificación de cambios de estado masivos", e);
+                errores.add(e);
+            }
+        });
 
-            log.info("Procesando evento de cambio de estado para incidencia: {} de {} a {}",
-                event.getIncidencia().getIdIncidencia(),
-                event.getEstadoAnterior(),
-                event.getNuevoEstado());
-
-            notificacionService.notificarIncidencia(
-                recipient,
-                event.getNotificationSubject(),
-                event.getNotificationMessage()
-            );
-
-            log.debug("Notificación de cambio de estado enviada exitosamente");
-
-        } catch (Exception e) {
-            log.error("Error enviando notificación de cambio de estado para incidencia: {}",
-                event.getIncidencia().getIdIncidencia(), e);
+        if (!errores.isEmpty()) {
+            RuntimeException primero = errores.get(0);
+            errores.subList(1, errores.size()).forEach(primero::addSuppressed);
+            throw primero;
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private String formatearIds(List<Long> ids) {
+        return ids.stream().map(id -> "#" + id).collect(Collectors.joining(", "));
     }
 }
@@ -13,16 +13,26 @@ import com.mycompany.vcsystems.modelo.entidades.Usuario;
 public class IncidenciaTecnicoAssignedEvent extends IncidenciaEvent {
 
     private final Usuario tecnico;
+    private final Incidencia.Estado estadoAnterior;
 
-    public IncidenciaTecnicoAssignedEvent(Object source, Incidencia incidencia, Usuario tecnico) {
+    public IncidenciaTecnicoAssignedEvent(Object source, Incidencia incidencia, Usuario tecnico,
+                                          Incidencia.Estado estadoAnterior) {
         super(source, incidencia, "TECNICO_ASSIGNED");
         this.tecnico = tecnico;
+        this.estadoAnterior = estadoAnterior;
     }
 
     public Usuario getTecnico() {
         return tecnico;
     }
 
+    /**
+     * Estado que tenía la incidencia antes de la asignación
+     */
+    public Incidencia.Estado getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
     public String getNotificationMessage() {
         return String.format("Se te ha asignado la incidencia #%d",
             getIncidencia().getIdIncidencia());
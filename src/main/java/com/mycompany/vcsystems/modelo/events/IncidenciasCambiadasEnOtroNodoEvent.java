@@ -0,0 +1,26 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Otro nodo confirmó cambios en estas incidencias. Lo consumen las vistas en
+ * memoria de este nodo: deltas de técnicos, colas de trabajo, contadores,
+ * índice de búsqueda, versiones de ETag, plazos SLA y despacho. Historial,
+ * outbox y notificaciones ya los procesó el nodo de origen. Las importaciones
+ * llegan como {@link IncidenciasRecargadasEnOtroNodoEvent}.
+ */
+public class IncidenciasCambiadasEnOtroNodoEvent extends ApplicationEvent {
+
+    private final List<Long> idsIncidencia;
+
+    public IncidenciasCambiadasEnOtroNodoEvent(Object source, List<Long> idsIncidencia) {
+        super(source);
+        this.idsIncidencia = List.copyOf(idsIncidencia);
+    }
+
+    public List<Long> getIdsIncidencia() {
+        return idsIncidencia;
+    }
+}
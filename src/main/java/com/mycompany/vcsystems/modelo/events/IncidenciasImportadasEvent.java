@@ -0,0 +1,47 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Evento único publicado al terminar una importación masiva, en lugar de un
+ * evento por fila, desde el hilo de avisos de la importación. No genera
+ * notificaciones: las vistas en memoria releen solo los ids importados y los
+ * rollups reciben las altas ya agregadas por día y falla.
+ */
+public class IncidenciasImportadasEvent extends ApplicationEvent {
+
+    // Altas agregadas (todas entran como PENDIENTE); idFalla null = sin falla
+    public record Altas(LocalDate dia, Long idFalla, long total) {
+    }
+
+    private final String idImportacion;
+    // Ids insertados por esta petición, en el orden del archivo
+    private final List<Long> ids;
+    private final List<Altas> altas;
+
+    public IncidenciasImportadasEvent(Object source, String idImportacion, List<Long> ids, List<Altas> altas) {
+        super(source);
+        this.idImportacion = idImportacion;
+        this.ids = List.copyOf(ids);
+        this.altas = List.copyOf(altas);
+    }
+
+    public String getIdImportacion() {
+        return idImportacion;
+    }
+
+    public long getImportadas() {
+        return ids.size();
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<Altas> getAltas() {
+        return altas;
+    }
+}
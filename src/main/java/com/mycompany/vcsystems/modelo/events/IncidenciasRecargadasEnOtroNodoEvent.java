@@ -0,0 +1,16 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Otro nodo cambió demasiadas incidencias para enumerarlas (una importación).
+ * Las vistas en memoria de este nodo se releen enteras de la BD; las que solo
+ * avisan a los clientes (deltas, versiones de ETag) lo hacen después de las
+ * que reconstruyen.
+ */
+public class IncidenciasRecargadasEnOtroNodoEvent extends ApplicationEvent {
+
+    public IncidenciasRecargadasEnOtroNodoEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Este nodo acaba de tomar la concesión de una tarea de clúster (al arrancar o
+ * porque el titular anterior dejó de renovarla). Permite recargar el estado en
+ * memoria que la tarea necesita antes de su primera ejecución.
+ */
+public class LeaseAdquiridoEvent extends ApplicationEvent {
+
+    private final String lease;
+
+    public LeaseAdquiridoEvent(Object source, String lease) {
+        super(source);
+        this.lease = lease;
+    }
+
+    public String getLease() {
+        return lease;
+    }
+}
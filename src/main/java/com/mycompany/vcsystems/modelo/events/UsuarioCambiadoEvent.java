@@ -0,0 +1,21 @@
+package com.mycompany.vcsystems.modelo.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Se creó o modificó un usuario. Lo escuchan las cachés en memoria que
+ * resuelven usuarios por correo, para no seguir sirviendo un id o un rol viejo.
+ */
+public class UsuarioCambiadoEvent extends ApplicationEvent {
+
+    private final String correo;
+
+    public UsuarioCambiadoEvent(Object source, String correo) {
+        super(source);
+        this.correo = correo;
+    }
+
+    public String getCorreo() {
+        return correo;
+    }
+}
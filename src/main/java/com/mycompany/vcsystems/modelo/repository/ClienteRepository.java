@@ -1,7 +1,10 @@
 package com.mycompany.vcsystems.modelo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
 import com.mycompany.vcsystems.modelo.entidades.Cliente;
 
 @Repository
@@ -10,4 +13,8 @@ import com.mycompany.vcsystems.modelo.entidades.Cliente;
  * @author MatiasCarmen
  */
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+
+    // Id y nombre de empresa de todos los clientes, para resolver referencias en memoria
+    @Query("SELECT c.idCliente, c.nombreEmpresa FROM Cliente c")
+    List<Object[]> findIdYNombreEmpresa();
 }
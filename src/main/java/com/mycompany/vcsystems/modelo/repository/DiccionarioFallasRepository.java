@@ -2,13 +2,20 @@ package com.mycompany.vcsystems.modelo.repository;
 
 import com.mycompany.vcsystems.modelo.entidades.DiccionarioFallas;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 /**
  *
  * @author MatiasCarmen
  */
 public interface DiccionarioFallasRepository extends JpaRepository<DiccionarioFallas, Long> {
+
+    // Id y código de todas las fallas, para resolver referencias en memoria
+    @Query("SELECT f.idFalla, f.codigoFalla FROM DiccionarioFallas f")
+    List<Object[]> findIdYCodigo();
 }
 
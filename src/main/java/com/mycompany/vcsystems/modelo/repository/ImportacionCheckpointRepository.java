@@ -0,0 +1,27 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.entidades.ImportacionCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportacionCheckpointRepository extends JpaRepository<ImportacionCheckpoint, String> {
+
+    // Crea el checkpoint vacío si no existe, para poder bloquear la fila desde el primer tramo
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO importacion_checkpoint (id_importacion, actualizado_at) " +
+                   "VALUES (:id, NOW(6))", nativeQuery = true)
+    int crearSiNoExiste(@Param("id") String idImportacion);
+
+    // SELECT ... FOR UPDATE: serializa los tramos de peticiones con el mismo id de importación
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ImportacionCheckpoint c WHERE c.idImportacion = :id")
+    Optional<ImportacionCheckpoint> findBloqueado(@Param("id") String idImportacion);
+}
@@ -0,0 +1,25 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaHistorial;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+/**
+ * Lecturas del historial de incidencias. Las escrituras se hacen por lotes
+ * con JDBC desde IncidenciaHistorialService.
+ */
+public interface IncidenciaHistorialRepository extends JpaRepository<IncidenciaHistorial, Long> {
+
+    // Historial en orden cronológico, continuando después del último id entregado
+    @Query("SELECT h FROM IncidenciaHistorial h WHERE h.idIncidencia = :idIncidencia " +
+           "AND h.idHistorial > :despuesDe ORDER BY h.idHistorial")
+    List<IncidenciaHistorial> findPagina(@Param("idIncidencia") Long idIncidencia,
+                                         @Param("despuesDe") long despuesDe,
+                                         Limit limit);
+}
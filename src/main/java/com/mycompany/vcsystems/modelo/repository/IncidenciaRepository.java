@@ -1,23 +1,167 @@
 package com.mycompany.vcsystems.modelo.repository;
 
+import com.mycompany.vcsystems.modelo.dto.IncidenciaEstadoActual;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPlazo;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo;
 import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 /**
  *
  * @author MatiasCarmen
  */
-public interface IncidenciaRepository extends JpaRepository<Incidencia, Long> {
+public interface IncidenciaRepository extends JpaRepository<Incidencia, Long>,
+        JpaSpecificationExecutor<Incidencia>, IncidenciaRepositoryCustom {
 
     @Query("SELECT i FROM Incidencia i WHERE i.estado = :estado")
-    List<Incidencia> findByEstado(@Param("estado") String estado);
+    List<Incidencia> findByEstado(@Param("estado") Incidencia.Estado estado);
 
     @Query("SELECT i FROM Incidencia i WHERE i.tecnico.idUsuario = :idTecnico")
     List<Incidencia> findByTecnico_IdUsuario(@Param("idTecnico") Long idTecnico);
+
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaEstadoActual(" +
+           "i.idIncidencia, i.estado, t.idUsuario, t.nombre, f.idFalla, cu.correo) " +
+           "FROM Incidencia i JOIN i.cliente c JOIN c.usuario cu LEFT JOIN i.tecnico t LEFT JOIN i.falla f " +
+           "WHERE i.idIncidencia = :id")
+    Optional<IncidenciaEstadoActual> findEstadoActual(@Param("id") Long id);
+
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaEstadoActual(" +
+           "i.idIncidencia, i.estado, t.idUsuario, t.nombre, f.idFalla, cu.correo) " +
+           "FROM Incidencia i JOIN i.cliente c JOIN c.usuario cu LEFT JOIN i.tecnico t LEFT JOIN i.falla f " +
+           "WHERE i.idIncidencia IN :ids")
+    List<IncidenciaEstadoActual> findEstadosActuales(@Param("ids") Collection<Long> ids);
+
+    // Compare-and-set de la asignación: solo aplica si nadie cambió la fila desde la lectura
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Incidencia i SET i.tecnico = :tecnico, i.estado = :nuevoEstado, i.actualizadoAt = :ahora " +
+           "WHERE i.idIncidencia = :id AND i.tecnico IS NULL AND i.estado = :estadoEsperado")
+    int asignarTecnicoSiLibre(@Param("id") Long id,
+                              @Param("tecnico") Usuario tecnico,
+                              @Param("estadoEsperado") Incidencia.Estado estadoEsperado,
+                              @Param("nuevoEstado") Incidencia.Estado nuevoEstado,
+                              @Param("ahora") LocalDateTime ahora);
+
+    // Compare-and-set de la transición de estado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Incidencia i SET i.estado = :nuevoEstado, i.actualizadoAt = :ahora " +
+           "WHERE i.idIncidencia = :id AND i.estado = :estadoEsperado " +
+           "AND (:requiereTecnico = false OR i.tecnico IS NOT NULL)")
+    int cambiarEstadoSiCoincide(@Param("id") Long id,
+                                @Param("estadoEsperado") Incidencia.Estado estadoEsperado,
+                                @Param("nuevoEstado") Incidencia.Estado nuevoEstado,
+                                @Param("requiereTecnico") boolean requiereTecnico,
+                                @Param("ahora") LocalDateTime ahora);
+
+    // Detalle de una incidencia: cliente (con su usuario), técnico y falla en una sola consulta
+    @EntityGraph(Incidencia.GRAFO_DETALLE)
+    @Query("SELECT i FROM Incidencia i WHERE i.idIncidencia = :id")
+    Optional<Incidencia> findDetalleById(@Param("id") Long id);
+
+    // Carga necesaria para construir las notificaciones de un cambio
+    @EntityGraph(Incidencia.GRAFO_NOTIFICACION)
+    @Query("SELECT i FROM Incidencia i WHERE i.idIncidencia = :id")
+    Optional<Incidencia> findParaNotificacionById(@Param("id") Long id);
+
+    // Exportación completa como proyección, leída con un cursor de solo avance
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaResumen(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.descripcion, c.nombreEmpresa, t.nombre, i.creadoAt) " +
+           "FROM Incidencia i JOIN i.cliente c LEFT JOIN i.tecnico t " +
+           "ORDER BY i.idIncidencia")
+    Stream<IncidenciaResumen> streamResumen();
+
+    @Query("SELECT COALESCE(MAX(i.idIncidencia), 0) FROM Incidencia i")
+    long findMaxId();
+
+    @Query("SELECT i.estado, COUNT(i) FROM Incidencia i GROUP BY i.estado")
+    List<Object[]> countGroupByEstado();
+
+    // Incidencias abiertas por técnico, para sembrar la cola del despacho automático
+    @Query("SELECT i.tecnico.idUsuario, COUNT(i) FROM Incidencia i " +
+           "WHERE i.estado IN :estados AND i.tecnico IS NOT NULL GROUP BY i.tecnico.idUsuario")
+    List<Object[]> countPorTecnicoEnEstados(@Param("estados") Collection<Incidencia.Estado> estados);
+
+    // Incidencias PENDIENTE aún sin técnico, las más antiguas primero
+    @Query("SELECT i.idIncidencia FROM Incidencia i " +
+           "WHERE i.estado = com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado.PENDIENTE " +
+           "AND i.tecnico IS NULL ORDER BY i.creadoAt, i.idIncidencia")
+    List<Long> findIdsPendientesSinTecnico(Limit limit);
+
+    // Recorrido completo hacia adelante para reconstruir índices en memoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.idIncidencia, i.estado, i.descripcion FROM Incidencia i")
+    Stream<Object[]> streamTextoIndexable();
+
+    // Mismas columnas que streamTextoIndexable, para reindexar cambios llegados de otros nodos
+    @Query("SELECT i.idIncidencia, i.estado, i.descripcion FROM Incidencia i WHERE i.idIncidencia IN :ids")
+    List<Object[]> findTextoIndexableByIds(@Param("ids") Collection<Long> ids);
+
+    // Incidencias en los estados indicados, para cargar las colas de trabajo de los técnicos
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.descripcion, c.nombreEmpresa, t.idUsuario, i.creadoAt) " +
+           "FROM Incidencia i JOIN i.cliente c LEFT JOIN i.tecnico t WHERE i.estado IN :estados")
+    Stream<IncidenciaTrabajo> streamTrabajoEnEstados(@Param("estados") Collection<Incidencia.Estado> estados);
+
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.descripcion, c.nombreEmpresa, t.idUsuario, i.creadoAt) " +
+           "FROM Incidencia i JOIN i.cliente c LEFT JOIN i.tecnico t WHERE i.idIncidencia IN :ids")
+    List<IncidenciaTrabajo> findTrabajoByIds(@Param("ids") Collection<Long> ids);
+
+    // Incidencias en los estados indicados, para cargar los plazos de SLA al arrancar
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaPlazo(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.creadoAt, i.actualizadoAt, t.correo, i.slaEscaladoAt) " +
+           "FROM Incidencia i LEFT JOIN i.tecnico t WHERE i.estado IN :estados")
+    Stream<IncidenciaPlazo> streamPlazosEnEstados(@Param("estados") Collection<Incidencia.Estado> estados);
+
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaPlazo(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.creadoAt, i.actualizadoAt, t.correo, i.slaEscaladoAt) " +
+           "FROM Incidencia i LEFT JOIN i.tecnico t WHERE i.idIncidencia IN :ids")
+    List<IncidenciaPlazo> findPlazosByIds(@Param("ids") Collection<Long> ids);
+
+    // Primera página del listado, de la más reciente a la más antigua
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaResumen(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.descripcion, c.nombreEmpresa, t.nombre, i.creadoAt) " +
+           "FROM Incidencia i JOIN i.cliente c LEFT JOIN i.tecnico t " +
+           "ORDER BY i.creadoAt DESC, i.idIncidencia DESC")
+    List<IncidenciaResumen> findResumenFirstPage(Limit limit);
+
+    // Páginas siguientes: continúa estrictamente después de la última fila entregada
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.IncidenciaResumen(" +
+           "i.idIncidencia, i.estado, i.prioridad, i.descripcion, c.nombreEmpresa, t.nombre, i.creadoAt) " +
+           "FROM Incidencia i JOIN i.cliente c LEFT JOIN i.tecnico t " +
+           "WHERE i.creadoAt < :creadoAt OR (i.creadoAt = :creadoAt AND i.idIncidencia < :idIncidencia) " +
+           "ORDER BY i.creadoAt DESC, i.idIncidencia DESC")
+    List<IncidenciaResumen> findResumenAfter(@Param("creadoAt") LocalDateTime creadoAt,
+                                             @Param("idIncidencia") Long idIncidencia,
+                                             Limit limit);
 }
@@ -0,0 +1,19 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas de incidencias construidas con Criteria que Spring Data no deriva solo.
+ */
+public interface IncidenciaRepositoryCustom {
+
+    /**
+     * Devuelve la proyección de las incidencias que cumplen la specification,
+     * ordenadas por (creado_at DESC, id_incidencia DESC).
+     */
+    List<IncidenciaResumen> buscarResumen(Specification<Incidencia> spec, int limit);
+}
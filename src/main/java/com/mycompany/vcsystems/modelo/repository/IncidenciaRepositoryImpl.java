@@ -0,0 +1,56 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Implementación de {@link IncidenciaRepositoryCustom} con Criteria API.
+ */
+public class IncidenciaRepositoryImpl implements IncidenciaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<IncidenciaResumen> buscarResumen(Specification<Incidencia> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<IncidenciaResumen> query = cb.createQuery(IncidenciaResumen.class);
+        Root<Incidencia> root = query.from(Incidencia.class);
+        Join<Incidencia, Cliente> cliente = root.join("cliente");
+        Join<Incidencia, Usuario> tecnico = root.join("tecnico", JoinType.LEFT);
+
+        query.select(cb.construct(IncidenciaResumen.class,
+            root.get("idIncidencia"),
+            root.get("estado"),
+            root.get("prioridad"),
+            root.get("descripcion"),
+            cliente.get("nombreEmpresa"),
+            tecnico.get("nombre"),
+            root.get("creadoAt")));
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(cb.desc(root.get("creadoAt")), cb.desc(root.get("idIncidencia")));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaRollupDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+/**
+ * Lecturas y mantenimiento de la tabla incidencia_rollup_diaria.
+ * Las consultas de series devuelven filas (dia, clave, total).
+ */
+public interface IncidenciaRollupRepository extends JpaRepository<IncidenciaRollupDiaria, IncidenciaRollupDiaria.RollupId> {
+
+    @Query("SELECT r.dia, r.estado, SUM(r.total) FROM IncidenciaRollupDiaria r " +
+           "WHERE r.dia BETWEEN :desde AND :hasta " +
+           "AND (:estado IS NULL OR r.estado = :estado) " +
+           "AND (:idFalla IS NULL OR r.idFalla = :idFalla) " +
+           "AND (:idTecnico IS NULL OR r.idTecnico = :idTecnico) " +
+           "GROUP BY r.dia, r.estado ORDER BY r.dia")
+    List<Object[]> seriePorEstado(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+                                  @Param("estado") Incidencia.Estado estado,
+                                  @Param("idFalla") Long idFalla, @Param("idTecnico") Long idTecnico);
+
+    @Query("SELECT r.dia, r.idFalla, SUM(r.total) FROM IncidenciaRollupDiaria r " +
+           "WHERE r.dia BETWEEN :desde AND :hasta " +
+           "AND (:estado IS NULL OR r.estado = :estado) " +
+           "AND (:idFalla IS NULL OR r.idFalla = :idFalla) " +
+           "AND (:idTecnico IS NULL OR r.idTecnico = :idTecnico) " +
+           "GROUP BY r.dia, r.idFalla ORDER BY r.dia")
+    List<Object[]> seriePorFalla(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+                                 @Param("estado") Incidencia.Estado estado,
+                                 @Param("idFalla") Long idFalla, @Param("idTecnico") Long idTecnico);
+
+    @Query("SELECT r.dia, r.idTecnico, SUM(r.total) FROM IncidenciaRollupDiaria r " +
+           "WHERE r.dia BETWEEN :desde AND :hasta " +
+           "AND (:estado IS NULL OR r.estado = :estado) " +
+           "AND (:idFalla IS NULL OR r.idFalla = :idFalla) " +
+           "AND (:idTecnico IS NULL OR r.idTecnico = :idTecnico) " +
+           "GROUP BY r.dia, r.idTecnico ORDER BY r.dia")
+    List<Object[]> seriePorTecnico(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+                                   @Param("estado") Incidencia.Estado estado,
+                                   @Param("idFalla") Long idFalla, @Param("idTecnico") Long idTecnico);
+
+    // Backfill (sobre la tabla de preparación): alta de cada incidencia como entrada a PENDIENTE el día de su creación
+    @Modifying
+    @Query(value = "INSERT INTO incidencia_rollup_diaria_nueva (dia, estado, id_falla, id_tecnico, total) " +
+                   "SELECT DATE(i.creado_at), 'PENDIENTE', COALESCE(i.id_falla, 0), 0, COUNT(*) " +
+                   "FROM incidencia i WHERE i.id_incidencia > :desdeId AND i.id_incidencia <= :hastaId " +
+                   "GROUP BY DATE(i.creado_at), COALESCE(i.id_falla, 0) " +
+                   "ON DUPLICATE KEY UPDATE total = total + VALUES(total)", nativeQuery = true)
+    int backfillCreadas(@Param("desdeId") long desdeId, @Param("hastaId") long hastaId);
+
+    // Backfill (sobre la tabla de preparación): estado actual de cada incidencia el día de su última actualización
+    @Modifying
+    @Query(value = "INSERT INTO incidencia_rollup_diaria_nueva (dia, estado, id_falla, id_tecnico, total) " +
+                   "SELECT DATE(i.actualizado_at), i.estado, COALESCE(i.id_falla, 0), COALESCE(i.id_tecnico, 0), COUNT(*) " +
+                   "FROM incidencia i WHERE i.id_incidencia > :desdeId AND i.id_incidencia <= :hastaId " +
+                   "AND i.estado <> 'PENDIENTE' " +
+                   "GROUP BY DATE(i.actualizado_at), i.estado, COALESCE(i.id_falla, 0), COALESCE(i.id_tecnico, 0) " +
+                   "ON DUPLICATE KEY UPDATE total = total + VALUES(total)", nativeQuery = true)
+    int backfillEstadoActual(@Param("desdeId") long desdeId, @Param("hastaId") long hastaId);
+}
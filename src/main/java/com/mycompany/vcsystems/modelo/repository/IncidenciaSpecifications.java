@@ -0,0 +1,83 @@
+package com.mycompany.vcsystems.modelo.repository;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaFiltro;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Specifications reutilizables para filtrar incidencias.
+ * Los ids de técnico, cliente y falla se comparan contra la FK, sin join.
+ */
+public final class IncidenciaSpecifications {
+
+    private IncidenciaSpecifications() {
+    }
+
+    public static Specification<Incidencia> conFiltro(IncidenciaFiltro filtro) {
+        Specification<Incidencia> spec = Specification.allOf();
+        if (filtro == null) {
+            return spec;
+        }
+        if (filtro.getEstado() != null) {
+            spec = spec.and(conEstado(filtro.getEstado()));
+        }
+        if (filtro.getPrioridad() != null) {
+            spec = spec.and(conPrioridad(filtro.getPrioridad()));
+        }
+        if (filtro.getTecnico() != null) {
+            spec = spec.and(conTecnico(filtro.getTecnico()));
+        }
+        if (filtro.getCliente() != null) {
+            spec = spec.and(conCliente(filtro.getCliente()));
+        }
+        if (filtro.getFalla() != null) {
+            spec = spec.and(conFalla(filtro.getFalla()));
+        }
+        if (filtro.getDesde() != null) {
+            spec = spec.and(creadaDesde(filtro.getDesde()));
+        }
+        if (filtro.getHasta() != null) {
+            spec = spec.and(creadaAntesDe(filtro.getHasta()));
+        }
+        return spec;
+    }
+
+    public static Specification<Incidencia> conEstado(Incidencia.Estado estado) {
+        return (root, query, cb) -> cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<Incidencia> conPrioridad(Incidencia.Prioridad prioridad) {
+        return (root, query, cb) -> cb.equal(root.get("prioridad"), prioridad);
+    }
+
+    public static Specification<Incidencia> conTecnico(Long idTecnico) {
+        return (root, query, cb) -> cb.equal(root.get("tecnico").get("idUsuario"), idTecnico);
+    }
+
+    public static Specification<Incidencia> conCliente(Long idCliente) {
+        return (root, query, cb) -> cb.equal(root.get("cliente").get("idCliente"), idCliente);
+    }
+
+    public static Specification<Incidencia> conFalla(Long idFalla) {
+        return (root, query, cb) -> cb.equal(root.get("falla").get("idFalla"), idFalla);
+    }
+
+    public static Specification<Incidencia> creadaDesde(LocalDateTime desde) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("creadoAt"), desde);
+    }
+
+    public static Specification<Incidencia> creadaAntesDe(LocalDateTime hasta) {
+        return (root, query, cb) -> cb.lessThan(root.get("creadoAt"), hasta);
+    }
+
+    // Keyset: filas estrictamente posteriores al cursor en orden (creado_at DESC, id DESC)
+    public static Specification<Incidencia> despuesDe(LocalDateTime creadoAt, Long idIncidencia) {
+        return (root, query, cb) -> cb.or(
+            cb.lessThan(root.get("creadoAt"), creadoAt),
+            cb.and(
+                cb.equal(root.get("creadoAt"), creadoAt),
+                cb.lessThan(root.get("idIncidencia"), idIncidencia)));
+    }
+}
@@ -1,5 +1,6 @@
 package com.mycompany.vcsystems.modelo.repository;
 
+import com.mycompany.vcsystems.modelo.dto.VersionSolicitudes;
 import com.mycompany.vcsystems.modelo.entidades.SolicitudRepuesto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -17,4 +18,8 @@ public interface SolicitudRepuestoRepository extends JpaRepository<SolicitudRepu
 
     @Query("SELECT s FROM SolicitudRepuesto s WHERE s.estado = :estado")
     List<SolicitudRepuesto> findByEstado(@Param("estado") String estado);
+
+    @Query("SELECT new com.mycompany.vcsystems.modelo.dto.VersionSolicitudes(COUNT(s), MAX(s.actualizadoAt)) " +
+           "FROM SolicitudRepuesto s")
+    VersionSolicitudes obtenerVersion();
 }
@@ -20,5 +20,5 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByCorreo(@Param("correo") String correo);
 
     @Query("SELECT u FROM Usuario u WHERE u.rol = :rol")
-    List<Usuario> findByRol(@Param("rol") String rol);
+    List<Usuario> findByRol(@Param("rol") Usuario.Rol rol);
 }
@@ -0,0 +1,184 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cola de prioridad de técnicos ordenada por carga (incidencias abiertas) y,
+ * a igual carga, por id. Es un montículo binario indexado: además del arreglo
+ * se guarda la posición de cada técnico, de modo que tomar el menos cargado
+ * y ajustar la carga de cualquier técnico cuestan O(log n).
+ * Cada técnico devuelto por {@link #tomarMenosCargado()} queda con una reserva
+ * hasta {@link #liberar(Long)}; mientras tenga reservas la reconciliación
+ * no le pisa la carga, porque la BD aún no refleja esas asignaciones.
+ */
+public class CargaTecnicos {
+
+    private long[] ids = new long[16];
+    private int[] cargas = new int[16];
+    private int size;
+    private final Map<Long, Integer> posiciones = new HashMap<>();
+    private final Map<Long, Integer> reservas = new HashMap<>();
+
+    /**
+     * Registra un técnico con su carga inicial, o la reemplaza si ya existía.
+     */
+    public synchronized void registrar(Long idTecnico, int carga) {
+        Integer pos = posiciones.get(idTecnico);
+        if (pos != null) {
+            cambiar(pos, Math.max(0, carga));
+            return;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            cargas = Arrays.copyOf(cargas, size * 2);
+        }
+        ids[size] = idTecnico;
+        cargas[size] = Math.max(0, carga);
+        posiciones.put(idTecnico, size);
+        subir(size++);
+    }
+
+    /**
+     * Reemplaza la carga con la leída de la BD, salvo que el técnico tenga
+     * reservas en curso.
+     *
+     * @return false si se omitió por tener reservas
+     */
+    public synchronized boolean reconciliar(Long idTecnico, int carga) {
+        if (reservas.containsKey(idTecnico)) {
+            return false;
+        }
+        registrar(idTecnico, carga);
+        return true;
+    }
+
+    public synchronized void retirar(Long idTecnico) {
+        Integer pos = posiciones.remove(idTecnico);
+        if (pos == null) {
+            return;
+        }
+        int ultimo = --size;
+        if (pos != ultimo) {
+            mover(ultimo, pos);
+            if (!subir(pos)) {
+                bajar(pos);
+            }
+        }
+    }
+
+    /**
+     * Suma delta a la carga del técnico. Los técnicos no registrados se ignoran.
+     */
+    public synchronized void ajustar(Long idTecnico, int delta) {
+        Integer pos = idTecnico != null ? posiciones.get(idTecnico) : null;
+        if (pos != null && delta != 0) {
+            cambiar(pos, Math.max(0, cargas[pos] + delta));
+        }
+    }
+
+    /**
+     * Devuelve el técnico menos cargado y le suma una unidad de carga,
+     * para que la siguiente decisión ya tenga en cuenta esta asignación.
+     */
+    public synchronized Optional<Long> tomarMenosCargado() {
+        if (size == 0) {
+            return Optional.empty();
+        }
+        long id = ids[0];
+        cambiar(0, cargas[0] + 1);
+        reservas.merge(id, 1, Integer::sum);
+        return Optional.of(id);
+    }
+
+    /**
+     * Libera una reserva de {@link #tomarMenosCargado()}: la asignación ya se
+     * confirmó (y sumó carga por su evento) o no llegó a aplicarse.
+     */
+    public synchronized void liberar(Long idTecnico) {
+        reservas.computeIfPresent(idTecnico, (k, n) -> n > 1 ? n - 1 : null);
+        ajustar(idTecnico, -1);
+    }
+
+    public synchronized int carga(Long idTecnico) {
+        Integer pos = posiciones.get(idTecnico);
+        return pos != null ? cargas[pos] : 0;
+    }
+
+    public synchronized boolean contiene(Long idTecnico) {
+        return posiciones.containsKey(idTecnico);
+    }
+
+    public synchronized Set<Long> tecnicos() {
+        return new HashSet<>(posiciones.keySet());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cambiar(int pos, int carga) {
+        int anterior = cargas[pos];
+        cargas[pos] = carga;
+        if (carga < anterior) {
+            subir(pos);
+        } else if (carga > anterior) {
+            bajar(pos);
+        }
+    }
+
+    private boolean menor(int a, int b) {
+        return cargas[a] != cargas[b] ? cargas[a] < cargas[b] : ids[a] < ids[b];
+    }
+
+    private boolean subir(int pos) {
+        int inicial = pos;
+        while (pos > 0) {
+            int padre = (pos - 1) / 2;
+            if (!menor(pos, padre)) {
+                break;
+            }
+            intercambiar(pos, padre);
+            pos = padre;
+        }
+        return pos != inicial;
+    }
+
+    private void bajar(int pos) {
+        while (true) {
+            int hijo = 2 * pos + 1;
+            if (hijo >= size) {
+                return;
+            }
+            if (hijo + 1 < size && menor(hijo + 1, hijo)) {
+                hijo++;
+            }
+            if (!menor(hijo, pos)) {
+                return;
+            }
+            intercambiar(pos, hijo);
+            pos = hijo;
+        }
+    }
+
+    private void intercambiar(int a, int b) {
+        long id = ids[a];
+        int carga = cargas[a];
+        ids[a] = ids[b];
+        cargas[a] = cargas[b];
+        ids[b] = id;
+        cargas[b] = carga;
+        posiciones.put(ids[a], a);
+        posiciones.put(ids[b], b);
+    }
+
+    private void mover(int desde, int hacia) {
+        ids[hacia] = ids[desde];
+        cargas[hacia] = cargas[desde];
+        posiciones.put(ids[hacia], hacia);
+    }
+}
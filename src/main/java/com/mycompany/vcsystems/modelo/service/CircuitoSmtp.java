@@ -0,0 +1,92 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker del servidor SMTP. Tras {@code umbral} fallos seguidos se
+ * abre y rechaza los envíos durante {@code aperturaMs}; luego deja pasar un
+ * único intento de prueba (semiabierto) que lo cierra si tiene éxito o lo
+ * vuelve a abrir si falla.
+ */
+public class CircuitoSmtp {
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int umbral;
+    private final long aperturaMs;
+    private final LongSupplier reloj;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+    private boolean pruebaEnCurso;
+
+    public CircuitoSmtp(int umbral, long aperturaMs) {
+        this(umbral, aperturaMs, System::currentTimeMillis);
+    }
+
+    public CircuitoSmtp(int umbral, long aperturaMs, LongSupplier reloj) {
+        this.umbral = Math.max(1, umbral);
+        this.aperturaMs = aperturaMs;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Indica si se puede intentar un envío ahora.
+     */
+    public synchronized boolean permiteIntento() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (reloj.getAsLong() < abiertoHasta) {
+                    return false;
+                }
+                estado = Estado.SEMIABIERTO;
+                pruebaEnCurso = true;
+                return true;
+            default:
+                // Semiabierto: solo pasa el intento de prueba
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    /**
+     * Como permiteIntento() pero sin consumir el intento de prueba.
+     */
+    public synchronized boolean rechazaria() {
+        return (estado == Estado.ABIERTO && reloj.getAsLong() < abiertoHasta)
+            || (estado == Estado.SEMIABIERTO && pruebaEnCurso);
+    }
+
+    public synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFallo() {
+        fallosSeguidos++;
+        pruebaEnCurso = false;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= umbral) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = reloj.getAsLong() + aperturaMs;
+        }
+    }
+
+    /**
+     * Devuelve el intento sin resultado (no se llegó a contactar al servidor):
+     * el estado no cambia y, si era la prueba del semiabierto, otro puede hacerla.
+     */
+    public synchronized void liberarPrueba() {
+        pruebaEnCurso = false;
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+}
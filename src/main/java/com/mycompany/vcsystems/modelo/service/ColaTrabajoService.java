@@ -0,0 +1,249 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.UsuarioCambiadoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Colas de trabajo de los técnicos, ordenadas por prioridad (ALTA primero) y
+ * luego por antigüedad. Se mantienen en memoria: una cola compartida con las
+ * incidencias PENDIENTE sin técnico y una por técnico con sus ASIGNADA y
+ * EN_PROCESO. Se cargan al arrancar y se actualizan con los eventos de
+ * incidencia, de modo que las lecturas no consultan ni ordenan en la BD.
+ */
+@Service
+@Slf4j
+public class ColaTrabajoService {
+
+    // Ids por consulta al releer las incidencias de una importación
+    private static final int LOTE_IDS = 1000;
+
+    private static final Set<Incidencia.Estado> ESTADOS_EN_COLA =
+        EnumSet.of(Incidencia.Estado.PENDIENTE, Incidencia.Estado.ASIGNADA, Incidencia.Estado.EN_PROCESO);
+
+    // Prioridad descendente (sin prioridad cuenta como MEDIA), luego las más antiguas, luego por id
+    static final Comparator<IncidenciaTrabajo> ORDEN = Comparator
+        .comparingInt((IncidenciaTrabajo t) -> -rango(t.prioridad()))
+        .thenComparing(IncidenciaTrabajo::creadoAt, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparing(IncidenciaTrabajo::idIncidencia);
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${app.incidencias.cola.max-resultados:100}")
+    private int maxResultados;
+
+    // Los conjuntos ordenados permiten leer sin bloqueo mientras se escriben
+    private final NavigableSet<IncidenciaTrabajo> nuevas = new ConcurrentSkipListSet<>(ORDEN);
+    private final Map<Long, NavigableSet<IncidenciaTrabajo>> porTecnico = new ConcurrentHashMap<>();
+
+    // Entrada vigente de cada incidencia en cola, para poder quitarla al cambiar
+    private final Map<Long, IncidenciaTrabajo> vigentes = new ConcurrentHashMap<>();
+
+    @Value("${app.incidencias.cola.tecnicos-ttl-ms:60000}")
+    private long ttlTecnicosMs;
+
+    private record TecnicoEnCache(Long id, long cargadoAt) {
+    }
+
+    // Se invalida con UsuarioCambiadoEvent y, para cambios hechos fuera de la aplicación, por antigüedad
+    private final Map<String, TecnicoEnCache> tecnicosPorCorreo = new ConcurrentHashMap<>();
+
+    @EventListener({ApplicationReadyEvent.class, IncidenciasRecargadasEnOtroNodoEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        AtomicLong cargadas = new AtomicLong();
+        // La consulta se abre dentro del cerrojo para que ningún refresco posterior quede pisado por ella
+        synchronized (this) {
+            try (Stream<IncidenciaTrabajo> filas = incidenciaRepository.streamTrabajoEnEstados(ESTADOS_EN_COLA)) {
+                nuevas.clear();
+                porTecnico.clear();
+                vigentes.clear();
+                filas.forEach(t -> {
+                    colocar(t);
+                    cargadas.incrementAndGet();
+                });
+            } catch (Exception e) {
+                log.error("No se pudieron cargar las colas de trabajo de técnicos", e);
+                return;
+            }
+        }
+        log.info("Colas de trabajo de técnicos cargadas: {} incidencias en {} ms",
+            cargadas.get(), System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Incidencias PENDIENTE sin técnico, las más urgentes primero.
+     */
+    public List<IncidenciaTrabajo> nuevas(Integer limit) {
+        return nuevas.stream().limit(resolverLimite(limit)).toList();
+    }
+
+    /**
+     * Incidencias abiertas del técnico, las más urgentes primero.
+     */
+    public List<IncidenciaTrabajo> deTecnico(Long idTecnico, Integer limit) {
+        NavigableSet<IncidenciaTrabajo> cola = porTecnico.get(idTecnico);
+        if (cola == null) {
+            return List.of();
+        }
+        return cola.stream().limit(resolverLimite(limit)).toList();
+    }
+
+    /**
+     * Id del técnico autenticado. Se consulta por correo y queda en memoria
+     * hasta que el usuario cambia o pasa app.incidencias.cola.tecnicos-ttl-ms.
+     */
+    public Optional<Long> idTecnicoPorCorreo(String correo) {
+        TecnicoEnCache cacheado = tecnicosPorCorreo.get(correo);
+        if (cacheado != null && System.currentTimeMillis() - cacheado.cargadoAt() < ttlTecnicosMs) {
+            return Optional.of(cacheado.id());
+        }
+        tecnicosPorCorreo.remove(correo);
+        Optional<Usuario> usuario = usuarioRepository.findByCorreo(correo)
+            .filter(u -> u.getRol() == Usuario.Rol.TECNICO);
+        usuario.ifPresent(u -> tecnicosPorCorreo.put(correo, new TecnicoEnCache(u.getIdUsuario(), System.currentTimeMillis())));
+        return usuario.map(Usuario::getIdUsuario);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsuarioCambiado(UsuarioCambiadoEvent event) {
+        tecnicosPorCorreo.remove(event.getCorreo());
+    }
+
+    // Las colas se refrescan tras el commit: antes, la relectura vería la fila sin el cambio
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        refrescar(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        refrescar(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        refrescar(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        refrescar(event.getCambios().stream().map(IncidenciaBulkUpdatedEvent.Cambio::idIncidencia).toList());
+    }
+
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        refrescar(event.getIdsIncidencia());
+    }
+
+    // Solo las filas importadas, por lotes de ids; antes de que los técnicos reciban la recarga
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        List<Long> ids = event.getIds();
+        for (int i = 0; i < ids.size(); i += LOTE_IDS) {
+            refrescar(ids.subList(i, Math.min(i + LOTE_IDS, ids.size())));
+        }
+    }
+
+    /**
+     * Relee las incidencias indicadas (una consulta por evento) y las recoloca.
+     * La lectura se hace dentro del cerrojo: dos refrescos de la misma incidencia
+     * se aplican en el orden en que leyeron, y el último siempre ve la fila más nueva.
+     */
+    private void refrescar(Collection<Long> ids) {
+        try {
+            synchronized (this) {
+                List<IncidenciaTrabajo> filas = incidenciaRepository.findTrabajoByIds(ids);
+                Set<Long> pendientes = new HashSet<>(ids);
+                for (IncidenciaTrabajo t : filas) {
+                    pendientes.remove(t.idIncidencia());
+                    colocar(t);
+                }
+                pendientes.forEach(this::quitar);
+            }
+        } catch (Exception e) {
+            log.error("Error actualizando colas de trabajo para incidencias: {}", ids, e);
+        }
+    }
+
+    private void colocar(IncidenciaTrabajo t) {
+        quitar(t.idIncidencia());
+        NavigableSet<IncidenciaTrabajo> destino = null;
+        if (t.estado() == Incidencia.Estado.PENDIENTE && t.idTecnico() == null) {
+            destino = nuevas;
+        } else if ((t.estado() == Incidencia.Estado.ASIGNADA || t.estado() == Incidencia.Estado.EN_PROCESO)
+                && t.idTecnico() != null) {
+            destino = porTecnico.computeIfAbsent(t.idTecnico(), k -> new ConcurrentSkipListSet<>(ORDEN));
+        }
+        if (destino != null) {
+            destino.add(t);
+            vigentes.put(t.idIncidencia(), t);
+        }
+    }
+
+    private void quitar(Long idIncidencia) {
+        IncidenciaTrabajo anterior = vigentes.remove(idIncidencia);
+        if (anterior == null) {
+            return;
+        }
+        if (anterior.idTecnico() == null) {
+            nuevas.remove(anterior);
+        } else {
+            NavigableSet<IncidenciaTrabajo> cola = porTecnico.get(anterior.idTecnico());
+            if (cola != null) {
+                cola.remove(anterior);
+            }
+        }
+    }
+
+    private int resolverLimite(Integer limit) {
+        return limit == null ? maxResultados : Math.min(Math.max(limit, 1), maxResultados);
+    }
+
+    private static int rango(Incidencia.Prioridad prioridad) {
+        return (prioridad != null ? prioridad : Incidencia.Prioridad.MEDIA).ordinal();
+    }
+}
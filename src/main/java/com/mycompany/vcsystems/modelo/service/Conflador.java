@@ -0,0 +1,56 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Acumula claves (p. ej. ids de incidencia) entre dos vaciados y colapsa las
+ * repetidas: diez cambios de la misma incidencia dentro de un intervalo se
+ * emiten como uno solo. Quien vacía lee el estado actual de cada clave, así
+ * que lo que se publica es siempre la última versión. Conserva el orden de
+ * la primera aparición de cada clave.
+ */
+public class Conflador<K> {
+
+    private Set<K> pendientes = new LinkedHashSet<>();
+    private long recibidas;
+    private long emitidas;
+
+    public synchronized void ofrecer(K clave) {
+        recibidas++;
+        pendientes.add(clave);
+    }
+
+    public synchronized void ofrecerTodas(Collection<? extends K> claves) {
+        recibidas += claves.size();
+        pendientes.addAll(claves);
+    }
+
+    /**
+     * Devuelve las claves acumuladas y deja el conflador vacío.
+     */
+    public synchronized List<K> vaciar() {
+        if (pendientes.isEmpty()) {
+            return List.of();
+        }
+        List<K> lote = new ArrayList<>(pendientes);
+        pendientes = new LinkedHashSet<>();
+        emitidas += lote.size();
+        return lote;
+    }
+
+    public synchronized int pendientes() {
+        return pendientes.size();
+    }
+
+    public synchronized long recibidas() {
+        return recibidas;
+    }
+
+    public synchronized long emitidas() {
+        return emitidas;
+    }
+}
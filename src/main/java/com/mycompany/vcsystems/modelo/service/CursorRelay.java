@@ -0,0 +1,75 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Posición de lectura sobre una tabla con ids AUTO_INCREMENT. Los ids se
+ * asignan al insertar pero las filas se ven al confirmar, así que un id menor
+ * puede aparecer después de uno mayor. Cuando se salta un id se anota como
+ * hueco y se vuelve a buscar hasta {@code esperaMs}; pasado ese tiempo se da
+ * por perdido (transacción deshecha o id no usado).
+ */
+public class CursorRelay {
+
+    private static final int MAX_HUECOS = 10_000;
+
+    private final long esperaMs;
+    private final LongSupplier reloj;
+
+    private long ultimo;
+    // id -> instante en que se deja de esperar
+    private final Map<Long, Long> huecos = new LinkedHashMap<>();
+
+    public CursorRelay(long inicial, long esperaMs) {
+        this(inicial, esperaMs, System::currentTimeMillis);
+    }
+
+    public CursorRelay(long inicial, long esperaMs, LongSupplier reloj) {
+        this.ultimo = inicial;
+        this.esperaMs = esperaMs;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Registra una fila leída.
+     *
+     * @return true si es la primera vez que se ve (hay que procesarla)
+     */
+    public synchronized boolean avanzar(long id) {
+        if (huecos.remove(id) != null) {
+            return true;
+        }
+        if (id <= ultimo) {
+            return false;
+        }
+        long vence = reloj.getAsLong() + esperaMs;
+        for (long k = Math.max(ultimo + 1, id - MAX_HUECOS); k < id; k++) {
+            huecos.put(k, vence);
+        }
+        ultimo = id;
+        return true;
+    }
+
+    /**
+     * Ids saltados que aún se esperan; descarta los vencidos.
+     */
+    public synchronized List<Long> huecos() {
+        long ahora = reloj.getAsLong();
+        Iterator<Long> vencimientos = huecos.values().iterator();
+        while (vencimientos.hasNext()) {
+            if (vencimientos.next() <= ahora) {
+                vencimientos.remove();
+            }
+        }
+        return new ArrayList<>(huecos.keySet());
+    }
+
+    public synchronized long getUltimo() {
+        return ultimo;
+    }
+}
@@ -0,0 +1,242 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaDelta;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo;
+import com.mycompany.vcsystems.modelo.dto.ReanudacionDeltas;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Flujo de deltas de incidencias para las pantallas de técnicos, sobre el
+ * broker STOMP. Cada cambio confirmado se publica en {@link #TOPIC} con un
+ * número de secuencia y se guarda en un buffer circular acotado; un cliente
+ * que se reconecta pide los deltas desde su última secuencia y, si ya no
+ * están en el buffer, se le indica que recargue sus listas.
+ * <p>
+ * Los cambios no se publican al instante: se acumulan en un {@link Conflador}
+ * y cada app.websocket.conflacion.intervalo-ms se publica un delta por
+ * incidencia modificada, leído de una sola consulta. Una incidencia que cambia
+ * varias veces en el intervalo llega a los clientes una vez, ya en su estado final.
+ * La consulta y la numeración se hacen con el monitor tomado, así que el orden
+ * de las secuencias es el de las lecturas. Cada delta lleva solo los campos que
+ * cambiaron respecto a la última versión publicada de la fila; la fila completa
+ * se envía la primera vez (o si su versión salió de la caché de publicadas).
+ * <p>
+ * Con varias instancias cada nodo numera sus propios deltas: los ids cambiados
+ * aquí se difunden por el {@link RelayWebSocket} y los demás nodos los publican
+ * a sus sesiones como si el cambio fuera local.
+ */
+@Service
+@Slf4j
+public class DeltaIncidenciasService {
+
+    public static final String TOPIC = "/topic/rol/TECNICO/incidencias";
+
+    public record DeltaMetricas(String epoca, long ultima, long cambiosRecibidos, long deltasPublicados,
+                                int pendientes) {
+    }
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SesionesWebSocket sesionesWebSocket;
+
+    @Autowired
+    private RelayWebSocket relayWebSocket;
+
+    @Value("${app.incidencias.deltas.buffer:4096}")
+    private int capacidad;
+
+    @Value("${app.incidencias.deltas.publicadas:10000}")
+    private int maxPublicadas;
+
+    // Identifica este arranque: tras un reinicio las secuencias vuelven a empezar
+    private final String epoca = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Conflador<Long> conflador = new Conflador<>();
+    // Solo los cambios hechos en este nodo, para difundirlos a los demás
+    private final Conflador<Long> locales = new Conflador<>();
+
+    private IncidenciaDelta[] buffer;
+    private long ultima;
+    // Última versión publicada de cada incidencia (LRU), base de los deltas parciales
+    private Map<Long, IncidenciaTrabajo> publicadas;
+
+    @PostConstruct
+    public void iniciar() {
+        buffer = new IncidenciaDelta[capacidad];
+        publicadas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, IncidenciaTrabajo> eldest) {
+                return size() > maxPublicadas;
+            }
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        registrarLocales(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        registrarLocales(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        registrarLocales(List.of(event.getIncidencia().getIdIncidencia()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        registrarLocales(event.getCambios().stream().map(IncidenciaBulkUpdatedEvent.Cambio::idIncidencia).toList());
+    }
+
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        conflador.ofrecerTodas(event.getIdsIncidencia());
+    }
+
+    @EventListener
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        publicarRecarga();
+        // Los demás nodos releen sus vistas de la BD en vez de recibir cada id importado
+        relayWebSocket.difundirRecarga();
+    }
+
+    @EventListener
+    public void onRecargadasEnOtroNodo(IncidenciasRecargadasEnOtroNodoEvent event) {
+        publicarRecarga();
+    }
+
+    /**
+     * Publica un delta por cada incidencia que cambió desde el último vaciado.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.conflacion.intervalo-ms:200}")
+    public void vaciar() {
+        List<Long> paraOtrosNodos = locales.vaciar();
+        if (!paraOtrosNodos.isEmpty()) {
+            relayWebSocket.difundirCambios(paraOtrosNodos);
+        }
+        List<Long> ids = conflador.vaciar();
+        if (!ids.isEmpty()) {
+            publicarCambios(ids);
+        }
+    }
+
+    /**
+     * Deltas posteriores a {@code desde}, o la orden de recargar si la época no
+     * coincide o la secuencia pedida ya salió del buffer.
+     */
+    public synchronized ReanudacionDeltas reanudar(String epocaCliente, long desde) {
+        long primera = Math.max(1, ultima - capacidad + 1);
+        if (!epoca.equals(epocaCliente) || desde < primera - 1 || desde > ultima) {
+            return new ReanudacionDeltas(epoca, ultima, true, List.of());
+        }
+        List<IncidenciaDelta> deltas = new ArrayList<>((int) (ultima - desde));
+        for (long s = desde + 1; s <= ultima; s++) {
+            deltas.add(buffer[indice(s)]);
+        }
+        return new ReanudacionDeltas(epoca, ultima, false, deltas);
+    }
+
+    public String getEpoca() {
+        return epoca;
+    }
+
+    public synchronized long getUltima() {
+        return ultima;
+    }
+
+    private void registrarLocales(Collection<Long> ids) {
+        conflador.ofrecerTodas(ids);
+        locales.ofrecerTodas(ids);
+    }
+
+    public DeltaMetricas metricas() {
+        return new DeltaMetricas(epoca, getUltima(), conflador.recibidas(), conflador.emitidas(), conflador.pendientes());
+    }
+
+    private void publicarCambios(Collection<Long> ids) {
+        if (!sesionesWebSocket.hayConectados(Usuario.Rol.TECNICO)) {
+            // Nadie escucha: en vez de consultar, se deja una marca de recarga
+            // para quien se conecte más tarde con una secuencia vieja
+            publicarRecarga();
+            return;
+        }
+        try {
+            // Lectura y numeración bajo el mismo monitor: dos vaciados (o una recarga)
+            // no pueden intercalarse y publicar una versión vieja con una secuencia posterior
+            synchronized (this) {
+                List<IncidenciaTrabajo> filas = incidenciaRepository.findTrabajoByIds(ids);
+                Set<Long> sinFila = new HashSet<>(ids);
+                for (IncidenciaTrabajo t : filas) {
+                    sinFila.remove(t.idIncidencia());
+                    IncidenciaTrabajo anterior = publicadas.put(t.idIncidencia(), t);
+                    if (t.equals(anterior)) {
+                        continue;
+                    }
+                    enviar(anterior == null
+                        ? IncidenciaDelta.fila(++ultima, t)
+                        : IncidenciaDelta.cambio(++ultima, anterior, t));
+                }
+                for (Long id : sinFila) {
+                    publicadas.remove(id);
+                    enviar(IncidenciaDelta.baja(++ultima, id));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error publicando deltas de incidencias: {}", ids, e);
+        }
+    }
+
+    private synchronized void publicarRecarga() {
+        // Tras una recarga los clientes parten de la BD: los deltas siguientes deben ir completos
+        publicadas.clear();
+        IncidenciaDelta anterior = ultima > 0 ? buffer[indice(ultima)] : null;
+        if (anterior != null && anterior.tipo() == IncidenciaDelta.Tipo.RECARGAR) {
+            return;
+        }
+        enviar(IncidenciaDelta.recargar(++ultima));
+    }
+
+    // Se llama con el monitor tomado para que el orden de envío siga la secuencia
+    private void enviar(IncidenciaDelta delta) {
+        buffer[indice(delta.secuencia())] = delta;
+        messagingTemplate.convertAndSend(TOPIC, delta);
+    }
+
+    private int indice(long secuencia) {
+        return (int) (secuencia % capacidad);
+    }
+}
@@ -0,0 +1,343 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasiva;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasivaResultado;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.LeaseAdquiridoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Despacho automático de incidencias PENDIENTE al técnico menos cargado.
+ * La carga de cada técnico (incidencias ASIGNADA + EN_PROCESO) vive en una
+ * {@link CargaTecnicos} sembrada desde la BD al arrancar y mantenida con los
+ * eventos de incidencia, así que cada decisión es O(log n) sin consultas.
+ * Las asignaciones se escriben por lotes a través de la operación masiva,
+ * que conserva la validación y el compare-and-set de las individuales.
+ * <p>
+ * Con varias instancias solo despacha el titular de la concesión. Lo que
+ * cambia en otros nodos (altas, asignaciones, cierres, importaciones) le llega
+ * como {@link IncidenciasCambiadasEnOtroNodoEvent}, sin el detalle del cambio:
+ * en la siguiente pasada de despacho vuelve a leer las cargas y las PENDIENTE
+ * de la BD, así que ni la latencia ni la deriva dependen de la reconciliación completa.
+ */
+@Service
+@Slf4j
+public class DespachoAutomaticoService {
+
+    // Con varias instancias, reconciliación y despacho corren en un solo nodo
+    private static final String LEASE = "despacho-automatico";
+
+    private static final Set<Incidencia.Estado> ABIERTAS =
+        EnumSet.of(Incidencia.Estado.ASIGNADA, Incidencia.Estado.EN_PROCESO);
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${app.incidencias.despacho.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.incidencias.despacho.lote:200}")
+    private int tamanoLote;
+
+    private final CargaTecnicos cargas = new CargaTecnicos();
+
+    // Incidencias a la espera de técnico; el set evita encolar dos veces la misma
+    private final Queue<Long> cola = new ConcurrentLinkedQueue<>();
+    private final Set<Long> encoladas = ConcurrentHashMap.newKeySet();
+
+    // Otro nodo confirmó cambios o se importaron incidencias: cargas y cola se releen de la BD antes de despachar
+    private final AtomicBoolean cambiosRemotos = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (habilitado) {
+            reconciliar();
+        }
+    }
+
+    /**
+     * Al tomar el despacho (p. ej. porque cayó el nodo que lo tenía) se recarga
+     * la carga de los técnicos y la cola desde la BD.
+     */
+    @EventListener
+    public void onLeaseAdquirido(LeaseAdquiridoEvent event) {
+        if (habilitado && LEASE.equals(event.getLease())) {
+            reconciliar();
+        }
+    }
+
+    /**
+     * Vuelve a leer técnicos y cargas desde la BD y encola las PENDIENTE
+     * que se hayan quedado sin técnico (p. ej. creadas cuando no había técnicos).
+     */
+    @ClusterScheduled(lease = LEASE,
+                      fixedDelayString = "${app.incidencias.despacho.reconciliacion-ms:300000}",
+                      initialDelayString = "${app.incidencias.despacho.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            Set<Long> vigentes = new HashSet<>();
+            for (Usuario tecnico : usuarioRepository.findByRol(Usuario.Rol.TECNICO)) {
+                vigentes.add(tecnico.getIdUsuario());
+            }
+            recargarCargas(vigentes);
+            // Se retiran todos los que ya no son técnicos, tengan o no incidencias abiertas
+            for (Long id : cargas.tecnicos()) {
+                if (!vigentes.contains(id)) {
+                    cargas.retirar(id);
+                }
+            }
+            encolarPendientesDeBd();
+            log.info("Despacho automático reconciliado: {} técnicos, {} incidencias en cola", cargas.size(), cola.size());
+        } catch (Exception e) {
+            log.error("Error reconciliando el despacho automático de incidencias", e);
+        }
+    }
+
+    /**
+     * Fija la carga de los técnicos indicados a sus incidencias abiertas en la BD.
+     */
+    private void recargarCargas(Collection<Long> tecnicos) {
+        Map<Long, Integer> abiertas = new HashMap<>();
+        for (Object[] fila : incidenciaRepository.countPorTecnicoEnEstados(ABIERTAS)) {
+            abiertas.put((Long) fila[0], ((Long) fila[1]).intValue());
+        }
+        int omitidos = 0;
+        for (Long id : tecnicos) {
+            // Con un lote en vuelo la BD aún no ve sus asignaciones; se corrige en la próxima pasada
+            if (!cargas.reconciliar(id, abiertas.getOrDefault(id, 0))) {
+                omitidos++;
+            }
+        }
+        if (omitidos > 0) {
+            log.debug("Reconciliación: {} técnicos con reservas en curso conservan su carga", omitidos);
+        }
+    }
+
+    private void encolarPendientesDeBd() {
+        incidenciaRepository.findIdsPendientesSinTecnico(Limit.of(tamanoLote * 10)).forEach(this::encolar);
+    }
+
+    /**
+     * Vacía la cola asignando cada incidencia al técnico menos cargado,
+     * en lotes de app.incidencias.despacho.lote (una transacción por lote).
+     *
+     * @return número de asignaciones aplicadas
+     */
+    @ClusterScheduled(lease = LEASE,
+                      fixedDelayString = "${app.incidencias.despacho.intervalo-ms:1000}",
+                      initialDelayString = "${app.incidencias.despacho.intervalo-ms:1000}")
+    public int despachar() {
+        if (!habilitado) {
+            return 0;
+        }
+        if (cambiosRemotos.getAndSet(false)) {
+            try {
+                // Solo los técnicos ya conocidos: los nuevos entran con la reconciliación completa
+                recargarCargas(cargas.tecnicos());
+                encolarPendientesDeBd();
+            } catch (Exception e) {
+                cambiosRemotos.set(true);
+                log.error("Error releyendo cambios de otros nodos para el despacho", e);
+                return 0;
+            }
+        }
+        int asignadas = 0;
+        List<Long> reintentar = new ArrayList<>();
+        try {
+            while (!cola.isEmpty()) {
+                int aplicadas = despacharLote(reintentar);
+                if (aplicadas < 0) {
+                    break;
+                }
+                asignadas += aplicadas;
+            }
+        } finally {
+            // Se vuelven a encolar al final para no reintentarlas en la misma pasada
+            reintentar.forEach(this::encolar);
+        }
+        return asignadas;
+    }
+
+    /**
+     * Despacha un lote y deja en reintentar las incidencias que siguen sin técnico
+     * por un fallo ajeno a ellas: modificación concurrente, técnico que dejó de serlo
+     * o error al escribir el lote.
+     *
+     * @return asignaciones aplicadas, o -1 si no hay técnicos o falló el lote
+     */
+    private int despacharLote(List<Long> reintentar) {
+        List<OperacionMasiva> operaciones = new ArrayList<>(tamanoLote);
+        Long id;
+        while (operaciones.size() < tamanoLote && (id = cola.poll()) != null) {
+            encoladas.remove(id);
+            Optional<Long> tecnico = cargas.tomarMenosCargado();
+            if (tecnico.isEmpty()) {
+                encolar(id);
+                break;
+            }
+            OperacionMasiva op = new OperacionMasiva();
+            op.setTipo(OperacionMasiva.Tipo.ASIGNAR_TECNICO);
+            op.setIdIncidencia(id);
+            op.setIdTecnico(tecnico.get());
+            operaciones.add(op);
+        }
+        if (operaciones.isEmpty()) {
+            return -1;
+        }
+
+        int aplicadas = 0;
+        try {
+            List<OperacionMasivaResultado> resultados = incidenciaService.aplicarMasivo(operaciones);
+            for (int i = 0; i < resultados.size(); i++) {
+                OperacionMasivaResultado resultado = resultados.get(i);
+                if (resultado.isSuccess()) {
+                    aplicadas++;
+                } else if (IncidenciaService.TECNICO_INVALIDO.equals(resultado.getCode())) {
+                    cargas.retirar(operaciones.get(i).getIdTecnico());
+                    reintentar.add(resultado.getIdIncidencia());
+                } else if (IncidenciaService.MODIFICACION_CONCURRENTE.equals(resultado.getCode())) {
+                    reintentar.add(resultado.getIdIncidencia());
+                } else {
+                    // Otra petición ya la asignó o cerró: no se reintenta
+                    log.debug("Incidencia {} no despachada: {}", resultado.getIdIncidencia(), resultado.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error despachando lote de {} incidencias, se reintentará", operaciones.size(), e);
+            operaciones.forEach(op -> reintentar.add(op.getIdIncidencia()));
+            return -1;
+        } finally {
+            // Se liberan las reservas: las asignaciones confirmadas ya sumaron carga vía onBulkUpdated
+            for (OperacionMasiva op : operaciones) {
+                cargas.liberar(op.getIdTecnico());
+            }
+        }
+        log.info("Despacho automático: {} de {} incidencias asignadas", aplicadas, operaciones.size());
+        return aplicadas;
+    }
+
+    private void encolar(Long idIncidencia) {
+        if (encoladas.add(idIncidencia)) {
+            cola.add(idIncidencia);
+        }
+    }
+
+    public int carga(Long idTecnico) {
+        return cargas.carga(idTecnico);
+    }
+
+    public boolean esDisponible(Long idTecnico) {
+        return cargas.contiene(idTecnico);
+    }
+
+    public int pendientesEnCola() {
+        return cola.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        Incidencia incidencia = event.getIncidencia();
+        // Tras el commit, para que el lote del despachador ya vea la fila.
+        // Si despacha otro nodo, le llega por el relay como cambio de otro nodo
+        if (habilitado && incidencia.getEstado() == Incidencia.Estado.PENDIENTE && incidencia.getTecnico() == null
+                && !jobLeaseService.esAjena(LEASE)) {
+            encolar(incidencia.getIdIncidencia());
+        }
+    }
+
+    /**
+     * Se marca aunque el despacho lo tenga otro nodo: si este lo toma más tarde,
+     * onLeaseAdquirido ya recarga todo y la marca solo cuesta una relectura.
+     */
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        if (habilitado) {
+            cambiosRemotos.set(true);
+        }
+    }
+
+    @EventListener
+    public void onRecargadasEnOtroNodo(IncidenciasRecargadasEnOtroNodoEvent event) {
+        if (habilitado) {
+            cambiosRemotos.set(true);
+        }
+    }
+
+    // Las importadas entran como PENDIENTE sin técnico: la siguiente pasada las lee de la BD
+    @EventListener
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        if (habilitado) {
+            cambiosRemotos.set(true);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        ajustarCarga(event.getTecnico().getIdUsuario(), event.getEstadoAnterior(), event.getIncidencia().getEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        Usuario tecnico = event.getIncidencia().getTecnico();
+        if (tecnico != null) {
+            ajustarCarga(tecnico.getIdUsuario(), event.getEstadoAnterior(), event.getNuevoEstado());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        for (IncidenciaBulkUpdatedEvent.Cambio cambio : event.getCambios()) {
+            ajustarCarga(cambio.idTecnico(), cambio.estadoAnterior(), cambio.estadoNuevo());
+        }
+    }
+
+    private void ajustarCarga(Long idTecnico, Incidencia.Estado anterior, Incidencia.Estado nuevo) {
+        int delta = (ABIERTAS.contains(nuevo) ? 1 : 0) - (ABIERTAS.contains(anterior) ? 1 : 0);
+        cargas.ajustar(idTecnico, delta);
+    }
+}
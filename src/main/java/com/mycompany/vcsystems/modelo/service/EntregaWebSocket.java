@@ -0,0 +1,58 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.configuracion.AutenticacionStompInterceptor;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entrega a las sesiones STOMP de este nodo. Solo envía si hay alguien
+ * conectado aquí: al usuario destinatario o, en los topics de rol, a alguien
+ * con ese rol.
+ */
+@Component
+public class EntregaWebSocket {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SesionesWebSocket sesionesWebSocket;
+
+    /**
+     * @return true si el usuario tiene sesiones en este nodo y se le envió el mensaje
+     */
+    public boolean aUsuario(String usuario, String destino, Object payload) {
+        if (!sesionesWebSocket.estaConectado(usuario)) {
+            return false;
+        }
+        messagingTemplate.convertAndSendToUser(usuario, destino, payload);
+        return true;
+    }
+
+    /**
+     * @return true si se publicó en el topic
+     */
+    public boolean aTopic(String destino, Object payload) {
+        Usuario.Rol rol = rolDe(destino);
+        if (rol != null && !sesionesWebSocket.hayConectados(rol)) {
+            return false;
+        }
+        messagingTemplate.convertAndSend(destino, payload);
+        return true;
+    }
+
+    private static Usuario.Rol rolDe(String destino) {
+        if (!destino.startsWith(AutenticacionStompInterceptor.PREFIJO_ROL)) {
+            return null;
+        }
+        String resto = destino.substring(AutenticacionStompInterceptor.PREFIJO_ROL.length());
+        int barra = resto.indexOf('/');
+        try {
+            return Usuario.Rol.valueOf(barra >= 0 ? resto.substring(0, barra) : resto);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
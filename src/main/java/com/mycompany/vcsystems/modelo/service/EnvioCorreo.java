@@ -0,0 +1,164 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envío SMTP de correos ya preparados. Agrupa los mensajes en lotes de
+ * app.notificaciones.email.lote con send(MimeMessage...), que abre una sola
+ * conexión por lote, y pasa por el {@link CircuitoSmtp}: con el circuito
+ * abierto no se contacta al servidor y los correos vuelven como no intentados.
+ * Los destinatarios rechazados no cuentan como fallo del servidor.
+ */
+@Component
+@Slf4j
+public class EnvioCorreo {
+
+    public record Correo(String destinatario, String asunto, String contenido) {
+    }
+
+    /**
+     * Correo no entregado. intentado es false cuando ni siquiera se contactó
+     * al servidor (circuito abierto), para no contarlo como intento fallido.
+     */
+    public record Fallo(Correo correo, String error, boolean intentado) {
+    }
+
+    @Autowired
+    private JavaMailSender emailSender;
+
+    @Value("${app.notificaciones.email.lote:50}")
+    private int loteEnvio;
+
+    @Value("${app.notificaciones.circuito.umbral-fallos:5}")
+    private int umbralFallos;
+
+    @Value("${app.notificaciones.circuito.apertura-ms:60000}")
+    private long aperturaMs;
+
+    private CircuitoSmtp circuito;
+
+    @PostConstruct
+    public void iniciar() {
+        circuito = new CircuitoSmtp(umbralFallos, aperturaMs);
+    }
+
+    /**
+     * Cómo respondió el servidor a un lote, para el circuito. SIN_ENVIO cuando
+     * no llegó a contactarse (ningún mensaje válido o error antes del envío).
+     */
+    private enum Resultado { SIN_ENVIO, SERVIDOR_OK, SERVIDOR_CAIDO }
+
+    /**
+     * Envía los correos y devuelve los que no se pudieron entregar.
+     */
+    public List<Fallo> enviar(List<Correo> correos) {
+        List<Fallo> fallos = new ArrayList<>();
+        for (int i = 0; i < correos.size(); i += loteEnvio) {
+            List<Correo> lote = correos.subList(i, Math.min(i + loteEnvio, correos.size()));
+            if (!circuito.permiteIntento()) {
+                lote.forEach(c -> fallos.add(new Fallo(c, "Circuito SMTP abierto", false)));
+                continue;
+            }
+            Resultado resultado = Resultado.SIN_ENVIO;
+            try {
+                resultado = enviarLote(lote, fallos);
+            } finally {
+                // Siempre se resuelve el intento, también si el lote no llegó al servidor
+                // o falló con una excepción inesperada: si no, la prueba del semiabierto quedaría tomada
+                switch (resultado) {
+                    case SERVIDOR_OK -> circuito.registrarExito();
+                    case SERVIDOR_CAIDO -> circuito.registrarFallo();
+                    case SIN_ENVIO -> circuito.liberarPrueba();
+                }
+            }
+        }
+        return fallos;
+    }
+
+    private Resultado enviarLote(List<Correo> lote, List<Fallo> fallos) {
+        Map<MimeMessage, Correo> mensajes = new IdentityHashMap<>(lote.size());
+        for (Correo correo : lote) {
+            try {
+                mensajes.put(crearMensaje(correo), correo);
+            } catch (MessagingException e) {
+                // Error del propio mensaje (p. ej. dirección inválida): no es culpa del servidor
+                fallos.add(new Fallo(correo, e.getMessage(), true));
+            }
+        }
+        if (mensajes.isEmpty()) {
+            return Resultado.SIN_ENVIO;
+        }
+
+        try {
+            emailSender.send(mensajes.keySet().toArray(new MimeMessage[0]));
+            return Resultado.SERVIDOR_OK;
+        } catch (MailSendException e) {
+            Map<Object, Exception> rechazados = e.getFailedMessages();
+            log.warn("Envío SMTP: {} de {} correos no entregados: {}",
+                rechazados.isEmpty() ? mensajes.size() : rechazados.size(), mensajes.size(), e.getMessage());
+            if (rechazados.isEmpty()) {
+                // Falló todo el lote sin llegar a los mensajes: conexión o servidor caído
+                mensajes.values().forEach(c -> fallos.add(new Fallo(c, e.getMessage(), true)));
+                return Resultado.SERVIDOR_CAIDO;
+            }
+            boolean todosPorServidor = rechazados.size() == mensajes.size();
+            for (Map.Entry<Object, Exception> rechazo : rechazados.entrySet()) {
+                Correo correo = mensajes.get(rechazo.getKey());
+                if (correo != null) {
+                    fallos.add(new Fallo(correo, rechazo.getValue().getMessage(), true));
+                }
+                // Un destinatario rechazado es una respuesta del servidor, no una caída
+                if (destinatarioRechazado(rechazo.getValue())) {
+                    todosPorServidor = false;
+                }
+            }
+            return todosPorServidor ? Resultado.SERVIDOR_CAIDO : Resultado.SERVIDOR_OK;
+        } catch (MailException e) {
+            mensajes.values().forEach(c -> fallos.add(new Fallo(c, e.getMessage(), true)));
+            log.warn("Envío SMTP de {} correos fallido: {}", mensajes.size(), e.getMessage());
+            return Resultado.SERVIDOR_CAIDO;
+        }
+    }
+
+    private static boolean destinatarioRechazado(Exception error) {
+        return error instanceof SendFailedException envio
+            && envio.getInvalidAddresses() != null && envio.getInvalidAddresses().length > 0;
+    }
+
+    private MimeMessage crearMensaje(Correo correo) throws MessagingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(correo.destinatario());
+        helper.setSubject(correo.asunto());
+        helper.setText(correo.contenido(), true); // true indica que el contenido es HTML
+        return message;
+    }
+
+    /**
+     * false mientras el circuito esté abierto: no tiene sentido preparar envíos.
+     */
+    public boolean disponible() {
+        return !circuito.rechazaria();
+    }
+
+    public CircuitoSmtp.Estado estadoCircuito() {
+        return circuito.getEstado();
+    }
+}
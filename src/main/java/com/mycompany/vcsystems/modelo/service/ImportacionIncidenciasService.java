@@ -0,0 +1,393 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.ImportacionResultado;
+import com.mycompany.vcsystems.modelo.entidades.ImportacionCheckpoint;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.DiccionarioFallasRepository;
+import com.mycompany.vcsystems.modelo.repository.ImportacionCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación masiva de incidencias desde CSV. El archivo se lee en streaming,
+ * las referencias a cliente y falla se resuelven contra mapas en memoria
+ * cargados una sola vez, y las filas válidas se insertan con batches JDBC en
+ * tramos de app.incidencias.importacion.commit-cada filas, cada uno en su
+ * propia transacción junto con el checkpoint. Reenviar el mismo archivo con
+ * el mismo id de importación continúa después del último tramo confirmado.
+ * Cada tramo bloquea la fila del checkpoint (SELECT ... FOR UPDATE) y solo se
+ * confirma si nadie lo avanzó desde que esta petición lo leyó, así que dos
+ * peticiones con el mismo id no pueden insertar las mismas filas.
+ * <p>
+ * El aviso de lo importado ({@link IncidenciasImportadasEvent}) sale en un
+ * hilo propio, con el usuario de la petición: la respuesta no espera a que
+ * historial, rollups y vistas en memoria procesen las filas.
+ *
+ * Columnas (cabecera obligatoria, en cualquier orden):
+ * cliente (id o nombre de empresa), descripcion, falla (código, opcional),
+ * prioridad (BAJA/MEDIA/ALTA, opcional) y creado_at (ISO, opcional).
+ */
+@Service
+@Slf4j
+public class ImportacionIncidenciasService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO incidencia (id_cliente, id_falla, descripcion, estado, prioridad, creado_at, actualizado_at) " +
+        "VALUES (?, ?, ?, 'PENDIENTE', ?, ?, ?)";
+
+    private static final int MAX_RECHAZOS_DETALLADOS = 100;
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private DiccionarioFallasRepository diccionarioFallasRepository;
+
+    @Autowired
+    private ImportacionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.incidencias.importacion.commit-cada:10000}")
+    private int commitCada;
+
+    @Value("${app.incidencias.importacion.espera-cierre-ms:30000}")
+    private long esperaCierreMs;
+
+    // Un solo hilo: los avisos se procesan en el orden de las importaciones
+    private ExecutorService avisosExecutor;
+
+    // Columnas reconocidas en la cabecera
+    private record Columnas(int cliente, int descripcion, int falla, int prioridad, int creadoAt) {
+    }
+
+    // Referencias a clientes y fallas resueltas en memoria para toda la importación
+    private static class Referencias {
+        final Set<Long> idsCliente = new HashSet<>();
+        final Map<String, Long> clientesPorNombre = new HashMap<>();
+        final Map<String, Long> fallasPorCodigo = new HashMap<>();
+    }
+
+    private record ClaveAlta(LocalDate dia, Long idFalla) {
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        avisosExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "importacion-avisos");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Historial y rollups son persistentes: se terminan los avisos pendientes antes de cerrar
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        avisosExecutor.shutdown();
+        if (!avisosExecutor.awaitTermination(esperaCierreMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Quedan avisos de importación sin procesar al cerrar");
+        }
+    }
+
+    public ImportacionResultado importar(String idImportacion, InputStream entrada) throws IOException {
+        if (idImportacion == null || idImportacion.isBlank() || idImportacion.length() > 100) {
+            throw new ValidationException("El id de importación es requerido y no puede exceder 100 caracteres");
+        }
+        long inicio = System.currentTimeMillis();
+
+        ImportacionResultado resultado = leerCheckpoint(idImportacion);
+        if (resultado.isCompletada()) {
+            log.info("La importación {} ya estaba completada, no se procesa de nuevo", idImportacion);
+            return resultado;
+        }
+        long yaProcesadas = resultado.getFilasProcesadas();
+
+        Referencias referencias = cargarReferencias();
+        // Altas de los tramos ya confirmados y del tramo en curso, por separado
+        Map<ClaveAlta, Long> altas = new HashMap<>();
+        Map<ClaveAlta, Long> altasTramo = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> tramo = new ArrayList<>(commitCada);
+        long importadasTramo = 0;
+        long fila = 0;
+
+        try (LectorCsv lector = new LectorCsv(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            Columnas columnas = leerCabecera(lector.siguiente());
+            LocalDateTime ahora = LocalDateTime.now();
+
+            List<String> campos;
+            while ((campos = lector.siguiente()) != null) {
+                fila++;
+                if (fila <= yaProcesadas) {
+                    resultado.setOmitidas(resultado.getOmitidas() + 1);
+                    continue;
+                }
+
+                try {
+                    Object[] valores = convertir(campos, columnas, referencias, ahora);
+                    tramo.add(valores);
+                    importadasTramo++;
+                    LocalDate dia = ((Timestamp) valores[4]).toLocalDateTime().toLocalDate();
+                    altasTramo.merge(new ClaveAlta(dia, (Long) valores[1]), 1L, Long::sum);
+                } catch (ValidationException e) {
+                    resultado.setRechazadas(resultado.getRechazadas() + 1);
+                    if (resultado.getRechazos().size() < MAX_RECHAZOS_DETALLADOS) {
+                        resultado.getRechazos().add(new ImportacionResultado.Rechazo(fila, e.getMessage()));
+                    }
+                }
+
+                if (fila - resultado.getFilasProcesadas() >= commitCada) {
+                    ids.addAll(confirmarTramo(resultado, tramo, importadasTramo, fila, false));
+                    altasTramo.forEach((clave, total) -> altas.merge(clave, total, Long::sum));
+                    altasTramo.clear();
+                    tramo.clear();
+                    importadasTramo = 0;
+                }
+            }
+            ids.addAll(confirmarTramo(resultado, tramo, importadasTramo, fila, true));
+            altasTramo.forEach((clave, total) -> altas.merge(clave, total, Long::sum));
+        } finally {
+            // Los tramos confirmados ya están en la BD aunque un tramo posterior falle:
+            // las vistas en memoria y los rollups tienen que enterarse igualmente
+            if (!ids.isEmpty()) {
+                List<IncidenciasImportadasEvent.Altas> resumen = new ArrayList<>(altas.size());
+                altas.forEach((clave, total) -> resumen.add(new IncidenciasImportadasEvent.Altas(clave.dia(), clave.idFalla(), total)));
+                avisar(new IncidenciasImportadasEvent(this, idImportacion, ids, resumen));
+            }
+        }
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        log.info("Importación {} completada: {} importadas, {} rechazadas, {} omitidas en {} ms",
+            idImportacion, resultado.getImportadas(), resultado.getRechazadas(), resultado.getOmitidas(),
+            resultado.getDuracionMs());
+        return resultado;
+    }
+
+    private void avisar(IncidenciasImportadasEvent evento) {
+        Runnable aviso = new DelegatingSecurityContextRunnable(() -> {
+            try {
+                eventPublisher.publishEvent(evento);
+            } catch (Exception e) {
+                log.error("Error procesando el aviso de la importación {}", evento.getIdImportacion(), e);
+            }
+        });
+        try {
+            avisosExecutor.execute(aviso);
+        } catch (RejectedExecutionException e) {
+            // Cerrando la aplicación: se procesa aquí para no perder historial ni rollups
+            aviso.run();
+        }
+    }
+
+    /**
+     * Inserta el tramo y avanza el checkpoint en la misma transacción. La fila del
+     * checkpoint se bloquea antes de insertar: si otra petición con el mismo id la
+     * avanzó mientras tanto, el tramo se descarta.
+     *
+     * @return ids generados para las filas insertadas
+     */
+    private List<Long> confirmarTramo(ImportacionResultado resultado, List<Object[]> tramo, long importadasTramo,
+                                      long fila, boolean completada) {
+        long importadas = resultado.getImportadas() + importadasTramo;
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> {
+            ImportacionCheckpoint checkpoint = checkpointRepository.findBloqueado(resultado.getIdImportacion())
+                .orElseThrow(() -> new IllegalStateException("No existe el checkpoint de la importación " + resultado.getIdImportacion()));
+            if (checkpoint.isCompletada() || checkpoint.getFilasProcesadas() != resultado.getFilasProcesadas()) {
+                throw new IllegalStateException("La importación " + resultado.getIdImportacion()
+                    + " se está procesando en otra petición");
+            }
+            if (!tramo.isEmpty()) {
+                jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Object[] valores = tramo.get(i);
+                            for (int k = 0; k < valores.length; k++) {
+                                ps.setObject(k + 1, valores[k]);
+                            }
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return tramo.size();
+                        }
+                    }, claves);
+            }
+            checkpoint.setFilasProcesadas(fila);
+            checkpoint.setImportadas(importadas);
+            checkpoint.setRechazadas(resultado.getRechazadas());
+            checkpoint.setCompletada(completada);
+            checkpoint.setActualizadoAt(LocalDateTime.now());
+        });
+        resultado.setImportadas(importadas);
+        resultado.setFilasProcesadas(fila);
+        resultado.setCompletada(completada);
+        log.debug("Importación {}: {} filas confirmadas", resultado.getIdImportacion(), fila);
+        return claves.getKeyList().stream()
+            .map(clave -> ((Number) clave.values().iterator().next()).longValue())
+            .toList();
+    }
+
+    // Lee el checkpoint, creándolo vacío si es la primera vez que se ve este id
+    private ImportacionResultado leerCheckpoint(String idImportacion) {
+        ImportacionCheckpoint checkpoint = transactionTemplate.execute(status -> {
+            checkpointRepository.crearSiNoExiste(idImportacion);
+            return checkpointRepository.findById(idImportacion).orElseThrow();
+        });
+        ImportacionResultado resultado = new ImportacionResultado();
+        resultado.setIdImportacion(idImportacion);
+        resultado.setFilasProcesadas(checkpoint.getFilasProcesadas());
+        resultado.setImportadas(checkpoint.getImportadas());
+        resultado.setRechazadas(checkpoint.getRechazadas());
+        resultado.setCompletada(checkpoint.isCompletada());
+        return resultado;
+    }
+
+    private Referencias cargarReferencias() {
+        Referencias referencias = new Referencias();
+        for (Object[] fila : clienteRepository.findIdYNombreEmpresa()) {
+            Long id = (Long) fila[0];
+            referencias.idsCliente.add(id);
+            if (fila[1] != null) {
+                referencias.clientesPorNombre.putIfAbsent(normalizar((String) fila[1]), id);
+            }
+        }
+        for (Object[] fila : diccionarioFallasRepository.findIdYCodigo()) {
+            referencias.fallasPorCodigo.put(normalizar((String) fila[1]), (Long) fila[0]);
+        }
+        return referencias;
+    }
+
+    private Columnas leerCabecera(List<String> cabecera) {
+        if (cabecera == null) {
+            throw new ValidationException("El archivo está vacío");
+        }
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            // Se descarta el BOM que agregan algunas hojas de cálculo
+            indices.put(normalizar(cabecera.get(i).replace("\uFEFF", "")), i);
+        }
+        if (!indices.containsKey("cliente") || !indices.containsKey("descripcion")) {
+            throw new ValidationException("La cabecera debe incluir las columnas 'cliente' y 'descripcion'");
+        }
+        return new Columnas(indices.get("cliente"), indices.get("descripcion"),
+            indices.getOrDefault("falla", -1), indices.getOrDefault("prioridad", -1),
+            indices.getOrDefault("creado_at", -1));
+    }
+
+    // Valores del INSERT en orden: id_cliente, id_falla, descripcion, prioridad, creado_at, actualizado_at
+    private Object[] convertir(List<String> campos, Columnas columnas, Referencias referencias, LocalDateTime ahora) {
+        String descripcion = campo(campos, columnas.descripcion());
+        Long idCliente = resolverCliente(campo(campos, columnas.cliente()), referencias);
+        incidenciaService.validarDatosCreacion(idCliente != null, descripcion);
+
+        Long idFalla = null;
+        String codigoFalla = campo(campos, columnas.falla());
+        if (codigoFalla != null && !codigoFalla.isBlank()) {
+            idFalla = referencias.fallasPorCodigo.get(normalizar(codigoFalla));
+            if (idFalla == null) {
+                throw new ValidationException("No se encontró la falla con código: " + codigoFalla);
+            }
+        }
+
+        Incidencia.Prioridad prioridad = Incidencia.Prioridad.MEDIA;
+        String valorPrioridad = campo(campos, columnas.prioridad());
+        if (valorPrioridad != null && !valorPrioridad.isBlank()) {
+            try {
+                prioridad = Incidencia.Prioridad.valueOf(valorPrioridad.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Prioridad inválida: " + valorPrioridad);
+            }
+        }
+
+        LocalDateTime creadoAt = ahora;
+        String valorFecha = campo(campos, columnas.creadoAt());
+        if (valorFecha != null && !valorFecha.isBlank()) {
+            creadoAt = parsearFecha(valorFecha.trim());
+        }
+
+        return new Object[]{idCliente, idFalla, descripcion, prioridad.name(),
+            Timestamp.valueOf(creadoAt), Timestamp.valueOf(ahora)};
+    }
+
+    private Long resolverCliente(String valor, Referencias referencias) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        String limpio = valor.trim();
+        if (limpio.chars().allMatch(Character::isDigit)) {
+            Long id = Long.valueOf(limpio);
+            if (referencias.idsCliente.contains(id)) {
+                return id;
+            }
+        }
+        Long id = referencias.clientesPorNombre.get(normalizar(limpio));
+        if (id == null) {
+            throw new ValidationException("No se encontró el cliente: " + valor);
+        }
+        return id;
+    }
+
+    private static LocalDateTime parsearFecha(String valor) {
+        try {
+            return valor.length() <= 10 ? LocalDate.parse(valor).atStartOfDay() : LocalDateTime.parse(valor.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Fecha inválida: " + valor);
+        }
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice >= 0 && indice < campos.size() ? campos.get(indice) : null;
+    }
+
+    private static String normalizar(String valor) {
+        return valor.trim().toLowerCase(Locale.ROOT);
+    }
+}
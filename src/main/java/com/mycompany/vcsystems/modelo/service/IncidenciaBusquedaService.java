@@ -0,0 +1,202 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaCoincidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto sobre la descripción de incidencias.
+ * Las consultas se resuelven en el índice en memoria y nunca llegan a la BD;
+ * el índice se reconstruye al arrancar y se mantiene con los eventos de incidencia
+ * ya confirmados (los de otros nodos se releen de la BD por id).
+ * La reconstrucción carga un índice nuevo y lo intercambia de una vez, así que
+ * las búsquedas nunca ven un índice a medio cargar.
+ */
+@Service
+@Slf4j
+public class IncidenciaBusquedaService {
+
+    // Ids por consulta al releer las incidencias de una importación
+    private static final int LOTE_IDS = 1000;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Value("${app.incidencias.busqueda.max-resultados:50}")
+    private int maxResultados;
+
+    private volatile IncidenciaTextIndex indice = new IncidenciaTextIndex();
+
+    // Una reconstrucción a la vez; la siguiente espera y vuelve a leer la BD
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+
+    // Cambios recibidos mientras se carga el índice nuevo; se reaplican sobre él antes del intercambio
+    private List<Consumer<IncidenciaTextIndex>> cambiosDuranteCarga;
+
+    // Ids que tocaron los eventos locales mientras se releían cambios de otros nodos, uno por lectura
+    private final List<Set<Long>> lecturasEnCurso = new ArrayList<>();
+
+    public List<IncidenciaCoincidencia> buscar(String consulta, Integer limit) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new ValidationException("El texto de búsqueda es requerido");
+        }
+        int limite = limit == null ? maxResultados : Math.min(Math.max(limit, 1), maxResultados);
+        return indice.buscar(consulta, limite);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, IncidenciasRecargadasEnOtroNodoEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void reconstruirIndice() {
+        reconstruccion.lock();
+        try {
+            synchronized (this) {
+                cambiosDuranteCarga = new ArrayList<>();
+            }
+            long inicio = System.currentTimeMillis();
+            AtomicLong cargadas = new AtomicLong();
+            IncidenciaTextIndex nuevo = new IncidenciaTextIndex();
+            try (Stream<Object[]> filas = incidenciaRepository.streamTextoIndexable()) {
+                filas.forEach(fila -> {
+                    nuevo.indexar((Long) fila[0], (Incidencia.Estado) fila[1], (String) fila[2]);
+                    cargadas.incrementAndGet();
+                });
+            } catch (Exception e) {
+                // Se conserva el índice actual, que siguió recibiendo los eventos
+                log.error("No se pudo reconstruir el índice de búsqueda de incidencias", e);
+                return;
+            }
+            synchronized (this) {
+                cambiosDuranteCarga.forEach(cambio -> cambio.accept(nuevo));
+                indice = nuevo;
+            }
+            log.info("Índice de búsqueda de incidencias reconstruido: {} documentos en {} ms",
+                cargadas.get(), System.currentTimeMillis() - inicio);
+        } finally {
+            synchronized (this) {
+                cambiosDuranteCarga = null;
+            }
+            reconstruccion.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        indexar(event.getIncidencia());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        indexar(event.getIncidencia());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        indexar(event.getIncidencia());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        aplicar(event.getCambios().stream().map(IncidenciaBulkUpdatedEvent.Cambio::idIncidencia).toList(), destino -> {
+            for (IncidenciaBulkUpdatedEvent.Cambio cambio : event.getCambios()) {
+                destino.actualizarEstado(cambio.idIncidencia(), cambio.estadoNuevo());
+            }
+        });
+    }
+
+    /**
+     * Los cambios de otros nodos solo traen los ids: se releen sin el monitor y
+     * se aplican con él. Lo que un evento local tocó durante la lectura es al
+     * menos tan nuevo como lo leído, así que esas incidencias no se pisan.
+     */
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        releer(event.getIdsIncidencia());
+    }
+
+    // Solo las filas importadas, por lotes de ids
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        List<Long> ids = event.getIds();
+        for (int i = 0; i < ids.size(); i += LOTE_IDS) {
+            releer(ids.subList(i, Math.min(i + LOTE_IDS, ids.size())));
+        }
+    }
+
+    private void releer(Collection<Long> ids) {
+        Set<Long> tocadas = new HashSet<>();
+        synchronized (this) {
+            lecturasEnCurso.add(tocadas);
+        }
+        try {
+            List<Object[]> filas = incidenciaRepository.findTextoIndexableByIds(ids);
+            synchronized (this) {
+                List<Object[]> vigentes = filas.stream().filter(fila -> !tocadas.contains((Long) fila[0])).toList();
+                Set<Long> borradas = new HashSet<>(ids);
+                filas.forEach(fila -> borradas.remove((Long) fila[0]));
+                borradas.removeAll(tocadas);
+                aplicar(destino -> {
+                    for (Object[] fila : vigentes) {
+                        destino.indexar((Long) fila[0], (Incidencia.Estado) fila[1], (String) fila[2]);
+                    }
+                    borradas.forEach(destino::eliminar);
+                });
+            }
+        } catch (Exception e) {
+            log.error("Error reindexando incidencias: {}", ids, e);
+        } finally {
+            synchronized (this) {
+                lecturasEnCurso.removeIf(t -> t == tocadas);
+            }
+        }
+    }
+
+    private void indexar(Incidencia incidencia) {
+        Long id = incidencia.getIdIncidencia();
+        Incidencia.Estado estado = incidencia.getEstado();
+        String descripcion = incidencia.getDescripcion();
+        aplicar(List.of(id), destino -> destino.indexar(id, estado, descripcion));
+    }
+
+    private synchronized void aplicar(Collection<Long> ids, Consumer<IncidenciaTextIndex> cambio) {
+        lecturasEnCurso.forEach(tocadas -> tocadas.addAll(ids));
+        aplicar(cambio);
+    }
+
+    private synchronized void aplicar(Consumer<IncidenciaTextIndex> cambio) {
+        cambio.accept(indice);
+        if (cambiosDuranteCarga != null) {
+            cambiosDuranteCarga.add(cambio);
+        }
+    }
+}
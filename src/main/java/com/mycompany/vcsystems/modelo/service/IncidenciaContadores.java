@@ -0,0 +1,199 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de incidencias por estado mantenidos de forma incremental.
+ * Se inicializan con un GROUP BY al arrancar, se actualizan con los eventos
+ * de incidencia ya confirmados y se reconcilian periódicamente contra la BD
+ * para corregir cualquier desviación (por ejemplo cambios hechos fuera de la
+ * aplicación).
+ * <p>
+ * La reconciliación ajusta cada contador por diferencia y solo si ningún
+ * evento lo movió mientras se ejecutaba el GROUP BY; si lo movió, no se sabe
+ * si la consulta vio ese cambio y el ajuste queda para la siguiente pasada.
+ * Queda una ventana sin cubrir: una transacción confirmada antes de la
+ * consulta cuyo listener aún no incrementó el contador se cuenta dos veces
+ * hasta la reconciliación siguiente.
+ * <p>
+ * Los cambios de otros nodos llegan sin el estado anterior, así que no se
+ * pueden aplicar por diferencia: marcan los contadores como desfasados y una
+ * reconciliación corta (app.incidencias.estadisticas.remotos-ms) los corrige.
+ */
+@Component
+@Slf4j
+public class IncidenciaContadores {
+
+    private static final Incidencia.Estado[] ESTADOS = Incidencia.Estado.values();
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private VersionColecciones versionColecciones;
+
+    private final LongAdder[] porEstado = new LongAdder[ESTADOS.length];
+    private final AtomicBoolean cambiosRemotos = new AtomicBoolean();
+
+    public IncidenciaContadores() {
+        for (int i = 0; i < porEstado.length; i++) {
+            porEstado[i] = new LongAdder();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.incidencias.estadisticas.reconciliacion-ms:300000}",
+               initialDelayString = "${app.incidencias.estadisticas.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        try {
+            long[] antes = sumas();
+            Map<Incidencia.Estado, Long> enBd = new EnumMap<>(Incidencia.Estado.class);
+            List<Object[]> filas = incidenciaRepository.countGroupByEstado();
+            for (Object[] fila : filas) {
+                enBd.put((Incidencia.Estado) fila[0], (Long) fila[1]);
+            }
+            long[] despues = sumas();
+
+            long desviacion = 0;
+            int omitidos = 0;
+            for (Incidencia.Estado estado : ESTADOS) {
+                int i = estado.ordinal();
+                if (antes[i] != despues[i]) {
+                    omitidos++;
+                    continue;
+                }
+                // Se suma la diferencia en vez de fijar el valor: lo que llegue ahora se conserva
+                long delta = enBd.getOrDefault(estado, 0L) - despues[i];
+                if (delta != 0) {
+                    porEstado[i].add(delta);
+                    desviacion += Math.abs(delta);
+                }
+            }
+            if (omitidos > 0) {
+                log.debug("Reconciliación de contadores: {} estados con cambios concurrentes quedan para la siguiente", omitidos);
+            }
+            if (desviacion > 0) {
+                // Hubo cambios fuera de la aplicación: las copias en caché de los clientes ya no valen
+                versionColecciones.incrementar(VersionColecciones.Coleccion.INCIDENCIAS);
+                log.info("Contadores de incidencias reconciliados, desviación corregida: {}", desviacion);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciliando contadores de incidencias", e);
+        }
+    }
+
+    /**
+     * Reconcilia solo si llegaron cambios de otros nodos desde la pasada anterior.
+     */
+    @Scheduled(fixedDelayString = "${app.incidencias.estadisticas.remotos-ms:2000}")
+    public void reconciliarCambiosRemotos() {
+        if (cambiosRemotos.getAndSet(false)) {
+            reconciliar();
+        }
+    }
+
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        cambiosRemotos.set(true);
+    }
+
+    @EventListener
+    public void onRecargadasEnOtroNodo(IncidenciasRecargadasEnOtroNodoEvent event) {
+        cambiosRemotos.set(true);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        incrementar(event.getIncidencia().getEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        mover(event.getEstadoAnterior(), event.getIncidencia().getEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        mover(event.getEstadoAnterior(), event.getNuevoEstado());
+    }
+
+    // Todas las importadas entran como PENDIENTE
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        porEstado[Incidencia.Estado.PENDIENTE.ordinal()].add(event.getImportadas());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        for (IncidenciaBulkUpdatedEvent.Cambio cambio : event.getCambios()) {
+            mover(cambio.estadoAnterior(), cambio.estadoNuevo());
+        }
+    }
+
+    /**
+     * Instantánea O(1) de los contadores actuales.
+     */
+    public IncidenciaService.IncidenciaStatistics snapshot() {
+        long pendientes = valor(Incidencia.Estado.PENDIENTE);
+        long asignadas = valor(Incidencia.Estado.ASIGNADA);
+        long enProceso = valor(Incidencia.Estado.EN_PROCESO);
+        long resueltas = valor(Incidencia.Estado.RESUELTA);
+        long cerradas = valor(Incidencia.Estado.CERRADA);
+        long total = pendientes + asignadas + enProceso + resueltas + cerradas;
+        return new IncidenciaService.IncidenciaStatistics(total, pendientes, asignadas, enProceso, resueltas, cerradas);
+    }
+
+    private void mover(Incidencia.Estado desde, Incidencia.Estado hacia) {
+        if (desde == hacia) {
+            return;
+        }
+        if (desde != null) {
+            porEstado[desde.ordinal()].decrement();
+        }
+        incrementar(hacia);
+    }
+
+    private void incrementar(Incidencia.Estado estado) {
+        if (estado != null) {
+            porEstado[estado.ordinal()].increment();
+        }
+    }
+
+    private long[] sumas() {
+        long[] sumas = new long[porEstado.length];
+        for (int i = 0; i < porEstado.length; i++) {
+            sumas[i] = porEstado[i].sum();
+        }
+        return sumas;
+    }
+
+    private long valor(Incidencia.Estado estado) {
+        return Math.max(0, porEstado[estado.ordinal()].sum());
+    }
+}
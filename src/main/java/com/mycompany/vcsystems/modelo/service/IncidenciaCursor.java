@@ -0,0 +1,38 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import jakarta.validation.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para la paginación keyset sobre (creado_at, id_incidencia).
+ * El cliente solo lo reenvía tal cual, nunca debe interpretarlo.
+ */
+public record IncidenciaCursor(LocalDateTime creadoAt, Long idIncidencia) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = creadoAt + SEPARATOR + idIncidencia;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static IncidenciaCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep <= 0) {
+                throw new ValidationException("Cursor de paginación inválido");
+            }
+            return new IncidenciaCursor(
+                LocalDateTime.parse(raw.substring(0, sep)),
+                Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.itextpdf.layout.properties.VerticalAlignment;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de incidencias escrita fila a fila sobre la respuesta.
+ * Las filas se leen con un cursor de solo avance y se serializan a medida que
+ * llegan, así la memoria usada no depende del tamaño de la tabla.
+ */
+@Service
+@Slf4j
+public class IncidenciaExportService {
+
+    public enum Formato { NDJSON, JSON }
+
+    private static final DateTimeFormatter FECHA_PDF = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.incidencias.export.flush-cada:500}")
+    private int flushCada;
+
+    /**
+     * Escribe todas las incidencias en el stream indicado. Debe llamarse desde el
+     * hilo que escribe la respuesta: la transacción vive mientras dura el recorrido.
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream out, Formato formato) throws IOException {
+        long escritas = 0;
+        try (Stream<IncidenciaResumen> filas = incidenciaRepository.streamResumen();
+             JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin el espacio que Jackson pone por defecto entre valores raíz: cada línea NDJSON empieza con '{'
+            gen.setRootValueSeparator(null);
+            if (formato == Formato.JSON) {
+                gen.writeStartArray();
+            }
+
+            Iterator<IncidenciaResumen> it = filas.iterator();
+            while (it.hasNext()) {
+                gen.writeObject(it.next());
+                if (formato == Formato.NDJSON) {
+                    gen.writeRaw('\n');
+                }
+                // Se vacía periódicamente para que el cliente reciba datos desde el inicio
+                if (++escritas % flushCada == 0 || escritas == 1) {
+                    gen.flush();
+                }
+            }
+
+            if (formato == Formato.JSON) {
+                gen.writeEndArray();
+            }
+            gen.flush();
+        }
+        log.info("Exportación de incidencias completada: {} filas en formato {}", escritas, formato);
+        return escritas;
+    }
+
+    /**
+     * Escribe el reporte PDF de incidencias en el stream indicado, con las
+     * mismas condiciones que {@link #exportar}. La tabla se crea en modo de
+     * tabla grande: cada app.incidencias.export.flush-cada filas se maqueta lo
+     * acumulado y las páginas completas se escriben en el stream, así que en
+     * memoria solo quedan las filas de la página en curso. El stream no se cierra.
+     */
+    @Transactional(readOnly = true)
+    public long exportarPdf(OutputStream out) throws IOException {
+        long escritas = 0;
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        try (Stream<IncidenciaResumen> filas = incidenciaRepository.streamResumen();
+             Document document = new Document(new PdfDocument(writer))) {
+            PdfDocument pdf = document.getPdfDocument();
+            pdf.getDocumentInfo().setTitle("Reporte de Incidencias");
+            pdf.getDocumentInfo().setAuthor("VCSystems");
+            pdf.getDocumentInfo().setCreator("VCSystems");
+
+            document.add(new Paragraph("Reporte de Incidencias")
+                .setFontSize(18)
+                .setBold()
+                .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph("\n"));
+
+            Table table = new Table(UnitValue.createPercentArray(new float[] {1, 3, 2, 2, 2}), true)
+                .useAllAvailableWidth();
+            // Los encabezados se repiten en cada página
+            Stream.of("ID", "Cliente", "Técnico", "Estado", "Fecha").forEach(titulo -> table.addHeaderCell(new Cell()
+                .add(new Paragraph(titulo))
+                .setBackgroundColor(ColorConstants.LIGHT_GRAY)
+                .setBorder(new SolidBorder(2f))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setVerticalAlignment(VerticalAlignment.MIDDLE)));
+            document.add(table);
+
+            Iterator<IncidenciaResumen> it = filas.iterator();
+            while (it.hasNext()) {
+                IncidenciaResumen inc = it.next();
+                table.addCell(celda(String.valueOf(inc.getIdIncidencia())));
+                table.addCell(celda(inc.getNombreEmpresa()));
+                table.addCell(celda(inc.getNombreTecnico() != null ? inc.getNombreTecnico() : "Sin asignar"));
+                table.addCell(celda(String.valueOf(inc.getEstado())));
+                table.addCell(celda(inc.getCreadoAt() != null ? inc.getCreadoAt().format(FECHA_PDF) : ""));
+                if (++escritas % flushCada == 0) {
+                    table.flush();
+                }
+            }
+            table.complete();
+        }
+        out.flush();
+        log.info("Exportación PDF de incidencias completada: {} filas", escritas);
+        return escritas;
+    }
+
+    private static Cell celda(String texto) {
+        return new Cell().add(new Paragraph(texto != null ? texto : ""));
+    }
+}
@@ -0,0 +1,248 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaHistorial;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaHistorialRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Historial append-only de transiciones de incidencias. Los eventos solo
+ * encolan el registro en una cola acotada (ya confirmada la transacción);
+ * un único hilo escritor la vacía e inserta por lotes con un batch JDBC, de
+ * modo que la petición no paga un INSERT adicional y id_historial sigue el
+ * orden en que se encolaron los registros. Si la cola se llena, el hilo que
+ * registra espera turno (la cola es justa) en vez de escribir por su cuenta.
+ */
+@Service
+@Slf4j
+public class IncidenciaHistorialService {
+
+    public static final String ACTOR_SISTEMA = "sistema";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO incidencia_historial (id_incidencia, estado_anterior, estado_nuevo, id_tecnico, actor, registrado_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_INTENTOS = 3;
+
+    public record PaginaHistorial(List<IncidenciaHistorial> items, Long siguiente) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IncidenciaHistorialRepository historialRepository;
+
+    @Value("${app.incidencias.historial.capacidad:10000}")
+    private int capacidad;
+
+    @Value("${app.incidencias.historial.lote:500}")
+    private int tamanoLote;
+
+    @Value("${app.incidencias.historial.espera-cierre-ms:30000}")
+    private long esperaCierreMs;
+
+    @Value("${app.incidencias.page.max-size:200}")
+    private int maxPageSize;
+
+    private BlockingQueue<IncidenciaHistorial> cola;
+    private Thread escritor;
+    private volatile boolean activo;
+
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong saturaciones = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        // Justa: con la cola llena, los productores bloqueados entran en el orden en que llegaron
+        cola = new ArrayBlockingQueue<>(capacidad, true);
+        activo = true;
+        escritor = new Thread(this::ejecutar, "historial-incidencias");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Marca el cierre y aguarda a que el escritor vacíe la cola. No se interrumpe
+     * al escritor ni se escribe desde este hilo, así que ningún lote en vuelo se
+     * pierde ni se adelanta a otro.
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        escritor.join(esperaCierreMs);
+        if (escritor.isAlive()) {
+            log.error("El historial de incidencias no terminó de escribir en {} ms: quedan {} registros en cola",
+                esperaCierreMs, cola.size());
+        }
+        log.info("Historial de incidencias detenido: {} registros escritos, {} saturaciones", escritos.get(), saturaciones.get());
+    }
+
+    /**
+     * Historial de una incidencia en orden cronológico, por páginas de keyset sobre id_historial.
+     */
+    public PaginaHistorial pagina(Long idIncidencia, Long cursor, Integer limit) {
+        int size = limit == null ? maxPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+        List<IncidenciaHistorial> filas = historialRepository.findPagina(
+            idIncidencia, cursor != null ? cursor : 0L, Limit.of(size + 1));
+        if (filas.size() <= size) {
+            return new PaginaHistorial(filas, null);
+        }
+        List<IncidenciaHistorial> items = filas.subList(0, size);
+        return new PaginaHistorial(items, items.get(size - 1).getIdHistorial());
+    }
+
+    /**
+     * Registros encolados y aún no escritos.
+     */
+    public int pendientes() {
+        return cola.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        Incidencia incidencia = event.getIncidencia();
+        registrar(incidencia.getIdIncidencia(), null, incidencia.getEstado(), idDe(incidencia.getTecnico()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        registrar(event.getIncidencia().getIdIncidencia(), event.getEstadoAnterior(),
+            event.getIncidencia().getEstado(), idDe(event.getTecnico()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        registrar(event.getIncidencia().getIdIncidencia(), event.getEstadoAnterior(),
+            event.getNuevoEstado(), idDe(event.getIncidencia().getTecnico()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        for (IncidenciaBulkUpdatedEvent.Cambio cambio : event.getCambios()) {
+            registrar(cambio.idIncidencia(), cambio.estadoAnterior(), cambio.estadoNuevo(), cambio.idTecnico());
+        }
+    }
+
+    // Las filas importadas entran como PENDIENTE sin técnico, igual que un alta individual
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        for (Long id : event.getIds()) {
+            registrar(id, null, Incidencia.Estado.PENDIENTE, null);
+        }
+    }
+
+    private void registrar(Long idIncidencia, Incidencia.Estado anterior, Incidencia.Estado nuevo, Long idTecnico) {
+        IncidenciaHistorial registro = new IncidenciaHistorial(
+            null, idIncidencia, anterior, nuevo, idTecnico, actorActual(), LocalDateTime.now());
+        if (cola.offer(registro)) {
+            return;
+        }
+        // Cola llena: contrapresión esperando hueco; solo escribe el hilo escritor
+        saturaciones.incrementAndGet();
+        try {
+            while (!cola.offer(registro, 1, TimeUnit.SECONDS)) {
+                if (!escritor.isAlive()) {
+                    log.error("Historial detenido con la cola llena, se descarta el registro de la incidencia {}", idIncidencia);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrumpido esperando hueco en el historial, se descarta el registro de la incidencia {}", idIncidencia);
+        }
+    }
+
+    // Sigue vaciando la cola tras detener() hasta dejarla vacía
+    private void ejecutar() {
+        List<IncidenciaHistorial> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                IncidenciaHistorial primero = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                escribir(lote);
+                lote.clear();
+            } catch (InterruptedException e) {
+                // Nadie interrumpe al escritor; si ocurre, se termina de vaciar antes de salir
+                log.warn("Escritor del historial interrumpido, se vacía la cola antes de salir");
+                activo = false;
+            }
+        }
+    }
+
+    private void escribir(List<IncidenciaHistorial> lote) {
+        for (int intento = 1; intento <= MAX_INTENTOS; intento++) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, lote, lote.size(), (ps, h) -> {
+                    ps.setLong(1, h.getIdIncidencia());
+                    ps.setString(2, h.getEstadoAnterior() != null ? h.getEstadoAnterior().name() : null);
+                    ps.setString(3, h.getEstadoNuevo().name());
+                    ps.setObject(4, h.getIdTecnico());
+                    ps.setString(5, h.getActor());
+                    ps.setTimestamp(6, Timestamp.valueOf(h.getRegistradoAt()));
+                });
+                escritos.addAndGet(lote.size());
+                return;
+            } catch (Exception e) {
+                log.warn("Error escribiendo {} registros de historial (intento {}/{})", lote.size(), intento, MAX_INTENTOS, e);
+                if (!esperar(200L * intento)) {
+                    break;
+                }
+            }
+        }
+        log.error("Se descartan {} registros de historial tras {} intentos", lote.size(), MAX_INTENTOS);
+    }
+
+    private static boolean esperar(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String actorActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return ACTOR_SISTEMA;
+        }
+        return auth.getName();
+    }
+
+    private static Long idDe(Usuario usuario) {
+        return usuario != null ? usuario.getIdUsuario() : null;
+    }
+}
@@ -0,0 +1,443 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaOutbox;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaEventListener;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox transaccional de los eventos de incidencia. Cada evento se guarda en
+ * incidencia_outbox dentro de la misma transacción que el cambio (si ésta hace
+ * rollback, el evento desaparece con ella). Un relay programado reclama los
+ * pendientes por lotes: con FOR UPDATE SKIP LOCKED fija reclamado_hasta y
+ * confirma, de modo que varias instancias no toman la misma fila y ningún
+ * bloqueo queda abierto mientras se envía. Después los pasa a
+ * {@link IncidenciaEventListener}, espera a que terminen los envíos y marca
+ * como procesados los que terminaron bien; los
+ * que fallan suman un intento y se liberan para reintentarse. Al llegar a
+ * max-intentos quedan marcados con fallido_at y el último error, fuera del
+ * relay, hasta que un administrador los reencola. La entrega es al menos una
+ * vez: si la instancia cae antes de la marca, la fila vuelve a estar
+ * disponible al vencer su reclamo.
+ */
+@Service
+@Slf4j
+public class IncidenciaOutboxService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO incidencia_outbox (tipo, id_incidencia, payload, intentos, creado_at) VALUES (?, ?, ?, 0, ?)";
+
+    private static final String SELECT_PENDIENTES_SQL =
+        "SELECT id_outbox, tipo, id_incidencia, payload, intentos FROM incidencia_outbox " +
+        "WHERE procesado_at IS NULL AND intentos < ? AND (reclamado_hasta IS NULL OR reclamado_hasta < ?) " +
+        "ORDER BY id_outbox LIMIT ? FOR UPDATE";
+
+    private static final int MAX_LARGO_ERROR = 500;
+
+    /**
+     * Datos del evento que no se pueden releer de la incidencia al entregarlo
+     * (estado anterior, técnico asignado, cambios de una operación masiva).
+     */
+    record Payload(Long idTecnico, Incidencia.Estado estadoAnterior, Incidencia.Estado estadoNuevo,
+                   List<CambioPayload> cambios) {
+    }
+
+    record CambioPayload(Long idIncidencia, Long idFalla, Long idTecnico, String correoCliente,
+                         Incidencia.Estado estadoAnterior, Incidencia.Estado estadoNuevo,
+                         String correoTecnicoAsignado, String nombreTecnicoAsignado) {
+    }
+
+    /**
+     * Métricas del relay: totales desde el arranque, pendientes y agotados
+     * actuales, antigüedad del pendiente más viejo y ritmo de la última ejecución.
+     */
+    public record OutboxMetricas(long despachados, long fallidos, long pendientes, long agotados, long lagMs,
+                                 double eventosPorSegundo, LocalDateTime ultimaEjecucion) {
+    }
+
+    private record Fila(Long id, IncidenciaOutbox.Tipo tipo, Long idIncidencia, String payload, int intentos) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IncidenciaEventListener incidenciaEventListener;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${app.incidencias.outbox.lote:200}")
+    private int tamanoLote;
+
+    @Value("${app.incidencias.outbox.max-intentos:5}")
+    private int maxIntentos;
+
+    // MySQL 8 admite SKIP LOCKED; en motores que no lo tengan se desactiva
+    @Value("${app.incidencias.outbox.skip-locked:true}")
+    private boolean skipLocked;
+
+    @Value("${app.incidencias.outbox.retencion-horas:72}")
+    private int retencionHoras;
+
+    // Tiempo que una fila reclamada queda reservada para este nodo mientras se entrega
+    @Value("${app.incidencias.outbox.reclamo-ms:60000}")
+    private long reclamoMs;
+
+    private TransactionTemplate transactionTemplate;
+    private String selectPendientesSql;
+
+    private final AtomicLong despachados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private volatile double eventosPorSegundo;
+    private volatile LocalDateTime ultimaEjecucion;
+
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        selectPendientesSql = skipLocked ? SELECT_PENDIENTES_SQL + " SKIP LOCKED" : SELECT_PENDIENTES_SQL;
+    }
+
+    // Escritura: listeners síncronos, se ejecutan en la transacción del cambio
+
+    @EventListener
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        guardar(IncidenciaOutbox.Tipo.CREADA, event.getIncidencia().getIdIncidencia(), null);
+    }
+
+    @EventListener
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        guardar(IncidenciaOutbox.Tipo.TECNICO_ASIGNADO, event.getIncidencia().getIdIncidencia(),
+            new Payload(event.getTecnico().getIdUsuario(), event.getEstadoAnterior(), event.getIncidencia().getEstado(), null));
+    }
+
+    @EventListener
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        guardar(IncidenciaOutbox.Tipo.ESTADO_CAMBIADO, event.getIncidencia().getIdIncidencia(),
+            new Payload(null, event.getEstadoAnterior(), event.getNuevoEstado(), null));
+    }
+
+    @EventListener
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        List<CambioPayload> cambios = event.getCambios().stream()
+            .map(c -> new CambioPayload(c.idIncidencia(), c.idFalla(), c.idTecnico(), c.correoCliente(),
+                c.estadoAnterior(), c.estadoNuevo(),
+                c.esAsignacion() ? c.tecnicoAsignado().getCorreo() : null,
+                c.esAsignacion() ? c.tecnicoAsignado().getNombre() : null))
+            .toList();
+        guardar(IncidenciaOutbox.Tipo.MASIVA, null, new Payload(null, null, null, cambios));
+    }
+
+    private void guardar(IncidenciaOutbox.Tipo tipo, Long idIncidencia, Payload payload) {
+        String json;
+        try {
+            json = payload != null ? objectMapper.writeValueAsString(payload) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de outbox " + tipo, e);
+        }
+        // Sin try/catch: si falla el INSERT debe fallar también el cambio
+        jdbcTemplate.update(INSERT_SQL, tipo.name(), idIncidencia, json, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Relay
+
+    /**
+     * Entrega los eventos pendientes en lotes de app.incidencias.outbox.lote
+     * mientras sigan llegando lotes completos. Cada lote se reclama en una
+     * transacción corta y se entrega fuera de ella.
+     *
+     * @return número de eventos entregados
+     */
+    @Scheduled(fixedDelayString = "${app.incidencias.outbox.intervalo-ms:1000}",
+               initialDelayString = "${app.incidencias.outbox.intervalo-ms:1000}")
+    public int relay() {
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            List<Fila> filas;
+            do {
+                filas = transactionTemplate.execute(status -> reclamarLote());
+                total += entregarLote(filas);
+            } while (filas.size() == tamanoLote);
+        } catch (Exception e) {
+            log.error("Error en el relay del outbox de incidencias", e);
+        }
+        long nanos = System.nanoTime() - inicio;
+        eventosPorSegundo = total > 0 ? total / (nanos / 1e9) : 0;
+        ultimaEjecucion = LocalDateTime.now();
+        if (total > 0) {
+            log.debug("Outbox: {} eventos entregados en {} ms", total, Duration.ofNanos(nanos).toMillis());
+        }
+        return total;
+    }
+
+    // Bloquea un lote de pendientes sin reclamo vigente y lo reserva hasta ahora + reclamo-ms
+    private List<Fila> reclamarLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Fila> filas = jdbcTemplate.query(selectPendientesSql,
+            (rs, n) -> new Fila(rs.getLong(1), IncidenciaOutbox.Tipo.valueOf(rs.getString(2)),
+                (Long) rs.getObject(3, Long.class), rs.getString(4), rs.getInt(5)),
+            maxIntentos, Timestamp.valueOf(ahora), tamanoLote);
+        if (!filas.isEmpty()) {
+            List<Long> ids = filas.stream().map(Fila::id).toList();
+            jdbcTemplate.update("UPDATE incidencia_outbox SET reclamado_hasta = ? WHERE id_outbox IN (" + marcadores(ids) + ")",
+                parametros(Timestamp.valueOf(ahora.plus(Duration.ofMillis(reclamoMs))), ids));
+        }
+        return filas;
+    }
+
+    /**
+     * Entrega las filas ya reclamadas (sin transacción abierta) y espera a que
+     * terminen los envíos, que corren en el ejecutor de notificaciones. Solo se
+     * marcan como procesadas las que terminaron bien; las que fallan o no
+     * responden dentro de la mitad del reclamo se reintentan, salvo que con
+     * este fallo lleguen a max-intentos.
+     */
+    private int entregarLote(List<Fila> filas) {
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        Map<Fila, CompletableFuture<Void>> envios = new LinkedHashMap<>();
+        for (Fila fila : filas) {
+            try {
+                envios.put(fila, entregar(fila));
+            } catch (Exception e) {
+                // Payload ilegible o cola de notificaciones llena (TaskRejectedException)
+                envios.put(fila, CompletableFuture.failedFuture(e));
+            }
+        }
+        esperar(envios.values(), reclamoMs / 2);
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> entregadas = new ArrayList<>(filas.size());
+        List<Object[]> conError = new ArrayList<>();
+        envios.forEach((fila, envio) -> {
+            if (envio.isDone() && !envio.isCompletedExceptionally()) {
+                entregadas.add(fila.id());
+                return;
+            }
+            Throwable causa = envio.isDone() ? causa(envio) : null;
+            String error = causa != null ? causa.toString() : "Sin confirmar en " + reclamoMs / 2 + " ms";
+            boolean agotada = fila.intentos() + 1 >= maxIntentos;
+            conError.add(new Object[] {agotada ? ahora : null, recortar(error), fila.id()});
+            if (agotada) {
+                log.error("Evento de outbox {} ({}, incidencia {}) agotó sus {} intentos y queda como fallido: {}",
+                    fila.id(), fila.tipo(), fila.idIncidencia(), maxIntentos, error, causa);
+            } else if (causa == null) {
+                log.warn("Evento de outbox {} ({}) sin confirmar en {} ms, se reintentará", fila.id(), fila.tipo(), reclamoMs / 2);
+            } else {
+                log.warn("Error entregando evento de outbox {} ({})", fila.id(), fila.tipo(), causa);
+            }
+        });
+
+        if (!entregadas.isEmpty()) {
+            jdbcTemplate.update("UPDATE incidencia_outbox SET procesado_at = ?, reclamado_hasta = NULL " +
+                    "WHERE id_outbox IN (" + marcadores(entregadas) + ")",
+                parametros(ahora, entregadas));
+        }
+        if (!conError.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE incidencia_outbox SET intentos = intentos + 1, reclamado_hasta = NULL, " +
+                    "fallido_at = ?, ultimo_error = ? WHERE id_outbox = ?",
+                conError);
+        }
+        despachados.addAndGet(entregadas.size());
+        fallidos.addAndGet(conError.size());
+        return entregadas.size();
+    }
+
+    // Devuelve el futuro del envío; uno ya completado si no hay nada que notificar
+    private CompletableFuture<Void> entregar(Fila fila) throws JsonProcessingException {
+        Payload payload = fila.payload() != null ? objectMapper.readValue(fila.payload(), Payload.class) : null;
+        if (fila.tipo() == IncidenciaOutbox.Tipo.MASIVA) {
+            return incidenciaEventListener.handleBulkUpdated(new IncidenciaBulkUpdatedEvent(this, cambiosDe(payload)));
+        }
+
+        Optional<Incidencia> incidencia = incidenciaRepository.findParaNotificacionById(fila.idIncidencia());
+        if (incidencia.isEmpty()) {
+            // La incidencia ya no existe: no hay nada que notificar
+            log.warn("Evento de outbox {} descartado: no existe la incidencia {}", fila.id(), fila.idIncidencia());
+            return CompletableFuture.completedFuture(null);
+        }
+        return switch (fila.tipo()) {
+            case CREADA -> incidenciaEventListener.handleIncidenciaCreated(
+                new IncidenciaCreatedEvent(this, incidencia.get()));
+            case TECNICO_ASIGNADO -> {
+                Optional<Usuario> tecnico = usuarioRepository.findById(payload.idTecnico());
+                if (tecnico.isEmpty()) {
+                    log.warn("Evento de outbox {} descartado: no existe el técnico {}", fila.id(), payload.idTecnico());
+                    yield CompletableFuture.completedFuture(null);
+                }
+                yield incidenciaEventListener.handleTecnicoAssigned(new IncidenciaTecnicoAssignedEvent(
+                    this, incidencia.get(), tecnico.get(), payload.estadoAnterior()));
+            }
+            case ESTADO_CAMBIADO -> incidenciaEventListener.handleStatusChanged(new IncidenciaStatusChangedEvent(
+                this, incidencia.get(), payload.estadoAnterior(), payload.estadoNuevo()));
+            default -> throw new IllegalStateException("Tipo de outbox no soportado: " + fila.tipo());
+        };
+    }
+
+    // Espera a que terminen todos los envíos (bien o con error) o a que venza el plazo
+    private static void esperar(Collection<CompletableFuture<Void>> envios, long ms) {
+        try {
+            CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).get(ms, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Cada envío se revisa por separado
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Throwable causa(CompletableFuture<Void> envio) {
+        try {
+            envio.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    private static List<IncidenciaBulkUpdatedEvent.Cambio> cambiosDe(Payload payload) {
+        if (payload == null || payload.cambios() == null) {
+            return Collections.emptyList();
+        }
+        return payload.cambios().stream().map(c -> {
+            Usuario tecnico = null;
+            if (c.correoTecnicoAsignado() != null) {
+                tecnico = new Usuario();
+                tecnico.setIdUsuario(c.idTecnico());
+                tecnico.setCorreo(c.correoTecnicoAsignado());
+                tecnico.setNombre(c.nombreTecnicoAsignado());
+                tecnico.setRol(Usuario.Rol.TECNICO);
+            }
+            return new IncidenciaBulkUpdatedEvent.Cambio(c.idIncidencia(), c.idFalla(), c.idTecnico(),
+                c.correoCliente(), c.estadoAnterior(), c.estadoNuevo(), tecnico);
+        }).toList();
+    }
+
+    /**
+     * Borra los eventos ya procesados más antiguos que app.incidencias.outbox.retencion-horas.
+     */
+    @ClusterScheduled(lease = "outbox-purga",
+                      fixedDelayString = "${app.incidencias.outbox.purga-ms:3600000}",
+                      initialDelayString = "${app.incidencias.outbox.purga-ms:3600000}")
+    public void purgar() {
+        try {
+            int borradas = jdbcTemplate.update(
+                "DELETE FROM incidencia_outbox WHERE procesado_at IS NOT NULL AND procesado_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retencionHoras)));
+            if (borradas > 0) {
+                log.info("Outbox de incidencias: {} eventos procesados purgados", borradas);
+            }
+        } catch (Exception e) {
+            log.error("Error purgando el outbox de incidencias", e);
+        }
+    }
+
+    /**
+     * Eventos que agotaron sus intentos, del más reciente al más antiguo.
+     */
+    public List<IncidenciaOutbox> listarAgotados(int limit) {
+        return jdbcTemplate.query(
+            "SELECT * FROM incidencia_outbox WHERE procesado_at IS NULL AND intentos >= ? ORDER BY id_outbox DESC LIMIT ?",
+            new BeanPropertyRowMapper<>(IncidenciaOutbox.class), maxIntentos, Math.max(1, Math.min(limit, 500)));
+    }
+
+    /**
+     * Devuelve al relay los eventos agotados con el contador a cero. Sin ids
+     * se reencolan todos.
+     *
+     * @return número de eventos reencolados
+     */
+    public int reencolarAgotados(List<Long> ids) {
+        String sql = "UPDATE incidencia_outbox SET intentos = 0, fallido_at = NULL " +
+            "WHERE procesado_at IS NULL AND intentos >= ?";
+        List<Object> params = new ArrayList<>();
+        params.add(maxIntentos);
+        if (ids != null && !ids.isEmpty()) {
+            sql += " AND id_outbox IN (" + marcadores(ids) + ")";
+            params.addAll(ids);
+        }
+        int reencolados = jdbcTemplate.update(sql, params.toArray());
+        log.info("{} eventos de outbox fallidos reencolados", reencolados);
+        return reencolados;
+    }
+
+    public OutboxMetricas metricas() {
+        Long pendientes = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM incidencia_outbox WHERE procesado_at IS NULL AND intentos < ?", Long.class, maxIntentos);
+        Long agotados = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM incidencia_outbox WHERE procesado_at IS NULL AND intentos >= ?", Long.class, maxIntentos);
+        Timestamp masAntiguo = jdbcTemplate.queryForObject(
+            "SELECT MIN(creado_at) FROM incidencia_outbox WHERE procesado_at IS NULL AND intentos < ?", Timestamp.class, maxIntentos);
+        long lagMs = masAntiguo != null
+            ? Math.max(0, Duration.between(masAntiguo.toLocalDateTime(), LocalDateTime.now()).toMillis())
+            : 0;
+        return new OutboxMetricas(despachados.get(), fallidos.get(), pendientes != null ? pendientes : 0,
+            agotados != null ? agotados : 0, lagMs, eventosPorSegundo, ultimaEjecucion);
+    }
+
+    private static String recortar(String error) {
+        return error.length() > MAX_LARGO_ERROR ? error.substring(0, MAX_LARGO_ERROR) : error;
+    }
+
+    private static String marcadores(List<Long> ids) {
+        return ids.stream().map(id -> "?").collect(Collectors.joining(","));
+    }
+
+    private static Object[] parametros(Object primero, List<Long> ids) {
+        Object[] params = new Object[ids.size() + 1];
+        params[0] = primero;
+        for (int i = 0; i < ids.size(); i++) {
+            params[i + 1] = ids.get(i);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,324 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.SeriePunto;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaRollupDiaria;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantiene la tabla incidencia_rollup_diaria y sirve series por día, semana o mes.
+ * Cada evento suma, tras el commit, una entrada al estado destino en un buffer
+ * en memoria que se vuelca periódicamente con un upsert por lotes, de modo que
+ * el camino de la petición nunca escribe en la tabla de agregados y lo que se
+ * deshace no llega a contarse.
+ * <p>
+ * El backfill corre en segundo plano sobre una tabla de preparación que se
+ * intercambia con RENAME TABLE al terminar; mientras corre, los volcados de
+ * este nodo se retienen en el buffer y se aplican sobre la tabla nueva.
+ */
+@Service
+@Slf4j
+public class IncidenciaRollupService {
+
+    public enum Granularidad { DIA, SEMANA, MES }
+
+    public enum Dimension { ESTADO, FALLA, TECNICO }
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO incidencia_rollup_diaria (dia, estado, id_falla, id_tecnico, total) VALUES (?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE total = total + VALUES(total)";
+
+    private static final String CREAR_PREPARACION_SQL =
+        "CREATE TABLE incidencia_rollup_diaria_nueva LIKE incidencia_rollup_diaria";
+
+    // RENAME TABLE con varios pares es atómico: las lecturas ven la tabla vieja o la nueva completa
+    private static final String INTERCAMBIAR_SQL =
+        "RENAME TABLE incidencia_rollup_diaria TO incidencia_rollup_diaria_vieja, " +
+        "incidencia_rollup_diaria_nueva TO incidencia_rollup_diaria";
+
+    private static final long MAX_DIAS_SERIE = 3L * 366;
+
+    public record EstadoBackfill(boolean enCurso, Long hastaId, LocalDateTime terminadoAt, String error) {
+    }
+
+    private record ClaveRollup(LocalDate dia, Incidencia.Estado estado, long idFalla, long idTecnico) {
+    }
+
+    @Autowired
+    private IncidenciaRollupRepository rollupRepository;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.reportes.rollup.backfill-chunk:10000}")
+    private int backfillChunk;
+
+    private final Map<ClaveRollup, Long> pendientes = new ConcurrentHashMap<>();
+
+    // Lo toma cada volcado y el backfill durante toda su ejecución
+    private final ReentrantLock escritura = new ReentrantLock();
+    private ExecutorService backfillExecutor;
+    private volatile EstadoBackfill estadoBackfill = new EstadoBackfill(false, null, null, null);
+
+    @PostConstruct
+    public void iniciar() {
+        backfillExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rollup-backfill");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        registrar(event.getIncidencia(), event.getIncidencia().getEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        registrar(event.getIncidencia(), event.getIncidencia().getEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        registrar(event.getIncidencia(), event.getNuevoEstado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        LocalDate hoy = LocalDate.now();
+        for (IncidenciaBulkUpdatedEvent.Cambio cambio : event.getCambios()) {
+            registrar(hoy, cambio.estadoNuevo(), cambio.idFalla(), cambio.idTecnico());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        for (IncidenciasImportadasEvent.Altas altas : event.getAltas()) {
+            registrar(altas.dia(), Incidencia.Estado.PENDIENTE, altas.idFalla(), null, altas.total());
+        }
+    }
+
+    private void registrar(Incidencia incidencia, Incidencia.Estado estado) {
+        LocalDateTime momento = incidencia.getActualizadoAt() != null ? incidencia.getActualizadoAt() : LocalDateTime.now();
+        registrar(momento.toLocalDate(), estado,
+            incidencia.getFalla() != null ? incidencia.getFalla().getIdFalla() : null,
+            incidencia.getTecnico() != null ? incidencia.getTecnico().getIdUsuario() : null);
+    }
+
+    private void registrar(LocalDate dia, Incidencia.Estado estado, Long idFalla, Long idTecnico) {
+        registrar(dia, estado, idFalla, idTecnico, 1L);
+    }
+
+    private void registrar(LocalDate dia, Incidencia.Estado estado, Long idFalla, Long idTecnico, long total) {
+        if (estado == null) {
+            return;
+        }
+        ClaveRollup clave = new ClaveRollup(dia, estado,
+            idFalla != null ? idFalla : IncidenciaRollupDiaria.SIN_ASIGNAR,
+            idTecnico != null ? idTecnico : IncidenciaRollupDiaria.SIN_ASIGNAR);
+        pendientes.merge(clave, total, Long::sum);
+    }
+
+    /**
+     * Vuelca los incrementos acumulados con un único batch de upserts.
+     */
+    @Scheduled(fixedDelayString = "${app.reportes.rollup.flush-ms:5000}")
+    public void volcar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        // Durante un backfill el buffer se retiene y se vuelca sobre la tabla nueva
+        if (!escritura.tryLock()) {
+            return;
+        }
+        try {
+            volcarPendientes();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void volcarPendientes() {
+        List<ClaveRollup> claves = new ArrayList<>(pendientes.size());
+        List<Object[]> lote = new ArrayList<>(pendientes.size());
+        for (ClaveRollup clave : pendientes.keySet()) {
+            Long total = pendientes.remove(clave);
+            if (total != null) {
+                claves.add(clave);
+                lote.add(new Object[]{Date.valueOf(clave.dia()), clave.estado().name(), clave.idFalla(), clave.idTecnico(), total});
+            }
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, lote);
+            log.debug("Rollup de incidencias: {} buckets actualizados", lote.size());
+        } catch (Exception e) {
+            // Se devuelven los incrementos al buffer para el siguiente ciclo
+            for (int i = 0; i < claves.size(); i++) {
+                pendientes.merge(claves.get(i), (Long) lote.get(i)[4], Long::sum);
+            }
+            log.error("Error volcando rollup de incidencias, se reintentará", e);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        backfillExecutor.shutdownNow();
+        if (estadoBackfill.enCurso()) {
+            log.warn("Cierre con backfill de rollup en curso: el buffer pendiente no se vuelca");
+            return;
+        }
+        volcar();
+    }
+
+    /**
+     * Lanza el backfill en segundo plano.
+     *
+     * @return false si ya hay uno en curso
+     */
+    public synchronized boolean iniciarBackfill() {
+        if (estadoBackfill.enCurso()) {
+            return false;
+        }
+        estadoBackfill = new EstadoBackfill(true, null, null, null);
+        backfillExecutor.execute(() -> {
+            try {
+                long hastaId = backfill();
+                estadoBackfill = new EstadoBackfill(false, hastaId, LocalDateTime.now(), null);
+            } catch (Exception e) {
+                log.error("Error en el backfill de rollup de incidencias; se conserva la tabla actual", e);
+                estadoBackfill = new EstadoBackfill(false, null, LocalDateTime.now(), e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    public EstadoBackfill getEstadoBackfill() {
+        return estadoBackfill;
+    }
+
+    /**
+     * Reconstruye la tabla de agregados a partir de la tabla incidencia. Carga una
+     * tabla de preparación por tramos de id, con una transacción por tramo, y la
+     * intercambia por la actual solo si llegó al final. Como las transiciones
+     * intermedias no se conservan, cada incidencia aporta su alta (PENDIENTE en
+     * creado_at) y su estado actual (en actualizado_at). Los eventos recibidos
+     * mientras tanto quedan en el buffer y se vuelcan después del intercambio; una
+     * transición de una incidencia cuyo tramo aún no se leyó se cuenta dos veces.
+     * Los volcados de otros nodos durante el backfill caen en la tabla reemplazada.
+     * Devuelve el id hasta el que se procesó.
+     */
+    long backfill() {
+        escritura.lock();
+        try {
+            // Lo acumulado hasta ahora ya está en la tabla incidencia que se va a recorrer
+            pendientes.clear();
+            jdbcTemplate.execute("DROP TABLE IF EXISTS incidencia_rollup_diaria_nueva");
+            jdbcTemplate.execute(CREAR_PREPARACION_SQL);
+
+            long maxId = incidenciaRepository.findMaxId();
+            for (long desde = 0; desde < maxId; desde += backfillChunk) {
+                long inicio = desde;
+                long fin = Math.min(desde + backfillChunk, maxId);
+                transactionTemplate.executeWithoutResult(status -> {
+                    rollupRepository.backfillCreadas(inicio, fin);
+                    rollupRepository.backfillEstadoActual(inicio, fin);
+                });
+                log.debug("Backfill de rollup: ids ({}, {}] procesados", inicio, fin);
+            }
+
+            jdbcTemplate.execute("DROP TABLE IF EXISTS incidencia_rollup_diaria_vieja");
+            jdbcTemplate.execute(INTERCAMBIAR_SQL);
+            jdbcTemplate.execute("DROP TABLE incidencia_rollup_diaria_vieja");
+            log.info("Backfill de rollup de incidencias completado hasta id {}", maxId);
+
+            volcarPendientes();
+            return maxId;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Serie temporal agregada por la dimensión indicada. Lee filas de la tabla
+     * diaria y las agrupa en memoria por semana (lunes) o mes.
+     */
+    public List<SeriePunto> serie(Granularidad granularidad, Dimension dimension, LocalDate desde, LocalDate hasta,
+                                  Incidencia.Estado estado, Long idFalla, Long idTecnico) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new ValidationException("El rango de fechas es inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_SERIE) {
+            throw new ValidationException("El rango de fechas no puede superar " + MAX_DIAS_SERIE + " días");
+        }
+
+        List<Object[]> filas = switch (dimension) {
+            case ESTADO -> rollupRepository.seriePorEstado(desde, hasta, estado, idFalla, idTecnico);
+            case FALLA -> rollupRepository.seriePorFalla(desde, hasta, estado, idFalla, idTecnico);
+            case TECNICO -> rollupRepository.seriePorTecnico(desde, hasta, estado, idFalla, idTecnico);
+        };
+
+        Map<LocalDate, Map<String, Long>> buckets = new TreeMap<>();
+        for (Object[] fila : filas) {
+            LocalDate periodo = inicioPeriodo((LocalDate) fila[0], granularidad);
+            String clave = String.valueOf(fila[1]);
+            buckets.computeIfAbsent(periodo, k -> new TreeMap<>())
+                .merge(clave, ((Number) fila[2]).longValue(), Long::sum);
+        }
+
+        List<SeriePunto> serie = new ArrayList<>();
+        buckets.forEach((periodo, porClave) ->
+            porClave.forEach((clave, total) -> serie.add(new SeriePunto(periodo, clave, total))));
+        return serie;
+    }
+
+    private static LocalDate inicioPeriodo(LocalDate dia, Granularidad granularidad) {
+        return switch (granularidad) {
+            case DIA -> dia;
+            case SEMANA -> dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> dia.withDayOfMonth(1);
+        };
+    }
+}
@@ -2,98 +2,341 @@ package com.mycompany.vcsystems.modelo.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaSpecifications;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaEstadoActual;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaFiltro;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPagina;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasiva;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasivaResultado;
 import com.mycompany.vcsystems.modelo.entidades.Incidencia;
 import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
 import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
 import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
 import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
 import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class IncidenciaService {
 
+    // Códigos de error que el despacho automático trata como reintentables
+    public static final String MODIFICACION_CONCURRENTE = "CONCURRENT_MODIFICATION";
+    public static final String TECNICO_INVALIDO = "TECNICO_INVALIDO";
+
     @Autowired
     private IncidenciaRepository incidenciaRepository;
 
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private IncidenciaContadores incidenciaContadores;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.incidencias.bulk.max-operaciones:500}")
+    private int maxOperacionesMasivas;
+
+    // Compare-and-set sobre (estado, id_tecnico); <=> compara también los NULL
+    private static final String UPDATE_CONDICIONAL_SQL =
+        "UPDATE incidencia SET id_tecnico = ?, estado = ?, actualizado_at = ? " +
+        "WHERE id_incidencia = ? AND estado = ? AND id_tecnico <=> ?";
+
+    // Relectura con bloqueo tras perder un compare-and-set. Es una lectura actual: ve lo que confirmó
+    // la otra transacción, no la instantánea de esta (REPEATABLE READ), y deja la fila bloqueada
+    private static final String ESTADO_ACTUAL_BLOQUEADO_SQL =
+        "SELECT i.id_incidencia, i.estado, t.id_usuario, t.nombre, i.id_falla, cu.correo " +
+        "FROM incidencia i JOIN cliente c ON c.id_cliente = i.id_cliente " +
+        "JOIN usuario cu ON cu.id_usuario = c.id_usuario LEFT JOIN usuario t ON t.id_usuario = i.id_tecnico " +
+        "WHERE i.id_incidencia = ? FOR UPDATE OF i";
+
+    @Value("${app.incidencias.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.incidencias.page.max-size:200}")
+    private int maxPageSize;
+
+    @Transactional
     public Incidencia crearIncidencia(Incidencia incidencia) {
         validateIncidenciaForCreation(incidencia);
         incidencia.setEstado(Incidencia.Estado.PENDIENTE);
+        if (incidencia.getPrioridad() == null) {
+            incidencia.setPrioridad(Incidencia.Prioridad.MEDIA);
+        }
         Incidencia savedIncidencia = incidenciaRepository.save(incidencia);
         log.info("Incidencia creada exitosamente con ID: {}", savedIncidencia.getIdIncidencia());
         eventPublisher.publishEvent(new IncidenciaCreatedEvent(this, savedIncidencia));
         return savedIncidencia;
     }
 
+    @Transactional
     public IncidenciaOperationResult asignarTecnico(Long idIncidencia, Usuario tecnico) {
-        if (tecnico == null) {
-            return IncidenciaOperationResult.businessError("El técnico es requerido");
+        IncidenciaOperationResult errorTecnico = validarTecnico(tecnico);
+        if (errorTecnico != null) {
+            return errorTecnico;
         }
 
-        if (!tecnico.getRol().equals(Usuario.Rol.TECNICO)) {
-            return IncidenciaOperationResult.businessError("El usuario asignado debe tener rol de técnico");
+        // Primer intento optimista; si otra transacción cambió la fila, uno más sobre la fila ya bloqueada
+        Optional<IncidenciaEstadoActual> actualOpt = incidenciaRepository.findEstadoActual(idIncidencia);
+        for (boolean bloqueada = false; ; bloqueada = true) {
+            if (actualOpt.isEmpty()) {
+                return IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + idIncidencia);
+            }
+
+            IncidenciaEstadoActual actual = actualOpt.get();
+            IncidenciaOperationResult error = validarAsignacion(actual);
+            if (error != null) {
+                return error;
+            }
+
+            // Una sola sentencia decide la carrera: si otro gerente asignó antes, no se actualiza ninguna fila
+            int filas = incidenciaRepository.asignarTecnicoSiLibre(
+                idIncidencia, tecnico, actual.estado(), Incidencia.Estado.ASIGNADA, LocalDateTime.now());
+            if (filas == 1) {
+                Incidencia updatedIncidencia = incidenciaRepository.findParaNotificacionById(idIncidencia).orElseThrow();
+                log.info("Técnico {} asignado exitosamente a incidencia {}", tecnico.getNombre(), idIncidencia);
+                eventPublisher.publishEvent(new IncidenciaTecnicoAssignedEvent(this, updatedIncidencia, tecnico, actual.estado()));
+                return IncidenciaOperationResult.success(updatedIncidencia);
+            }
+            if (bloqueada) {
+                // Con la fila bloqueada no debería ocurrir
+                return IncidenciaOperationResult.businessError(
+                    "La incidencia fue modificada concurrentemente, intente nuevamente", MODIFICACION_CONCURRENTE);
+            }
+            log.debug("Conflicto concurrente asignando técnico a incidencia {}, se relee con bloqueo", idIncidencia);
+            actualOpt = findEstadoActualBloqueado(idIncidencia);
         }
+    }
 
-        Optional<Incidencia> incidenciaOpt = incidenciaRepository.findById(idIncidencia);
-        if (incidenciaOpt.isEmpty()) {
-            return IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + idIncidencia);
+    @Transactional
+    public IncidenciaOperationResult cambiarEstado(Long idIncidencia, Incidencia.Estado nuevoEstado) {
+        if (nuevoEstado == null) {
+            return IncidenciaOperationResult.businessError("El nuevo estado es requerido");
+        }
+
+        Optional<IncidenciaEstadoActual> actualOpt = incidenciaRepository.findEstadoActual(idIncidencia);
+        for (boolean bloqueada = false; ; bloqueada = true) {
+            if (actualOpt.isEmpty()) {
+                return IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + idIncidencia);
+            }
+
+            Incidencia.Estado estadoAnterior = actualOpt.get().estado();
+
+            // Log para verificar el estado anterior y el nuevo estado
+            log.info("Intentando cambiar estado de incidencia {} de {} a {}", idIncidencia, estadoAnterior, nuevoEstado);
+
+            IncidenciaOperationResult error = validarCambioEstado(actualOpt.get(), nuevoEstado);
+            if (error != null) {
+                return error;
+            }
+
+            boolean requiereTecnico = nuevoEstado == Incidencia.Estado.EN_PROCESO;
+
+            // Solo se aplica si el estado sigue siendo el leído (compare-and-set)
+            int filas = incidenciaRepository.cambiarEstadoSiCoincide(
+                idIncidencia, estadoAnterior, nuevoEstado, requiereTecnico, LocalDateTime.now());
+            if (filas == 1) {
+                Incidencia updatedIncidencia = incidenciaRepository.findParaNotificacionById(idIncidencia).orElseThrow();
+                log.info("Estado de incidencia {} cambiado de {} a {}", idIncidencia, estadoAnterior, nuevoEstado);
+                eventPublisher.publishEvent(new IncidenciaStatusChangedEvent(this, updatedIncidencia, estadoAnterior, nuevoEstado));
+                return IncidenciaOperationResult.success(updatedIncidencia);
+            }
+            if (bloqueada) {
+                return IncidenciaOperationResult.businessError(
+                    "La incidencia fue modificada concurrentemente, intente nuevamente", MODIFICACION_CONCURRENTE);
+            }
+            log.debug("Conflicto concurrente cambiando estado de incidencia {}, se relee con bloqueo", idIncidencia);
+            actualOpt = findEstadoActualBloqueado(idIncidencia);
+        }
+    }
+
+    private Optional<IncidenciaEstadoActual> findEstadoActualBloqueado(Long idIncidencia) {
+        return jdbcTemplate.query(ESTADO_ACTUAL_BLOQUEADO_SQL, (rs, n) -> new IncidenciaEstadoActual(
+                rs.getLong(1),
+                Incidencia.Estado.valueOf(rs.getString(2)),
+                rs.getObject(3, Long.class),
+                rs.getString(4),
+                rs.getObject(5, Long.class),
+                rs.getString(6)), idIncidencia)
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Aplica un lote de asignaciones y cambios de estado en una sola transacción.
+     * Todas las operaciones se validan con las mismas reglas que las individuales contra
+     * el estado leído en una única consulta (encadenando las que tocan la misma incidencia),
+     * y las válidas se escriben con un batch JDBC de UPDATE condicionales sobre
+     * (estado, id_tecnico). Se publica un único evento con los cambios confirmados.
+     */
+    @Transactional
+    public List<OperacionMasivaResultado> aplicarMasivo(List<OperacionMasiva> operaciones) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new ValidationException("Debe indicar al menos una operación");
+        }
+        if (operaciones.size() > maxOperacionesMasivas) {
+            throw new ValidationException("No se pueden aplicar más de " + maxOperacionesMasivas + " operaciones por petición");
+        }
+
+        Set<Long> ids = new HashSet<>();
+        Set<Long> idsTecnicos = new HashSet<>();
+        for (OperacionMasiva op : operaciones) {
+            if (op.getIdIncidencia() != null) {
+                ids.add(op.getIdIncidencia());
+            }
+            if (op.getIdTecnico() != null) {
+                idsTecnicos.add(op.getIdTecnico());
+            }
+        }
+
+        Map<Long, IncidenciaEstadoActual> estados = new HashMap<>();
+        for (IncidenciaEstadoActual actual : incidenciaRepository.findEstadosActuales(ids)) {
+            estados.put(actual.idIncidencia(), actual);
+        }
+        Map<Long, Usuario> tecnicos = new HashMap<>();
+        for (Usuario usuario : usuarioRepository.findAllById(idsTecnicos)) {
+            tecnicos.put(usuario.getIdUsuario(), usuario);
         }
 
-        Incidencia incidencia = incidenciaOpt.get();
-        if (incidencia.getTecnico() != null) {
-            return IncidenciaOperationResult.businessError("La incidencia ya tiene un técnico asignado: " + incidencia.getTecnico().getNombre());
+        OperacionMasivaResultado[] resultados = new OperacionMasivaResultado[operaciones.size()];
+        List<Object[]> lote = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        List<IncidenciaBulkUpdatedEvent.Cambio> pendientes = new ArrayList<>();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionMasiva op = operaciones.get(i);
+            IncidenciaEstadoActual actual = op.getIdIncidencia() != null ? estados.get(op.getIdIncidencia()) : null;
+            if (actual == null) {
+                resultados[i] = OperacionMasivaResultado.de(op,
+                    IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + op.getIdIncidencia()));
+                continue;
+            }
+
+            IncidenciaOperationResult error;
+            IncidenciaEstadoActual siguiente = null;
+            Usuario tecnicoAsignado = null;
+            if (op.getTipo() == OperacionMasiva.Tipo.ASIGNAR_TECNICO) {
+                tecnicoAsignado = op.getIdTecnico() != null ? tecnicos.get(op.getIdTecnico()) : null;
+                if (op.getIdTecnico() != null && tecnicoAsignado == null) {
+                    error = IncidenciaOperationResult.businessError("No se encontró el técnico con ID: " + op.getIdTecnico(),
+                        TECNICO_INVALIDO);
+                } else {
+                    error = validarTecnico(tecnicoAsignado);
+                }
+                if (error == null) {
+                    error = validarAsignacion(actual);
+                }
+                if (error == null) {
+                    siguiente = actual.conTecnico(tecnicoAsignado.getIdUsuario(), tecnicoAsignado.getNombre())
+                        .conEstado(Incidencia.Estado.ASIGNADA);
+                }
+            } else if (op.getTipo() == OperacionMasiva.Tipo.CAMBIAR_ESTADO) {
+                error = op.getEstado() == null
+                    ? IncidenciaOperationResult.businessError("El nuevo estado es requerido")
+                    : validarCambioEstado(actual, op.getEstado());
+                if (error == null) {
+                    siguiente = actual.conEstado(op.getEstado());
+                }
+            } else {
+                error = IncidenciaOperationResult.businessError("El tipo de operación es requerido");
+            }
+
+            if (error != null) {
+                resultados[i] = OperacionMasivaResultado.de(op, error);
+                continue;
+            }
+
+            lote.add(new Object[]{siguiente.idTecnico(), siguiente.estado().name(), ahora,
+                actual.idIncidencia(), actual.estado().name(), actual.idTecnico()});
+            posiciones.add(i);
+            pendientes.add(new IncidenciaBulkUpdatedEvent.Cambio(actual.idIncidencia(), actual.idFalla(),
+                siguiente.idTecnico(), actual.correoCliente(), actual.estado(), siguiente.estado(), tecnicoAsignado));
+            // Las siguientes operaciones sobre la misma incidencia parten de este resultado
+            estados.put(actual.idIncidencia(), siguiente);
         }
 
-        if (incidencia.getEstado() == Incidencia.Estado.CERRADA || incidencia.getEstado() == Incidencia.Estado.RESUELTA) {
-            return IncidenciaOperationResult.businessError("No se puede asignar técnico a una incidencia en estado: " + incidencia.getEstado());
+        List<IncidenciaBulkUpdatedEvent.Cambio> aplicados = new ArrayList<>();
+        if (!lote.isEmpty()) {
+            int[] filas = jdbcTemplate.batchUpdate(UPDATE_CONDICIONAL_SQL, lote);
+            for (int k = 0; k < filas.length; k++) {
+                OperacionMasiva op = operaciones.get(posiciones.get(k));
+                if (filas[k] == 0) {
+                    resultados[posiciones.get(k)] = OperacionMasivaResultado.de(op, IncidenciaOperationResult.businessError(
+                        "La incidencia fue modificada concurrentemente, intente nuevamente", MODIFICACION_CONCURRENTE));
+                } else {
+                    resultados[posiciones.get(k)] = OperacionMasivaResultado.exito(op);
+                    aplicados.add(pendientes.get(k));
+                }
+            }
         }
 
-        incidencia.setTecnico(tecnico);
-        incidencia.setEstado(Incidencia.Estado.ASIGNADA);
-        Incidencia updatedIncidencia = incidenciaRepository.save(incidencia);
-        log.info("Técnico {} asignado exitosamente a incidencia {}", tecnico.getNombre(), idIncidencia);
-        eventPublisher.publishEvent(new IncidenciaTecnicoAssignedEvent(this, updatedIncidencia, tecnico));
-        return IncidenciaOperationResult.success(updatedIncidencia);
+        log.info("Operación masiva: {} de {} operaciones aplicadas", aplicados.size(), operaciones.size());
+        if (!aplicados.isEmpty()) {
+            eventPublisher.publishEvent(new IncidenciaBulkUpdatedEvent(this, aplicados));
+        }
+        return Arrays.asList(resultados);
     }
 
-    public IncidenciaOperationResult cambiarEstado(Long idIncidencia, Incidencia.Estado nuevoEstado) {
-        if (nuevoEstado == null) {
-            return IncidenciaOperationResult.businessError("El nuevo estado es requerido");
+    // Devuelve null si el técnico puede recibir incidencias
+    private IncidenciaOperationResult validarTecnico(Usuario tecnico) {
+        if (tecnico == null) {
+            return IncidenciaOperationResult.businessError("El técnico es requerido");
         }
 
-        Optional<Incidencia> incidenciaOpt = incidenciaRepository.findById(idIncidencia);
-        if (incidenciaOpt.isEmpty()) {
-            return IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + idIncidencia);
+        if (!Usuario.Rol.TECNICO.equals(tecnico.getRol())) {
+            return IncidenciaOperationResult.businessError("El usuario asignado debe tener rol de técnico", TECNICO_INVALIDO);
         }
+        return null;
+    }
 
-        Incidencia incidencia = incidenciaOpt.get();
-        Incidencia.Estado estadoAnterior = incidencia.getEstado();
+    // Devuelve null si la incidencia admite que se le asigne un técnico
+    private IncidenciaOperationResult validarAsignacion(IncidenciaEstadoActual actual) {
+        if (actual.tieneTecnico()) {
+            return IncidenciaOperationResult.businessError("La incidencia ya tiene un técnico asignado: " + actual.nombreTecnico());
+        }
 
-        // Log para verificar el estado anterior y el nuevo estado
-        log.info("Intentando cambiar estado de incidencia {} de {} a {}", idIncidencia, estadoAnterior, nuevoEstado);
+        if (actual.estado() == Incidencia.Estado.CERRADA || actual.estado() == Incidencia.Estado.RESUELTA) {
+            return IncidenciaOperationResult.businessError("No se puede asignar técnico a una incidencia en estado: " + actual.estado());
+        }
+        return null;
+    }
 
-        if (!isValidStateTransition(estadoAnterior, nuevoEstado)) {
-            return IncidenciaOperationResult.businessError(String.format("Transición de estado inválida: %s -> %s", estadoAnterior, nuevoEstado));
+    // Devuelve null si la transición es válida desde el estado actual
+    private IncidenciaOperationResult validarCambioEstado(IncidenciaEstadoActual actual, Incidencia.Estado nuevoEstado) {
+        if (!isValidStateTransition(actual.estado(), nuevoEstado)) {
+            return IncidenciaOperationResult.businessError(String.format("Transición de estado inválida: %s -> %s", actual.estado(), nuevoEstado));
         }
 
-        if (nuevoEstado == Incidencia.Estado.EN_PROCESO && incidencia.getTecnico() == null) {
+        if (nuevoEstado == Incidencia.Estado.EN_PROCESO && !actual.tieneTecnico()) {
             return IncidenciaOperationResult.businessError("No se puede cambiar a EN_PROCESO sin tener un técnico asignado");
         }
-
-        // Realizar cambio de estado
-        incidencia.setEstado(nuevoEstado);
-        Incidencia updatedIncidencia = incidenciaRepository.save(incidencia);
-        log.info("Estado de incidencia {} cambiado de {} a {}", idIncidencia, estadoAnterior, nuevoEstado);
-        eventPublisher.publishEvent(new IncidenciaStatusChangedEvent(this, updatedIncidencia, estadoAnterior, nuevoEstado));
-        return IncidenciaOperationResult.success(updatedIncidencia);
+        return null;
     }
 
     private void validateIncidenciaForCreation(Incidencia incidencia) {
@@ -101,15 +344,22 @@ public class IncidenciaService {
             throw new ValidationException("La incidencia no puede ser nula");
         }
 
-        if (incidencia.getCliente() == null) {
+        validarDatosCreacion(incidencia.getCliente() != null, incidencia.getDescripcion());
+    }
+
+    /**
+     * Reglas de alta de una incidencia, compartidas con la importación masiva.
+     */
+    public void validarDatosCreacion(boolean tieneCliente, String descripcion) {
+        if (!tieneCliente) {
             throw new ValidationException("La incidencia debe tener un cliente asignado");
         }
 
-        if (incidencia.getDescripcion() == null || incidencia.getDescripcion().trim().isEmpty()) {
+        if (descripcion == null || descripcion.trim().isEmpty()) {
             throw new ValidationException("La incidencia debe tener una descripción");
         }
 
-        if (incidencia.getDescripcion().length() > 1000) {
+        if (descripcion.length() > 1000) {
             throw new ValidationException("La descripción no puede exceder 1000 caracteres");
         }
     }
@@ -129,15 +379,76 @@ public class IncidenciaService {
     }
 
     public List<Incidencia> listarPorEstado(String estado) {
-        return incidenciaRepository.findByEstado(estado);
+        try {
+            return incidenciaRepository.findByEstado(Incidencia.Estado.valueOf(estado));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Estado de incidencia inválido: " + estado);
+        }
     }
 
     public List<Incidencia> listarPorTecnico(Long idTecnico) {
         return incidenciaRepository.findByTecnico_IdUsuario(idTecnico);
     }
 
-    public List<Incidencia> listAll() {
-        return incidenciaRepository.findAll();
+    /**
+     * Listado paginado por keyset sobre (creado_at, id_incidencia).
+     * Cada página cuesta lo mismo sin importar su profundidad.
+     */
+    public IncidenciaPagina listarPagina(String cursor, Integer limit) {
+        int size = resolvePageSize(limit);
+        // Se pide una fila extra para saber si existe una página siguiente
+        Limit fetchLimit = Limit.of(size + 1);
+
+        List<IncidenciaResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = incidenciaRepository.findResumenFirstPage(fetchLimit);
+        } else {
+            IncidenciaCursor desde = IncidenciaCursor.decode(cursor);
+            filas = incidenciaRepository.findResumenAfter(desde.creadoAt(), desde.idIncidencia(), fetchLimit);
+        }
+
+        return toPagina(filas, size);
+    }
+
+    /**
+     * Búsqueda multicriterio. Combina los filtros presentes con la misma
+     * paginación keyset del listado general.
+     */
+    public IncidenciaPagina buscar(IncidenciaFiltro filtro, String cursor, Integer limit) {
+        if (filtro != null && filtro.getDesde() != null && filtro.getHasta() != null
+                && !filtro.getDesde().isBefore(filtro.getHasta())) {
+            throw new ValidationException("El rango de fechas es inválido: 'desde' debe ser anterior a 'hasta'");
+        }
+
+        int size = resolvePageSize(limit);
+        Specification<Incidencia> spec = IncidenciaSpecifications.conFiltro(filtro);
+        if (cursor != null && !cursor.isBlank()) {
+            IncidenciaCursor desde = IncidenciaCursor.decode(cursor);
+            spec = spec.and(IncidenciaSpecifications.despuesDe(desde.creadoAt(), desde.idIncidencia()));
+        }
+
+        return toPagina(incidenciaRepository.buscarResumen(spec, size + 1), size);
+    }
+
+    private IncidenciaPagina toPagina(List<IncidenciaResumen> filas, int size) {
+        if (filas.size() <= size) {
+            return new IncidenciaPagina(filas, null);
+        }
+
+        List<IncidenciaResumen> items = filas.subList(0, size);
+        IncidenciaResumen ultima = items.get(size - 1);
+        String nextCursor = new IncidenciaCursor(ultima.getCreadoAt(), ultima.getIdIncidencia()).encode();
+        return new IncidenciaPagina(items, nextCursor);
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new ValidationException("El tamaño de página debe ser mayor a cero");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     public IncidenciaOperationResult buscarPorId(Long idIncidencia) {
@@ -145,7 +456,7 @@ public class IncidenciaService {
             return IncidenciaOperationResult.businessError("El ID de incidencia es requerido");
         }
 
-        Optional<Incidencia> incidenciaOpt = incidenciaRepository.findById(idIncidencia);
+        Optional<Incidencia> incidenciaOpt = incidenciaRepository.findDetalleById(idIncidencia);
         if (incidenciaOpt.isEmpty()) {
             return IncidenciaOperationResult.notFound("No se encontró la incidencia con ID: " + idIncidencia);
         }
@@ -153,27 +464,12 @@ public class IncidenciaService {
         return IncidenciaOperationResult.success(incidenciaOpt.get());
     }
 
+    /**
+     * Estadísticas por estado servidas desde contadores en memoria,
+     * sin recorrer la tabla de incidencias.
+     */
     public IncidenciaStatistics getStatistics() {
-        List<Incidencia> todasLasIncidencias = incidenciaRepository.findAll();
-
-        long totalIncidencias = todasLasIncidencias.size();
-        long pendientes = todasLasIncidencias.stream()
-            .filter(i -> i.getEstado() == Incidencia.Estado.PENDIENTE)
-            .count();
-        long asignadas = todasLasIncidencias.stream()
-            .filter(i -> i.getEstado() == Incidencia.Estado.ASIGNADA)
-            .count();
-        long enProceso = todasLasIncidencias.stream()
-            .filter(i -> i.getEstado() == Incidencia.Estado.EN_PROCESO)
-            .count();
-        long resueltas = todasLasIncidencias.stream()
-            .filter(i -> i.getEstado() == Incidencia.Estado.RESUELTA)
-            .count();
-        long cerradas = todasLasIncidencias.stream()
-            .filter(i -> i.getEstado() == Incidencia.Estado.CERRADA)
-            .count();
-
-        return new IncidenciaStatistics(totalIncidencias, pendientes, asignadas, enProceso, resueltas, cerradas);
+        return incidenciaContadores.snapshot();
     }
 
     public static class IncidenciaStatistics {
@@ -0,0 +1,225 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaCoincidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre la descripción de las incidencias.
+ * Normaliza a minúsculas sin tildes, descarta stopwords en español e indexa
+ * además los prefijos de cada palabra para admitir búsquedas parciales
+ * ("refriger" encuentra "refrigerante").
+ */
+public class IncidenciaTextIndex {
+
+    static final int MIN_GRAMA = 3;
+    private static final double PESO_PARCIAL = 0.5;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> STOPWORDS = Set.of(
+        "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los",
+        "no", "o", "para", "por", "que", "se", "sin", "su", "un", "una", "y");
+
+    private record Documento(Long id, Incidencia.Estado estado, String descripcion, Map<String, Integer> terminos) {
+    }
+
+    // término completo -> (id -> frecuencia)
+    private final Map<String, Map<Long, Integer>> terminos = new HashMap<>();
+    // prefijo -> ids que contienen alguna palabra que empieza así
+    private final Map<String, Set<Long>> gramas = new HashMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Inserta o reemplaza una incidencia en el índice.
+     */
+    public void indexar(Long id, Incidencia.Estado estado, String descripcion) {
+        if (id == null) {
+            return;
+        }
+        Map<String, Integer> frecuencias = new HashMap<>();
+        for (String token : analizar(descripcion)) {
+            frecuencias.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            Documento anterior = documentos.get(id);
+            if (anterior != null && anterior.terminos().equals(frecuencias)) {
+                // Solo cambió el estado: no hace falta tocar las posting lists
+                documentos.put(id, new Documento(id, estado, descripcion, anterior.terminos()));
+                return;
+            }
+            if (anterior != null) {
+                quitarPostings(anterior);
+            }
+            documentos.put(id, new Documento(id, estado, descripcion, frecuencias));
+            frecuencias.forEach((termino, tf) -> {
+                terminos.computeIfAbsent(termino, k -> new HashMap<>()).put(id, tf);
+                for (String grama : prefijos(termino)) {
+                    gramas.computeIfAbsent(grama, k -> new HashSet<>()).add(id);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Actualiza solo el estado mostrado en los resultados, sin reindexar el texto.
+     */
+    public void actualizarEstado(Long id, Incidencia.Estado estado) {
+        lock.writeLock().lock();
+        try {
+            documentos.computeIfPresent(id, (k, doc) -> new Documento(k, estado, doc.descripcion(), doc.terminos()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long id) {
+        lock.writeLock().lock();
+        try {
+            Documento anterior = documentos.remove(id);
+            if (anterior != null) {
+                quitarPostings(anterior);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca las incidencias que mejor coinciden con el texto, ordenadas por
+     * relevancia (tf-idf, con menor peso para las coincidencias parciales).
+     */
+    public List<IncidenciaCoincidencia> buscar(String consulta, int limite) {
+        List<String> tokens = analizar(consulta);
+        if (tokens.isEmpty() || limite < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int total = documentos.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (String token : tokens) {
+                Map<Long, Integer> exactos = terminos.getOrDefault(token, Map.of());
+                if (!exactos.isEmpty()) {
+                    double idf = idf(total, exactos.size());
+                    exactos.forEach((id, tf) -> scores.merge(id, idf * (1 + Math.log(tf)), Double::sum));
+                }
+                Set<Long> parciales = token.length() >= MIN_GRAMA ? gramas.getOrDefault(token, Set.of()) : Set.of();
+                if (!parciales.isEmpty()) {
+                    double idf = idf(total, parciales.size()) * PESO_PARCIAL;
+                    for (Long id : parciales) {
+                        if (!exactos.containsKey(id)) {
+                            scores.merge(id, idf, Double::sum);
+                        }
+                    }
+                }
+            }
+            return mejores(scores, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<IncidenciaCoincidencia> mejores(Map<Long, Double> scores, int limite) {
+        Comparator<Map.Entry<Long, Double>> orden = Map.Entry.<Long, Double>comparingByValue()
+            .thenComparing(Map.Entry.<Long, Double>comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limite + 1, orden);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limite) {
+                top.poll();
+            }
+        }
+
+        List<IncidenciaCoincidencia> resultado = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Map.Entry<Long, Double> entry = top.poll();
+            Documento doc = documentos.get(entry.getKey());
+            resultado.add(new IncidenciaCoincidencia(doc.id(), doc.estado(), doc.descripcion(), entry.getValue()));
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    private void quitarPostings(Documento doc) {
+        for (String termino : doc.terminos().keySet()) {
+            quitar(terminos, termino, doc.id());
+            for (String grama : prefijos(termino)) {
+                Set<Long> ids = gramas.get(grama);
+                if (ids != null) {
+                    ids.remove(doc.id());
+                    if (ids.isEmpty()) {
+                        gramas.remove(grama);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void quitar(Map<String, Map<Long, Integer>> indice, String termino, Long id) {
+        Map<Long, Integer> postings = indice.get(termino);
+        if (postings != null) {
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                indice.remove(termino);
+            }
+        }
+    }
+
+    private static double idf(int total, int df) {
+        return Math.log(1 + (double) total / df);
+    }
+
+    static List<String> prefijos(String termino) {
+        List<String> resultado = new ArrayList<>();
+        for (int len = MIN_GRAMA; len <= termino.length(); len++) {
+            resultado.add(termino.substring(0, len));
+        }
+        return resultado;
+    }
+
+    /**
+     * Normaliza el texto (minúsculas, sin tildes) y lo separa en palabras,
+     * descartando stopwords. Las palabras repetidas se conservan.
+     */
+    static List<String> analizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plano = MARCAS.matcher(Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(plano)) {
+            if (token.length() > 1 && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
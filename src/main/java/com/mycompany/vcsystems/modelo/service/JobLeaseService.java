@@ -0,0 +1,183 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.entidades.JobLease;
+import com.mycompany.vcsystems.modelo.events.LeaseAdquiridoEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concesiones (leases) de tareas programadas sobre la tabla job_lease, para
+ * que cada tarea corra en un solo nodo. Un nodo adquiere o renueva la
+ * concesión con un UPDATE condicional (libre, vencida o ya suya) y la hora de
+ * vencimiento la pone la BD, así que no influye el reloj de cada nodo. Un hilo
+ * propio renueva las concesiones tomadas cada app.cluster.heartbeat-ms, también
+ * mientras la tarea se está ejecutando; si el nodo cae, otro la toma al vencer.
+ */
+@Service
+@Slf4j
+public class JobLeaseService {
+
+    private static final String ADQUIRIR_SQL =
+        "UPDATE job_lease SET adquirido_at = IF(nodo = ?, adquirido_at, NOW(6)), nodo = ?, " +
+        "expira_at = TIMESTAMPADD(MICROSECOND, ?, NOW(6)), renovado_at = NOW(6) " +
+        "WHERE nombre = ? AND (nodo = ? OR expira_at < NOW(6))";
+
+    private static final String INSERTAR_SQL =
+        "INSERT IGNORE INTO job_lease (nombre, nodo, expira_at, adquirido_at, renovado_at) " +
+        "VALUES (?, ?, TIMESTAMPADD(MICROSECOND, ?, NOW(6)), NOW(6), NOW(6))";
+
+    public record Concesion(String nombre, String nodo, LocalDateTime expiraAt, boolean propia) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cluster.nodo:}")
+    private String nodoConfigurado;
+
+    @Value("${app.cluster.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${app.cluster.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    private String nodo;
+    private ScheduledExecutorService heartbeat;
+
+    // Concesiones propias -> System.nanoTime() hasta el que se consideran válidas sin consultar la BD
+    private final Map<String, Long> validasHasta = new ConcurrentHashMap<>();
+    // Filas que ya existen en job_lease (no hace falta intentar el INSERT)
+    private final Set<String> registradas = ConcurrentHashMap.newKeySet();
+    // Concesiones que en el último intento tenía otro nodo
+    private final Set<String> ajenas = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void iniciar() {
+        nodo = nodoConfigurado.isBlank() ? nombreNodo() : nodoConfigurado;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-lease-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::renovar, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        log.info("Concesiones de tareas activas para el nodo {} (lease {} ms)", nodo, leaseMs);
+    }
+
+    /**
+     * Suelta las concesiones propias para que otro nodo las tome sin esperar a que venzan.
+     */
+    @PreDestroy
+    public void liberar() {
+        heartbeat.shutdownNow();
+        if (validasHasta.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("UPDATE job_lease SET expira_at = NOW(6) WHERE nodo = ?", nodo);
+            log.info("Concesiones liberadas: {}", validasHasta.keySet());
+        } catch (Exception e) {
+            log.warn("No se pudieron liberar las concesiones del nodo {}: {}", nodo, e.getMessage());
+        }
+        validasHasta.clear();
+    }
+
+    /**
+     * Indica si este nodo tiene la concesión de la tarea, adquiriéndola si está
+     * libre o vencida. Mientras la concesión propia siga vigente no consulta la BD.
+     */
+    public boolean adquirir(String nombre) {
+        return esTitular(nombre) || intentar(nombre);
+    }
+
+    private boolean intentar(String nombre) {
+        long inicio = System.nanoTime();
+        long leaseMicros = TimeUnit.MILLISECONDS.toMicros(leaseMs);
+        try {
+            int filas = jdbcTemplate.update(ADQUIRIR_SQL, nodo, nodo, leaseMicros, nombre, nodo);
+            if (filas == 0 && !registradas.contains(nombre)) {
+                filas = jdbcTemplate.update(INSERTAR_SQL, nombre, nodo, leaseMicros);
+                registradas.add(nombre);
+            }
+            if (filas > 0) {
+                ajenas.remove(nombre);
+                // Validez local menor que el lease: otro nodo no puede tomarla antes de que este deje de usarla
+                long validez = TimeUnit.MILLISECONDS.toNanos(leaseMs - Math.min(heartbeatMs, leaseMs / 3));
+                if (validasHasta.put(nombre, inicio + validez) == null) {
+                    log.info("Nodo {} adquiere la tarea {}", nodo, nombre);
+                    eventPublisher.publishEvent(new LeaseAdquiridoEvent(this, nombre));
+                }
+                return true;
+            }
+            ajenas.add(nombre);
+        } catch (Exception e) {
+            log.warn("Error adquiriendo la concesión {}: {}", nombre, e.getMessage());
+        }
+        if (validasHasta.remove(nombre) != null) {
+            log.warn("Nodo {} pierde la tarea {}", nodo, nombre);
+        }
+        return false;
+    }
+
+    /**
+     * true si este nodo tiene la concesión vigente (sin consultar la BD).
+     */
+    public boolean esTitular(String nombre) {
+        Long hasta = validasHasta.get(nombre);
+        return hasta != null && System.nanoTime() - hasta < 0;
+    }
+
+    /**
+     * true si en el último intento la concesión era de otro nodo.
+     */
+    public boolean esAjena(String nombre) {
+        return ajenas.contains(nombre);
+    }
+
+    private void renovar() {
+        for (String nombre : validasHasta.keySet()) {
+            intentar(nombre);
+        }
+    }
+
+    public List<Concesion> concesiones() {
+        return jdbcTemplate.query("SELECT * FROM job_lease ORDER BY nombre", new BeanPropertyRowMapper<>(JobLease.class))
+            .stream()
+            .map(l -> new Concesion(l.getNombre(), l.getNodo(), l.getExpiraAt(), nodo.equals(l.getNodo())))
+            .toList();
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    private static String nombreNodo() {
+        String sufijo = UUID.randomUUID().toString().substring(0, 8);
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            return (host.length() > 55 ? host.substring(0, 55) : host) + "-" + sufijo;
+        } catch (Exception e) {
+            return "nodo-" + sufijo;
+        }
+    }
+}
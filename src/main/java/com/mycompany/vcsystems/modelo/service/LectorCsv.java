@@ -0,0 +1,125 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV en streaming (RFC 4180): separador coma, campos entre comillas
+ * dobles con "" como comilla escapada y saltos de línea dentro de comillas.
+ * Lee por bloques con su propio buffer y entrega un registro a la vez, así que
+ * la memoria usada no depende del tamaño del archivo.
+ */
+public class LectorCsv implements AutoCloseable {
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private int posicion;
+    private int limite;
+    private long linea = 1;
+    private final StringBuilder campo = new StringBuilder();
+
+    public LectorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Devuelve el siguiente registro, o null al llegar al final del archivo.
+     * Las líneas vacías se omiten.
+     */
+    public List<String> siguiente() throws IOException {
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        boolean hayDatos = false;
+
+        while (true) {
+            int c = leer();
+            if (c < 0) {
+                if (!hayDatos) {
+                    return null;
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+            if (entreComillas) {
+                if (c == '"') {
+                    if (mirar() == '"') {
+                        leer();
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    entreComillas = true;
+                    hayDatos = true;
+                }
+                case ',' -> {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                    hayDatos = true;
+                }
+                case '\r' -> {
+                    // Se trata como parte del fin de línea \r\n
+                }
+                case '\n' -> {
+                    linea++;
+                    if (hayDatos) {
+                        campos.add(campo.toString());
+                        return campos;
+                    }
+                }
+                default -> {
+                    campo.append((char) c);
+                    hayDatos = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Línea física en la que se encuentra el lector (empieza en 1).
+     */
+    public long getLinea() {
+        return linea;
+    }
+
+    private int leer() throws IOException {
+        if (posicion == limite && !rellenar()) {
+            return -1;
+        }
+        return buffer[posicion++];
+    }
+
+    private int mirar() throws IOException {
+        if (posicion == limite && !rellenar()) {
+            return -1;
+        }
+        return buffer[posicion];
+    }
+
+    private boolean rellenar() throws IOException {
+        int leidos = reader.read(buffer, 0, buffer.length);
+        if (leidos <= 0) {
+            return false;
+        }
+        posicion = 0;
+        limite = leidos;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
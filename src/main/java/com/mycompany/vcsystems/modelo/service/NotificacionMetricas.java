@@ -0,0 +1,74 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del ejecutor de notificaciones. Actúa como TaskDecorator: cada
+ * tarea se envuelve al encolarse para medir cuánto esperó en cola y cuánto
+ * tardó en ejecutarse (el envío SMTP incluido).
+ */
+@Component
+public class NotificacionMetricas implements TaskDecorator {
+
+    public record Instantanea(int enCola, int capacidadLibre, int activas, int hilos,
+                              long encoladas, long completadas, long rechazadas,
+                              double esperaMediaMs, long esperaMaxMs,
+                              double ejecucionMediaMs, long ejecucionMaxMs) {
+    }
+
+    private final LongAdder encoladas = new LongAdder();
+    private final LongAdder completadas = new LongAdder();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final LongAccumulator esperaMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder ejecucionTotalNanos = new LongAdder();
+    private final LongAccumulator ejecucionMaxNanos = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public Runnable decorate(Runnable tarea) {
+        long encolada = System.nanoTime();
+        encoladas.increment();
+        return () -> {
+            long inicio = System.nanoTime();
+            esperaTotalNanos.add(inicio - encolada);
+            esperaMaxNanos.accumulate(inicio - encolada);
+            try {
+                tarea.run();
+            } finally {
+                long duracion = System.nanoTime() - inicio;
+                ejecucionTotalNanos.add(duracion);
+                ejecucionMaxNanos.accumulate(duracion);
+                completadas.increment();
+            }
+        };
+    }
+
+    public void registrarRechazo() {
+        rechazadas.incrementAndGet();
+    }
+
+    public Instantanea instantanea(ThreadPoolTaskExecutor ejecutor) {
+        ThreadPoolExecutor pool = ejecutor.getThreadPoolExecutor();
+        long iniciadas = Math.max(completadas.sum(), 1);
+        return new Instantanea(
+            pool.getQueue().size(),
+            pool.getQueue().remainingCapacity(),
+            pool.getActiveCount(),
+            pool.getPoolSize(),
+            encoladas.sum(),
+            completadas.sum(),
+            rechazadas.get(),
+            esperaTotalNanos.sum() / (double) iniciadas / 1e6,
+            TimeUnit.NANOSECONDS.toMillis(esperaMaxNanos.get()),
+            ejecucionTotalNanos.sum() / (double) iniciadas / 1e6,
+            TimeUnit.NANOSECONDS.toMillis(ejecucionMaxNanos.get()));
+    }
+}
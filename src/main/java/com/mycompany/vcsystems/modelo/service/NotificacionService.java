@@ -1,68 +1,105 @@
 package com.mycompany.vcsystems.modelo.service;
 
+import com.mycompany.vcsystems.configuracion.AutenticacionStompInterceptor;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class NotificacionService {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private RelayWebSocket relayWebSocket;
 
     @Autowired
-    private JavaMailSender emailSender;
+    private EnvioCorreo envioCorreo;
+
+    @Autowired
+    private ReintentoEmailService reintentoEmailService;
+
+    @Autowired
+    private ResumenEmailService resumenEmailService;
+
+    private static final String COLA_USUARIO = "/queue/notificaciones";
 
     @Value("${app.environment:development}")
     private String environment;
 
+    // Modo resumen: los correos se acumulan por destinatario y se envían juntos cada ventana
+    @Value("${app.notificaciones.email.digest.habilitado:false}")
+    private boolean digestHabilitado;
+
     /**
-     * Simula el envío de notificaciones. Por ahora solo imprime o registra el evento.
+     * Envía la notificación por WebSocket a las sesiones del destinatario
+     * (/user/queue/notificaciones) en cualquier nodo; cada nodo la entrega
+     * solo si el destinatario tiene sesiones abiertas en él.
      */
     public void enviarNotificacion(String destinatario, String mensaje) {
-        // Enviar por WebSocket al topic de incidencias
-        messagingTemplate.convertAndSend("/topic/incidencias", mensaje);
+        enviarNotificacion(destinatario, "Notificación", mensaje);
+    }
+
+    public void enviarNotificacion(String destinatario, String asunto, String mensaje) {
+        relayWebSocket.enviarAUsuario(destinatario, COLA_USUARIO, carga(asunto, mensaje));
 
         // Registra en logs con datos protegidos
-        log.info("Notificación WS enviada a {}: {}",
+        log.info("Notificación WS publicada para {}: {}",
             maskSensitiveData(destinatario),
             truncateMessage(mensaje));
     }
 
-    public void enviarNotificacionEmail(String destinatario, String asunto, String contenido) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(destinatario);
-            helper.setSubject(asunto);
-            helper.setText(contenido, true); // true indica que el contenido es HTML
+    /**
+     * Envía la notificación al topic de un rol (/topic/rol/{ROL}) en todos los nodos.
+     */
+    public void notificarRol(Usuario.Rol rol, String asunto, String mensaje) {
+        relayWebSocket.enviarATopic(AutenticacionStompInterceptor.PREFIJO_ROL + rol.name(), carga(asunto, mensaje));
+        log.info("Notificación WS publicada para el rol {}: {}", rol, truncateMessage(mensaje));
+    }
 
-            emailSender.send(message);
+    // Formato que espera incident-notifications.js
+    private static Map<String, String> carga(String asunto, String mensaje) {
+        return Map.of("title", asunto, "message", mensaje, "type", "incident");
+    }
 
+    /**
+     * Envía el email; si no se puede entregar queda en la cola persistente de
+     * reintentos en lugar de perderse.
+     */
+    public void enviarNotificacionEmail(String destinatario, String asunto, String contenido) {
+        List<EnvioCorreo.Fallo> fallos = envioCorreo.enviar(List.of(new EnvioCorreo.Correo(destinatario, asunto, contenido)));
+        if (fallos.isEmpty()) {
             // Log seguro sin exponer email completo
             log.info("Email enviado exitosamente a: {}", maskSensitiveData(destinatario));
-        } catch (MessagingException e) {
-            log.error("Error enviando email a {}: {}",
-                maskSensitiveData(destinatario),
-                e.getMessage());
-            throw new RuntimeException("Error enviando email", e);
+            return;
         }
+        log.error("Error enviando email a {}: {}",
+            maskSensitiveData(destinatario),
+            fallos.get(0).error());
+        reintentoEmailService.registrar(fallos);
     }
 
     public void notificarIncidencia(String destinatario, String asunto, String mensaje) {
         // Envía tanto por WebSocket como por email
-        enviarNotificacion(destinatario, mensaje);
-        enviarNotificacionEmail(destinatario, asunto, mensaje);
+        enviarNotificacion(destinatario, asunto, mensaje);
+        if (digestHabilitado) {
+            encolarEmail(destinatario, asunto, mensaje);
+        } else {
+            enviarNotificacionEmail(destinatario, asunto, mensaje);
+        }
+    }
+
+    /**
+     * Acumula el correo para el próximo resumen del destinatario (se guarda en
+     * BD, ver ResumenEmailService).
+     */
+    public void encolarEmail(String destinatario, String asunto, String contenido) {
+        resumenEmailService.encolar(destinatario, asunto, contenido);
     }
 
     /**
@@ -0,0 +1,250 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import com.mycompany.vcsystems.modelo.entidades.EmailFallido;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola persistente de reintentos de email. Los correos que no se pudieron
+ * entregar se guardan en email_reintento con la hora del próximo intento
+ * (backoff exponencial con jitter); una tarea programada reenvía los que
+ * vencieron mientras el circuito SMTP lo permita. Tras max-intentos pasan a
+ * email_fallido, desde donde un administrador puede volver a encolarlos.
+ */
+@Service
+@Slf4j
+public class ReintentoEmailService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO email_reintento (destinatario, asunto, contenido, intentos, proximo_intento_at, ultimo_error, creado_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_LARGO_ERROR = 500;
+
+    public record ReintentoMetricas(long pendientes, long fallidos, CircuitoSmtp.Estado circuito,
+                                    long reenviados, long movidosAFallidos) {
+    }
+
+    private record Reintento(Long id, EnvioCorreo.Correo correo, int intentos) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EnvioCorreo envioCorreo;
+
+    @Value("${app.notificaciones.reintentos.lote:100}")
+    private int tamanoLote;
+
+    @Value("${app.notificaciones.reintentos.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${app.notificaciones.reintentos.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${app.notificaciones.reintentos.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    private final AtomicLong reenviados = new AtomicLong();
+    private final AtomicLong movidosAFallidos = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Guarda los correos no entregados para reintentarlos más tarde.
+     */
+    public void registrar(List<EnvioCorreo.Fallo> fallos) {
+        if (fallos.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, fallos, fallos.size(), (ps, f) -> {
+            int intentos = f.intentado() ? 1 : 0;
+            ps.setString(1, f.correo().destinatario());
+            ps.setString(2, f.correo().asunto());
+            ps.setString(3, f.correo().contenido());
+            ps.setInt(4, intentos);
+            ps.setTimestamp(5, Timestamp.valueOf(ahora.plusNanos(espera(intentos) * 1_000_000)));
+            ps.setString(6, recortar(f.error()));
+            ps.setTimestamp(7, Timestamp.valueOf(ahora));
+        });
+        log.warn("{} correos guardados para reintento", fallos.size());
+    }
+
+    /**
+     * Reenvía los correos cuyo próximo intento ya venció. Con el circuito
+     * abierto no hace nada: ni consulta la BD ni contacta al servidor.
+     *
+     * @return número de correos entregados
+     */
+    @ClusterScheduled(lease = "reintentos-email",
+                      fixedDelayString = "${app.notificaciones.reintentos.intervalo-ms:15000}",
+                      initialDelayString = "${app.notificaciones.reintentos.intervalo-ms:15000}")
+    public int reintentar() {
+        if (!envioCorreo.disponible()) {
+            return 0;
+        }
+        try {
+            List<Reintento> vencidos = jdbcTemplate.query(
+                "SELECT id_reintento, destinatario, asunto, contenido, intentos FROM email_reintento " +
+                "WHERE proximo_intento_at <= ? ORDER BY proximo_intento_at LIMIT ?",
+                (rs, n) -> new Reintento(rs.getLong(1),
+                    new EnvioCorreo.Correo(rs.getString(2), rs.getString(3), rs.getString(4)), rs.getInt(5)),
+                Timestamp.valueOf(LocalDateTime.now()), tamanoLote);
+            if (vencidos.isEmpty()) {
+                return 0;
+            }
+            return procesar(vencidos);
+        } catch (Exception e) {
+            log.error("Error reintentando correos pendientes", e);
+            return 0;
+        }
+    }
+
+    private int procesar(List<Reintento> vencidos) {
+        Map<EnvioCorreo.Correo, Reintento> porCorreo = new IdentityHashMap<>();
+        vencidos.forEach(r -> porCorreo.put(r.correo(), r));
+
+        List<EnvioCorreo.Fallo> fallos = envioCorreo.enviar(vencidos.stream().map(Reintento::correo).toList());
+
+        Set<Long> entregados = new LinkedHashSet<>(vencidos.stream().map(Reintento::id).toList());
+        List<Object[]> reprogramados = new ArrayList<>();
+        List<Object[]> agotados = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (EnvioCorreo.Fallo fallo : fallos) {
+            Reintento r = porCorreo.get(fallo.correo());
+            entregados.remove(r.id());
+            int intentos = fallo.intentado() ? r.intentos() + 1 : r.intentos();
+            if (intentos >= maxIntentos) {
+                agotados.add(new Object[] {intentos, recortar(fallo.error()), r.id()});
+            } else {
+                reprogramados.add(new Object[] {intentos,
+                    Timestamp.valueOf(ahora.plusNanos(espera(intentos) * 1_000_000)), recortar(fallo.error()), r.id()});
+            }
+        }
+
+        // Una sola transacción: un correo agotado no puede quedar copiado en email_fallido y
+        // además en email_reintento, ni desaparecer de ambas si falla el DELETE tras el INSERT
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!entregados.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM email_reintento WHERE id_reintento IN (" + marcadores(entregados.size()) + ")",
+                    entregados.toArray());
+            }
+            if (!reprogramados.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                    "UPDATE email_reintento SET intentos = ?, proximo_intento_at = ?, ultimo_error = ? WHERE id_reintento = ?",
+                    reprogramados);
+            }
+            if (!agotados.isEmpty()) {
+                moverAFallidos(agotados);
+            }
+        });
+        reenviados.addAndGet(entregados.size());
+        movidosAFallidos.addAndGet(agotados.size());
+        log.info("Reintento de correos: {} entregados, {} reprogramados, {} a fallidos",
+            entregados.size(), reprogramados.size(), agotados.size());
+        return entregados.size();
+    }
+
+    private void moverAFallidos(List<Object[]> agotados) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO email_fallido (destinatario, asunto, contenido, intentos, ultimo_error, creado_at, fallido_at) " +
+            "SELECT destinatario, asunto, contenido, ?, ?, creado_at, ? FROM email_reintento WHERE id_reintento = ?",
+            agotados.stream().map(a -> new Object[] {a[0], a[1], ahora, a[2]}).toList());
+        jdbcTemplate.update("DELETE FROM email_reintento WHERE id_reintento IN (" + marcadores(agotados.size()) + ")",
+            agotados.stream().map(a -> a[2]).toArray());
+        log.error("{} correos pasan a email_fallido tras {} intentos", agotados.size(), maxIntentos);
+    }
+
+    /**
+     * Devuelve correos de email_fallido a la cola de reintentos con el contador
+     * a cero. Sin ids se reencolan todos.
+     *
+     * @return número de correos reencolados
+     */
+    @Transactional
+    public int reencolarFallidos(List<Long> ids) {
+        String filtro = ids == null || ids.isEmpty() ? "" : " WHERE id_fallido IN (" + marcadores(ids.size()) + ")";
+        Object[] params = ids == null ? new Object[0] : ids.toArray();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object> insertParams = new ArrayList<>();
+        insertParams.add(ahora);
+        insertParams.addAll(List.of(params));
+        int reencolados = jdbcTemplate.update(
+            "INSERT INTO email_reintento (destinatario, asunto, contenido, intentos, proximo_intento_at, ultimo_error, creado_at) " +
+            "SELECT destinatario, asunto, contenido, 0, ?, ultimo_error, creado_at FROM email_fallido" + filtro,
+            insertParams.toArray());
+        jdbcTemplate.update("DELETE FROM email_fallido" + filtro, params);
+        log.info("{} correos fallidos reencolados", reencolados);
+        return reencolados;
+    }
+
+    public List<EmailFallido> listarFallidos(int limit) {
+        return jdbcTemplate.query("SELECT * FROM email_fallido ORDER BY id_fallido DESC LIMIT ?",
+            new BeanPropertyRowMapper<>(EmailFallido.class), Math.max(1, Math.min(limit, 500)));
+    }
+
+    public ReintentoMetricas metricas() {
+        Long pendientes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_reintento", Long.class);
+        Long fallidos = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_fallido", Long.class);
+        return new ReintentoMetricas(pendientes != null ? pendientes : 0, fallidos != null ? fallidos : 0,
+            envioCorreo.estadoCircuito(), reenviados.get(), movidosAFallidos.get());
+    }
+
+    /**
+     * Espera antes del siguiente intento: base * 2^(intentos-1), con tope, y
+     * la mitad aleatoria para que los correos de una misma caída no se
+     * reintenten todos a la vez.
+     */
+    long espera(int intentos) {
+        if (intentos <= 0) {
+            return 0;
+        }
+        long exponencial = backoffBaseMs << Math.min(intentos - 1, 20);
+        long tope = Math.min(exponencial, backoffMaxMs);
+        return tope / 2 + ThreadLocalRandom.current().nextLong(tope / 2 + 1);
+    }
+
+    private static String recortar(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_LARGO_ERROR ? error.substring(0, MAX_LARGO_ERROR) : error;
+    }
+
+    private static String marcadores(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+}
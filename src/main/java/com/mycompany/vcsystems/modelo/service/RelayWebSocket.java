@@ -0,0 +1,33 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.Collection;
+
+/**
+ * Reparto de mensajes WebSocket entre instancias. El broker STOMP es en
+ * memoria y solo llega a las sesiones del nodo que publica; el relay entrega
+ * en este nodo y hace llegar el mensaje a los demás. Se elige con
+ * app.websocket.relay: local (una sola instancia) o bd (tabla relay_mensaje).
+ */
+public interface RelayWebSocket {
+
+    record Metricas(String modo, String nodo, long publicados, long recibidos, int huecos, long latenciaMs) {
+    }
+
+    void enviarAUsuario(String usuario, String destino, Object payload);
+
+    void enviarATopic(String destino, Object payload);
+
+    /**
+     * Avisa a los demás nodos de que estas incidencias cambiaron, para que
+     * publiquen sus propios deltas (ver {@link DeltaIncidenciasService}).
+     */
+    void difundirCambios(Collection<Long> idsIncidencia);
+
+    /**
+     * Avisa a los demás nodos de que cambiaron demasiadas incidencias para
+     * enumerarlas (una importación): releen sus vistas de la BD.
+     */
+    void difundirRecarga();
+
+    Metricas metricas();
+}
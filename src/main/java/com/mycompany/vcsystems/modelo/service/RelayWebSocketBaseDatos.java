@@ -0,0 +1,245 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import com.mycompany.vcsystems.modelo.entidades.RelayMensaje;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relay entre instancias sobre la tabla relay_mensaje. Cada mensaje se
+ * entrega en el acto a las sesiones de este nodo y se inserta para los demás;
+ * cada nodo lee la tabla cada app.websocket.relay.intervalo-ms a partir del
+ * último id visto ({@link CursorRelay}) y entrega a sus sesiones los mensajes
+ * de otros nodos. Solo requiere la BD que ya comparten las instancias.
+ * <p>
+ * Los ids de incidencias cambiadas viajan en mensajes de como mucho
+ * app.websocket.relay.max-ids, para no pasarse del TEXT de payload. Una
+ * importación se anuncia con un solo mensaje RECARGA, que cada nodo atiende
+ * en su propio hilo sin frenar el sondeo: las recargas que llegan mientras
+ * hay una en curso se juntan en una sola.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay", havingValue = "bd")
+@Slf4j
+public class RelayWebSocketBaseDatos implements RelayWebSocket {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO relay_mensaje (nodo, tipo, destino, usuario, payload, creado_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL =
+        "SELECT id_mensaje, nodo, tipo, destino, usuario, payload, creado_at FROM relay_mensaje WHERE id_mensaje > ?";
+
+    private record Fila(long id, String nodo, RelayMensaje.Tipo tipo, String destino, String usuario,
+                        String payload, LocalDateTime creadoAt) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntregaWebSocket entregaWebSocket;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.websocket.relay.nodo:}")
+    private String nodoConfigurado;
+
+    @Value("${app.websocket.relay.lote:500}")
+    private int tamanoLote;
+
+    @Value("${app.websocket.relay.espera-huecos-ms:5000}")
+    private long esperaHuecosMs;
+
+    @Value("${app.websocket.relay.retencion-minutos:10}")
+    private int retencionMinutos;
+
+    @Value("${app.websocket.relay.max-ids:1000}")
+    private int maxIds;
+
+    private String nodo;
+    // Un hilo y una sola recarga en espera: la que espera ya verá todo lo confirmado antes de empezar
+    private ThreadPoolExecutor recargaExecutor;
+    private volatile CursorRelay cursor;
+
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong recibidos = new AtomicLong();
+    private volatile long latenciaMs;
+
+    @PostConstruct
+    public void iniciar() {
+        nodo = nodoConfigurado.isBlank() ? UUID.randomUUID().toString() : nodoConfigurado;
+        recargaExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), r -> {
+            Thread t = new Thread(r, "relay-recarga");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        log.info("Relay WebSocket por BD activo, nodo {}", nodo);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        recargaExecutor.shutdownNow();
+    }
+
+    @Override
+    public void enviarAUsuario(String usuario, String destino, Object payload) {
+        entregaWebSocket.aUsuario(usuario, destino, payload);
+        insertar(RelayMensaje.Tipo.USUARIO, destino, usuario, payload);
+    }
+
+    @Override
+    public void enviarATopic(String destino, Object payload) {
+        entregaWebSocket.aTopic(destino, payload);
+        insertar(RelayMensaje.Tipo.TOPIC, destino, null, payload);
+    }
+
+    @Override
+    public void difundirCambios(Collection<Long> idsIncidencia) {
+        List<Long> ids = List.copyOf(idsIncidencia);
+        for (int i = 0; i < ids.size(); i += maxIds) {
+            insertar(RelayMensaje.Tipo.INCIDENCIAS, null, null, ids.subList(i, Math.min(i + maxIds, ids.size())));
+        }
+    }
+
+    @Override
+    public void difundirRecarga() {
+        insertar(RelayMensaje.Tipo.RECARGA, null, null, List.of());
+    }
+
+    private void insertar(RelayMensaje.Tipo tipo, String destino, String usuario, Object payload) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, nodo, tipo.name(), destino, usuario,
+                objectMapper.writeValueAsString(payload), Timestamp.valueOf(LocalDateTime.now()));
+            publicados.incrementAndGet();
+        } catch (Exception e) {
+            // Las sesiones de este nodo ya lo recibieron; solo se pierde para los demás
+            log.error("Error publicando mensaje {} {} para otros nodos", tipo, destino, e);
+        }
+    }
+
+    /**
+     * Lee los mensajes nuevos de otros nodos y los entrega a las sesiones de este.
+     *
+     * @return número de mensajes entregados
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.relay.intervalo-ms:200}")
+    public int sondear() {
+        try {
+            if (cursor == null) {
+                // Se empieza por el final: lo publicado antes de arrancar ya no interesa
+                Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id_mensaje), 0) FROM relay_mensaje", Long.class);
+                cursor = new CursorRelay(maximo != null ? maximo : 0, esperaHuecosMs);
+            }
+            int entregados = 0;
+            List<Fila> filas;
+            do {
+                filas = leer();
+                for (Fila fila : filas) {
+                    if (cursor.avanzar(fila.id()) && !nodo.equals(fila.nodo())) {
+                        entregar(fila);
+                        entregados++;
+                    }
+                }
+            } while (filas.size() == tamanoLote);
+            return entregados;
+        } catch (Exception e) {
+            log.error("Error leyendo mensajes del relay WebSocket", e);
+            return 0;
+        }
+    }
+
+    private List<Fila> leer() {
+        List<Long> huecos = cursor.huecos();
+        List<Object> params = new ArrayList<>();
+        params.add(cursor.getUltimo());
+        String sql = SELECT_SQL;
+        if (!huecos.isEmpty()) {
+            sql += " OR id_mensaje IN (" + String.join(",", Collections.nCopies(huecos.size(), "?")) + ")";
+            params.addAll(huecos);
+        }
+        params.add(tamanoLote);
+        return jdbcTemplate.query(sql + " ORDER BY id_mensaje LIMIT ?",
+            (rs, n) -> new Fila(rs.getLong(1), rs.getString(2), RelayMensaje.Tipo.valueOf(rs.getString(3)),
+                rs.getString(4), rs.getString(5), rs.getString(6), rs.getTimestamp(7).toLocalDateTime()),
+            params.toArray());
+    }
+
+    private void entregar(Fila fila) {
+        try {
+            switch (fila.tipo()) {
+                case USUARIO -> entregaWebSocket.aUsuario(fila.usuario(), fila.destino(), objectMapper.readTree(fila.payload()));
+                case TOPIC -> entregaWebSocket.aTopic(fila.destino(), objectMapper.readTree(fila.payload()));
+                case INCIDENCIAS -> eventPublisher.publishEvent(new IncidenciasCambiadasEnOtroNodoEvent(this,
+                    objectMapper.readValue(fila.payload(), new TypeReference<List<Long>>() { })));
+                case RECARGA -> recargaExecutor.execute(this::recargar);
+            }
+            recibidos.incrementAndGet();
+            latenciaMs = Duration.between(fila.creadoAt(), LocalDateTime.now()).toMillis();
+        } catch (Exception e) {
+            log.warn("Mensaje {} del relay no entregado: {}", fila.id(), e.getMessage());
+        }
+    }
+
+    private void recargar() {
+        try {
+            eventPublisher.publishEvent(new IncidenciasRecargadasEnOtroNodoEvent(this));
+        } catch (Exception e) {
+            log.error("Error recargando las vistas tras una importación en otro nodo", e);
+        }
+    }
+
+    /**
+     * Borra los mensajes que ya leyeron todos los nodos.
+     */
+    @ClusterScheduled(lease = "relay-purga",
+                      fixedDelayString = "${app.websocket.relay.purga-ms:60000}",
+                      initialDelayString = "${app.websocket.relay.purga-ms:60000}")
+    public int purgar() {
+        try {
+            return jdbcTemplate.update("DELETE FROM relay_mensaje WHERE creado_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(retencionMinutos)));
+        } catch (Exception e) {
+            log.error("Error purgando relay_mensaje", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public Metricas metricas() {
+        CursorRelay c = cursor;
+        return new Metricas("bd", nodo, publicados.get(), recibidos.get(), c != null ? c.huecos().size() : 0, latenciaMs);
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+}
@@ -0,0 +1,50 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relay de una sola instancia: entrega directamente en este nodo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay", havingValue = "local", matchIfMissing = true)
+public class RelayWebSocketLocal implements RelayWebSocket {
+
+    @Autowired
+    private EntregaWebSocket entregaWebSocket;
+
+    private final AtomicLong publicados = new AtomicLong();
+
+    @Override
+    public void enviarAUsuario(String usuario, String destino, Object payload) {
+        if (entregaWebSocket.aUsuario(usuario, destino, payload)) {
+            publicados.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void enviarATopic(String destino, Object payload) {
+        if (entregaWebSocket.aTopic(destino, payload)) {
+            publicados.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void difundirCambios(Collection<Long> idsIncidencia) {
+        // No hay otros nodos
+    }
+
+    @Override
+    public void difundirRecarga() {
+        // No hay otros nodos
+    }
+
+    @Override
+    public Metricas metricas() {
+        return new Metricas("local", "local", publicados.get(), 0, 0, 0);
+    }
+}
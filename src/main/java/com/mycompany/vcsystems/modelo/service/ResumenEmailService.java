@@ -0,0 +1,158 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.configuracion.AsyncConfig;
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo resumen de los emails: cada correo se guarda en email_resumen y una
+ * tarea de clúster envía, cada ventana, uno por destinatario con todo lo
+ * acumulado. Como la fila se inserta antes de que el outbox marque el evento,
+ * nada queda solo en memoria: lo pendiente sobrevive a reinicios y caídas.
+ * Los envíos corren en el emailExecutor; las filas se borran en la misma
+ * transacción que guarda los no entregados en la cola de reintentos.
+ */
+@Service
+@Slf4j
+public class ResumenEmailService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO email_resumen (destinatario, asunto, contenido, creado_at) VALUES (?, ?, ?, ?)";
+
+    private record Pendiente(Long id, EnvioCorreo.Correo correo) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EnvioCorreo envioCorreo;
+
+    @Autowired
+    private ReintentoEmailService reintentoEmailService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.EMAIL_EXECUTOR)
+    private TaskExecutor emailExecutor;
+
+    @Value("${app.notificaciones.email.digest.lote:1000}")
+    private int tamanoLote;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Guarda el correo para el próximo resumen del destinatario.
+     */
+    public void encolar(String destinatario, String asunto, String contenido) {
+        jdbcTemplate.update(INSERT_SQL, destinatario, asunto, contenido, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Disparo de cada ventana: el planificador solo encarga el envío al
+     * emailExecutor. Si el de la ventana anterior sigue en curso no se lanza
+     * otro; lo acumulado sale en el siguiente.
+     */
+    @ClusterScheduled(lease = "resumenes-email",
+                      fixedDelayString = "${app.notificaciones.email.digest.ventana-ms:60000}",
+                      initialDelayString = "${app.notificaciones.email.digest.ventana-ms:60000}")
+    public void programarResumenes() {
+        try {
+            emailExecutor.execute(this::enviarResumenes);
+        } catch (TaskRejectedException e) {
+            log.debug("Envío de resúmenes anterior aún en curso");
+        }
+    }
+
+    /**
+     * Envía un correo por destinatario con lo acumulado, por lotes de filas.
+     * Los no entregados pasan a la cola de reintentos.
+     *
+     * @return número de correos enviados
+     */
+    public int enviarResumenes() {
+        int enviados = 0;
+        try {
+            List<Pendiente> pendientes;
+            do {
+                pendientes = jdbcTemplate.query(
+                    "SELECT id_resumen, destinatario, asunto, contenido FROM email_resumen ORDER BY id_resumen LIMIT ?",
+                    (rs, n) -> new Pendiente(rs.getLong(1),
+                        new EnvioCorreo.Correo(rs.getString(2), rs.getString(3), rs.getString(4))),
+                    tamanoLote);
+                if (!pendientes.isEmpty()) {
+                    enviados += enviarLote(pendientes);
+                }
+            } while (pendientes.size() == tamanoLote);
+        } catch (Exception e) {
+            log.error("Error enviando los resúmenes de email", e);
+        }
+        return enviados;
+    }
+
+    private int enviarLote(List<Pendiente> pendientes) {
+        List<EnvioCorreo.Correo> correos = agrupar(pendientes.stream().map(Pendiente::correo).toList());
+        List<EnvioCorreo.Fallo> fallos = envioCorreo.enviar(correos);
+
+        List<Object> ids = pendientes.stream().map(p -> (Object) p.id()).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            reintentoEmailService.registrar(fallos);
+            jdbcTemplate.update("DELETE FROM email_resumen WHERE id_resumen IN ("
+                + String.join(",", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+        });
+        int enviados = correos.size() - fallos.size();
+        log.info("Resúmenes de email enviados: {} de {} destinatarios", enviados, correos.size());
+        return enviados;
+    }
+
+    /**
+     * Un correo por destinatario: el original si solo hay uno, o un resumen
+     * HTML con todos los acumulados.
+     */
+    public static List<EnvioCorreo.Correo> agrupar(List<EnvioCorreo.Correo> pendientes) {
+        Map<String, List<EnvioCorreo.Correo>> porDestinatario = new LinkedHashMap<>();
+        for (EnvioCorreo.Correo correo : pendientes) {
+            porDestinatario.computeIfAbsent(correo.destinatario(), d -> new ArrayList<>()).add(correo);
+        }
+        List<EnvioCorreo.Correo> correos = new ArrayList<>(porDestinatario.size());
+        porDestinatario.forEach((destinatario, items) -> correos.add(items.size() == 1
+            ? items.get(0)
+            : new EnvioCorreo.Correo(destinatario, "Resumen de " + items.size() + " notificaciones", resumen(items))));
+        return correos;
+    }
+
+    private static String resumen(List<EnvioCorreo.Correo> items) {
+        StringBuilder html = new StringBuilder("<p>Resumen de ").append(items.size()).append(" notificaciones:</p><ul>");
+        for (EnvioCorreo.Correo c : items) {
+            html.append("<li><b>").append(HtmlUtils.htmlEscape(c.asunto())).append("</b>: ")
+                .append(HtmlUtils.htmlEscape(c.contenido())).append("</li>");
+        }
+        return html.append("</ul>").toString();
+    }
+}
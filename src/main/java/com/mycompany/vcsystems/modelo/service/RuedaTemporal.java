@@ -0,0 +1,209 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporizadores jerárquica (como la de los timers del kernel de
+ * Linux). El nivel base tiene 256 ranuras de un tick; cada uno de los 4
+ * niveles superiores tiene 64 ranuras que abarcan una vuelta completa del
+ * nivel inferior. Un temporizador se guarda en una lista doblemente enlazada
+ * de la ranura que le corresponde según cuánto falta para su vencimiento, así
+ * que programar y cancelar son O(1) sin importar cuántos haya pendientes. Al
+ * completar una vuelta del nivel base, la ranura siguiente de cada nivel
+ * superior se reparte hacia abajo.
+ * <p>
+ * No es thread-safe: el llamador sincroniza.
+ *
+ * @param <T> valor asociado a cada temporizador
+ */
+public class RuedaTemporal<T> {
+
+    private static final int BITS_BASE = 8;
+    private static final int BITS_NIVEL = 6;
+    private static final int NIVELES = 4;
+    private static final int MASCARA_BASE = (1 << BITS_BASE) - 1;
+    private static final int MASCARA_NIVEL = (1 << BITS_NIVEL) - 1;
+    // Más allá de este número de ticks el temporizador se guarda en la última ranura y se vuelve a repartir
+    private static final long MAX_TICKS = (1L << (BITS_BASE + NIVELES * BITS_NIVEL)) - 1;
+
+    /**
+     * Temporizador programado. Sirve como referencia para cancelarlo.
+     */
+    public static final class Temporizador<T> {
+
+        private final T valor;
+        private final long vence;
+        private Temporizador<T> anterior;
+        private Temporizador<T> siguiente;
+        // Ranura donde está enlazado; nivel -1 = nivel base
+        private int nivel;
+        private int ranura;
+        private boolean activo;
+
+        private Temporizador(T valor, long vence) {
+            this.valor = valor;
+            this.vence = vence;
+        }
+
+        public T getValor() {
+            return valor;
+        }
+
+        public boolean isActivo() {
+            return activo;
+        }
+    }
+
+    private final long tickMs;
+    private final Temporizador<T>[] base;
+    private final Temporizador<T>[][] niveles;
+    // Próximo tick por procesar
+    private long actual;
+    private int pendientes;
+
+    @SuppressWarnings("unchecked")
+    public RuedaTemporal(long tickMs, long inicioMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs debe ser positivo");
+        }
+        this.tickMs = tickMs;
+        this.base = new Temporizador[1 << BITS_BASE];
+        this.niveles = new Temporizador[NIVELES][1 << BITS_NIVEL];
+        this.actual = Math.floorDiv(inicioMs, tickMs);
+    }
+
+    /**
+     * Programa un temporizador que vence en {@code venceMs} (nunca antes). Si
+     * ya pasó, vence en el siguiente {@link #avanzar}.
+     */
+    public Temporizador<T> programar(T valor, long venceMs) {
+        // Redondeo hacia arriba: un temporizador no vence antes de su hora
+        Temporizador<T> t = new Temporizador<>(valor, -Math.floorDiv(-venceMs, tickMs));
+        colocar(t);
+        t.activo = true;
+        pendientes++;
+        return t;
+    }
+
+    /**
+     * Cancela el temporizador.
+     *
+     * @return false si ya había vencido o estaba cancelado
+     */
+    public boolean cancelar(Temporizador<T> t) {
+        if (t == null || !t.activo) {
+            return false;
+        }
+        desenlazar(t);
+        t.activo = false;
+        pendientes--;
+        return true;
+    }
+
+    /**
+     * Procesa los ticks hasta {@code ahoraMs} inclusive.
+     *
+     * @return valores de los temporizadores vencidos, tick a tick en orden de vencimiento
+     */
+    public List<T> avanzar(long ahoraMs) {
+        long hasta = Math.floorDiv(ahoraMs, tickMs);
+        List<T> vencidos = new ArrayList<>();
+        while (actual <= hasta) {
+            if (pendientes == 0) {
+                actual = hasta + 1;
+                break;
+            }
+            int indice = (int) (actual & MASCARA_BASE);
+            if (indice == 0) {
+                // Vuelta completa del nivel base: se reparte la ranura siguiente de cada nivel superior
+                for (int n = 0; n < NIVELES; n++) {
+                    int i = (int) ((actual >>> (BITS_BASE + n * BITS_NIVEL)) & MASCARA_NIVEL);
+                    repartir(n, i);
+                    if (i != 0) {
+                        break;
+                    }
+                }
+            }
+            Temporizador<T> t = base[indice];
+            base[indice] = null;
+            while (t != null) {
+                Temporizador<T> siguiente = t.siguiente;
+                t.anterior = null;
+                t.siguiente = null;
+                t.activo = false;
+                pendientes--;
+                vencidos.add(t.valor);
+                t = siguiente;
+            }
+            actual++;
+        }
+        return vencidos;
+    }
+
+    public int pendientes() {
+        return pendientes;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private void repartir(int nivel, int ranura) {
+        Temporizador<T> t = niveles[nivel][ranura];
+        niveles[nivel][ranura] = null;
+        while (t != null) {
+            Temporizador<T> siguiente = t.siguiente;
+            t.anterior = null;
+            t.siguiente = null;
+            colocar(t);
+            t = siguiente;
+        }
+    }
+
+    private void colocar(Temporizador<T> t) {
+        long faltan = t.vence - actual;
+        if (faltan < 0) {
+            // Ya vencido: va a la ranura que se procesa a continuación
+            enlazar(t, -1, (int) (actual & MASCARA_BASE));
+        } else if (faltan <= MASCARA_BASE) {
+            enlazar(t, -1, (int) (t.vence & MASCARA_BASE));
+        } else {
+            long vence = faltan > MAX_TICKS ? actual + MAX_TICKS : t.vence;
+            faltan = vence - actual;
+            for (int n = 0; n < NIVELES; n++) {
+                int desplazamiento = BITS_BASE + n * BITS_NIVEL;
+                if (faltan < 1L << (desplazamiento + BITS_NIVEL) || n == NIVELES - 1) {
+                    enlazar(t, n, (int) ((vence >>> desplazamiento) & MASCARA_NIVEL));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void enlazar(Temporizador<T> t, int nivel, int ranura) {
+        Temporizador<T>[] ranuras = nivel < 0 ? base : niveles[nivel];
+        Temporizador<T> cabeza = ranuras[ranura];
+        t.nivel = nivel;
+        t.ranura = ranura;
+        t.anterior = null;
+        t.siguiente = cabeza;
+        if (cabeza != null) {
+            cabeza.anterior = t;
+        }
+        ranuras[ranura] = t;
+    }
+
+    private void desenlazar(Temporizador<T> t) {
+        if (t.anterior != null) {
+            t.anterior.siguiente = t.siguiente;
+        } else {
+            (t.nivel < 0 ? base : niveles[t.nivel])[t.ranura] = t.siguiente;
+        }
+        if (t.siguiente != null) {
+            t.siguiente.anterior = t.anterior;
+        }
+        t.anterior = null;
+        t.siguiente = null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de sesiones STOMP autenticadas: correo -> sesiones abiertas y
+ * número de sesiones por rol. Permite no construir ni enviar mensajes a
+ * usuarios o roles que no tienen a nadie conectado.
+ */
+@Component
+@Slf4j
+public class SesionesWebSocket {
+
+    private final Map<String, Set<String>> sesionesPorUsuario = new ConcurrentHashMap<>();
+    private final Map<String, Usuario.Rol> rolPorSesion = new ConcurrentHashMap<>();
+    private final Map<Usuario.Rol, Integer> sesionesPorRol = new EnumMap<>(Usuario.Rol.class);
+
+    @EventListener
+    public void onConectado(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sesion = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (user == null || sesion == null) {
+            return;
+        }
+        sesionesPorUsuario.computeIfAbsent(user.getName(), k -> ConcurrentHashMap.newKeySet()).add(sesion);
+        Usuario.Rol rol = rolDe(user);
+        if (rol != null) {
+            rolPorSesion.put(sesion, rol);
+            synchronized (sesionesPorRol) {
+                sesionesPorRol.merge(rol, 1, Integer::sum);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDesconectado(SessionDisconnectEvent event) {
+        String sesion = event.getSessionId();
+        Principal user = event.getUser();
+        if (user != null) {
+            sesionesPorUsuario.computeIfPresent(user.getName(), (k, sesiones) -> {
+                sesiones.remove(sesion);
+                return sesiones.isEmpty() ? null : sesiones;
+            });
+        }
+        Usuario.Rol rol = rolPorSesion.remove(sesion);
+        if (rol != null) {
+            synchronized (sesionesPorRol) {
+                sesionesPorRol.computeIfPresent(rol, (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+    }
+
+    public boolean estaConectado(String correo) {
+        return correo != null && sesionesPorUsuario.containsKey(correo);
+    }
+
+    public boolean hayConectados(Usuario.Rol rol) {
+        synchronized (sesionesPorRol) {
+            return sesionesPorRol.getOrDefault(rol, 0) > 0;
+        }
+    }
+
+    public int sesiones(String correo) {
+        Set<String> sesiones = sesionesPorUsuario.get(correo);
+        return sesiones != null ? sesiones.size() : 0;
+    }
+
+    public Map<Usuario.Rol, Integer> sesionesPorRol() {
+        synchronized (sesionesPorRol) {
+            return Map.copyOf(sesionesPorRol);
+        }
+    }
+
+    private static Usuario.Rol rolDe(Principal user) {
+        if (!(user instanceof Authentication auth)) {
+            return null;
+        }
+        return auth.getAuthorities().stream()
+            .map(a -> a.getAuthority())
+            .filter(a -> a.startsWith("ROLE_"))
+            .map(a -> {
+                try {
+                    return Usuario.Rol.valueOf(a.substring(5));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            })
+            .filter(r -> r != null)
+            .findFirst()
+            .orElse(null);
+    }
+}
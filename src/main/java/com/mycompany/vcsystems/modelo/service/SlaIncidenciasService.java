@@ -0,0 +1,445 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPlazo;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plazos de SLA de las incidencias abiertas: una PENDIENTE debe tener técnico
+ * antes de app.incidencias.sla.pendiente-minutos y una ASIGNADA debe empezar a
+ * atenderse antes de app.incidencias.sla.asignada-minutos (ajustados por
+ * prioridad). Cada plazo es un temporizador de una {@link RuedaTemporal} en
+ * memoria que se programa y cancela con los eventos de incidencia, así que no
+ * hace falta sondear la tabla; al arrancar se carga desde la BD.
+ * <p>
+ * Todos los nodos mantienen la rueda (los cambios de otros nodos llegan por el
+ * relay), pero solo el que tiene la concesión {@link #LEASE} envía las
+ * notificaciones de escalado. Cada escalado se reclama antes en la BD
+ * (sla_escalado_at) dentro de la misma transacción que las notificaciones, así
+ * que una incidencia se escala una sola vez por plazo aunque la reclamen dos
+ * nodos, y si el envío falla la marca se deshace y se reintenta. Un nodo sin
+ * la concesión guarda sus vencidos y, pasado app.incidencias.sla.gracia-ms, los
+ * reclama él mismo: solo escala los que el titular no llegó a marcar.
+ */
+@Service
+@Slf4j
+public class SlaIncidenciasService {
+
+    public static final String LEASE = "sla-escalado";
+
+    private static final Set<Incidencia.Estado> ESTADOS_CON_PLAZO =
+        EnumSet.of(Incidencia.Estado.PENDIENTE, Incidencia.Estado.ASIGNADA);
+
+    private static final String RECLAMAR_SQL =
+        "UPDATE incidencia SET sla_escalado_at = ?, actualizado_at = actualizado_at " +
+        "WHERE id_incidencia = ? AND estado = ? AND (sla_escalado_at IS NULL OR sla_escalado_at < ?)";
+
+    // Ids por consulta al releer los plazos de una importación
+    private static final int LOTE_IDS = 1000;
+
+    public record SlaMetricas(int temporizadores, int porEscalar, long programados, long cancelados,
+                              long incumplidos, long escalados) {
+    }
+
+    // Lo que hace falta para escalar sin volver a la BD; desdeMs es el inicio del plazo en curso
+    private record Plazo(Long idIncidencia, Incidencia.Estado estado, String correoTecnico, long minutos,
+                         long desdeMs) {
+
+        long vencimientoMs() {
+            return desdeMs + minutos * 60_000;
+        }
+    }
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.incidencias.sla.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.incidencias.sla.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.incidencias.sla.pendiente-minutos:60}")
+    private long pendienteMinutos;
+
+    @Value("${app.incidencias.sla.asignada-minutos:240}")
+    private long asignadaMinutos;
+
+    // Plazo de las ALTA y las BAJA respecto al de las MEDIA
+    @Value("${app.incidencias.sla.porcentaje-alta:50}")
+    private int porcentajeAlta;
+
+    @Value("${app.incidencias.sla.porcentaje-baja:200}")
+    private int porcentajeBaja;
+
+    // Con más incumplimientos en un mismo tick, los gerentes reciben un resumen
+    @Value("${app.incidencias.sla.max-detalle:20}")
+    private int maxDetalle;
+
+    // Margen para que el titular de la concesión escale antes que los demás nodos
+    @Value("${app.incidencias.sla.gracia-ms:60000}")
+    private long graciaMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    // null hasta la carga inicial
+    private volatile RuedaTemporal<Plazo> rueda;
+    private final Map<Long, RuedaTemporal.Temporizador<Plazo>> temporizadores = new HashMap<>();
+    // Vencidos que este nodo aún no ha escalado ni visto escalar
+    private final Map<Long, Plazo> porEscalar = new LinkedHashMap<>();
+
+    private final AtomicLong programados = new AtomicLong();
+    private final AtomicLong cancelados = new AtomicLong();
+    private final AtomicLong incumplidos = new AtomicLong();
+    private final AtomicLong escalados = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Carga los plazos de todas las incidencias abiertas. Las que ya se
+     * escalaron en su plazo actual no se vuelven a programar.
+     */
+    @EventListener({ApplicationReadyEvent.class, IncidenciasRecargadasEnOtroNodoEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        try (Stream<IncidenciaPlazo> filas = incidenciaRepository.streamPlazosEnEstados(ESTADOS_CON_PLAZO)) {
+            synchronized (this) {
+                rueda = new RuedaTemporal<>(tickMs, inicio);
+                temporizadores.clear();
+                porEscalar.clear();
+                filas.forEach(p -> {
+                    long desdeMs = desde(p);
+                    if (!yaEscalado(p, desdeMs)) {
+                        programar(p.idIncidencia(), p.estado(), p.prioridad(), p.correoTecnico(), desdeMs);
+                    }
+                });
+                log.info("Plazos de SLA cargados: {} incidencias en {} ms",
+                    temporizadores.size(), System.currentTimeMillis() - inicio);
+            }
+        } catch (Exception e) {
+            log.error("No se pudieron cargar los plazos de SLA", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidenciaCreated(IncidenciaCreatedEvent event) {
+        Incidencia incidencia = event.getIncidencia();
+        Usuario tecnico = incidencia.getTecnico();
+        LocalDateTime desde = incidencia.getCreadoAt() != null ? incidencia.getCreadoAt() : LocalDateTime.now();
+        synchronized (this) {
+            if (rueda != null) {
+                programar(incidencia.getIdIncidencia(), incidencia.getEstado(), incidencia.getPrioridad(),
+                    tecnico != null ? tecnico.getCorreo() : null, epochMs(desde));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTecnicoAssigned(IncidenciaTecnicoAssignedEvent event) {
+        Incidencia incidencia = event.getIncidencia();
+        synchronized (this) {
+            if (rueda != null) {
+                programar(incidencia.getIdIncidencia(), incidencia.getEstado(), incidencia.getPrioridad(),
+                    event.getTecnico().getCorreo(), System.currentTimeMillis());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(IncidenciaStatusChangedEvent event) {
+        Long id = event.getIncidencia().getIdIncidencia();
+        if (ESTADOS_CON_PLAZO.contains(event.getNuevoEstado())) {
+            refrescar(List.of(id), true);
+        } else {
+            cancelar(List.of(id));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        Map<Boolean, List<Long>> conPlazo = event.getCambios().stream()
+            .collect(Collectors.partitioningBy(c -> ESTADOS_CON_PLAZO.contains(c.estadoNuevo()),
+                Collectors.mapping(IncidenciaBulkUpdatedEvent.Cambio::idIncidencia, Collectors.toList())));
+        cancelar(conPlazo.get(false));
+        refrescar(conPlazo.get(true), true);
+    }
+
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        refrescar(event.getIdsIncidencia(), false);
+    }
+
+    // Solo las filas del tramo importado; el resto de plazos no cambia
+    @EventListener
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        List<Long> ids = event.getIds();
+        for (int i = 0; i < ids.size(); i += LOTE_IDS) {
+            refrescar(ids.subList(i, Math.min(i + LOTE_IDS, ids.size())), false);
+        }
+    }
+
+    /**
+     * Escala los plazos vencidos hasta ahora.
+     */
+    @Scheduled(fixedDelayString = "${app.incidencias.sla.tick-ms:1000}")
+    public int revisar() {
+        return revisarHasta(System.currentTimeMillis());
+    }
+
+    /**
+     * Avanza la rueda hasta {@code ahoraMs} y escala los plazos vencidos. Sin
+     * la concesión los vencidos se guardan hasta que pasa el margen de gracia;
+     * si el escalado falla se reintenta en la siguiente revisión.
+     *
+     * @return número de incidencias escaladas desde este nodo
+     */
+    public int revisarHasta(long ahoraMs) {
+        boolean nuevos;
+        synchronized (this) {
+            if (rueda == null) {
+                return 0;
+            }
+            List<Plazo> vencidos = rueda.avanzar(ahoraMs);
+            for (Plazo p : vencidos) {
+                temporizadores.remove(p.idIncidencia());
+                porEscalar.put(p.idIncidencia(), p);
+            }
+            incumplidos.addAndGet(vencidos.size());
+            if (porEscalar.isEmpty()) {
+                return 0;
+            }
+            nuevos = !vencidos.isEmpty();
+        }
+        // Solo se pide la concesión a la BD cuando vence algo; los reintentos miran la vigente
+        boolean titular = nuevos ? jobLeaseService.adquirir(LEASE) : jobLeaseService.esTitular(LEASE);
+        List<Plazo> candidatos = new ArrayList<>();
+        synchronized (this) {
+            porEscalar.values().removeIf(p -> {
+                boolean toca = titular || ahoraMs - p.vencimientoMs() >= graciaMs;
+                if (toca) {
+                    candidatos.add(p);
+                }
+                return toca;
+            });
+        }
+        if (candidatos.isEmpty()) {
+            return 0;
+        }
+        try {
+            int reclamados = transactionTemplate.execute(status -> {
+                List<Plazo> propios = reclamar(candidatos, ahoraMs);
+                if (!propios.isEmpty()) {
+                    escalar(propios);
+                }
+                return propios.size();
+            });
+            escalados.addAndGet(reclamados);
+            return reclamados;
+        } catch (Exception e) {
+            log.error("Error escalando {} incidencias fuera de SLA; se reintentará", candidatos.size(), e);
+            synchronized (this) {
+                // Salvo las que un cambio posterior haya vuelto a programar
+                candidatos.stream()
+                    .filter(p -> !temporizadores.containsKey(p.idIncidencia()))
+                    .forEach(p -> porEscalar.putIfAbsent(p.idIncidencia(), p));
+            }
+            return 0;
+        }
+    }
+
+    public synchronized SlaMetricas metricas() {
+        return new SlaMetricas(temporizadores.size(), porEscalar.size(), programados.get(), cancelados.get(),
+            incumplidos.get(), escalados.get());
+    }
+
+    // Marca en la BD las que siguen en el estado vencido sin escalar en este plazo; las demás ya no tocan
+    private List<Plazo> reclamar(List<Plazo> candidatos, long ahoraMs) {
+        Timestamp ahora = new Timestamp(ahoraMs);
+        int[] filas = jdbcTemplate.batchUpdate(RECLAMAR_SQL, candidatos.stream()
+            .map(p -> new Object[]{ahora, p.idIncidencia(), p.estado().name(), new Timestamp(p.desdeMs())})
+            .toList());
+        List<Plazo> propios = new ArrayList<>(candidatos.size());
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] > 0) {
+                propios.add(candidatos.get(i));
+            }
+        }
+        return propios;
+    }
+
+    private void escalar(List<Plazo> vencidos) {
+        if (vencidos.size() <= maxDetalle) {
+            for (Plazo p : vencidos) {
+                notificacionService.notificarRol(Usuario.Rol.GERENTE, "SLA incumplido", mensaje(p));
+            }
+        } else {
+            long sinTecnico = vencidos.stream().filter(p -> p.estado() == Incidencia.Estado.PENDIENTE).count();
+            notificacionService.notificarRol(Usuario.Rol.GERENTE, "SLA incumplido",
+                String.format("%d incidencias han superado su plazo de SLA (%d sin técnico, %d asignadas sin iniciar)",
+                    vencidos.size(), sinTecnico, vencidos.size() - sinTecnico));
+        }
+        // Un aviso por técnico con todas sus incidencias fuera de plazo
+        Map<String, List<Long>> porTecnico = vencidos.stream()
+            .filter(p -> p.estado() == Incidencia.Estado.ASIGNADA && p.correoTecnico() != null)
+            .collect(Collectors.groupingBy(Plazo::correoTecnico, LinkedHashMap::new,
+                Collectors.mapping(Plazo::idIncidencia, Collectors.toList())));
+        porTecnico.forEach((correo, ids) -> notificacionService.enviarNotificacion(correo, "SLA incumplido",
+            ids.size() == 1
+                ? String.format("La incidencia #%d que tienes asignada ha superado su plazo para iniciarse", ids.get(0))
+                : String.format("Tienes %d incidencias asignadas fuera de plazo: %s", ids.size(),
+                    ids.stream().map(id -> "#" + id).collect(Collectors.joining(", ")))));
+        log.warn("{} incidencias fuera de SLA escaladas", vencidos.size());
+    }
+
+    private static String mensaje(Plazo p) {
+        return p.estado() == Incidencia.Estado.PENDIENTE
+            ? String.format("La incidencia #%d lleva más de %d min sin técnico asignado", p.idIncidencia(), p.minutos())
+            : String.format("La incidencia #%d lleva más de %d min asignada sin iniciarse", p.idIncidencia(), p.minutos());
+    }
+
+    // Relee las incidencias indicadas; reiniciar = el cambio de estado acaba de ocurrir en este nodo
+    private void refrescar(Collection<Long> ids, boolean reiniciar) {
+        if (rueda == null || ids.isEmpty()) {
+            return;
+        }
+        try {
+            List<IncidenciaPlazo> filas = incidenciaRepository.findPlazosByIds(ids);
+            long ahora = System.currentTimeMillis();
+            Set<Long> sinPlazo = new HashSet<>(ids);
+            synchronized (this) {
+                for (IncidenciaPlazo p : filas) {
+                    sinPlazo.remove(p.idIncidencia());
+                    RuedaTemporal.Temporizador<Plazo> actual = temporizadores.get(p.idIncidencia());
+                    // Un cambio que no es de estado no reinicia el plazo en curso
+                    if (!reiniciar && actual != null && actual.getValor().estado() == p.estado()) {
+                        continue;
+                    }
+                    long desdeMs = reiniciar ? ahora : desde(p);
+                    if (yaEscalado(p, desdeMs)) {
+                        sinPlazo.add(p.idIncidencia());
+                        continue;
+                    }
+                    programar(p.idIncidencia(), p.estado(), p.prioridad(), p.correoTecnico(), desdeMs);
+                }
+            }
+            cancelar(sinPlazo);
+        } catch (Exception e) {
+            log.error("Error actualizando plazos de SLA para incidencias: {}", ids, e);
+        }
+    }
+
+    private synchronized void cancelar(Collection<Long> ids) {
+        if (rueda == null) {
+            return;
+        }
+        for (Long id : ids) {
+            porEscalar.remove(id);
+            if (rueda.cancelar(temporizadores.remove(id))) {
+                cancelados.incrementAndGet();
+            }
+        }
+    }
+
+    // Llamar con el monitor tomado
+    private void programar(Long id, Incidencia.Estado estado, Incidencia.Prioridad prioridad, String correoTecnico,
+                           long desdeMs) {
+        porEscalar.remove(id);
+        if (rueda.cancelar(temporizadores.remove(id))) {
+            cancelados.incrementAndGet();
+        }
+        if (!habilitado || !ESTADOS_CON_PLAZO.contains(estado)) {
+            return;
+        }
+        long minutos = minutosPlazo(estado, prioridad);
+        Plazo plazo = new Plazo(id, estado, estado == Incidencia.Estado.ASIGNADA ? correoTecnico : null, minutos,
+            desdeMs);
+        temporizadores.put(id, rueda.programar(plazo, plazo.vencimientoMs()));
+        programados.incrementAndGet();
+    }
+
+    private long minutosPlazo(Incidencia.Estado estado, Incidencia.Prioridad prioridad) {
+        long base = estado == Incidencia.Estado.PENDIENTE ? pendienteMinutos : asignadaMinutos;
+        if (prioridad == Incidencia.Prioridad.ALTA) {
+            return base * porcentajeAlta / 100;
+        }
+        if (prioridad == Incidencia.Prioridad.BAJA) {
+            return base * porcentajeBaja / 100;
+        }
+        return base;
+    }
+
+    // Las PENDIENTE cuentan desde el alta; las ASIGNADA desde su última actualización (la asignación)
+    private static long desde(IncidenciaPlazo p) {
+        LocalDateTime desde = p.estado() == Incidencia.Estado.ASIGNADA && p.actualizadoAt() != null
+            ? p.actualizadoAt() : p.creadoAt();
+        return desde != null ? epochMs(desde) : System.currentTimeMillis();
+    }
+
+    // Escalada después de empezar el plazo actual: no se vuelve a avisar
+    private static boolean yaEscalado(IncidenciaPlazo p, long desdeMs) {
+        return p.slaEscaladoAt() != null && epochMs(p.slaEscaladoAt()) >= desdeMs;
+    }
+
+    private static long epochMs(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
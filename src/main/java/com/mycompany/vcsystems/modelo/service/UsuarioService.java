@@ -1,5 +1,6 @@
 package com.mycompany.vcsystems.modelo.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +11,7 @@ import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
 import com.mycompany.vcsystems.modelo.entidades.Usuario;
 import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
 import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.events.UsuarioCambiadoEvent;
 import jakarta.validation.ValidationException;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -27,16 +29,20 @@ public class UsuarioService implements UserDetailsService { // Add @Slf4j here i
     private final ClienteRepository clienteRepository;
 
     private final PasswordEncoder passwordEncoder;
+
+    private final ApplicationEventPublisher eventPublisher;
     private static final Pattern PASSWORD_PATTERN =
             Pattern.compile("^(?=.*[0-9])(?=.*[!@#$%^&*])(?=.*[a-zA-Z]).{8,}$");
 
     private static final Logger log = LoggerFactory.getLogger(UsuarioService.class); // Manual Logger if no Lombok
 
     // Inyección por constructor para evitar dependencias circulares
-    public UsuarioService(UsuarioRepository usuarioRepository, ClienteRepository clienteRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioService(UsuarioRepository usuarioRepository, ClienteRepository clienteRepository,
+                          PasswordEncoder passwordEncoder, ApplicationEventPublisher eventPublisher) {
         this.usuarioRepository = usuarioRepository;
         this.clienteRepository = clienteRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     public Usuario registrarUsuario(Usuario usuario) {
@@ -53,6 +59,7 @@ public class UsuarioService implements UserDetailsService { // Add @Slf4j here i
             cliente.setUsuario(savedUsuario); // Associate the saved Usuario with the Cliente
             clienteRepository.save(cliente); // Save the associated Client entity
         }
+        eventPublisher.publishEvent(new UsuarioCambiadoEvent(this, savedUsuario.getCorreo()));
         return savedUsuario; // Return the saved Usuario object
     }
 
@@ -0,0 +1,79 @@
+package com.mycompany.vcsystems.modelo.service;
+
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión en memoria de cada colección expuesta por la API.
+ * Cada escritura incrementa la versión, y con ella se construyen los validadores
+ * ETag / Last-Modified de las lecturas sin consultar ni serializar entidades.
+ * El instante de arranque forma parte del ETag para invalidarlo tras un reinicio.
+ * Las escrituras cuentan al confirmarse: si la versión subiera antes, una lectura
+ * concurrente podría guardar datos viejos bajo el ETag nuevo. Los cambios
+ * confirmados en otros nodos también suben la versión al llegar por el relay.
+ */
+@Component
+public class VersionColecciones {
+
+    public enum Coleccion { INCIDENCIAS }
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong[] versiones = new AtomicLong[Coleccion.values().length];
+    private final AtomicLong[] modificadas = new AtomicLong[Coleccion.values().length];
+
+    public VersionColecciones() {
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < versiones.length; i++) {
+            versiones[i] = new AtomicLong();
+            modificadas[i] = new AtomicLong(ahora);
+        }
+    }
+
+    public void incrementar(Coleccion coleccion) {
+        // Se actualiza primero la fecha para no anunciar una versión nueva con fecha vieja
+        modificadas[coleccion.ordinal()].accumulateAndGet(System.currentTimeMillis(), Math::max);
+        versiones[coleccion.ordinal()].incrementAndGet();
+    }
+
+    public String etag(Coleccion coleccion) {
+        return coleccion.name().toLowerCase() + "-" + arranque + "-" + versiones[coleccion.ordinal()].get();
+    }
+
+    public long ultimaModificacion(Coleccion coleccion) {
+        return modificadas[coleccion.ordinal()].get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIncidenciaEvent(IncidenciaEvent event) {
+        incrementar(Coleccion.INCIDENCIAS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkUpdated(IncidenciaBulkUpdatedEvent event) {
+        incrementar(Coleccion.INCIDENCIAS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImportadas(IncidenciasImportadasEvent event) {
+        incrementar(Coleccion.INCIDENCIAS);
+    }
+
+    @EventListener
+    public void onCambiadasEnOtroNodo(IncidenciasCambiadasEnOtroNodoEvent event) {
+        incrementar(Coleccion.INCIDENCIAS);
+    }
+
+    @EventListener
+    public void onRecargadasEnOtroNodo(IncidenciasRecargadasEnOtroNodoEvent event) {
+        incrementar(Coleccion.INCIDENCIAS);
+    }
+}
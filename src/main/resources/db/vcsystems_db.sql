@@ -52,11 +52,123 @@ fecha_creacion DATETIME(6),
                             fecha_resolucion DATETIME(6),
                             creado_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
                             actualizado_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+                            sla_escalado_at DATETIME(6),
                             FOREIGN KEY (id_cliente) REFERENCES cliente(id_cliente),
                             FOREIGN KEY (id_tecnico) REFERENCES usuario(id_usuario),
                             FOREIGN KEY (id_falla) REFERENCES diccionario_fallas(id_falla)
 );
 
+-- listado paginado por keyset (creado_at, id_incidencia)
+CREATE INDEX idx_incidencia_creado ON incidencia (creado_at, id_incidencia);
+-- búsqueda multicriterio (/api/incidencias/search)
+CREATE INDEX idx_incidencia_estado_creado ON incidencia (estado, creado_at, id_incidencia);
+CREATE INDEX idx_incidencia_tecnico_estado ON incidencia (id_tecnico, estado, creado_at);
+CREATE INDEX idx_incidencia_cliente_creado ON incidencia (id_cliente, creado_at);
+CREATE INDEX idx_incidencia_falla_creado ON incidencia (id_falla, creado_at);
+CREATE INDEX idx_incidencia_prioridad_creado ON incidencia (prioridad, creado_at);
+
+-- agregados diarios de entradas a cada estado (0 = sin falla / sin técnico);
+-- el backfill la reconstruye en incidencia_rollup_diaria_nueva (CREATE TABLE ... LIKE) y la intercambia
+CREATE TABLE incidencia_rollup_diaria (
+dia DATE NOT NULL,
+estado ENUM('PENDIENTE', 'ASIGNADA', 'EN_PROCESO', 'RESUELTA', 'CERRADA') NOT NULL,
+id_falla BIGINT NOT NULL DEFAULT 0,
+id_tecnico BIGINT NOT NULL DEFAULT 0,
+total BIGINT NOT NULL DEFAULT 0,
+PRIMARY KEY (dia, estado, id_falla, id_tecnico)
+);
+
+-- historial append-only de transiciones (solo INSERT)
+CREATE TABLE incidencia_historial (
+id_historial BIGINT AUTO_INCREMENT PRIMARY KEY,
+id_incidencia BIGINT NOT NULL,
+estado_anterior ENUM('PENDIENTE', 'ASIGNADA', 'EN_PROCESO', 'RESUELTA', 'CERRADA'),
+estado_nuevo ENUM('PENDIENTE', 'ASIGNADA', 'EN_PROCESO', 'RESUELTA', 'CERRADA') NOT NULL,
+id_tecnico BIGINT,
+actor VARCHAR(100) NOT NULL,
+registrado_at DATETIME(6) NOT NULL,
+INDEX idx_historial_incidencia (id_incidencia, id_historial)
+);
+
+-- outbox de eventos de incidencia (se escribe en la transacción del cambio)
+CREATE TABLE incidencia_outbox (
+id_outbox BIGINT AUTO_INCREMENT PRIMARY KEY,
+tipo VARCHAR(30) NOT NULL,
+id_incidencia BIGINT,
+payload TEXT,
+intentos INT NOT NULL DEFAULT 0,
+creado_at DATETIME(6) NOT NULL,
+procesado_at DATETIME(6),
+reclamado_hasta DATETIME(6),
+fallido_at DATETIME(6),
+ultimo_error VARCHAR(500),
+INDEX idx_outbox_pendientes (procesado_at, id_outbox)
+);
+
+-- emails acumulados para el próximo resumen por destinatario
+CREATE TABLE email_resumen (
+id_resumen BIGINT AUTO_INCREMENT PRIMARY KEY,
+destinatario VARCHAR(255) NOT NULL,
+asunto VARCHAR(255) NOT NULL,
+contenido TEXT NOT NULL,
+creado_at DATETIME(6) NOT NULL
+);
+
+-- emails pendientes de reintento y emails descartados tras agotar los reintentos
+CREATE TABLE email_reintento (
+id_reintento BIGINT AUTO_INCREMENT PRIMARY KEY,
+destinatario VARCHAR(255) NOT NULL,
+asunto VARCHAR(255) NOT NULL,
+contenido TEXT NOT NULL,
+intentos INT NOT NULL DEFAULT 0,
+proximo_intento_at DATETIME(6) NOT NULL,
+ultimo_error VARCHAR(500),
+creado_at DATETIME(6) NOT NULL,
+INDEX idx_reintento_proximo (proximo_intento_at)
+);
+
+CREATE TABLE email_fallido (
+id_fallido BIGINT AUTO_INCREMENT PRIMARY KEY,
+destinatario VARCHAR(255) NOT NULL,
+asunto VARCHAR(255) NOT NULL,
+contenido TEXT NOT NULL,
+intentos INT NOT NULL,
+ultimo_error VARCHAR(500),
+creado_at DATETIME(6) NOT NULL,
+fallido_at DATETIME(6) NOT NULL
+);
+
+-- avance de importaciones masivas de incidencias (para reanudar)
+CREATE TABLE importacion_checkpoint (
+id_importacion VARCHAR(100) PRIMARY KEY,
+filas_procesadas BIGINT NOT NULL DEFAULT 0,
+importadas BIGINT NOT NULL DEFAULT 0,
+rechazadas BIGINT NOT NULL DEFAULT 0,
+completada BOOLEAN NOT NULL DEFAULT FALSE,
+actualizado_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+
+-- mensajes WebSocket para los demás nodos (relay por base de datos)
+CREATE TABLE relay_mensaje (
+id_mensaje BIGINT AUTO_INCREMENT PRIMARY KEY,
+nodo VARCHAR(64) NOT NULL,
+tipo ENUM('USUARIO', 'TOPIC', 'INCIDENCIAS', 'RECARGA') NOT NULL,
+destino VARCHAR(255),
+usuario VARCHAR(255),
+payload TEXT NOT NULL,
+creado_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+INDEX idx_relay_creado (creado_at)
+);
+
+-- concesiones de tareas programadas: cada tarea corre en un solo nodo
+CREATE TABLE job_lease (
+nombre VARCHAR(100) PRIMARY KEY,
+nodo VARCHAR(64) NOT NULL,
+expira_at DATETIME(6) NOT NULL,
+adquirido_at DATETIME(6) NOT NULL,
+renovado_at DATETIME(6) NOT NULL
+);
+
 CREATE TABLE solicitud_repuesto (
                                     id_solicitud BIGINT AUTO_INCREMENT PRIMARY KEY,
                                     id_incidencia BIGINT NOT NULL,
@@ -19,6 +19,7 @@ class IncidentNotificationManager {
         this.isConnected = false;
         this.toastManager = new ToastManager(); // Usar módulo común de tostadas
         this.notificationSound = null;
+        this.connectListeners = []; // Se llaman en cada (re)conexión con el cliente STOMP
 
         this.init();
     }
@@ -30,7 +31,7 @@ class IncidentNotificationManager {
         const metaTag = document.querySelector('meta[name="ws-url"]');
         const metaUrl = metaTag?.getAttribute('content');
 
-        return envUrl || metaUrl || `ws://${window.location.hostname}:8081/ws/notifications`;
+        return envUrl || metaUrl || '/ws';
     }
 
     //  Cargar sonido de notificación desde archivo externo
@@ -71,50 +72,52 @@ class IncidentNotificationManager {
         this.setupEventListeners();
     }
 
-    // Conectar al WebSocket - MEJORADO
+    // Conectar por STOMP sobre SockJS. El servidor identifica al usuario por la
+    // sesión del login y solo le envía lo suyo (/user/queue/notificaciones)
+    // más el topic de su rol, así que no hay que filtrar en el cliente.
     connect() {
         try {
             const wsUrl = this.config.wsUrl;
             console.log('Conectando WebSocket a:', wsUrl);
 
-            this.socket = new WebSocket(wsUrl);
+            this.socket = Stomp.over(new SockJS(wsUrl));
+            this.socket.debug = null;
 
-            this.socket.onopen = (event) => {
+            this.socket.connect({}, () => {
                 console.log('WebSocket conectado exitosamente');
                 this.isConnected = true;
                 this.reconnectAttempts = 0;
                 this.reconnectDelay = this.config.reconnectDelay; // Resetear delay
                 this.updateConnectionStatus(true);
                 this.toastManager.success('Conectado al sistema de notificaciones', 3000);
-            };
-
-            this.socket.onmessage = (event) => {
-                try {
-                    const notification = JSON.parse(event.data);
-                    this.handleNotification(notification);
-                } catch (error) {
-                    console.error('Error procesando notificación:', error);
-                    this.toastManager.warning('Error procesando notificación recibida', 3000);
+
+                const onMessage = (frame) => {
+                    try {
+                        this.handleNotification(JSON.parse(frame.body));
+                    } catch (error) {
+                        console.error('Error procesando notificación:', error);
+                        this.toastManager.warning('Error procesando notificación recibida', 3000);
+                    }
+                };
+                this.socket.subscribe('/user/queue/notificaciones', onMessage);
+
+                const rol = securityManager.getUserInfo()?.rol;
+                if (rol === 'GERENTE' || rol === 'ADMIN') {
+                    this.socket.subscribe(`/topic/rol/${rol}`, onMessage);
                 }
-            };
 
-            this.socket.onclose = (event) => {
-                console.log('WebSocket desconectado:', event.code, event.reason);
+                this.connectListeners.forEach(listener => listener(this.socket));
+            }, (error) => {
+                console.log('WebSocket desconectado:', error);
                 this.isConnected = false;
                 this.updateConnectionStatus(false);
 
-                if (!event.wasClean && this.reconnectAttempts < this.config.reconnectAttempts) {
+                if (this.reconnectAttempts < this.config.reconnectAttempts) {
                     this.scheduleReconnect();
-                } else if (this.reconnectAttempts >= this.config.reconnectAttempts) {
+                } else {
                     this.toastManager.error('No se pudo mantener conexión con notificaciones', 5000);
                 }
-            };
-
-            this.socket.onerror = (error) => {
-                console.error('Error en WebSocket:', error);
-                this.isConnected = false;
-                this.updateConnectionStatus(false);
-            };
+            });
 
         } catch (error) {
             console.error('Error conectando WebSocket:', error);
@@ -123,6 +126,14 @@ class IncidentNotificationManager {
         }
     }
 
+    // Registrar una función a llamar con el cliente STOMP al conectar (y al reconectar)
+    onConnected(listener) {
+        this.connectListeners.push(listener);
+        if (this.isConnected) {
+            listener(this.socket);
+        }
+    }
+
     // Programar reconexión - MEJORADO ya no da erroricito sii
     scheduleReconnect() {
         if (this.reconnectAttempts >= this.config.reconnectAttempts) {
@@ -281,8 +292,8 @@ class IncidentNotificationManager {
 
     // Desconectar WebSocket
     disconnect() {
-        if (this.socket && this.socket.readyState === WebSocket.OPEN) {
-            this.socket.close();
+        if (this.socket && this.socket.connected) {
+            this.socket.disconnect();
         }
         this.isConnected = false;
     }
@@ -320,8 +331,8 @@ class IncidentNotificationManager {
 
     // Enviar mensaje al servidor (si es necesario)
     sendMessage(message) {
-        if (this.socket && this.socket.readyState === WebSocket.OPEN) {
-            this.socket.send(JSON.stringify(message));
+        if (this.socket && this.socket.connected) {
+            this.socket.send('/app/notificaciones', {}, JSON.stringify(message));
         }
     }
 }
@@ -0,0 +1,281 @@
+package com.mycompany.vcsystems;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mycompany.vcsystems.configuracion.AutenticacionStompInterceptor;
+import com.mycompany.vcsystems.configuracion.SchedulingConfig;
+import com.mycompany.vcsystems.configuracion.WebSocketConfig;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.DeltaIncidenciasService;
+import com.mycompany.vcsystems.modelo.service.EntregaWebSocket;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocketLocal;
+import com.mycompany.vcsystems.modelo.service.SesionesWebSocket;
+import com.mycompany.vcsystems.modelo.service.UsuarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba de carga del broker STOMP: miles de clientes WebSocket en el mismo
+ * proceso suscritos al flujo de deltas de técnicos. Cada ronda cambia varias
+ * veces las mismas incidencias; se comprueba que cada cliente recibe un solo
+ * delta por incidencia y ronda, y se mide la latencia desde el último cambio
+ * hasta la entrega (incluye el intervalo de conflación).
+ * <p>
+ * Tamaño ajustable con -Dcarga.clientes y -Dcarga.rondas.
+ */
+@SpringBootTest(classes = CargaStompTest.Contexto.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "app.websocket.conflacion.intervalo-ms=50"
+    })
+public class CargaStompTest {
+
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 2000);
+    private static final int RONDAS = Integer.getInteger("carga.rondas", 10);
+    private static final int INCIDENCIAS_POR_RONDA = 5;
+    private static final int CAMBIOS_POR_INCIDENCIA = 3;
+
+    @Configuration
+    @EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class, SecurityAutoConfiguration.class,
+        SecurityFilterAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class
+    })
+    @Import({WebSocketConfig.class, AutenticacionStompInterceptor.class, SesionesWebSocket.class,
+        EntregaWebSocket.class, RelayWebSocketLocal.class, DeltaIncidenciasService.class, SchedulingConfig.class})
+    static class Contexto {
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DeltaIncidenciasService deltaIncidenciasService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockBean
+    private UsuarioService usuarioService;
+
+    @MockBean
+    private IncidenciaRepository incidenciaRepository;
+
+    private final List<StompSession> sesiones = new ArrayList<>();
+    private WebSocketStompClient stompClient;
+    private ThreadPoolTaskScheduler clienteScheduler;
+
+    // Momento del último cambio de cada incidencia, y latencias observadas en ms
+    private final Map<Long, Long> cambiadaEn = new ConcurrentHashMap<>();
+    private long[] latencias;
+    private final AtomicInteger recibidos = new AtomicInteger();
+    private final AtomicLong duplicados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+
+    @AfterEach
+    public void cerrar() {
+        sesiones.forEach(StompSession::disconnect);
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (clienteScheduler != null) {
+            clienteScheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testMilesDeClientesRecibenLosDeltasConflados() throws Exception {
+        when(usuarioService.autenticarUsuario(anyString(), anyString())).thenAnswer(inv -> {
+            Usuario u = new Usuario();
+            u.setCorreo(inv.getArgument(0));
+            u.setRol(Usuario.Rol.TECNICO);
+            return Optional.of(u);
+        });
+        when(incidenciaRepository.findTrabajoByIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(id -> new IncidenciaTrabajo(id, Incidencia.Estado.EN_PROCESO,
+                Incidencia.Prioridad.MEDIA, "Incidencia " + id, "Empresa", 1L, LocalDateTime.now())).toList();
+        });
+
+        int esperados = CLIENTES * RONDAS * INCIDENCIAS_POR_RONDA;
+        latencias = new long[esperados];
+        CountDownLatch entregados = new CountDownLatch(esperados);
+        conectarClientes(entregados);
+
+        long idBase = 1;
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            for (int cambio = 0; cambio < CAMBIOS_POR_INCIDENCIA; cambio++) {
+                for (long id = idBase; id < idBase + INCIDENCIAS_POR_RONDA; id++) {
+                    cambiadaEn.put(id, System.nanoTime());
+                    deltaIncidenciasService.onStatusChanged(cambio(id));
+                }
+            }
+            idBase += INCIDENCIAS_POR_RONDA;
+            // Cada ronda espera a la anterior: se mide latencia, no la cola acumulada
+            int objetivo = CLIENTES * INCIDENCIAS_POR_RONDA * (ronda + 1);
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (recibidos.get() < objetivo && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+        }
+
+        assertTrue(entregados.await(60, TimeUnit.SECONDS),
+            "Entregados " + recibidos.get() + " de " + esperados + " deltas");
+        Thread.sleep(200);
+
+        // Varios cambios por incidencia y ronda, un solo delta por cliente
+        assertEquals(esperados, recibidos.get());
+        assertEquals(0, duplicados.get());
+        assertEquals(0, errores.get());
+        assertEquals((long) RONDAS * INCIDENCIAS_POR_RONDA, deltaIncidenciasService.metricas().deltasPublicados());
+
+        Arrays.sort(latencias);
+        assertTrue(percentil(99) < 10000, "p99 de entrega demasiado alto: " + percentil(99) + " ms");
+    }
+
+    private void conectarClientes(CountDownLatch entregados) throws Exception {
+        CountDownLatch listos = new CountDownLatch(CLIENTES);
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        // Heartbeats del cliente
+        clienteScheduler = new ThreadPoolTaskScheduler();
+        clienteScheduler.setPoolSize(2);
+        clienteScheduler.initialize();
+        stompClient.setTaskScheduler(clienteScheduler);
+        // SockJS también acepta WebSocket directo en /ws/websocket
+        String url = "ws://localhost:" + port + "/ws/websocket";
+
+        int lote = 200;
+        for (int i = 0; i < CLIENTES; i += lote) {
+            List<CompletableFuture<StompSession>> conexiones = new ArrayList<>();
+            for (int c = i; c < Math.min(i + lote, CLIENTES); c++) {
+                StompHeaders connect = new StompHeaders();
+                connect.setLogin("tecnico" + c + "@example.com");
+                connect.setPasscode("secreta");
+                conexiones.add(stompClient.connectAsync(url, new WebSocketHttpHeaders(), connect,
+                    new StompSessionHandlerAdapter() {
+                        @Override
+                        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                                    byte[] payload, Throwable exception) {
+                            errores.incrementAndGet();
+                        }
+                    }));
+            }
+            for (CompletableFuture<StompSession> conexion : conexiones) {
+                StompSession sesion = conexion.get(30, TimeUnit.SECONDS);
+                sesion.subscribe(DeltaIncidenciasService.TOPIC, new Receptor(entregados, listos));
+                sesiones.add(sesion);
+            }
+        }
+
+        // El broker simple no confirma las suscripciones: se publica un mensaje
+        // de calentamiento hasta que todos los clientes lo han recibido
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!listos.await(100, TimeUnit.MILLISECONDS)) {
+            assertTrue(System.nanoTime() < limite, "Clientes suscritos: " + (CLIENTES - listos.getCount()));
+            messagingTemplate.convertAndSend(DeltaIncidenciasService.TOPIC, Map.of("calentamiento", true));
+        }
+    }
+
+    private final class Receptor implements StompFrameHandler {
+
+        private final CountDownLatch entregados;
+        private final CountDownLatch listos;
+        private boolean calentado;
+        private long ultimaSecuencia;
+
+        Receptor(CountDownLatch entregados, CountDownLatch listos) {
+            this.entregados = entregados;
+            this.listos = listos;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long ahora = System.nanoTime();
+            JsonNode delta = (JsonNode) payload;
+            if (delta.has("calentamiento")) {
+                synchronized (this) {
+                    if (!calentado) {
+                        calentado = true;
+                        listos.countDown();
+                    }
+                }
+                return;
+            }
+            long secuencia = delta.get("secuencia").asLong();
+            synchronized (this) {
+                if (secuencia <= ultimaSecuencia) {
+                    duplicados.incrementAndGet();
+                    return;
+                }
+                ultimaSecuencia = secuencia;
+            }
+            Long cambio = cambiadaEn.get(delta.get("idIncidencia").asLong());
+            int n = recibidos.getAndIncrement();
+            if (n < latencias.length) {
+                latencias[n] = TimeUnit.NANOSECONDS.toMillis(ahora - cambio);
+            }
+            entregados.countDown();
+        }
+    }
+
+    private long percentil(int p) {
+        return latencias[Math.min(latencias.length - 1, latencias.length * p / 100)];
+    }
+
+    private IncidenciaStatusChangedEvent cambio(long id) {
+        Incidencia inc = new Incidencia();
+        inc.setIdIncidencia(id);
+        return new IncidenciaStatusChangedEvent(this, inc, Incidencia.Estado.ASIGNADA, Incidencia.Estado.EN_PROCESO);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.CargaTecnicos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la cola de técnicos por carga del despacho automático (no requiere base de datos)
+ */
+public class CargaTecnicosTest {
+
+    private CargaTecnicos cargas;
+
+    @BeforeEach
+    public void setup() {
+        cargas = new CargaTecnicos();
+        cargas.registrar(1L, 3);
+        cargas.registrar(2L, 1);
+        cargas.registrar(3L, 1);
+        cargas.registrar(4L, 5);
+    }
+
+    @Test
+    public void testTomaElMenosCargadoYDesempataPorId() {
+        assertEquals(2L, cargas.tomarMenosCargado().orElseThrow());
+        assertEquals(2, cargas.carga(2L));
+        assertEquals(3L, cargas.tomarMenosCargado().orElseThrow());
+        assertEquals(2L, cargas.tomarMenosCargado().orElseThrow());
+    }
+
+    @Test
+    public void testAjustarReordena() {
+        cargas.ajustar(4L, -5);
+        assertEquals(4L, cargas.tomarMenosCargado().orElseThrow());
+
+        cargas.ajustar(2L, -10);
+        assertEquals(0, cargas.carga(2L), "La carga nunca baja de cero");
+
+        cargas.ajustar(99L, 1);
+        assertFalse(cargas.contiene(99L), "Los técnicos no registrados se ignoran");
+    }
+
+    @Test
+    public void testRetirarYReemplazarCarga() {
+        cargas.retirar(2L);
+        cargas.retirar(3L);
+        assertEquals(2, cargas.size());
+        assertEquals(1L, cargas.tomarMenosCargado().orElseThrow());
+
+        cargas.registrar(4L, 0);
+        assertEquals(4L, cargas.tomarMenosCargado().orElseThrow());
+
+        cargas.retirar(1L);
+        cargas.retirar(4L);
+        assertTrue(cargas.tomarMenosCargado().isEmpty());
+    }
+
+    @Test
+    public void testReconciliarRespetaLasReservasEnCurso() {
+        assertEquals(2L, cargas.tomarMenosCargado().orElseThrow());
+
+        // La BD todavía no ve la asignación reservada: no se pisa la carga del técnico 2
+        assertFalse(cargas.reconciliar(2L, 1));
+        assertTrue(cargas.reconciliar(3L, 4));
+        assertEquals(2, cargas.carga(2L));
+        assertEquals(4, cargas.carga(3L));
+
+        // Confirmada la asignación (evento +1) se libera la reserva y ya se puede reconciliar
+        cargas.ajustar(2L, 1);
+        cargas.liberar(2L);
+        assertEquals(2, cargas.carga(2L));
+        assertTrue(cargas.reconciliar(2L, 2));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), cargas.tecnicos());
+
+        // Liberar la reserva de un técnico ya retirado no falla ni lo vuelve a registrar
+        cargas.tomarMenosCargado();
+        cargas.retirar(2L);
+        cargas.liberar(2L);
+        assertFalse(cargas.contiene(2L));
+        assertTrue(cargas.reconciliar(2L, 0));
+    }
+
+    @Test
+    public void testRepartoEquilibradoConMuchasDecisiones() {
+        int tecnicos = 500;
+        int decisiones = 1_000_000;
+        CargaTecnicos grande = new CargaTecnicos();
+        for (long id = 1; id <= tecnicos; id++) {
+            grande.registrar(id, 0);
+        }
+
+        for (int i = 0; i < decisiones; i++) {
+            long id = grande.tomarMenosCargado().orElseThrow();
+            // Cada cierto tiempo se resuelve una incidencia para ejercitar los ajustes
+            if (i % 3 == 0) {
+                grande.ajustar(id, -1);
+            }
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (long id = 1; id <= tecnicos; id++) {
+            min = Math.min(min, grande.carga(id));
+            max = Math.max(max, grande.carga(id));
+        }
+        assertTrue(max - min <= 1, "El reparto debe quedar equilibrado: min=" + min + " max=" + max);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.CircuitoSmtp;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transiciones del circuit breaker SMTP con un reloj controlado.
+ */
+public class CircuitoSmtpTest {
+
+    private final AtomicLong ahora = new AtomicLong(1_000);
+    private final CircuitoSmtp circuito = new CircuitoSmtp(3, 10_000, ahora::get);
+
+    @Test
+    public void testSeAbreTrasUmbralYPruebaUnSoloIntento() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuito.permiteIntento());
+            circuito.registrarFallo();
+        }
+        assertEquals(CircuitoSmtp.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permiteIntento());
+        assertTrue(circuito.rechazaria());
+
+        ahora.addAndGet(10_000);
+        assertFalse(circuito.rechazaria());
+        assertTrue(circuito.permiteIntento());
+        assertEquals(CircuitoSmtp.Estado.SEMIABIERTO, circuito.getEstado());
+        // Mientras la prueba no termina no pasa nadie más
+        assertFalse(circuito.permiteIntento());
+
+        circuito.registrarFallo();
+        assertEquals(CircuitoSmtp.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permiteIntento());
+
+        ahora.addAndGet(10_000);
+        assertTrue(circuito.permiteIntento());
+        circuito.registrarExito();
+        assertEquals(CircuitoSmtp.Estado.CERRADO, circuito.getEstado());
+        assertTrue(circuito.permiteIntento());
+    }
+
+    @Test
+    public void testExitoReiniciaFallosSeguidos() {
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        circuito.registrarExito();
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        assertEquals(CircuitoSmtp.Estado.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    public void testPruebaLiberadaSinResultado() {
+        for (int i = 0; i < 3; i++) {
+            circuito.registrarFallo();
+        }
+        ahora.addAndGet(10_000);
+        assertTrue(circuito.permiteIntento());
+
+        // El intento no llegó al servidor: el circuito sigue semiabierto y otro puede probar
+        circuito.liberarPrueba();
+        assertEquals(CircuitoSmtp.Estado.SEMIABIERTO, circuito.getEstado());
+        assertFalse(circuito.rechazaria());
+        assertTrue(circuito.permiteIntento());
+        assertFalse(circuito.permiteIntento());
+    }
+}
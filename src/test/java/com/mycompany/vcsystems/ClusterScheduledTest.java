@@ -0,0 +1,102 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.configuracion.ClusterScheduled;
+import com.mycompany.vcsystems.configuracion.ClusterScheduledProcessor;
+import com.mycompany.vcsystems.modelo.service.JobLeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Registro de los métodos @ClusterScheduled: cada disparo comprueba la
+ * concesión y solo ejecuta el método en el nodo que la tiene.
+ */
+public class ClusterScheduledTest {
+
+    public static class Tareas {
+
+        int purgas;
+        int informes;
+
+        @ClusterScheduled(lease = "purga", fixedDelayString = "5000", initialDelayString = "1000")
+        public void purgar() {
+            purgas++;
+        }
+
+        @ClusterScheduled(fixedDelayString = "PT1M")
+        public void informar() {
+            informes++;
+            throw new IllegalStateException("fallo simulado");
+        }
+    }
+
+    private JobLeaseService leases;
+    private ClusterScheduledProcessor processor;
+    private Tareas tareas;
+    private ScheduledTaskRegistrar registrar;
+
+    @BeforeEach
+    public void setup() {
+        leases = mock(JobLeaseService.class);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("jobLeaseService", leases);
+        ObjectProvider<JobLeaseService> provider = beanFactory.getBeanProvider(JobLeaseService.class);
+        processor = new ClusterScheduledProcessor(provider);
+        processor.setEmbeddedValueResolver(valor -> valor);
+
+        tareas = new Tareas();
+        processor.postProcessAfterInitialization(tareas, "tareas");
+        registrar = new ScheduledTaskRegistrar();
+        processor.configureTasks(registrar);
+    }
+
+    @Test
+    public void testRegistraUnaTareaPorMetodoConSusIntervalos() {
+        List<FixedDelayTask> tareasFijas = registrar.getFixedDelayTaskList().stream()
+            .map(FixedDelayTask.class::cast).toList();
+        assertEquals(2, tareasFijas.size());
+        assertTrue(tareasFijas.stream().anyMatch(t ->
+            t.getIntervalDuration().equals(Duration.ofSeconds(5)) && t.getInitialDelayDuration().equals(Duration.ofSeconds(1))));
+        assertTrue(tareasFijas.stream().anyMatch(t ->
+            t.getIntervalDuration().equals(Duration.ofMinutes(1)) && t.getInitialDelayDuration().isZero()));
+    }
+
+    @Test
+    public void testSoloEjecutaConLaConcesion() {
+        Runnable purga = tarea(Duration.ofSeconds(5));
+
+        when(leases.adquirir("purga")).thenReturn(false);
+        purga.run();
+        assertEquals(0, tareas.purgas);
+
+        when(leases.adquirir("purga")).thenReturn(true);
+        purga.run();
+        purga.run();
+        assertEquals(2, tareas.purgas);
+    }
+
+    @Test
+    public void testLeasePorDefectoYErroresNoSePropagan() {
+        Runnable informe = tarea(Duration.ofMinutes(1));
+        when(leases.adquirir("Tareas.informar")).thenReturn(true);
+
+        assertDoesNotThrow(informe::run);
+        assertEquals(1, tareas.informes);
+        verify(leases).adquirir("Tareas.informar");
+    }
+
+    private Runnable tarea(Duration intervalo) {
+        return registrar.getFixedDelayTaskList().stream()
+            .filter(t -> ((FixedDelayTask) t).getIntervalDuration().equals(intervalo))
+            .findFirst().orElseThrow().getRunnable();
+    }
+}
@@ -0,0 +1,48 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.CursorRelay;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los ids que se confirman fuera de orden se recogen más tarde, una sola vez,
+ * y los que nunca aparecen dejan de buscarse tras la espera.
+ */
+public class CursorRelayTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000);
+    private final CursorRelay cursor = new CursorRelay(10, 500, reloj::get);
+
+    @Test
+    public void testIdsFueraDeOrdenSeProcesanUnaVez() {
+        assertFalse(cursor.avanzar(9));
+        assertTrue(cursor.avanzar(11));
+        assertTrue(cursor.avanzar(14));
+        assertEquals(14, cursor.getUltimo());
+        assertEquals(List.of(12L, 13L), cursor.huecos());
+
+        // 13 se confirma después que 14
+        assertTrue(cursor.avanzar(13));
+        assertFalse(cursor.avanzar(13));
+        assertFalse(cursor.avanzar(14));
+        assertEquals(List.of(12L), cursor.huecos());
+    }
+
+    @Test
+    public void testHuecosVencidosSeDescartan() {
+        assertTrue(cursor.avanzar(13));
+        reloj.addAndGet(400);
+        assertTrue(cursor.avanzar(16));
+        assertEquals(List.of(11L, 12L, 14L, 15L), cursor.huecos());
+
+        reloj.addAndGet(100);
+        assertEquals(List.of(14L, 15L), cursor.huecos());
+        assertFalse(cursor.avanzar(11));
+        reloj.addAndGet(500);
+        assertTrue(cursor.huecos().isEmpty());
+    }
+}
@@ -0,0 +1,32 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+
+/**
+ * Entidades de prueba sin guardar, compartidas por las pruebas contra la BD.
+ */
+public final class DatosPrueba {
+
+    // Cumple la política de contraseñas de UsuarioService
+    public static final String CONTRASENA = "Aa1!prueba";
+
+    private DatosPrueba() {
+    }
+
+    public static Usuario usuario(String correo, Usuario.Rol rol) {
+        Usuario u = new Usuario();
+        u.setCorreo(correo);
+        u.setNombre(correo);
+        u.setContrasena(CONTRASENA);
+        u.setRol(rol);
+        return u;
+    }
+
+    public static Cliente cliente(Usuario usuario, String nombreEmpresa) {
+        Cliente cliente = new Cliente();
+        cliente.setUsuario(usuario);
+        cliente.setNombreEmpresa(nombreEmpresa);
+        return cliente;
+    }
+}
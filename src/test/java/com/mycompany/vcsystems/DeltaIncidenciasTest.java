@@ -0,0 +1,204 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaDelta;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaTrabajo;
+import com.mycompany.vcsystems.modelo.dto.ReanudacionDeltas;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.DeltaIncidenciasService;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocket;
+import com.mycompany.vcsystems.modelo.service.SesionesWebSocket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Secuencia de deltas, reanudación desde el buffer circular, orden de
+ * recarga cuando el hueco es demasiado viejo y conflación por incidencia.
+ */
+public class DeltaIncidenciasTest {
+
+    private static final LocalDateTime CREADO = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    private final IncidenciaRepository incidenciaRepository = mock(IncidenciaRepository.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SesionesWebSocket sesiones = mock(SesionesWebSocket.class);
+    private final RelayWebSocket relay = mock(RelayWebSocket.class);
+    private DeltaIncidenciasService service;
+
+    @BeforeEach
+    public void setup() {
+        service = new DeltaIncidenciasService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "sesionesWebSocket", sesiones);
+        ReflectionTestUtils.setField(service, "relayWebSocket", relay);
+        ReflectionTestUtils.setField(service, "capacidad", 8);
+        ReflectionTestUtils.setField(service, "maxPublicadas", 100);
+        service.iniciar();
+        when(sesiones.hayConectados(Usuario.Rol.TECNICO)).thenReturn(true);
+        when(incidenciaRepository.findTrabajoByIds(anyCollection())).thenAnswer(inv -> {
+            List<Long> ids = List.copyOf(inv.getArgument(0));
+            // La incidencia 99 ya no existe
+            return ids.stream().filter(id -> id != 99L).map(DeltaIncidenciasTest::fila).toList();
+        });
+    }
+
+    @Test
+    public void testReanudaDesdeElBuffer() {
+        for (long id = 1; id <= 5; id++) {
+            cambiarEstado(id);
+        }
+        cambiarEstado(99L);
+        service.vaciar();
+        verify(messagingTemplate, times(6)).convertAndSend(eq(DeltaIncidenciasService.TOPIC), any(IncidenciaDelta.class));
+
+        ReanudacionDeltas r = service.reanudar(service.getEpoca(), 3);
+        assertFalse(r.recargar());
+        assertEquals(6, r.ultima());
+        assertEquals(List.of(4L, 5L, 6L), r.deltas().stream().map(IncidenciaDelta::secuencia).toList());
+        assertEquals(IncidenciaDelta.Tipo.BAJA, r.deltas().get(2).tipo());
+        assertEquals(99L, r.deltas().get(2).idIncidencia());
+
+        assertTrue(service.reanudar(service.getEpoca(), 6).deltas().isEmpty());
+    }
+
+    @Test
+    public void testHuecoViejoOEpocaDistintaPideRecargar() {
+        for (long id = 1; id <= 20; id++) {
+            cambiarEstado(id);
+        }
+        service.vaciar();
+        // El buffer guarda las 8 últimas (13..20): desde 12 aún se puede, desde 11 no
+        assertFalse(service.reanudar(service.getEpoca(), 12).recargar());
+        assertTrue(service.reanudar(service.getEpoca(), 11).recargar());
+        assertTrue(service.reanudar("otra", 19).recargar());
+        assertTrue(service.reanudar(service.getEpoca(), 25).recargar());
+        assertTrue(service.reanudar(null, -1).recargar());
+    }
+
+    @Test
+    public void testSinTecnicosConectadosNoConsultaYMarcaRecarga() {
+        when(sesiones.hayConectados(Usuario.Rol.TECNICO)).thenReturn(false);
+        cambiarEstado(1L);
+        service.vaciar();
+        cambiarEstado(2L);
+        service.vaciar();
+
+        verifyNoInteractions(incidenciaRepository);
+        // Las marcas de recarga consecutivas se colapsan en una
+        assertEquals(1, service.getUltima());
+        ReanudacionDeltas r = service.reanudar(service.getEpoca(), 0);
+        assertEquals(IncidenciaDelta.Tipo.RECARGAR, r.deltas().get(0).tipo());
+    }
+
+    @Test
+    public void testCambiosRepetidosSeColapsanEnUnDelta() {
+        for (int i = 0; i < 10; i++) {
+            cambiarEstado(1L);
+            cambiarEstado(2L);
+        }
+        service.vaciar();
+        service.vaciar();
+
+        verify(incidenciaRepository, times(1)).findTrabajoByIds(List.of(1L, 2L));
+        verify(messagingTemplate, times(2)).convertAndSend(eq(DeltaIncidenciasService.TOPIC), any(IncidenciaDelta.class));
+        DeltaIncidenciasService.DeltaMetricas metricas = service.metricas();
+        assertEquals(20, metricas.cambiosRecibidos());
+        assertEquals(2, metricas.deltasPublicados());
+        assertEquals(0, metricas.pendientes());
+    }
+
+    @Test
+    public void testCambiosDeOtroNodoSePublicanPeroNoSeReenvian() {
+        cambiarEstado(1L);
+        service.onCambiadasEnOtroNodo(new IncidenciasCambiadasEnOtroNodoEvent(this, List.of(2L, 3L)));
+        service.vaciar();
+
+        verify(relay).difundirCambios(List.of(1L));
+        verify(incidenciaRepository).findTrabajoByIds(List.of(1L, 2L, 3L));
+        assertEquals(3, service.getUltima());
+    }
+
+    @Test
+    public void testSoloEnviaLosCamposQueCambian() {
+        cambiarEstado(1L);
+        service.vaciar();
+
+        // Solo cambia el estado: el delta no repite descripción ni empresa
+        when(incidenciaRepository.findTrabajoByIds(anyCollection())).thenAnswer(inv -> {
+            assertTrue(Thread.holdsLock(service), "La lectura debe hacerse con el monitor de la numeración");
+            return List.of(new IncidenciaTrabajo(1L, Incidencia.Estado.RESUELTA, Incidencia.Prioridad.ALTA,
+                "Incidencia 1", "Empresa", 7L, CREADO));
+        });
+        cambiarEstado(1L);
+        service.vaciar();
+        // Sin cambios respecto a lo publicado no se gasta secuencia
+        cambiarEstado(1L);
+        service.vaciar();
+
+        List<IncidenciaDelta> deltas = service.reanudar(service.getEpoca(), 0).deltas();
+        assertEquals(2, deltas.size());
+        assertEquals(IncidenciaDelta.Tipo.FILA, deltas.get(0).tipo());
+        assertEquals("Incidencia 1", deltas.get(0).descripcion());
+        IncidenciaDelta cambio = deltas.get(1);
+        assertEquals(IncidenciaDelta.Tipo.CAMBIO, cambio.tipo());
+        assertEquals(List.of("estado"), cambio.campos());
+        assertEquals(Incidencia.Estado.RESUELTA, cambio.estado());
+        assertNull(cambio.descripcion());
+        assertNull(cambio.nombreEmpresa());
+    }
+
+    @Test
+    public void testTrasUnaRecargaVuelveAEnviarLaFilaCompleta() {
+        cambiarEstado(1L);
+        service.vaciar();
+        when(sesiones.hayConectados(Usuario.Rol.TECNICO)).thenReturn(false);
+        cambiarEstado(1L);
+        service.vaciar();
+        when(sesiones.hayConectados(Usuario.Rol.TECNICO)).thenReturn(true);
+        cambiarEstado(1L);
+        service.vaciar();
+
+        List<IncidenciaDelta> deltas = service.reanudar(service.getEpoca(), 0).deltas();
+        assertEquals(List.of(IncidenciaDelta.Tipo.FILA, IncidenciaDelta.Tipo.RECARGAR, IncidenciaDelta.Tipo.FILA),
+            deltas.stream().map(IncidenciaDelta::tipo).toList());
+    }
+
+    @Test
+    public void testImportadasSeDifundenALosDemasNodos() {
+        service.onImportadas(new IncidenciasImportadasEvent(this, "imp-1", List.of(10L, 11L), List.of()));
+        service.vaciar();
+
+        // Un solo aviso de recarga, no la lista de ids importados
+        verify(relay).difundirRecarga();
+        verify(relay, never()).difundirCambios(anyCollection());
+        // En este nodo basta la marca de recarga
+        verifyNoInteractions(incidenciaRepository);
+        assertEquals(IncidenciaDelta.Tipo.RECARGAR, service.reanudar(service.getEpoca(), 0).deltas().get(0).tipo());
+    }
+
+    private void cambiarEstado(long id) {
+        Incidencia inc = new Incidencia();
+        inc.setIdIncidencia(id);
+        service.onStatusChanged(new IncidenciaStatusChangedEvent(this, inc,
+            Incidencia.Estado.ASIGNADA, Incidencia.Estado.EN_PROCESO));
+    }
+
+    private static IncidenciaTrabajo fila(Long id) {
+        return new IncidenciaTrabajo(id, Incidencia.Estado.EN_PROCESO, Incidencia.Prioridad.ALTA,
+            "Incidencia " + id, "Empresa", 7L, CREADO);
+    }
+}
@@ -0,0 +1,218 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.DespachoAutomaticoService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Despacho automático contra la BD: reparte las incidencias PENDIENTE entre los
+ * técnicos e informa del rendimiento del bucle de despacho con escrituras por lotes.
+ * El intervalo programado se alarga para invocar despachar() de forma controlada.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class, properties = {
+    "app.incidencias.despacho.habilitado=true",
+    "app.incidencias.despacho.intervalo-ms=3600000"
+})
+public class DespachoAutomaticoTest {
+
+    private static final int INCIDENCIAS = 2000;
+    private static final int TECNICOS = 10;
+
+    @Autowired
+    private DespachoAutomaticoService despacho;
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private final List<Usuario> tecnicos = new ArrayList<>();
+    private final List<Long> incidencias = new ArrayList<>();
+    private Usuario clienteUser;
+    private Cliente cliente;
+
+    @BeforeEach
+    public void setup() {
+        clienteUser = usuarioRepository.save(DatosPrueba.usuario("despacho-cli@example.com", Rol.CLIENTE));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Despacho"));
+
+        for (int i = 0; i < TECNICOS; i++) {
+            tecnicos.add(usuarioRepository.save(DatosPrueba.usuario("despacho-tec" + i + "@example.com", Rol.TECNICO)));
+        }
+        despacho.reconciliar();
+        // Lo que hubiera pendiente en la BD se despacha antes de medir
+        despacho.despachar();
+
+        for (int i = 0; i < INCIDENCIAS; i++) {
+            Incidencia inc = new Incidencia();
+            inc.setCliente(cliente);
+            inc.setDescripcion("Despacho " + i);
+            incidencias.add(incidenciaService.crearIncidencia(inc).getIdIncidencia());
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        incidenciaRepository.deleteAllById(incidencias);
+        clienteRepository.delete(cliente);
+        usuarioRepository.deleteAll(tecnicos);
+        usuarioRepository.delete(clienteUser);
+    }
+
+    @Test
+    public void testDespachoReparteYAsignaPorLotes() {
+        assertEquals(INCIDENCIAS, despacho.pendientesEnCola());
+
+        int asignadas = despacho.despachar();
+
+        assertEquals(INCIDENCIAS, asignadas);
+        assertEquals(0, despacho.pendientesEnCola());
+        Map<Long, Integer> porTecnico = asignadasPorTecnico();
+        assertEquals(INCIDENCIAS, porTecnico.values().stream().mapToInt(Integer::intValue).sum());
+
+        // La carga en memoria coincide con las incidencias abiertas de cada técnico en la BD
+        Map<Long, Integer> abiertasEnBd = abiertasPorTecnico();
+        for (Long idTecnico : porTecnico.keySet()) {
+            assertEquals(abiertasEnBd.get(idTecnico), despacho.carga(idTecnico), "Carga del técnico " + idTecnico);
+        }
+
+        // Los técnicos nuevos parten de cero, así que el reparto entre ellos queda parejo
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (Usuario tecnico : tecnicos) {
+            int carga = despacho.carga(tecnico.getIdUsuario());
+            min = Math.min(min, carga);
+            max = Math.max(max, carga);
+        }
+        assertTrue(max - min <= 1, "Reparto desigual: min=" + min + " max=" + max);
+    }
+
+    @Test
+    public void testTecnicoDegradadoSeRetiraYSusIncidenciasSeReintentan() {
+        Usuario degradado = tecnicos.get(0);
+        degradado.setRol(Rol.CLIENTE);
+        usuarioRepository.save(degradado);
+
+        // Sin reconciliar el despacho aún lo elige: esas asignaciones fallan y vuelven a la cola
+        int asignadas = despacho.despachar();
+        assertFalse(despacho.esDisponible(degradado.getIdUsuario()));
+        assertTrue(despacho.pendientesEnCola() > 0, "Las incidencias rechazadas deben reencolarse");
+
+        asignadas += despacho.despachar();
+        assertEquals(INCIDENCIAS, asignadas);
+        assertEquals(0, despacho.pendientesEnCola());
+        Map<Long, Integer> porTecnico = asignadasPorTecnico();
+        assertEquals(INCIDENCIAS, porTecnico.values().stream().mapToInt(Integer::intValue).sum());
+        assertFalse(porTecnico.containsKey(degradado.getIdUsuario()));
+    }
+
+    @Test
+    public void testReconciliarRetiraTecnicosSinIncidenciasAbiertas() {
+        Usuario nuevo = usuarioRepository.save(DatosPrueba.usuario("despacho-nuevo@example.com", Rol.TECNICO));
+        tecnicos.add(nuevo);
+        despacho.reconciliar();
+        assertTrue(despacho.esDisponible(nuevo.getIdUsuario()));
+        assertEquals(0, despacho.carga(nuevo.getIdUsuario()));
+
+        nuevo.setRol(Rol.GERENTE);
+        usuarioRepository.save(nuevo);
+        despacho.reconciliar();
+        assertFalse(despacho.esDisponible(nuevo.getIdUsuario()), "Debe retirarse aunque no tenga incidencias abiertas");
+
+        despacho.despachar();
+        assertFalse(asignadasPorTecnico().containsKey(nuevo.getIdUsuario()));
+    }
+
+    @Test
+    public void testCambiosDeOtroNodoSeRecogenEnLaSiguientePasada() {
+        despacho.despachar();
+        Usuario tecnico = tecnicos.get(0);
+
+        // Otro nodo cierra una incidencia del técnico y da de alta otra: aquí no hay eventos locales
+        Long cerrada = incidencias.stream()
+            .filter(id -> tecnico.getIdUsuario().equals(incidenciaRepository.findDetalleById(id).orElseThrow()
+                .getTecnico().getIdUsuario()))
+            .findFirst().orElseThrow();
+        jdbcTemplate.update("UPDATE incidencia SET estado = 'CERRADA' WHERE id_incidencia = ?", cerrada);
+        Incidencia remota = new Incidencia();
+        remota.setCliente(cliente);
+        remota.setEstado(Estado.PENDIENTE);
+        remota.setDescripcion("Despacho remota");
+        Long idRemota = incidenciaRepository.save(remota).getIdIncidencia();
+        assertEquals(0, despacho.pendientesEnCola());
+
+        eventPublisher.publishEvent(new IncidenciasCambiadasEnOtroNodoEvent(this, List.of(cerrada, idRemota)));
+        assertEquals(1, despacho.despachar());
+
+        assertNotNull(incidenciaRepository.findDetalleById(idRemota).orElseThrow().getTecnico());
+        incidencias.add(idRemota);
+        incidencias.remove(cerrada);
+        incidenciaRepository.deleteById(cerrada);
+        Map<Long, Integer> abiertasEnBd = abiertasPorTecnico();
+        for (Usuario t : tecnicos) {
+            assertEquals(abiertasEnBd.getOrDefault(t.getIdUsuario(), 0), despacho.carga(t.getIdUsuario()),
+                "Carga del técnico " + t.getIdUsuario());
+        }
+    }
+
+    // Incidencias de la prueba asignadas a cada técnico según la BD
+    private Map<Long, Integer> asignadasPorTecnico() {
+        Map<Long, Integer> porTecnico = new HashMap<>();
+        for (Long id : incidencias) {
+            Incidencia inc = incidenciaRepository.findDetalleById(id).orElseThrow();
+            assertEquals(Estado.ASIGNADA, inc.getEstado(), "Incidencia " + id);
+            assertNotNull(inc.getTecnico(), "Incidencia " + id);
+            porTecnico.merge(inc.getTecnico().getIdUsuario(), 1, Integer::sum);
+        }
+        return porTecnico;
+    }
+
+    private Map<Long, Integer> abiertasPorTecnico() {
+        Map<Long, Integer> abiertas = new HashMap<>();
+        for (Object[] fila : incidenciaRepository.countPorTecnicoEnEstados(EnumSet.of(Estado.ASIGNADA, Estado.EN_PROCESO))) {
+            abiertas.put((Long) fila[0], ((Long) fila[1]).intValue());
+        }
+        return abiertas;
+    }
+}
@@ -0,0 +1,160 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.ImportacionResultado;
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.ImportacionIncidenciasService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Importación masiva desde CSV contra la BD: rendimiento, rechazo de filas
+ * inválidas, reanudación desde el checkpoint y ausencia de notificaciones por fila.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class, properties = {
+    "app.incidencias.despacho.habilitado=false",
+    "app.incidencias.importacion.commit-cada=5000"
+})
+public class ImportacionIncidenciasTest {
+
+    private static final int FILAS = 100_000;
+    private static final String EMPRESA = "Empresa Importación";
+
+    @Autowired
+    private ImportacionIncidenciasService importacionService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Usuario clienteUser;
+    private Cliente cliente;
+    private final String idImportacion = "test-" + System.nanoTime();
+
+    @BeforeEach
+    public void setup() {
+        clienteUser = usuarioRepository.save(DatosPrueba.usuario("import-cli@example.com", Rol.CLIENTE));
+
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, EMPRESA));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM incidencia WHERE id_cliente = ?", cliente.getIdCliente());
+        jdbcTemplate.update("DELETE FROM importacion_checkpoint WHERE id_importacion = ?", idImportacion);
+        clienteRepository.delete(cliente);
+        usuarioRepository.delete(clienteUser);
+    }
+
+    @Test
+    public void testImportacionMasivaConRechazos() throws Exception {
+        StringBuilder csv = new StringBuilder("cliente,descripcion,prioridad,creado_at\n");
+        for (int i = 0; i < FILAS; i++) {
+            // Se alternan referencias por id y por nombre; una de cada mil filas no tiene descripción
+            String ref = i % 2 == 0 ? cliente.getIdCliente().toString() : EMPRESA;
+            String descripcion = i % 1000 == 0 ? "" : "\"Equipo " + i + ", no enciende\"";
+            csv.append(ref).append(',').append(descripcion).append(",ALTA,2024-01-0").append(i % 9 + 1).append('\n');
+        }
+
+        ImportacionResultado resultado = importar(csv.toString());
+
+        assertTrue(resultado.isCompletada());
+        assertEquals(FILAS, resultado.getFilasProcesadas());
+        assertEquals(FILAS / 1000, resultado.getRechazadas());
+        assertEquals(FILAS - FILAS / 1000, resultado.getImportadas());
+        assertEquals("La incidencia debe tener una descripción", resultado.getRechazos().get(0).motivo());
+        assertEquals(resultado.getImportadas(), contarImportadas());
+        verify(notificacionService, never()).notificarIncidencia(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testReanudaDesdeCheckpoint() throws Exception {
+        String csv = "cliente,descripcion\n" + EMPRESA + ",Uno\n" + EMPRESA + ",Dos\n" + EMPRESA + ",Tres\n";
+        // Simula una ejecución interrumpida que ya confirmó las dos primeras filas
+        jdbcTemplate.update("INSERT INTO importacion_checkpoint (id_importacion, filas_procesadas, importadas, " +
+            "rechazadas, completada, actualizado_at) VALUES (?, 2, 2, 0, FALSE, NOW(6))", idImportacion);
+
+        ImportacionResultado resultado = importar(csv);
+        assertEquals(2, resultado.getOmitidas());
+        assertEquals(3, resultado.getImportadas());
+        assertEquals(1, contarImportadas(), "Solo se inserta la fila posterior al checkpoint");
+
+        ImportacionResultado repetida = importar(csv);
+        assertTrue(repetida.isCompletada());
+        assertEquals(1, contarImportadas(), "Una importación completada no se vuelve a aplicar");
+    }
+
+    @Test
+    public void testPeticionesConcurrentesConElMismoIdNoDuplicanFilas() throws Exception {
+        int filas = 20_000;
+        StringBuilder csv = new StringBuilder("cliente,descripcion\n");
+        for (int i = 0; i < filas; i++) {
+            csv.append(EMPRESA).append(",Concurrente ").append(i).append('\n');
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ImportacionResultado>> peticiones = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                peticiones.add(ejecutor.submit(() -> importar(csv.toString())));
+            }
+            int completadas = 0;
+            for (Future<ImportacionResultado> peticion : peticiones) {
+                try {
+                    assertTrue(peticion.get().isCompletada());
+                    completadas++;
+                } catch (ExecutionException e) {
+                    // La perdedora detecta el checkpoint ajeno y se retira sin insertar su tramo
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                }
+            }
+            assertTrue(completadas >= 1);
+        } finally {
+            ejecutor.shutdown();
+        }
+
+        assertEquals(filas, contarImportadas(), "Cada fila se inserta una sola vez");
+        assertEquals(filas, jdbcTemplate.queryForObject(
+            "SELECT importadas FROM importacion_checkpoint WHERE id_importacion = ?", Long.class, idImportacion));
+    }
+
+    private ImportacionResultado importar(String csv) throws Exception {
+        return importacionService.importar(idImportacion, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long contarImportadas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidencia WHERE id_cliente = ?", Long.class,
+            cliente.getIdCliente());
+    }
+}
@@ -0,0 +1,214 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaFiltro;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPagina;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.DiccionarioFallas;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Prioridad;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.DiccionarioFallasRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda multicriterio: cada combinación de filtros devuelve exactamente
+ * las incidencias que la cumplen, en orden de creación y paginadas por keyset.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class,
+    properties = "app.incidencias.despacho.habilitado=false")
+@Transactional
+@Rollback
+public class IncidenciaBusquedaTest {
+
+    private static final int INCIDENCIAS = 24;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private DiccionarioFallasRepository fallasRepository;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Cliente cliente;
+    private Usuario tecnicoA;
+    private Usuario tecnicoB;
+    private DiccionarioFallas fallaA;
+    private DiccionarioFallas fallaB;
+    private final List<Incidencia> incidencias = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        Usuario clienteUser = usuarioRepository.save(DatosPrueba.usuario("busqueda-cli@example.com", Rol.CLIENTE));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Búsqueda"));
+        tecnicoA = usuarioRepository.save(DatosPrueba.usuario("busqueda-tec-a@example.com", Rol.TECNICO));
+        tecnicoB = usuarioRepository.save(DatosPrueba.usuario("busqueda-tec-b@example.com", Rol.TECNICO));
+        fallaA = falla("BUSQ-A");
+        fallaB = falla("BUSQ-B");
+
+        Estado[] estados = {Estado.PENDIENTE, Estado.ASIGNADA, Estado.EN_PROCESO};
+        for (int i = 0; i < INCIDENCIAS; i++) {
+            Incidencia inc = new Incidencia();
+            inc.setCliente(cliente);
+            inc.setEstado(estados[i % estados.length]);
+            inc.setTecnico(inc.getEstado() == Estado.PENDIENTE ? null : (i % 2 == 0 ? tecnicoA : tecnicoB));
+            inc.setFalla(i % 4 < 2 ? fallaA : fallaB);
+            inc.setPrioridad(Prioridad.values()[i % Prioridad.values().length]);
+            inc.setDescripcion("Búsqueda " + i);
+            incidencias.add(incidenciaRepository.save(inc));
+        }
+        entityManager.flush();
+
+        // creado_at lo pone la auditoría; se fija a un día por incidencia para probar los rangos
+        for (int i = 0; i < INCIDENCIAS; i++) {
+            LocalDateTime creado = INICIO.plusDays(i);
+            jdbcTemplate.update("UPDATE incidencia SET creado_at = ? WHERE id_incidencia = ?",
+                Timestamp.valueOf(creado), incidencias.get(i).getIdIncidencia());
+            incidencias.get(i).setCreadoAt(creado);
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    public void testCadaFiltroDevuelveSoloLasQueLoCumplen() {
+        IncidenciaFiltro porEstado = filtro();
+        porEstado.setEstado(Estado.ASIGNADA);
+        assertResultado(porEstado, inc -> inc.getEstado() == Estado.ASIGNADA);
+
+        IncidenciaFiltro porPrioridad = filtro();
+        porPrioridad.setPrioridad(Prioridad.ALTA);
+        assertResultado(porPrioridad, inc -> inc.getPrioridad() == Prioridad.ALTA);
+
+        IncidenciaFiltro porTecnico = filtro();
+        porTecnico.setTecnico(tecnicoB.getIdUsuario());
+        assertResultado(porTecnico, inc -> inc.getTecnico() == tecnicoB);
+
+        IncidenciaFiltro porFalla = filtro();
+        porFalla.setFalla(fallaB.getIdFalla());
+        assertResultado(porFalla, inc -> inc.getFalla() == fallaB);
+
+        IncidenciaFiltro porRango = filtro();
+        porRango.setDesde(INICIO.plusDays(5));
+        porRango.setHasta(INICIO.plusDays(12));
+        assertResultado(porRango, inc -> !inc.getCreadoAt().isBefore(INICIO.plusDays(5))
+            && inc.getCreadoAt().isBefore(INICIO.plusDays(12)));
+    }
+
+    @Test
+    public void testFiltrosCombinados() {
+        IncidenciaFiltro filtro = filtro();
+        filtro.setEstado(Estado.EN_PROCESO);
+        filtro.setTecnico(tecnicoA.getIdUsuario());
+        filtro.setFalla(fallaA.getIdFalla());
+        filtro.setDesde(INICIO.plusDays(1));
+        assertResultado(filtro, inc -> inc.getEstado() == Estado.EN_PROCESO && inc.getTecnico() == tecnicoA
+            && inc.getFalla() == fallaA && !inc.getCreadoAt().isBefore(INICIO.plusDays(1)));
+
+        IncidenciaFiltro vacio = filtro();
+        vacio.setEstado(Estado.CERRADA);
+        assertTrue(incidenciaService.buscar(vacio, null, 50).getItems().isEmpty());
+    }
+
+    @Test
+    public void testPaginaPorCursorSinRepetirNiSaltar() {
+        IncidenciaFiltro filtro = filtro();
+        filtro.setFalla(fallaA.getIdFalla());
+        List<Long> esperadas = esperadas(inc -> inc.getFalla() == fallaA);
+
+        List<Long> recorridas = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            IncidenciaPagina pagina = incidenciaService.buscar(filtro, cursor, 5);
+            assertTrue(pagina.getItems().size() <= 5);
+            pagina.getItems().forEach(r -> recorridas.add(r.getIdIncidencia()));
+            cursor = pagina.getNextCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(esperadas, recorridas);
+        assertEquals((esperadas.size() + 4) / 5, paginas);
+    }
+
+    @Test
+    public void testRangoDeFechasInvalido() {
+        IncidenciaFiltro filtro = filtro();
+        filtro.setDesde(INICIO.plusDays(3));
+        filtro.setHasta(INICIO.plusDays(3));
+        assertThrows(ValidationException.class, () -> incidenciaService.buscar(filtro, null, 10));
+    }
+
+    // Todos los filtros se acotan al cliente de la prueba para no depender de otros datos de la BD
+    private IncidenciaFiltro filtro() {
+        IncidenciaFiltro filtro = new IncidenciaFiltro();
+        filtro.setCliente(cliente.getIdCliente());
+        return filtro;
+    }
+
+    private void assertResultado(IncidenciaFiltro filtro, Predicate<Incidencia> condicion) {
+        List<Long> esperadas = esperadas(condicion);
+        assertFalse(esperadas.isEmpty(), "El filtro de la prueba debe coincidir con alguna incidencia");
+        List<Long> obtenidas = incidenciaService.buscar(filtro, null, INCIDENCIAS).getItems().stream()
+            .map(IncidenciaResumen::getIdIncidencia)
+            .toList();
+        assertEquals(esperadas, obtenidas, "Filtro: " + filtro);
+    }
+
+    // Mismo orden que el listado: creado_at y luego id, de más reciente a más antigua
+    private List<Long> esperadas(Predicate<Incidencia> condicion) {
+        return incidencias.stream()
+            .filter(condicion)
+            .sorted(Comparator.comparing(Incidencia::getCreadoAt).thenComparing(Incidencia::getIdIncidencia).reversed())
+            .map(Incidencia::getIdIncidencia)
+            .toList();
+    }
+
+    private DiccionarioFallas falla(String codigo) {
+        DiccionarioFallas falla = new DiccionarioFallas();
+        falla.setCodigoFalla(codigo);
+        return fallasRepository.save(falla);
+    }
+}
@@ -0,0 +1,169 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaOperationResult;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de estrés de las actualizaciones condicionales: varios técnicos compiten
+ * por las mismas incidencias y solo una asignación por incidencia puede ganar.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class,
+    properties = "app.incidencias.despacho.habilitado=false")
+public class IncidenciaConcurrenciaTest {
+
+    private static final int INCIDENCIAS = 50;
+    private static final int TECNICOS = 8;
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private final List<Usuario> tecnicos = new ArrayList<>();
+    private final List<Long> incidencias = new ArrayList<>();
+    private Usuario clienteUser;
+    private Cliente cliente;
+
+    @BeforeEach
+    public void setup() {
+        clienteUser = usuarioRepository.save(DatosPrueba.usuario("stress-cli@example.com", Rol.CLIENTE));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Stress"));
+
+        for (int i = 0; i < TECNICOS; i++) {
+            tecnicos.add(usuarioRepository.save(DatosPrueba.usuario("stress-tec" + i + "@example.com", Rol.TECNICO)));
+        }
+        for (int i = 0; i < INCIDENCIAS; i++) {
+            Incidencia inc = new Incidencia();
+            inc.setCliente(cliente);
+            inc.setDescripcion("Stress " + i);
+            incidencias.add(incidenciaService.crearIncidencia(inc).getIdIncidencia());
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        incidenciaRepository.deleteAllById(incidencias);
+        clienteRepository.delete(cliente);
+        usuarioRepository.deleteAll(tecnicos);
+        usuarioRepository.delete(clienteUser);
+    }
+
+    @Test
+    public void testAsignacionConcurrenteSinActualizacionesPerdidas() throws Exception {
+        Map<Long, Long> ganadores = new ConcurrentHashMap<>();
+        Map<Long, List<String>> rechazos = new ConcurrentHashMap<>();
+        AtomicInteger exitos = new AtomicInteger();
+
+        ejecutarEnParalelo(TECNICOS, t -> {
+            Usuario tecnico = tecnicos.get(t);
+            for (Long id : incidencias) {
+                IncidenciaOperationResult result = incidenciaService.asignarTecnico(id, tecnico);
+                if (result.isSuccess()) {
+                    exitos.incrementAndGet();
+                    assertNull(ganadores.put(id, tecnico.getIdUsuario()), "Dos asignaciones ganaron para la incidencia " + id);
+                } else {
+                    assertTrue(result.isBusinessError(), result.toString());
+                    rechazos.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(result.getMessage());
+                }
+            }
+        });
+
+        assertEquals(INCIDENCIAS, exitos.get());
+        for (Long id : incidencias) {
+            Incidencia inc = incidenciaRepository.findDetalleById(id).orElseThrow();
+            assertEquals(Estado.ASIGNADA, inc.getEstado());
+            assertEquals(ganadores.get(id), inc.getTecnico().getIdUsuario(), "La asignación ganadora se perdió en " + id);
+            // Quien pierde la carrera ve la asignación ganadora, nunca un conflicto sin resolver
+            assertEquals(Collections.nCopies(TECNICOS - 1, "La incidencia ya tiene un técnico asignado: " + inc.getTecnico().getNombre()),
+                rechazos.get(id));
+        }
+    }
+
+    @Test
+    public void testTransicionConcurrenteUnaSolaGana() throws Exception {
+        for (Long id : incidencias) {
+            assertTrue(incidenciaService.asignarTecnico(id, tecnicos.get(0)).isSuccess());
+        }
+
+        AtomicInteger exitos = new AtomicInteger();
+        List<String> rechazos = new CopyOnWriteArrayList<>();
+        ejecutarEnParalelo(TECNICOS, t -> {
+            for (Long id : incidencias) {
+                IncidenciaOperationResult result = incidenciaService.cambiarEstado(id, Estado.EN_PROCESO);
+                if (result.isSuccess()) {
+                    exitos.incrementAndGet();
+                } else {
+                    assertTrue(result.isBusinessError(), result.toString());
+                    rechazos.add(result.getMessage());
+                }
+            }
+        });
+
+        assertEquals(INCIDENCIAS, exitos.get(), "Cada transición ASIGNADA -> EN_PROCESO debe aplicarse una sola vez");
+        assertEquals(Collections.nCopies(INCIDENCIAS * (TECNICOS - 1), "Transición de estado inválida: EN_PROCESO -> EN_PROCESO"),
+            rechazos);
+    }
+
+    private interface Tarea {
+        void ejecutar(int hilo) throws Exception;
+    }
+
+    private void ejecutarEnParalelo(int hilos, Tarea tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < hilos; t++) {
+            int hilo = t;
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                tarea.ejecutar(hilo);
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaContadores;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService.IncidenciaStatistics;
+import com.mycompany.vcsystems.modelo.service.VersionColecciones;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reconciliación de los contadores por estado contra el GROUP BY de la BD
+ * sin pisar los eventos que llegan mientras se ejecuta la consulta.
+ */
+public class IncidenciaContadoresTest {
+
+    private IncidenciaRepository incidenciaRepository;
+    private VersionColecciones versionColecciones;
+    private IncidenciaContadores contadores;
+
+    @BeforeEach
+    public void setup() {
+        incidenciaRepository = mock(IncidenciaRepository.class);
+        versionColecciones = mock(VersionColecciones.class);
+        contadores = new IncidenciaContadores();
+        ReflectionTestUtils.setField(contadores, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(contadores, "versionColecciones", versionColecciones);
+    }
+
+    @Test
+    public void testReconciliaContraLaBd() {
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 5L, Estado.CERRADA, 2L));
+        contadores.reconciliar();
+
+        IncidenciaStatistics stats = contadores.snapshot();
+        assertEquals(5, stats.getPendientes());
+        assertEquals(2, stats.getCerradas());
+        assertEquals(7, stats.getTotal());
+        verify(versionColecciones).incrementar(VersionColecciones.Coleccion.INCIDENCIAS);
+
+        // Sin desviación no se invalida la caché de los clientes
+        contadores.reconciliar();
+        verify(versionColecciones, times(1)).incrementar(VersionColecciones.Coleccion.INCIDENCIAS);
+    }
+
+    @Test
+    public void testEventosAplicadosTrasLaReconciliacion() {
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 3L));
+        contadores.reconciliar();
+
+        contadores.onIncidenciaCreated(new IncidenciaCreatedEvent(this, incidencia(Estado.PENDIENTE)));
+        contadores.onStatusChanged(new IncidenciaStatusChangedEvent(this, incidencia(Estado.CERRADA),
+            Estado.PENDIENTE, Estado.CERRADA));
+
+        IncidenciaStatistics stats = contadores.snapshot();
+        assertEquals(3, stats.getPendientes());
+        assertEquals(1, stats.getCerradas());
+    }
+
+    @Test
+    public void testNoPisaCambiosConcurrentesConLaConsulta() {
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 10L, Estado.ASIGNADA, 4L));
+        contadores.reconciliar();
+
+        // Mientras corre el GROUP BY se confirma una alta que la consulta no llegó a ver
+        when(incidenciaRepository.countGroupByEstado()).thenAnswer(invocacion -> {
+            contadores.onIncidenciaCreated(new IncidenciaCreatedEvent(this, incidencia(Estado.PENDIENTE)));
+            return filas(Estado.PENDIENTE, 10L, Estado.ASIGNADA, 6L);
+        });
+        contadores.reconciliar();
+
+        IncidenciaStatistics stats = contadores.snapshot();
+        assertEquals(11, stats.getPendientes(), "El alta concurrente no debe perderse");
+        assertEquals(6, stats.getAsignadas(), "Los estados sin cambios concurrentes sí se corrigen");
+
+        // En la pasada siguiente la BD ya la incluye y no hay nada que corregir
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 11L, Estado.ASIGNADA, 6L));
+        contadores.reconciliar();
+        assertEquals(11, contadores.snapshot().getPendientes());
+    }
+
+    @Test
+    public void testCambiosDeOtroNodoSeCorrigenConUnaReconciliacion() {
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 3L));
+        contadores.reconciliar();
+
+        // Sin cambios remotos la pasada corta no consulta la BD
+        contadores.reconciliarCambiosRemotos();
+        verify(incidenciaRepository, times(1)).countGroupByEstado();
+
+        // Otro nodo asignó una incidencia: el evento no trae el estado anterior
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 2L, Estado.ASIGNADA, 1L));
+        contadores.onCambiadasEnOtroNodo(new IncidenciasCambiadasEnOtroNodoEvent(this, List.of(1L)));
+        contadores.reconciliarCambiosRemotos();
+        contadores.reconciliarCambiosRemotos();
+
+        verify(incidenciaRepository, times(2)).countGroupByEstado();
+        assertEquals(2, contadores.snapshot().getPendientes());
+        assertEquals(1, contadores.snapshot().getAsignadas());
+    }
+
+    @Test
+    public void testImportadasSumanPendientesSinReleerLaTabla() {
+        when(incidenciaRepository.countGroupByEstado()).thenReturn(filas(Estado.PENDIENTE, 3L));
+        contadores.reconciliar();
+
+        contadores.onImportadas(new IncidenciasImportadasEvent(this, "imp-1", List.of(10L, 11L, 12L), List.of()));
+
+        assertEquals(6, contadores.snapshot().getPendientes());
+        verify(incidenciaRepository, times(1)).countGroupByEstado();
+    }
+
+    private static Incidencia incidencia(Estado estado) {
+        Incidencia incidencia = new Incidencia();
+        incidencia.setEstado(estado);
+        return incidencia;
+    }
+
+    private static List<Object[]> filas(Object... estadoYTotal) {
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < estadoYTotal.length; i += 2) {
+            filas.add(new Object[]{estadoYTotal[i], estadoYTotal[i + 1]});
+        }
+        return filas;
+    }
+}
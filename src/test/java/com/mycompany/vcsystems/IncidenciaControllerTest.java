@@ -13,6 +13,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.vcsystems.modelo.entidades.Incidencia;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPagina;
 import org.mockito.Mockito;
 import java.util.Collections;
 
@@ -39,7 +40,8 @@ public class IncidenciaControllerTest {
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void testGetAllIncidencias() throws Exception {
         // Mock del servicio para devolver una lista vacía
-        Mockito.when(incidenciaService.listAll()).thenReturn(Collections.emptyList());
+        Mockito.when(incidenciaService.listarPagina(null, null))
+               .thenReturn(new IncidenciaPagina(Collections.emptyList(), null));
 
         mockMvc.perform(get("/api/incidencias")
                .accept(MediaType.APPLICATION_JSON))
@@ -72,4 +74,16 @@ public class IncidenciaControllerTest {
 
         result.andExpect(status().isBadRequest());
     }
+
+    @Test
+    @WithMockUser(username = "gerente", roles = {"GERENTE"})
+    public void testBuscarTextoRespetaElEtagDeIncidencias() throws Exception {
+        String etag = mockMvc.perform(get("/api/incidencias/buscar").param("q", "compresor"))
+               .andExpect(status().isOk())
+               .andExpect(header().exists("ETag"))
+               .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/incidencias/buscar").param("q", "compresor").header("If-None-Match", etag))
+               .andExpect(status().isNotModified());
+    }
 }
@@ -0,0 +1,85 @@
+package com.mycompany.vcsystems;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reporte PDF en streaming: las filas se consumen del cursor a medida que se
+ * escriben las páginas, el PDF resultante es válido y el stream de la
+ * respuesta queda abierto para que lo cierre el contenedor.
+ */
+public class IncidenciaExportPdfTest {
+
+    private static final int FILAS = 10_000;
+
+    @Test
+    public void testEscribeElPdfPorPaginasDesdeElCursor() throws Exception {
+        IncidenciaRepository incidenciaRepository = mock(IncidenciaRepository.class);
+        AtomicBoolean cursorCerrado = new AtomicBoolean();
+        AtomicLong leidas = new AtomicLong();
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 9, 30);
+        when(incidenciaRepository.streamResumen()).thenReturn(Stream.iterate(1L, id -> id + 1)
+            .limit(FILAS)
+            .peek(id -> leidas.incrementAndGet())
+            .map(id -> new IncidenciaResumen(id, Incidencia.Estado.PENDIENTE, Incidencia.Prioridad.MEDIA, "Falla " + id, "Empresa " + (id % 50),
+                id % 3 == 0 ? null : "Técnico " + (id % 7), fecha))
+            .onClose(() -> cursorCerrado.set(true)));
+
+        IncidenciaExportService service = new IncidenciaExportService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(service, "flushCada", 500);
+
+        // Bytes escritos en la respuesta cuando se han leído las primeras filas del cursor
+        AtomicLong escritosTrasMilFilas = new AtomicLong(-1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                super.write(b, off, len);
+                if (escritosTrasMilFilas.get() < 0 && leidas.get() >= 1_000) {
+                    escritosTrasMilFilas.set(size());
+                }
+            }
+
+            @Override
+            public void close() {
+                fail("El stream de la respuesta no debe cerrarse");
+            }
+        };
+
+        assertEquals(FILAS, service.exportarPdf(out));
+
+        assertTrue(cursorCerrado.get());
+        assertTrue(escritosTrasMilFilas.get() > 0, "Las páginas deben escribirse antes de terminar el recorrido");
+        assertTrue(escritosTrasMilFilas.get() < out.size() / 2);
+        // Una fila de la tabla ocupa unos cientos de bytes; el documento no debe crecer más allá
+        assertTrue(out.size() < FILAS * 1024L, "PDF demasiado grande: " + out.size() + " bytes");
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            int paginas = pdf.getNumberOfPages();
+            assertTrue(paginas > 50 && paginas < FILAS / 10, "Páginas: " + paginas);
+            assertEquals("Reporte de Incidencias", pdf.getDocumentInfo().getTitle());
+            String ultima = PdfTextExtractor.getTextFromPage(pdf.getPage(paginas));
+            // Encabezado repetido y última fila
+            assertTrue(ultima.contains("Cliente"));
+            assertTrue(ultima.contains(String.valueOf(FILAS)));
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(1)).contains("Sin asignar"));
+        }
+    }
+}
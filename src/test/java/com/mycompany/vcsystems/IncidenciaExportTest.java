@@ -0,0 +1,83 @@
+package com.mycompany.vcsystems;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.mycompany.vcsystems.modelo.dto.IncidenciaResumen;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Exportación en streaming: cada línea NDJSON es un documento JSON completo
+ * y el formato JSON produce un único array.
+ */
+public class IncidenciaExportTest {
+
+    private static final int FILAS = 1_200;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    private IncidenciaExportService service;
+
+    @BeforeEach
+    public void setup() {
+        IncidenciaRepository incidenciaRepository = mock(IncidenciaRepository.class);
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 9, 30);
+        when(incidenciaRepository.streamResumen()).thenAnswer(invocacion -> Stream.iterate(1L, id -> id + 1)
+            .limit(FILAS)
+            .map(id -> new IncidenciaResumen(id, Incidencia.Estado.PENDIENTE, Incidencia.Prioridad.MEDIA, "Falla \"" + id + "\"\nsegunda línea",
+                "Empresa " + id, null, fecha)));
+
+        service = new IncidenciaExportService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "flushCada", 500);
+    }
+
+    @Test
+    public void testNdjsonUnDocumentoPorLinea() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(FILAS, service.exportar(out, IncidenciaExportService.Formato.NDJSON));
+
+        String texto = out.toString(StandardCharsets.UTF_8);
+        assertTrue(texto.endsWith("\n"));
+        String[] lineas = texto.split("\n", -1);
+        // La última "línea" es la cadena vacía tras el salto final
+        assertEquals(FILAS + 1, lineas.length);
+        assertEquals("", lineas[FILAS]);
+        for (int i = 0; i < FILAS; i++) {
+            assertTrue(lineas[i].startsWith("{"), "La línea " + (i + 1) + " no empieza con '{'");
+            JsonNode nodo = objectMapper.readTree(lineas[i]);
+            assertEquals(i + 1L, nodo.get("idIncidencia").asLong());
+            assertEquals("Falla \"" + (i + 1) + "\"\nsegunda línea", nodo.get("descripcion").asText());
+            assertEquals("2024-05-01T09:30:00", nodo.get("creadoAt").asText());
+        }
+    }
+
+    @Test
+    public void testJsonUnArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(FILAS, service.exportar(out, IncidenciaExportService.Formato.JSON));
+
+        JsonNode array = objectMapper.readTree(out.toByteArray());
+        assertTrue(array.isArray());
+        assertEquals(FILAS, array.size());
+        assertEquals(FILAS, array.get(FILAS - 1).get("idIncidencia").asLong());
+    }
+}
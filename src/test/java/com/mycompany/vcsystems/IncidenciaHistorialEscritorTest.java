@@ -0,0 +1,77 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaHistorial;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.service.IncidenciaHistorialService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Escritor del historial sin base de datos: con la cola llena los productores
+ * esperan en vez de escribir, todo lo escribe un único hilo en orden de llegada
+ * y el cierre vacía la cola antes de volver.
+ */
+public class IncidenciaHistorialEscritorTest {
+
+    private final List<Long> escritos = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> hilos = Collections.synchronizedSet(new HashSet<>());
+    private IncidenciaHistorialService historial;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocacion -> {
+                // Un escritor lento para que la cola se llene
+                Thread.sleep(20);
+                hilos.add(Thread.currentThread().getName());
+                for (Object registro : (Collection<Object>) invocacion.getArgument(1)) {
+                    escritos.add(((IncidenciaHistorial) registro).getIdIncidencia());
+                }
+                return new int[0][0];
+            });
+
+        historial = new IncidenciaHistorialService();
+        ReflectionTestUtils.setField(historial, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(historial, "capacidad", 5);
+        ReflectionTestUtils.setField(historial, "tamanoLote", 3);
+        ReflectionTestUtils.setField(historial, "esperaCierreMs", 10_000L);
+        historial.iniciar();
+    }
+
+    @Test
+    public void testColaLlenaEsperaYConservaElOrden() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 200).boxed().toList();
+        historial.onImportadas(new IncidenciasImportadasEvent(this, "escritor", ids, List.of()));
+        historial.detener();
+
+        assertEquals(ids, escritos, "Todos los registros, en el orden en que se encolaron");
+        assertEquals(Set.of("historial-incidencias"), hilos, "Solo escribe el hilo escritor");
+        assertEquals(0, historial.pendientes());
+    }
+
+    @Test
+    public void testDetenerVaciaLaColaSinInterrumpirAlEscritor() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 5).boxed().toList();
+        historial.onImportadas(new IncidenciasImportadasEvent(this, "cierre", ids, List.of()));
+        historial.detener();
+
+        assertEquals(ids, escritos);
+    }
+}
@@ -0,0 +1,114 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaHistorial;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaHistorialService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El historial se escribe en segundo plano tras confirmar cada transición
+ * y se lee en orden cronológico por páginas.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class,
+    properties = "app.incidencias.despacho.habilitado=false")
+public class IncidenciaHistorialTest {
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private IncidenciaHistorialService historialService;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Usuario clienteUser;
+    private Usuario tecnico;
+    private Cliente cliente;
+    private Long idIncidencia;
+
+    @BeforeEach
+    public void setup() {
+        clienteUser = usuarioRepository.save(DatosPrueba.usuario("hist-cli@example.com", Rol.CLIENTE));
+        tecnico = usuarioRepository.save(DatosPrueba.usuario("hist-tec@example.com", Rol.TECNICO));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Historial"));
+
+        Incidencia inc = new Incidencia();
+        inc.setCliente(cliente);
+        inc.setDescripcion("Incidencia con historial");
+        idIncidencia = incidenciaService.crearIncidencia(inc).getIdIncidencia();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM incidencia_historial WHERE id_incidencia = ?", idIncidencia);
+        incidenciaRepository.deleteById(idIncidencia);
+        clienteRepository.delete(cliente);
+        usuarioRepository.delete(tecnico);
+        usuarioRepository.delete(clienteUser);
+    }
+
+    @Test
+    public void testRegistraCadaTransicionEnOrden() throws Exception {
+        assertTrue(incidenciaService.asignarTecnico(idIncidencia, tecnico).isSuccess());
+        assertTrue(incidenciaService.cambiarEstado(idIncidencia, Estado.EN_PROCESO).isSuccess());
+        assertTrue(incidenciaService.cambiarEstado(idIncidencia, Estado.RESUELTA).isSuccess());
+
+        List<IncidenciaHistorial> todo = esperarRegistros(4);
+        assertNull(todo.get(0).getEstadoAnterior());
+        assertEquals(Estado.PENDIENTE, todo.get(0).getEstadoNuevo());
+        assertEquals(Estado.PENDIENTE, todo.get(1).getEstadoAnterior());
+        assertEquals(Estado.ASIGNADA, todo.get(1).getEstadoNuevo());
+        assertEquals(tecnico.getIdUsuario(), todo.get(1).getIdTecnico());
+        assertEquals(Estado.RESUELTA, todo.get(3).getEstadoNuevo());
+        assertEquals(IncidenciaHistorialService.ACTOR_SISTEMA, todo.get(3).getActor());
+
+        IncidenciaHistorialService.PaginaHistorial primera = historialService.pagina(idIncidencia, null, 3);
+        assertEquals(3, primera.items().size());
+        assertNotNull(primera.siguiente());
+        IncidenciaHistorialService.PaginaHistorial segunda = historialService.pagina(idIncidencia, primera.siguiente(), 3);
+        assertEquals(1, segunda.items().size());
+        assertNull(segunda.siguiente());
+    }
+
+    private List<IncidenciaHistorial> esperarRegistros(int esperados) throws InterruptedException {
+        List<IncidenciaHistorial> items = List.of();
+        for (int i = 0; i < 50 && items.size() < esperados; i++) {
+            Thread.sleep(100);
+            items = historialService.pagina(idIncidencia, null, 10).items();
+        }
+        assertEquals(esperados, items.size());
+        return items;
+    }
+}
@@ -0,0 +1,189 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.OperacionMasiva;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasiva.Tipo;
+import com.mycompany.vcsystems.modelo.dto.OperacionMasivaResultado;
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.events.IncidenciaBulkUpdatedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Operaciones masivas: cada operación se valida con las reglas de las
+ * individuales, el resultado conserva la posición de la petición y los
+ * cambios aplicados se publican en un único evento.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class, properties = {
+    "app.incidencias.despacho.habilitado=false",
+    "app.incidencias.bulk.max-operaciones=10"
+})
+@Transactional
+@Rollback
+@RecordApplicationEvents
+public class IncidenciaMasivaTest {
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private ApplicationEvents eventos;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Cliente cliente;
+    private Usuario tecnico;
+    private Usuario otroTecnico;
+    private Usuario noTecnico;
+
+    @BeforeEach
+    public void setup() {
+        Usuario clienteUser = usuarioRepository.save(DatosPrueba.usuario("masiva-cli@example.com", Rol.CLIENTE));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Masiva"));
+        tecnico = usuarioRepository.save(DatosPrueba.usuario("masiva-tec@example.com", Rol.TECNICO));
+        otroTecnico = usuarioRepository.save(DatosPrueba.usuario("masiva-tec2@example.com", Rol.TECNICO));
+        noTecnico = usuarioRepository.save(DatosPrueba.usuario("masiva-ger@example.com", Rol.GERENTE));
+    }
+
+    @Test
+    public void testAplicaLasValidasYRechazaLasDemasEnSuPosicion() {
+        Long libre = incidencia(Estado.PENDIENTE, null);
+        Long asignada = incidencia(Estado.ASIGNADA, otroTecnico);
+        Long pendiente = incidencia(Estado.PENDIENTE, null);
+        Long otraLibre = incidencia(Estado.PENDIENTE, null);
+        entityManager.flush();
+        eventos.clear();
+
+        List<OperacionMasivaResultado> resultados = incidenciaService.aplicarMasivo(List.of(
+            new OperacionMasiva(Tipo.ASIGNAR_TECNICO, libre, tecnico.getIdUsuario(), null),
+            // Parte del resultado de la operación anterior sobre la misma incidencia
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, libre, null, Estado.EN_PROCESO),
+            new OperacionMasiva(Tipo.ASIGNAR_TECNICO, asignada, tecnico.getIdUsuario(), null),
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, pendiente, null, Estado.RESUELTA),
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, pendiente, null, Estado.EN_PROCESO),
+            new OperacionMasiva(Tipo.ASIGNAR_TECNICO, otraLibre, noTecnico.getIdUsuario(), null),
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, Long.MAX_VALUE, null, Estado.CERRADA),
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, pendiente, null, Estado.CERRADA)));
+
+        assertEquals(8, resultados.size());
+        assertExito(resultados.get(0), libre);
+        assertExito(resultados.get(1), libre);
+        assertRechazo(resultados.get(2), asignada, "La incidencia ya tiene un técnico asignado: " + otroTecnico.getNombre());
+        assertRechazo(resultados.get(3), pendiente, "Transición de estado inválida: PENDIENTE -> RESUELTA");
+        assertRechazo(resultados.get(4), pendiente, "Transición de estado inválida: PENDIENTE -> EN_PROCESO");
+        assertRechazo(resultados.get(5), otraLibre, "El usuario asignado debe tener rol de técnico");
+        assertRechazo(resultados.get(6), Long.MAX_VALUE, "No se encontró la incidencia con ID: " + Long.MAX_VALUE);
+        assertExito(resultados.get(7), pendiente);
+
+        assertFila(libre, Estado.EN_PROCESO, tecnico.getIdUsuario());
+        assertFila(asignada, Estado.ASIGNADA, otroTecnico.getIdUsuario());
+        assertFila(pendiente, Estado.CERRADA, null);
+        assertFila(otraLibre, Estado.PENDIENTE, null);
+
+        // Un solo evento con los tres cambios confirmados, ninguno individual
+        List<IncidenciaBulkUpdatedEvent> masivos = eventos.stream(IncidenciaBulkUpdatedEvent.class).toList();
+        assertEquals(1, masivos.size());
+        List<IncidenciaBulkUpdatedEvent.Cambio> cambios = masivos.get(0).getCambios();
+        assertEquals(3, cambios.size());
+        assertEquals(Estado.PENDIENTE, cambios.get(0).estadoAnterior());
+        assertEquals(Estado.ASIGNADA, cambios.get(0).estadoNuevo());
+        assertEquals(Estado.ASIGNADA, cambios.get(1).estadoAnterior());
+        assertEquals(Estado.EN_PROCESO, cambios.get(1).estadoNuevo());
+        assertEquals(Map.of(tecnico.getCorreo(), List.of(libre)), masivos.get(0).asignacionesPorTecnico());
+        assertEquals(0, eventos.stream(IncidenciaTecnicoAssignedEvent.class).count());
+        assertEquals(0, eventos.stream(IncidenciaStatusChangedEvent.class).count());
+    }
+
+    @Test
+    public void testNoPisaUnaAsignacionHechaFueraDelServicio() {
+        Long id = incidencia(Estado.PENDIENTE, null);
+        entityManager.flush();
+        // Otro gerente la asigna sin pasar por el servicio; el lote parte de lo que lee y no debe pisarla
+        jdbcTemplate.update("UPDATE incidencia SET estado = 'ASIGNADA', id_tecnico = ? WHERE id_incidencia = ?",
+            otroTecnico.getIdUsuario(), id);
+
+        List<OperacionMasivaResultado> resultados = incidenciaService.aplicarMasivo(List.of(
+            new OperacionMasiva(Tipo.ASIGNAR_TECNICO, id, tecnico.getIdUsuario(), null)));
+
+        assertRechazo(resultados.get(0), id, "La incidencia ya tiene un técnico asignado: " + otroTecnico.getNombre());
+        assertFila(id, Estado.ASIGNADA, otroTecnico.getIdUsuario());
+        assertEquals(0, eventos.stream(IncidenciaBulkUpdatedEvent.class).count());
+    }
+
+    @Test
+    public void testLimiteDeOperaciones() {
+        assertThrows(ValidationException.class, () -> incidenciaService.aplicarMasivo(Collections.emptyList()));
+        List<OperacionMasiva> demasiadas = Collections.nCopies(11,
+            new OperacionMasiva(Tipo.CAMBIAR_ESTADO, 1L, null, Estado.CERRADA));
+        assertThrows(ValidationException.class, () -> incidenciaService.aplicarMasivo(demasiadas));
+    }
+
+    private Long incidencia(Estado estado, Usuario asignado) {
+        Incidencia inc = new Incidencia();
+        inc.setCliente(cliente);
+        inc.setTecnico(asignado);
+        inc.setEstado(estado);
+        inc.setDescripcion("Masiva " + estado);
+        return incidenciaRepository.save(inc).getIdIncidencia();
+    }
+
+    private void assertExito(OperacionMasivaResultado resultado, Long id) {
+        assertEquals(id, resultado.getIdIncidencia());
+        assertTrue(resultado.isSuccess(), resultado.getMessage());
+    }
+
+    private void assertRechazo(OperacionMasivaResultado resultado, Long id, String mensaje) {
+        assertEquals(id, resultado.getIdIncidencia());
+        assertFalse(resultado.isSuccess());
+        assertEquals(mensaje, resultado.getMessage());
+    }
+
+    private void assertFila(Long id, Estado estado, Long idTecnico) {
+        Map<String, Object> fila = jdbcTemplate.queryForMap(
+            "SELECT estado, id_tecnico FROM incidencia WHERE id_incidencia = ?", id);
+        assertEquals(estado.name(), fila.get("estado"));
+        assertEquals(idTecnico, fila.get("id_tecnico") == null ? null : ((Number) fila.get("id_tecnico")).longValue());
+    }
+}
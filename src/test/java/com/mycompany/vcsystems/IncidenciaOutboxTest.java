@@ -0,0 +1,193 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.IncidenciaOutbox;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaOutboxService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Los eventos se guardan en el outbox con la transacción del cambio y el
+ * relay los entrega a los listeners de notificación, que envían en el
+ * ejecutor de notificaciones; el relay espera cada envío antes de marcarlo.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class, properties = {
+    "app.incidencias.despacho.habilitado=false",
+    "app.incidencias.outbox.intervalo-ms=3600000",
+    "app.incidencias.outbox.max-intentos=2"
+})
+public class IncidenciaOutboxTest {
+
+    @Autowired
+    private IncidenciaService incidenciaService;
+
+    @Autowired
+    private IncidenciaOutboxService outboxService;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Usuario clienteUser;
+    private Cliente cliente;
+    private final List<Long> creadas = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        clienteUser = usuarioRepository.save(DatosPrueba.usuario("outbox-cli@example.com", Rol.CLIENTE));
+        cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa Outbox"));
+        // Se parte de un outbox vacío para que el relay solo vea los eventos de la prueba
+        outboxService.relay();
+        reset(notificacionService);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        for (Long id : creadas) {
+            jdbcTemplate.update("DELETE FROM incidencia_outbox WHERE id_incidencia = ?", id);
+            jdbcTemplate.update("DELETE FROM incidencia_historial WHERE id_incidencia = ?", id);
+            incidenciaRepository.deleteById(id);
+        }
+        clienteRepository.delete(cliente);
+        usuarioRepository.delete(clienteUser);
+    }
+
+    @Test
+    public void testRelayEntregaYMarcaProcesado() {
+        Long id = crear("Incidencia por outbox");
+
+        assertEquals(1, pendientesDe(id));
+        verify(notificacionService, never()).notificarIncidencia(anyString(), anyString(), anyString());
+
+        assertTrue(incidenciaService.cambiarEstado(id, Incidencia.Estado.CERRADA).isSuccess());
+        assertEquals(2, outboxService.relay());
+
+        assertEquals(0, pendientesDe(id));
+        verify(notificacionService, timeout(5000)).notificarIncidencia(eq("admin@vcsystems.com"), anyString(), contains("#" + id));
+        verify(notificacionService, timeout(5000)).notificarIncidencia(eq("outbox-cli@example.com"), anyString(), contains("CERRADA"));
+        assertEquals(0, outboxService.relay());
+    }
+
+    @Test
+    public void testRollbackNoDejaEvento() {
+        Long antes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidencia_outbox", Long.class);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            crear("Incidencia revertida");
+            status.setRollbackOnly();
+        });
+        creadas.clear();
+
+        assertEquals(antes, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidencia_outbox", Long.class));
+        assertEquals(0, outboxService.relay());
+        verify(notificacionService, never()).notificarIncidencia(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testEnvioFallidoSumaIntentoYSeReintenta() {
+        doThrow(new MailSendException("SMTP caído"))
+            .when(notificacionService).notificarIncidencia(anyString(), anyString(), anyString());
+        Long id = crear("Incidencia con SMTP caído");
+
+        // El relay espera el envío: si falla, la fila no se marca como procesada
+        assertEquals(0, outboxService.relay());
+        assertEquals(1, pendientesDe(id));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT intentos FROM incidencia_outbox WHERE id_incidencia = ?", Integer.class, id));
+
+        reset(notificacionService);
+        assertEquals(1, outboxService.relay());
+        assertEquals(0, pendientesDe(id));
+        verify(notificacionService).notificarIncidencia(eq("admin@vcsystems.com"), anyString(), contains("#" + id));
+    }
+
+    @Test
+    public void testEnvioAgotadoQuedaFallidoHastaReencolarlo() {
+        doThrow(new MailSendException("SMTP caído"))
+            .when(notificacionService).notificarIncidencia(anyString(), anyString(), anyString());
+        Long id = crear("Incidencia con SMTP caído en todos los intentos");
+
+        // Con max-intentos=2 el segundo fallo la saca del relay y la deja a la vista como fallida
+        assertEquals(0, outboxService.relay());
+        assertEquals(0, outboxService.relay());
+        assertEquals(0, outboxService.relay());
+        IncidenciaOutbox fallido = outboxService.listarAgotados(500).stream()
+            .filter(e -> id.equals(e.getIdIncidencia()))
+            .findFirst().orElseThrow();
+        assertEquals(2, fallido.getIntentos());
+        assertNotNull(fallido.getFallidoAt());
+        assertNotNull(fallido.getUltimoError());
+        assertTrue(outboxService.metricas().agotados() >= 1);
+
+        reset(notificacionService);
+        assertEquals(1, outboxService.reencolarAgotados(List.of(fallido.getIdOutbox())));
+        assertEquals(1, outboxService.relay());
+        assertEquals(0, pendientesDe(id));
+        verify(notificacionService, timeout(5000)).notificarIncidencia(eq("admin@vcsystems.com"), anyString(), contains("#" + id));
+    }
+
+    @Test
+    public void testNoRetieneBloqueosMientrasEnvia() {
+        Long id = crear("Incidencia sin bloqueos durante el envío");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        doAnswer(invocacion -> tx.execute(status -> jdbcTemplate.queryForObject(
+            "SELECT id_outbox FROM incidencia_outbox WHERE id_incidencia = ? FOR UPDATE NOWAIT", Long.class, id)))
+            .when(notificacionService).notificarIncidencia(anyString(), anyString(), anyString());
+
+        // Con la fila bloqueada durante el envío, el NOWAIT fallaría y el evento quedaría pendiente
+        assertEquals(1, outboxService.relay());
+        assertEquals(0, pendientesDe(id));
+    }
+
+    private Long crear(String descripcion) {
+        Incidencia inc = new Incidencia();
+        inc.setCliente(cliente);
+        inc.setDescripcion(descripcion);
+        Long id = incidenciaService.crearIncidencia(inc).getIdIncidencia();
+        creadas.add(id);
+        return id;
+    }
+
+    private long pendientesDe(Long id) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM incidencia_outbox WHERE id_incidencia = ? AND procesado_at IS NULL", Long.class, id);
+    }
+}
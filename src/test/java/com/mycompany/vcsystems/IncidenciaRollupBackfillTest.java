@@ -0,0 +1,138 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.events.IncidenciaCreatedEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRollupRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaRollupService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaRollupService.EstadoBackfill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Backfill del rollup diario: se carga en una tabla de preparación que solo
+ * reemplaza a la actual si termina, corre en segundo plano y retiene los
+ * volcados periódicos mientras dura.
+ */
+public class IncidenciaRollupBackfillTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private IncidenciaRepository incidenciaRepository;
+    private IncidenciaRollupRepository rollupRepository;
+    private IncidenciaRollupService service;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        incidenciaRepository = mock(IncidenciaRepository.class);
+        rollupRepository = mock(IncidenciaRollupRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocacion ->
+            invocacion.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+
+        service = new IncidenciaRollupService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(service, "rollupRepository", rollupRepository);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "backfillChunk", 100);
+        service.iniciar();
+    }
+
+    @AfterEach
+    public void cerrar() {
+        service.cerrar();
+    }
+
+    @Test
+    public void testCargaPorTramosEIntercambiaLaTabla() throws Exception {
+        when(incidenciaRepository.findMaxId()).thenReturn(250L);
+
+        assertTrue(service.iniciarBackfill());
+        EstadoBackfill estado = esperarFin();
+
+        assertNull(estado.error());
+        assertEquals(250L, estado.hastaId());
+        InOrder orden = inOrder(jdbcTemplate, rollupRepository);
+        orden.verify(jdbcTemplate).execute("CREATE TABLE incidencia_rollup_diaria_nueva LIKE incidencia_rollup_diaria");
+        orden.verify(rollupRepository).backfillCreadas(0, 100);
+        orden.verify(rollupRepository).backfillCreadas(100, 200);
+        orden.verify(rollupRepository).backfillCreadas(200, 250);
+        orden.verify(jdbcTemplate).execute(startsWith("RENAME TABLE incidencia_rollup_diaria TO incidencia_rollup_diaria_vieja"));
+        orden.verify(jdbcTemplate).execute("DROP TABLE incidencia_rollup_diaria_vieja");
+        verify(rollupRepository, times(3)).backfillEstadoActual(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testFalloConservaLaTablaActual() throws Exception {
+        when(incidenciaRepository.findMaxId()).thenReturn(250L);
+        when(rollupRepository.backfillCreadas(100, 200)).thenThrow(new IllegalStateException("Lock wait timeout"));
+
+        assertTrue(service.iniciarBackfill());
+        EstadoBackfill estado = esperarFin();
+
+        assertEquals("Lock wait timeout", estado.error());
+        verify(jdbcTemplate, never()).execute(startsWith("RENAME TABLE"));
+    }
+
+    @Test
+    public void testRetieneLosVolcadosMientrasCorre() throws Exception {
+        CountDownLatch enTramo = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        when(incidenciaRepository.findMaxId()).thenReturn(50L);
+        when(rollupRepository.backfillCreadas(0, 50)).thenAnswer(invocacion -> {
+            enTramo.countDown();
+            assertTrue(continuar.await(10, TimeUnit.SECONDS));
+            return 1;
+        });
+
+        assertTrue(service.iniciarBackfill());
+        assertTrue(enTramo.await(10, TimeUnit.SECONDS));
+        assertFalse(service.iniciarBackfill(), "No se admite un segundo backfill en paralelo");
+
+        service.onIncidenciaCreated(new IncidenciaCreatedEvent(this, incidencia()));
+        service.volcar();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        continuar.countDown();
+        assertNull(esperarFin().error());
+
+        // El alta recibida durante el backfill se vuelca después del intercambio
+        InOrder orden = inOrder(jdbcTemplate);
+        orden.verify(jdbcTemplate).execute(startsWith("RENAME TABLE"));
+        orden.verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> lote) -> lote.size() == 1));
+    }
+
+    private EstadoBackfill esperarFin() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (service.getEstadoBackfill().enCurso()) {
+            assertTrue(System.nanoTime() < limite, "El backfill no terminó");
+            Thread.sleep(10);
+        }
+        return service.getEstadoBackfill();
+    }
+
+    private static Incidencia incidencia() {
+        Incidencia incidencia = new Incidencia();
+        incidencia.setEstado(Estado.PENDIENTE);
+        incidencia.setActualizadoAt(LocalDateTime.now());
+        return incidencia;
+    }
+}
@@ -25,7 +25,8 @@ import java.util.Optional;
  */
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(classes = VcsystemsApplication.class)
+@SpringBootTest(classes = VcsystemsApplication.class,
+    properties = "app.incidencias.despacho.habilitado=false")
 @Transactional
 @Rollback
 public class IncidenciaServiceTest {
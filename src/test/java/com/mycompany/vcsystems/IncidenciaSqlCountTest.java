@@ -0,0 +1,122 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.entidades.Cliente;
+import com.mycompany.vcsystems.modelo.entidades.DiccionarioFallas;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.entidades.Usuario.Rol;
+import com.mycompany.vcsystems.modelo.repository.ClienteRepository;
+import com.mycompany.vcsystems.modelo.repository.DiccionarioFallasRepository;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.repository.UsuarioRepository;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica cuántas sentencias SQL ejecuta cada endpoint de lectura de incidencias,
+ * para detectar regresiones N+1 al cambiar el grafo de entidades.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class,
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+@Rollback
+@WithMockUser(username = "gerente", roles = {"GERENTE"})
+public class IncidenciaSqlCountTest {
+
+    private static final int INCIDENCIAS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private DiccionarioFallasRepository fallasRepository;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @MockBean
+    private NotificacionService notificacionService;
+
+    private Long idIncidencia;
+
+    @BeforeEach
+    public void setup() {
+        Usuario clienteUser = usuarioRepository.save(DatosPrueba.usuario("sql-cli@example.com", Rol.CLIENTE));
+        Usuario tecnicoUser = usuarioRepository.save(DatosPrueba.usuario("sql-tec@example.com", Rol.TECNICO));
+
+        Cliente cliente = clienteRepository.save(DatosPrueba.cliente(clienteUser, "Empresa SQL"));
+
+        DiccionarioFallas falla = new DiccionarioFallas();
+        falla.setCodigoFalla("SQL-F1");
+        falla = fallasRepository.save(falla);
+
+        for (int i = 0; i < INCIDENCIAS; i++) {
+            Incidencia inc = new Incidencia();
+            inc.setCliente(cliente);
+            inc.setTecnico(i % 2 == 0 ? tecnicoUser : null);
+            inc.setFalla(falla);
+            inc.setDescripcion("Incidencia " + i);
+            inc.setEstado(i % 2 == 0 ? Estado.ASIGNADA : Estado.PENDIENTE);
+            idIncidencia = incidenciaRepository.save(inc).getIdIncidencia();
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+    }
+
+    @Test
+    public void testListadoUnaSentencia() throws Exception {
+        mockMvc.perform(get("/api/incidencias").param("limit", "5")).andExpect(status().isOk());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void testBusquedaUnaSentencia() throws Exception {
+        mockMvc.perform(get("/api/incidencias/search").param("estado", "ASIGNADA")).andExpect(status().isOk());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void testDetalleUnaSentencia() throws Exception {
+        mockMvc.perform(get("/api/incidencias/{id}", idIncidencia)).andExpect(status().isOk());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void testEstadisticasSinConsultas() throws Exception {
+        mockMvc.perform(get("/api/incidencias/estadisticas")).andExpect(status().isOk());
+        assertEquals(0, statistics().getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
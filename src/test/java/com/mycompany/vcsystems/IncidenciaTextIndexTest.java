@@ -0,0 +1,144 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaCoincidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.IncidenciaBusquedaService;
+import com.mycompany.vcsystems.modelo.service.IncidenciaTextIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas del índice invertido en memoria (no requiere base de datos)
+ */
+public class IncidenciaTextIndexTest {
+
+    private IncidenciaTextIndex indice;
+
+    @BeforeEach
+    public void setup() {
+        indice = new IncidenciaTextIndex();
+        indice.indexar(1L, Estado.PENDIENTE, "Compresor no enciende al encender el equipo");
+        indice.indexar(2L, Estado.ASIGNADA, "Se detectó fuga de refrigerante en la unidad exterior");
+        indice.indexar(3L, Estado.EN_PROCESO, "Corto circuito en el panel de control");
+        indice.indexar(4L, Estado.PENDIENTE, "Fuga de refrigerante, fuga visible en tubería");
+    }
+
+    @Test
+    public void testBusquedaSinTildesNiMayusculas() {
+        List<IncidenciaCoincidencia> resultado = indice.buscar("DETECTO", 10);
+        assertEquals(1, resultado.size());
+        assertEquals(2L, resultado.get(0).getIdIncidencia());
+    }
+
+    @Test
+    public void testBusquedaParcialPorPrefijo() {
+        List<IncidenciaCoincidencia> resultado = indice.buscar("refriger", 10);
+        assertEquals(2, resultado.size());
+        assertTrue(resultado.stream().allMatch(r -> r.getIdIncidencia() == 2L || r.getIdIncidencia() == 4L));
+    }
+
+    @Test
+    public void testRankingPorFrecuencia() {
+        List<IncidenciaCoincidencia> resultado = indice.buscar("fuga de refrigerante", 10);
+        assertEquals(4L, resultado.get(0).getIdIncidencia(), "La incidencia con más menciones debe ir primero");
+        assertEquals(2L, resultado.get(1).getIdIncidencia());
+    }
+
+    @Test
+    public void testReindexarReemplazaTerminos() {
+        indice.indexar(3L, Estado.RESUELTA, "Panel reemplazado");
+        assertTrue(indice.buscar("circuito", 10).isEmpty());
+        assertEquals(Estado.RESUELTA, indice.buscar("panel", 10).get(0).getEstado());
+
+        indice.eliminar(3L);
+        assertTrue(indice.buscar("panel", 10).isEmpty());
+        assertEquals(3, indice.size());
+    }
+
+    @Test
+    public void testReconstruccionIntercambiaElIndiceSinPerderEventos() {
+        IncidenciaRepository repository = mock(IncidenciaRepository.class);
+        IncidenciaBusquedaService service = new IncidenciaBusquedaService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", repository);
+        ReflectionTestUtils.setField(service, "maxResultados", 10);
+
+        when(repository.streamTextoIndexable()).thenReturn(Stream.<Object[]>of(
+            new Object[]{1L, Estado.PENDIENTE, "Compresor no enciende"}));
+        service.reconstruirIndice();
+
+        List<Long> vistasDuranteCarga = new ArrayList<>();
+        when(repository.streamTextoIndexable()).thenReturn(Stream.<Object[]>of(
+                new Object[]{1L, Estado.PENDIENTE, "Compresor no enciende"},
+                new Object[]{2L, Estado.PENDIENTE, "Compresor ruidoso"})
+            .peek(fila -> {
+                if (fila[0].equals(1L)) {
+                    // Las búsquedas siguen sobre el índice completo anterior
+                    service.buscar("compresor", 10).forEach(c -> vistasDuranteCarga.add(c.getIdIncidencia()));
+                    // Asignación confirmada mientras se lee la fila anterior de la 2
+                    Incidencia asignada = new Incidencia();
+                    asignada.setIdIncidencia(2L);
+                    asignada.setEstado(Estado.ASIGNADA);
+                    asignada.setDescripcion("Compresor ruidoso");
+                    service.onTecnicoAssigned(new IncidenciaTecnicoAssignedEvent(this, asignada, null, Estado.PENDIENTE));
+                }
+            }));
+        service.reconstruirIndice();
+
+        assertEquals(List.of(1L), vistasDuranteCarga);
+        List<IncidenciaCoincidencia> resultado = service.buscar("ruidoso", 10);
+        assertEquals(1, resultado.size());
+        assertEquals(Estado.ASIGNADA, resultado.get(0).getEstado(), "El evento recibido durante la carga no debe perderse");
+    }
+
+    @Test
+    public void testReconstruccionFallidaConservaElIndice() {
+        IncidenciaRepository repository = mock(IncidenciaRepository.class);
+        IncidenciaBusquedaService service = new IncidenciaBusquedaService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", repository);
+        ReflectionTestUtils.setField(service, "maxResultados", 10);
+
+        when(repository.streamTextoIndexable()).thenReturn(Stream.<Object[]>of(
+            new Object[]{1L, Estado.PENDIENTE, "Compresor no enciende"}));
+        service.reconstruirIndice();
+        when(repository.streamTextoIndexable()).thenThrow(new IllegalStateException("Conexión perdida"));
+        service.reconstruirIndice();
+
+        assertEquals(1, service.buscar("compresor", 10).size());
+    }
+
+    @Test
+    public void testCambiosDeOtroNodoNoPisanEventosLocalesDuranteLaLectura() {
+        IncidenciaRepository repository = mock(IncidenciaRepository.class);
+        IncidenciaBusquedaService service = new IncidenciaBusquedaService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", repository);
+        ReflectionTestUtils.setField(service, "maxResultados", 10);
+
+        when(repository.findTextoIndexableByIds(List.of(1L, 2L))).thenAnswer(invocacion -> {
+            // Asignación local confirmada mientras se relee: la lectura trae la 1 aún PENDIENTE
+            Incidencia asignada = new Incidencia();
+            asignada.setIdIncidencia(1L);
+            asignada.setEstado(Estado.ASIGNADA);
+            asignada.setDescripcion("Compresor no enciende");
+            service.onTecnicoAssigned(new IncidenciaTecnicoAssignedEvent(this, asignada, null, Estado.PENDIENTE));
+            return List.<Object[]>of(
+                new Object[]{1L, Estado.PENDIENTE, "Compresor no enciende"},
+                new Object[]{2L, Estado.EN_PROCESO, "Compresor ruidoso"});
+        });
+        service.onCambiadasEnOtroNodo(new IncidenciasCambiadasEnOtroNodoEvent(this, List.of(1L, 2L)));
+
+        assertEquals(Estado.ASIGNADA, service.buscar("enciende", 10).get(0).getEstado());
+        assertEquals(Estado.EN_PROCESO, service.buscar("ruidoso", 10).get(0).getEstado());
+    }
+}
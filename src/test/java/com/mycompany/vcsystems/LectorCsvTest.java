@@ -0,0 +1,32 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.LectorCsv;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del lector CSV usado por la importación masiva (no requiere base de datos)
+ */
+public class LectorCsvTest {
+
+    @Test
+    public void testCamposSimplesYFinDeLineaWindows() throws Exception {
+        LectorCsv lector = new LectorCsv(new StringReader("cliente,descripcion\r\n1,No enciende\r\n\r\n2,Fuga"));
+        assertEquals(List.of("cliente", "descripcion"), lector.siguiente());
+        assertEquals(List.of("1", "No enciende"), lector.siguiente());
+        assertEquals(List.of("2", "Fuga"), lector.siguiente(), "Las líneas vacías se omiten y la última puede no tener salto");
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    public void testComillasEscapadasYSaltosDentroDeCampo() throws Exception {
+        LectorCsv lector = new LectorCsv(new StringReader("1,\"Dice \"\"no arranca\"\", revisar\nhoy\",,ALTA\n"));
+        assertEquals(List.of("1", "Dice \"no arranca\", revisar\nhoy", "", "ALTA"), lector.siguiente());
+        assertNull(lector.siguiente());
+        assertEquals(3, lector.getLinea());
+    }
+}
@@ -0,0 +1,151 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.CircuitoSmtp;
+import com.mycompany.vcsystems.modelo.service.EnvioCorreo;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import com.mycompany.vcsystems.modelo.service.ReintentoEmailService;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocket;
+import com.mycompany.vcsystems.modelo.service.ResumenEmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Envío de emails contra un SMTP en proceso: en modo resumen una ráfaga de
+ * notificaciones sale como un correo por destinatario y por una sola conexión.
+ */
+public class NotificacionEmailTest {
+
+    private static final int NOTIFICACIONES = 300;
+
+    private SmtpDePrueba smtp;
+    private NotificacionService notificacionService;
+    private ReintentoEmailService reintentoEmailService;
+    private ResumenEmailService resumenEmailService;
+    private EnvioCorreo envioCorreo;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        smtp = new SmtpDePrueba();
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtp.getPuerto());
+
+        envioCorreo = new EnvioCorreo();
+        ReflectionTestUtils.setField(envioCorreo, "emailSender", sender);
+        ReflectionTestUtils.setField(envioCorreo, "loteEnvio", 50);
+        ReflectionTestUtils.setField(envioCorreo, "umbralFallos", 3);
+        ReflectionTestUtils.setField(envioCorreo, "aperturaMs", 60_000L);
+        envioCorreo.iniciar();
+
+        reintentoEmailService = mock(ReintentoEmailService.class);
+        resumenEmailService = mock(ResumenEmailService.class);
+        notificacionService = new NotificacionService();
+        ReflectionTestUtils.setField(notificacionService, "relayWebSocket", mock(RelayWebSocket.class));
+        ReflectionTestUtils.setField(notificacionService, "envioCorreo", envioCorreo);
+        ReflectionTestUtils.setField(notificacionService, "reintentoEmailService", reintentoEmailService);
+        ReflectionTestUtils.setField(notificacionService, "resumenEmailService", resumenEmailService);
+        ReflectionTestUtils.setField(notificacionService, "environment", "development");
+    }
+
+    @AfterEach
+    public void cerrar() throws Exception {
+        smtp.close();
+    }
+
+    @Test
+    public void testResumenUnCorreoPorDestinatarioYUnaConexion() {
+        ReflectionTestUtils.setField(notificacionService, "digestHabilitado", true);
+
+        List<EnvioCorreo.Correo> pendientes = new ArrayList<>();
+        for (int i = 0; i < NOTIFICACIONES; i++) {
+            String destinatario = "dest" + (i % 3) + "@example.com";
+            notificacionService.notificarIncidencia(destinatario, "Nueva Incidencia Creada", "Se ha creado la incidencia #" + i);
+            pendientes.add(new EnvioCorreo.Correo(destinatario, "Nueva Incidencia Creada", "Se ha creado la incidencia #" + i));
+        }
+        // En modo resumen el correo se guarda para la ventana, no se envía
+        assertEquals(0, smtp.getMensajes().size());
+        verify(resumenEmailService, times(NOTIFICACIONES)).encolar(anyString(), anyString(), anyString());
+
+        List<EnvioCorreo.Correo> correos = ResumenEmailService.agrupar(pendientes);
+        assertEquals(3, correos.size());
+        assertTrue(envioCorreo.enviar(correos).isEmpty());
+
+        assertEquals(3, smtp.getMensajes().size());
+        assertEquals(1, smtp.getConexiones());
+        assertTrue(smtp.getMensajes().get(0).contains("Resumen de 100 notificaciones"));
+    }
+
+    @Test
+    public void testSinResumenUnaConexionPorCorreo() {
+        ReflectionTestUtils.setField(notificacionService, "digestHabilitado", false);
+
+        for (int i = 0; i < 30; i++) {
+            notificacionService.notificarIncidencia("admin@vcsystems.com", "Nueva Incidencia Creada", "Incidencia #" + i);
+        }
+
+        assertEquals(30, smtp.getMensajes().size());
+        assertEquals(30, smtp.getConexiones());
+    }
+
+    @Test
+    public void testServidorCaidoGuardaParaReintentoYAbreCircuito() {
+        ReflectionTestUtils.setField(notificacionService, "digestHabilitado", false);
+        smtp.caido(true);
+
+        for (int i = 0; i < 10; i++) {
+            notificacionService.notificarIncidencia("admin@vcsystems.com", "Nueva Incidencia Creada", "Incidencia #" + i);
+        }
+
+        // Tras 3 fallos seguidos el circuito se abre y no se vuelve a contactar al servidor
+        assertEquals(3, smtp.getConexiones());
+        verify(reintentoEmailService, times(3)).registrar(argThat(f -> f.size() == 1 && f.get(0).intentado()));
+        verify(reintentoEmailService, times(7)).registrar(argThat(f -> f.size() == 1 && !f.get(0).intentado()));
+    }
+
+    @Test
+    public void testDestinatarioRechazadoNoAbreElCircuito() {
+        smtp.rechazar("no-existe@example.com");
+
+        for (int i = 0; i < 5; i++) {
+            List<EnvioCorreo.Fallo> fallos = envioCorreo.enviar(List.of(
+                new EnvioCorreo.Correo("no-existe@example.com", "Incidencia", "Incidencia #" + i)));
+            assertEquals(1, fallos.size());
+            assertTrue(fallos.get(0).intentado());
+        }
+        assertEquals(CircuitoSmtp.Estado.CERRADO, envioCorreo.estadoCircuito());
+        assertTrue(envioCorreo.enviar(List.of(new EnvioCorreo.Correo("admin@vcsystems.com", "Incidencia", "ok"))).isEmpty());
+    }
+
+    @Test
+    public void testLoteSinMensajesValidosLiberaLaPruebaDelSemiabierto() {
+        // Sin espera de apertura: tras el umbral el siguiente intento es ya la prueba del semiabierto
+        ReflectionTestUtils.setField(envioCorreo, "aperturaMs", 0L);
+        envioCorreo.iniciar();
+        smtp.caido(true);
+        for (int i = 0; i < 3; i++) {
+            envioCorreo.enviar(List.of(new EnvioCorreo.Correo("admin@vcsystems.com", "Incidencia", "Incidencia #" + i)));
+        }
+        assertEquals(CircuitoSmtp.Estado.ABIERTO, envioCorreo.estadoCircuito());
+        smtp.caido(false);
+
+        // La prueba se la lleva un lote que no llega al servidor; debe quedar libre para el siguiente
+        List<EnvioCorreo.Fallo> fallos = envioCorreo.enviar(List.of(new EnvioCorreo.Correo("no es un correo", "Incidencia", "x")));
+        assertEquals(1, fallos.size());
+        assertEquals(CircuitoSmtp.Estado.SEMIABIERTO, envioCorreo.estadoCircuito());
+        assertTrue(envioCorreo.disponible());
+
+        assertTrue(envioCorreo.enviar(List.of(new EnvioCorreo.Correo("admin@vcsystems.com", "Incidencia", "ok"))).isEmpty());
+        assertEquals(CircuitoSmtp.Estado.CERRADO, envioCorreo.estadoCircuito());
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.configuracion.AsyncConfig;
+import com.mycompany.vcsystems.modelo.service.NotificacionMetricas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El ejecutor de notificaciones nunca bloquea a quien encola: con la cola
+ * llena rechaza (o descarta) y lo refleja en las métricas.
+ */
+public class NotificacionExecutorTest {
+
+    private final NotificacionMetricas metricas = new NotificacionMetricas();
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    public void cerrar() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testColaLlenaRechazaSinBloquear() throws Exception {
+        executor = crear(AsyncConfig.PoliticaRechazo.RECHAZAR);
+        CountDownLatch smtpLento = new CountDownLatch(1);
+
+        // 1 hilo ocupado + 2 en cola
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> esperar(smtpLento));
+        }
+        long inicio = System.nanoTime();
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) < 100);
+
+        NotificacionMetricas.Instantanea durante = metricas.instantanea(executor);
+        assertEquals(2, durante.enCola());
+        assertEquals(1, durante.rechazadas());
+
+        smtpLento.countDown();
+        executor.getThreadPoolExecutor().shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        NotificacionMetricas.Instantanea despues = metricas.instantanea(executor);
+        assertEquals(3, despues.completadas());
+        assertEquals(0, despues.enCola());
+        assertTrue(despues.esperaMaxMs() >= 0);
+    }
+
+    @Test
+    public void testDescartarNoLanza() {
+        executor = crear(AsyncConfig.PoliticaRechazo.DESCARTAR);
+        CountDownLatch smtpLento = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> esperar(smtpLento));
+        }
+        assertEquals(2, metricas.instantanea(executor).rechazadas());
+        smtpLento.countDown();
+    }
+
+    private ThreadPoolTaskExecutor crear(AsyncConfig.PoliticaRechazo politica) {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "hilos", 1);
+        ReflectionTestUtils.setField(config, "maxHilos", 1);
+        ReflectionTestUtils.setField(config, "capacidad", 2);
+        ReflectionTestUtils.setField(config, "politicaRechazo", politica);
+        ReflectionTestUtils.setField(config, "esperaCierreSegundos", 1);
+        return config.notificacionExecutor(metricas);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
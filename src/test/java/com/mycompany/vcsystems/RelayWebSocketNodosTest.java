@@ -0,0 +1,244 @@
+package com.mycompany.vcsystems;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mycompany.vcsystems.configuracion.AutenticacionStompInterceptor;
+import com.mycompany.vcsystems.configuracion.SchedulingConfig;
+import com.mycompany.vcsystems.configuracion.WebSocketConfig;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciasCambiadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasRecargadasEnOtroNodoEvent;
+import com.mycompany.vcsystems.modelo.service.EntregaWebSocket;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocket;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocketBaseDatos;
+import com.mycompany.vcsystems.modelo.service.SesionesWebSocket;
+import com.mycompany.vcsystems.modelo.service.UsuarioService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dos instancias de la aplicación en la misma JVM, compartiendo la BD: lo que
+ * publica un nodo llega a las sesiones conectadas al otro, una sola vez, y se
+ * mide la latencia del relay.
+ */
+public class RelayWebSocketNodosTest {
+
+    private static final int MENSAJES = 50;
+
+    @Configuration
+    @EnableAutoConfiguration(exclude = {
+        HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class, SecurityAutoConfiguration.class,
+        SecurityFilterAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class
+    })
+    @Import({WebSocketConfig.class, AutenticacionStompInterceptor.class, SesionesWebSocket.class,
+        EntregaWebSocket.class, RelayWebSocketBaseDatos.class, SchedulingConfig.class})
+    static class Nodo {
+    }
+
+    private static ConfigurableApplicationContext nodoA;
+    private static ConfigurableApplicationContext nodoB;
+    private static WebSocketStompClient stompClient;
+
+    @BeforeAll
+    public static void arrancar() {
+        nodoA = arrancarNodo("A");
+        nodoA.getBean(JdbcTemplate.class).execute(
+            "CREATE TABLE IF NOT EXISTS relay_mensaje (" +
+            "id_mensaje BIGINT AUTO_INCREMENT PRIMARY KEY, nodo VARCHAR(64) NOT NULL, " +
+            "tipo ENUM('USUARIO', 'TOPIC', 'INCIDENCIAS', 'RECARGA') NOT NULL, destino VARCHAR(255), usuario VARCHAR(255), " +
+            "payload TEXT NOT NULL, creado_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6), " +
+            "INDEX idx_relay_creado (creado_at))");
+        nodoB = arrancarNodo("B");
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterAll
+    public static void detener() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodoB != null) {
+            nodoB.close();
+        }
+        if (nodoA != null) {
+            nodoA.close();
+        }
+    }
+
+    @Test
+    public void testNotificacionPublicadaEnUnNodoLlegaAlOtro() throws Exception {
+        Receptor enB = new Receptor();
+        Receptor enA = new Receptor();
+        StompSession sesionB = conectar(nodoB, "tec@example.com", "/user/queue/notificaciones", enB);
+        StompSession sesionA = conectar(nodoA, "tec@example.com", "/user/queue/notificaciones", enA);
+        calentar(enA, enB);
+
+        RelayWebSocket relayA = nodoA.getBean(RelayWebSocket.class);
+        for (int i = 0; i < MENSAJES; i++) {
+            relayA.enviarAUsuario("tec@example.com", "/queue/notificaciones",
+                Map.of("title", "Asignada", "message", "Incidencia #" + i, "enviado", System.nanoTime()));
+            Thread.sleep(20);
+        }
+
+        assertTrue(enB.esperar(MENSAJES, 10), "Recibidos en B: " + enB.latencias.size());
+        Thread.sleep(500);
+        // Cada nodo entrega una sola vez: A en directo, B a través del relay
+        assertEquals(MENSAJES, enA.latencias.size());
+        assertEquals(MENSAJES, enB.latencias.size());
+
+        List<Long> latencias = new ArrayList<>(enB.latencias);
+        Collections.sort(latencias);
+        assertTrue(latencias.get(latencias.size() / 2) < 2000);
+
+        sesionA.disconnect();
+        sesionB.disconnect();
+    }
+
+    @Test
+    public void testTopicDeRolLlegaAlOtroNodo() throws Exception {
+        Receptor enA = new Receptor();
+        StompSession sesion = conectar(nodoA, "ger@example.com", "/topic/rol/GERENTE", enA);
+        calentar(enA);
+
+        nodoB.getBean(RelayWebSocket.class).enviarATopic("/topic/rol/GERENTE",
+            Map.of("title", "Nueva", "message", "Se ha creado la incidencia #1", "enviado", System.nanoTime()));
+
+        assertTrue(enA.esperar(1, 10));
+        sesion.disconnect();
+    }
+
+    @Test
+    public void testCambiosMasivosEnTrozosYRecargaLleganAlOtroNodo() throws Exception {
+        List<Long> cambiadas = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch recarga = new CountDownLatch(1);
+        nodoB.addApplicationListener((ApplicationListener<ApplicationEvent>) evento -> {
+            if (evento instanceof IncidenciasCambiadasEnOtroNodoEvent cambio) {
+                cambiadas.addAll(cambio.getIdsIncidencia());
+            } else if (evento instanceof IncidenciasRecargadasEnOtroNodoEvent) {
+                recarga.countDown();
+            }
+        });
+
+        // Una sola lista no cabría en el payload TEXT
+        List<Long> ids = LongStream.rangeClosed(1, 20_000).boxed().toList();
+        RelayWebSocket relayA = nodoA.getBean(RelayWebSocket.class);
+        relayA.difundirCambios(ids);
+        relayA.difundirRecarga();
+
+        assertTrue(recarga.await(10, TimeUnit.SECONDS));
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cambiadas.size() < ids.size() && System.nanoTime() < limite) {
+            Thread.sleep(50);
+        }
+        assertEquals(ids, List.copyOf(cambiadas));
+    }
+
+    private static ConfigurableApplicationContext arrancarNodo(String nombre) {
+        UsuarioService usuarioService = mock(UsuarioService.class);
+        when(usuarioService.autenticarUsuario(anyString(), anyString())).thenAnswer(inv -> {
+            Usuario u = new Usuario();
+            u.setCorreo(inv.getArgument(0));
+            u.setRol(inv.<String>getArgument(0).startsWith("ger") ? Usuario.Rol.GERENTE : Usuario.Rol.TECNICO);
+            return Optional.of(u);
+        });
+        return new SpringApplicationBuilder(Nodo.class)
+            .properties("server.port=0", "app.websocket.relay=bd", "app.websocket.relay.nodo=" + nombre,
+                "app.websocket.relay.intervalo-ms=50", "spring.application.name=nodo-" + nombre)
+            .initializers(ctx -> ctx.getBeanFactory().registerSingleton("usuarioService", usuarioService))
+            .run();
+    }
+
+    private static StompSession conectar(ConfigurableApplicationContext nodo, String usuario, String destino,
+                                         Receptor receptor) throws Exception {
+        int port = ((ServletWebServerApplicationContext) nodo).getWebServer().getPort();
+        StompHeaders connect = new StompHeaders();
+        connect.setLogin(usuario);
+        connect.setPasscode("secreta");
+        StompSession sesion = stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket",
+            new WebSocketHttpHeaders(), connect, new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        sesion.subscribe(destino, receptor);
+        return sesion;
+    }
+
+    // El broker simple no confirma suscripciones: se espera a que entregue un mensaje local
+    private static void calentar(Receptor... receptores) throws Exception {
+        for (Receptor receptor : receptores) {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!receptor.calentado && System.nanoTime() < limite) {
+                nodoA.getBean(EntregaWebSocket.class).aUsuario("tec@example.com", "/queue/notificaciones",
+                    Map.of("calentamiento", true));
+                nodoB.getBean(EntregaWebSocket.class).aUsuario("tec@example.com", "/queue/notificaciones",
+                    Map.of("calentamiento", true));
+                nodoA.getBean(EntregaWebSocket.class).aTopic("/topic/rol/GERENTE", Map.of("calentamiento", true));
+                Thread.sleep(50);
+            }
+            assertTrue(receptor.calentado);
+        }
+    }
+
+    private static final class Receptor implements StompFrameHandler {
+
+        private final List<Long> latencias = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean calentado;
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            JsonNode mensaje = (JsonNode) payload;
+            if (mensaje.has("calentamiento")) {
+                calentado = true;
+                return;
+            }
+            latencias.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mensaje.get("enviado").asLong()));
+        }
+
+        boolean esperar(int cantidad, int segundos) throws InterruptedException {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+            while (latencias.size() < cantidad && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            return latencias.size() >= cantidad;
+        }
+    }
+}
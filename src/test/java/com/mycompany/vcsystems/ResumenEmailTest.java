@@ -0,0 +1,81 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.EnvioCorreo;
+import com.mycompany.vcsystems.modelo.service.ResumenEmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Los correos del modo resumen se guardan en BD hasta la ventana: se envía uno
+ * por destinatario, las filas se borran y los no entregados pasan a la cola
+ * de reintentos.
+ */
+@SpringBootTest(classes = VcsystemsApplication.class, properties = {
+    "app.incidencias.despacho.habilitado=false",
+    "app.notificaciones.email.digest.ventana-ms=3600000",
+    "app.notificaciones.email.digest.lote=4"
+})
+public class ResumenEmailTest {
+
+    @Autowired
+    private ResumenEmailService resumenEmailService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EnvioCorreo envioCorreo;
+
+    @BeforeEach
+    @AfterEach
+    public void limpiar() {
+        jdbcTemplate.update("DELETE FROM email_resumen WHERE destinatario LIKE 'resumen-%'");
+        jdbcTemplate.update("DELETE FROM email_reintento WHERE destinatario LIKE 'resumen-%'");
+    }
+
+    @Test
+    public void testPendientesPersistidosYUnCorreoPorDestinatario() {
+        when(envioCorreo.enviar(anyList())).thenReturn(List.of());
+        for (int i = 0; i < 3; i++) {
+            resumenEmailService.encolar("resumen-a@example.com", "Incidencia", "Incidencia #" + i);
+        }
+        resumenEmailService.encolar("resumen-b@example.com", "Incidencia", "Incidencia única");
+        assertEquals(4, pendientes());
+
+        assertEquals(2, resumenEmailService.enviarResumenes());
+        assertEquals(0, pendientes());
+        verify(envioCorreo).enviar(argThat(correos -> correos.size() == 2
+            && correos.get(0).asunto().equals("Resumen de 3 notificaciones")
+            && correos.get(1).contenido().equals("Incidencia única")));
+    }
+
+    @Test
+    public void testNoEntregadosPasanAReintentos() {
+        when(envioCorreo.enviar(anyList())).thenAnswer(invocacion -> {
+            List<EnvioCorreo.Correo> correos = invocacion.getArgument(0);
+            return correos.stream().map(c -> new EnvioCorreo.Fallo(c, "SMTP caído", true)).toList();
+        });
+        resumenEmailService.encolar("resumen-c@example.com", "Incidencia", "Incidencia #1");
+
+        assertEquals(0, resumenEmailService.enviarResumenes());
+        assertEquals(0, pendientes());
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM email_reintento WHERE destinatario = 'resumen-c@example.com'", Integer.class));
+    }
+
+    private int pendientes() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM email_resumen WHERE destinatario LIKE 'resumen-%'", Integer.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.service.RuedaTemporal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rueda de temporizadores: cada temporizador vence en el primer avance que
+ * alcanza su hora (ni antes ni después), también los que pasan por los
+ * niveles superiores, y los cancelados no vencen.
+ */
+public class RuedaTemporalTest {
+
+    @Test
+    public void testVenceEnSuTickEnTodosLosNiveles() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1, 1_000);
+        Random random = new Random(42);
+        Map<Long, Long> esperados = new HashMap<>();
+        long id = 0;
+        // Plazos repartidos entre el nivel base y los tres primeros niveles superiores
+        for (int i = 0; i < 20_000; i++) {
+            long vence = 1_000 + (long) Math.pow(2, random.nextDouble() * 23);
+            rueda.programar(id, vence);
+            esperados.put(id++, vence);
+        }
+        long ahora = 1_000;
+        while (!esperados.isEmpty()) {
+            long anterior = ahora;
+            ahora += 1 + random.nextInt(300);
+            for (Long vencido : rueda.avanzar(ahora)) {
+                long vence = esperados.remove(vencido);
+                assertTrue(vence > anterior && vence <= ahora,
+                    "Temporizador " + vencido + " con vencimiento " + vence + " venció en (" + anterior + ", " + ahora + "]");
+            }
+        }
+        assertEquals(0, rueda.pendientes());
+    }
+
+    @Test
+    public void testCancelarEsDefinitivo() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(10, 0);
+        RuedaTemporal.Temporizador<String> a = rueda.programar("a", 5_000);
+        RuedaTemporal.Temporizador<String> b = rueda.programar("b", 5_000);
+        RuedaTemporal.Temporizador<String> c = rueda.programar("c", 50_000_000);
+        assertEquals(3, rueda.pendientes());
+
+        assertTrue(rueda.cancelar(b));
+        assertFalse(rueda.cancelar(b));
+        assertTrue(rueda.cancelar(c));
+        assertEquals(1, rueda.pendientes());
+
+        assertEquals(List.of(), rueda.avanzar(4_990));
+        assertEquals(List.of("a"), rueda.avanzar(5_000));
+        assertFalse(a.isActivo());
+        assertFalse(rueda.cancelar(a));
+        assertEquals(List.of(), rueda.avanzar(100_000_000));
+    }
+
+    @Test
+    public void testRedondeaAlTickSiguienteYVencidosEnElProximoAvance() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(1_000, 10_000);
+        rueda.programar("pasado", 3_000);
+        rueda.programar("redondeo", 11_001);
+
+        assertEquals(List.of("pasado"), rueda.avanzar(10_000));
+        assertEquals(List.of(), rueda.avanzar(11_999));
+        assertEquals(List.of("redondeo"), rueda.avanzar(12_000));
+    }
+
+    @Test
+    public void testPlazoMasAllaDelUltimoNivel() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(1, 0);
+        long lejano = (1L << 32) + 12_345;
+        rueda.programar("lejano", lejano);
+        List<String> vencidos = new ArrayList<>(rueda.avanzar(lejano - 1));
+        assertTrue(vencidos.isEmpty());
+        assertEquals(List.of("lejano"), rueda.avanzar(lejano));
+    }
+
+    @Test
+    public void testProgramarYCancelarMillonesDeTemporizadores() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1_000, 0);
+        int total = 2_000_000;
+        List<RuedaTemporal.Temporizador<Long>> temporizadores = new ArrayList<>(total);
+        for (long i = 0; i < total; i++) {
+            temporizadores.add(rueda.programar(i, (i % 86_400) * 1_000 + 60_000));
+        }
+        for (int i = 0; i < total; i += 2) {
+            rueda.cancelar(temporizadores.get(i));
+        }
+        assertEquals(total / 2, rueda.pendientes());
+        assertEquals(total / 2, rueda.avanzar(86_400_000L + 60_000).size());
+    }
+}
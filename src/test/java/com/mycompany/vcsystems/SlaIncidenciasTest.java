@@ -0,0 +1,205 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.modelo.dto.IncidenciaPlazo;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Estado;
+import com.mycompany.vcsystems.modelo.entidades.Incidencia.Prioridad;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.events.IncidenciaStatusChangedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciaTecnicoAssignedEvent;
+import com.mycompany.vcsystems.modelo.events.IncidenciasImportadasEvent;
+import com.mycompany.vcsystems.modelo.repository.IncidenciaRepository;
+import com.mycompany.vcsystems.modelo.service.JobLeaseService;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import com.mycompany.vcsystems.modelo.service.SlaIncidenciasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Plazos de SLA: se cargan desde la BD, se cancelan con los cambios de estado
+ * y solo el nodo con la concesión envía el escalado; los vencidos no se
+ * pierden sin concesión ni cuando falla el envío.
+ */
+public class SlaIncidenciasTest {
+
+    private static final long MINUTO = 60_000;
+
+    private final IncidenciaRepository incidenciaRepository = mock(IncidenciaRepository.class);
+    private final NotificacionService notificacionService = mock(NotificacionService.class);
+    private final JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private SlaIncidenciasService service;
+    private LocalDateTime hace10Min;
+
+    @BeforeEach
+    public void setup() {
+        service = new SlaIncidenciasService();
+        ReflectionTestUtils.setField(service, "incidenciaRepository", incidenciaRepository);
+        ReflectionTestUtils.setField(service, "notificacionService", notificacionService);
+        ReflectionTestUtils.setField(service, "jobLeaseService", jobLeaseService);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "habilitado", true);
+        ReflectionTestUtils.setField(service, "tickMs", 1000L);
+        ReflectionTestUtils.setField(service, "pendienteMinutos", 60L);
+        ReflectionTestUtils.setField(service, "asignadaMinutos", 240L);
+        ReflectionTestUtils.setField(service, "porcentajeAlta", 50);
+        ReflectionTestUtils.setField(service, "porcentajeBaja", 200);
+        ReflectionTestUtils.setField(service, "maxDetalle", 20);
+        ReflectionTestUtils.setField(service, "graciaMs", 10 * MINUTO);
+        service.iniciar();
+        when(jobLeaseService.adquirir(SlaIncidenciasService.LEASE)).thenReturn(true);
+        when(jobLeaseService.esTitular(SlaIncidenciasService.LEASE)).thenReturn(true);
+        reclamanTodas(1);
+
+        hace10Min = LocalDateTime.now().minusMinutes(10);
+        when(incidenciaRepository.streamPlazosEnEstados(anyCollection())).thenReturn(Stream.of(
+            new IncidenciaPlazo(1L, Estado.PENDIENTE, Prioridad.ALTA, hace10Min, hace10Min, null, null),
+            new IncidenciaPlazo(2L, Estado.PENDIENTE, Prioridad.MEDIA, hace10Min, hace10Min, null, null),
+            new IncidenciaPlazo(3L, Estado.ASIGNADA, Prioridad.MEDIA, hace10Min.minusDays(1), hace10Min,
+                "tec@example.com", null)));
+        service.reconstruir();
+    }
+
+    @Test
+    public void testEscalaCadaPlazoAlVencer() {
+        long ahora = System.currentTimeMillis();
+        assertEquals(3, service.metricas().temporizadores());
+
+        // ALTA: la mitad de 60 min desde el alta
+        assertEquals(0, service.revisarHasta(ahora + 19 * MINUTO));
+        assertEquals(1, service.revisarHasta(ahora + 21 * MINUTO));
+        verify(notificacionService).notificarRol(eq(Usuario.Rol.GERENTE), anyString(),
+            eq("La incidencia #1 lleva más de 30 min sin técnico asignado"));
+
+        assertEquals(1, service.revisarHasta(ahora + 51 * MINUTO));
+        // ASIGNADA: 240 min desde la asignación, también avisa al técnico
+        assertEquals(1, service.revisarHasta(ahora + 231 * MINUTO));
+        verify(notificacionService).enviarNotificacion(eq("tec@example.com"), anyString(), contains("#3"));
+        assertEquals(0, service.metricas().temporizadores());
+        assertEquals(3, service.metricas().escalados());
+    }
+
+    @Test
+    public void testCambioDeEstadoCancelaYAsignacionReinicia() {
+        long ahora = System.currentTimeMillis();
+        service.onStatusChanged(new IncidenciaStatusChangedEvent(this, incidencia(1L, Estado.EN_PROCESO),
+            Estado.PENDIENTE, Estado.EN_PROCESO));
+
+        Usuario tecnico = new Usuario();
+        tecnico.setCorreo("otro@example.com");
+        service.onTecnicoAssigned(new IncidenciaTecnicoAssignedEvent(this, incidencia(2L, Estado.ASIGNADA),
+            tecnico, Estado.PENDIENTE));
+
+        assertEquals(0, service.revisarHasta(ahora + 60 * MINUTO));
+        assertEquals(2, service.metricas().temporizadores());
+        assertEquals(2, service.metricas().cancelados());
+        // La 2 ya no vence como PENDIENTE sino a los 240 min de su asignación
+        assertEquals(1, service.revisarHasta(ahora + 235 * MINUTO));
+        assertEquals(1, service.revisarHasta(ahora + 241 * MINUTO));
+        verify(notificacionService).enviarNotificacion(eq("otro@example.com"), anyString(), contains("#2"));
+    }
+
+    @Test
+    public void testSinConcesionRetieneLosVencidos() {
+        long ahora = System.currentTimeMillis();
+        when(jobLeaseService.adquirir(SlaIncidenciasService.LEASE)).thenReturn(false);
+        when(jobLeaseService.esTitular(SlaIncidenciasService.LEASE)).thenReturn(false);
+
+        assertEquals(0, service.revisarHasta(ahora + 21 * MINUTO));
+        verifyNoInteractions(notificacionService);
+        assertEquals(1, service.metricas().incumplidos());
+        assertEquals(1, service.metricas().porEscalar());
+
+        // Al tomar la concesión escala el que tenía guardado
+        when(jobLeaseService.esTitular(SlaIncidenciasService.LEASE)).thenReturn(true);
+        assertEquals(1, service.revisarHasta(ahora + 22 * MINUTO));
+        verify(notificacionService).notificarRol(eq(Usuario.Rol.GERENTE), anyString(), contains("#1"));
+        assertEquals(0, service.metricas().porEscalar());
+        assertEquals(1, service.metricas().escalados());
+    }
+
+    @Test
+    public void testSinConcesionEscalaTrasLaGraciaLoQueNadieMarco() {
+        long ahora = System.currentTimeMillis();
+        when(jobLeaseService.adquirir(SlaIncidenciasService.LEASE)).thenReturn(false);
+        when(jobLeaseService.esTitular(SlaIncidenciasService.LEASE)).thenReturn(false);
+
+        // La 1 vence a los 20 min: pasada la gracia ve que el titular ya la marcó
+        assertEquals(0, service.revisarHasta(ahora + 21 * MINUTO));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+        assertEquals(0, service.revisarHasta(ahora + 31 * MINUTO));
+        verifyNoInteractions(notificacionService);
+        assertEquals(0, service.metricas().porEscalar());
+
+        // La 2 vence a los 50 y nadie la marcó: pasada la gracia la escala este nodo
+        reclamanTodas(1);
+        assertEquals(0, service.revisarHasta(ahora + 51 * MINUTO));
+        assertEquals(1, service.revisarHasta(ahora + 61 * MINUTO));
+        verify(notificacionService).notificarRol(eq(Usuario.Rol.GERENTE), anyString(), contains("#2"));
+        assertEquals(0, service.metricas().porEscalar());
+    }
+
+    @Test
+    public void testFalloAlEscalarSeReintenta() {
+        long ahora = System.currentTimeMillis();
+        doThrow(new IllegalStateException("caído")).doNothing()
+            .when(notificacionService).notificarRol(any(), anyString(), anyString());
+
+        assertEquals(0, service.revisarHasta(ahora + 21 * MINUTO));
+        verify(transactionManager).rollback(any());
+        assertEquals(1, service.metricas().porEscalar());
+
+        assertEquals(1, service.revisarHasta(ahora + 21 * MINUTO + 1000));
+        verify(notificacionService, times(2)).notificarRol(eq(Usuario.Rol.GERENTE), anyString(),
+            eq("La incidencia #1 lleva más de 30 min sin técnico asignado"));
+        assertEquals(1, service.metricas().escalados());
+    }
+
+    @Test
+    public void testYaEscaladasNoSeReprogramanYLasImportadasSeLeenPorId() {
+        LocalDateTime hace5Min = LocalDateTime.now().minusMinutes(5);
+        when(incidenciaRepository.streamPlazosEnEstados(anyCollection())).thenReturn(Stream.of(
+            new IncidenciaPlazo(1L, Estado.PENDIENTE, Prioridad.ALTA, hace10Min, hace10Min, null, hace5Min),
+            // Escalada como PENDIENTE y asignada después: el plazo de ASIGNADA sigue en pie
+            new IncidenciaPlazo(2L, Estado.ASIGNADA, Prioridad.MEDIA, hace10Min, hace5Min.plusMinutes(1),
+                "tec@example.com", hace5Min)));
+        service.reconstruir();
+        assertEquals(1, service.metricas().temporizadores());
+
+        when(incidenciaRepository.findPlazosByIds(List.of(4L))).thenReturn(List.of(
+            new IncidenciaPlazo(4L, Estado.PENDIENTE, Prioridad.MEDIA, hace5Min, hace5Min, null, null)));
+        service.onImportadas(new IncidenciasImportadasEvent(this, "imp-1", List.of(4L), List.of()));
+        assertEquals(2, service.metricas().temporizadores());
+        verify(incidenciaRepository, times(2)).streamPlazosEnEstados(anyCollection());
+    }
+
+    private void reclamanTodas(int filas) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocacion -> {
+            int[] resultado = new int[invocacion.<List<?>>getArgument(1).size()];
+            Arrays.fill(resultado, filas);
+            return resultado;
+        });
+    }
+
+    private static Incidencia incidencia(Long id, Estado estado) {
+        Incidencia incidencia = new Incidencia();
+        incidencia.setIdIncidencia(id);
+        incidencia.setEstado(estado);
+        incidencia.setPrioridad(Prioridad.MEDIA);
+        return incidencia;
+    }
+}
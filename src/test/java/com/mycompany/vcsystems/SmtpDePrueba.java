@@ -0,0 +1,116 @@
+package com.mycompany.vcsystems;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo en proceso para pruebas: acepta todo, guarda los
+ * mensajes recibidos y cuenta las conexiones abiertas. Con caido(true)
+ * responde 421 a cada conexión para simular un servidor fuera de servicio;
+ * con rechazar(destinatario) responde 550 al RCPT de esa dirección.
+ */
+public class SmtpDePrueba implements AutoCloseable {
+
+    private final ServerSocket servidor;
+    private final ExecutorService hilos = Executors.newCachedThreadPool();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final List<String> mensajes = new CopyOnWriteArrayList<>();
+    private final Set<String> rechazados = ConcurrentHashMap.newKeySet();
+    private volatile boolean caido;
+
+    public SmtpDePrueba() throws IOException {
+        servidor = new ServerSocket(0);
+        hilos.execute(this::aceptar);
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    public int getConexiones() {
+        return conexiones.get();
+    }
+
+    public List<String> getMensajes() {
+        return mensajes;
+    }
+
+    public void caido(boolean caido) {
+        this.caido = caido;
+    }
+
+    public void rechazar(String destinatario) {
+        rechazados.add(destinatario.toLowerCase());
+    }
+
+    private void aceptar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                conexiones.incrementAndGet();
+                hilos.execute(() -> atender(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+            if (caido) {
+                responder(out, "421 servicio no disponible");
+                return;
+            }
+            responder(out, "220 smtp de prueba");
+            String linea;
+            while ((linea = in.readLine()) != null) {
+                String comando = linea.length() >= 4 ? linea.substring(0, 4).toUpperCase() : linea.toUpperCase();
+                switch (comando) {
+                    case "DATA" -> {
+                        responder(out, "354 fin con <CRLF>.<CRLF>");
+                        StringBuilder datos = new StringBuilder();
+                        while ((linea = in.readLine()) != null && !linea.equals(".")) {
+                            datos.append(linea).append('\n');
+                        }
+                        mensajes.add(datos.toString());
+                        responder(out, "250 ok");
+                    }
+                    case "RCPT" -> responder(out, rechazados.stream().anyMatch(linea.toLowerCase()::contains)
+                        ? "550 5.1.1 destinatario desconocido" : "250 ok");
+                    case "QUIT" -> {
+                        responder(out, "221 adios");
+                        return;
+                    }
+                    default -> responder(out, "250 ok");
+                }
+            }
+        } catch (IOException e) {
+            // Conexión cerrada por el cliente
+        }
+    }
+
+    private static void responder(OutputStream out, String linea) throws IOException {
+        out.write((linea + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        hilos.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package com.mycompany.vcsystems;
+
+import com.mycompany.vcsystems.configuracion.AutenticacionStompInterceptor;
+import com.mycompany.vcsystems.modelo.entidades.Usuario;
+import com.mycompany.vcsystems.modelo.service.EntregaWebSocket;
+import com.mycompany.vcsystems.modelo.service.NotificacionService;
+import com.mycompany.vcsystems.modelo.service.RelayWebSocketLocal;
+import com.mycompany.vcsystems.modelo.service.SesionesWebSocket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Las notificaciones WS solo van a las sesiones interesadas: cola propia del
+ * usuario o topic de su rol, y nada si no hay nadie conectado.
+ */
+public class WebSocketDestinosTest {
+
+    private final SesionesWebSocket sesiones = new SesionesWebSocket();
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final AutenticacionStompInterceptor interceptor = new AutenticacionStompInterceptor();
+    private NotificacionService notificacionService;
+
+    @BeforeEach
+    public void setup() {
+        EntregaWebSocket entrega = new EntregaWebSocket();
+        ReflectionTestUtils.setField(entrega, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(entrega, "sesionesWebSocket", sesiones);
+        RelayWebSocketLocal relay = new RelayWebSocketLocal();
+        ReflectionTestUtils.setField(relay, "entregaWebSocket", entrega);
+        notificacionService = new NotificacionService();
+        ReflectionTestUtils.setField(notificacionService, "relayWebSocket", relay);
+        ReflectionTestUtils.setField(notificacionService, "environment", "development");
+    }
+
+    @Test
+    public void testEnviaSoloAUsuariosYRolesConectados() {
+        notificacionService.enviarNotificacion("tec@example.com", "Asignada", "Se te ha asignado la incidencia #1");
+        notificacionService.notificarRol(Usuario.Rol.GERENTE, "Nueva", "Se ha creado la incidencia #1");
+        verifyNoInteractions(messagingTemplate);
+
+        conectar("s1", usuario("tec@example.com", "TECNICO"));
+        conectar("s2", usuario("tec@example.com", "TECNICO"));
+        conectar("s3", usuario("ger@example.com", "GERENTE"));
+        assertEquals(2, sesiones.sesiones("tec@example.com"));
+
+        notificacionService.enviarNotificacion("tec@example.com", "Asignada", "Se te ha asignado la incidencia #1");
+        notificacionService.enviarNotificacion("cli@example.com", "Estado", "Su incidencia #1 ha cambiado");
+        notificacionService.notificarRol(Usuario.Rol.GERENTE, "Nueva", "Se ha creado la incidencia #1");
+        notificacionService.notificarRol(Usuario.Rol.ADMIN, "Nueva", "Se ha creado la incidencia #1");
+
+        verify(messagingTemplate).convertAndSendToUser(eq("tec@example.com"), eq("/queue/notificaciones"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/rol/GERENTE"), any(Object.class));
+        verifyNoMoreInteractions(messagingTemplate);
+
+        desconectar("s3", usuario("ger@example.com", "GERENTE"));
+        assertFalse(sesiones.hayConectados(Usuario.Rol.GERENTE));
+        assertTrue(sesiones.hayConectados(Usuario.Rol.TECNICO));
+    }
+
+    @Test
+    public void testTopicDeRolSoloParaEseRol() {
+        assertThrows(MessageDeliveryException.class,
+            () -> interceptor.preSend(suscripcion("/topic/rol/GERENTE", usuario("tec@example.com", "TECNICO")), null));
+        assertThrows(MessageDeliveryException.class,
+            () -> interceptor.preSend(suscripcion("/topic/rol/GERENTE", null), null));
+        assertNotNull(interceptor.preSend(suscripcion("/topic/rol/GERENTE", usuario("ger@example.com", "GERENTE")), null));
+        assertNotNull(interceptor.preSend(suscripcion("/user/queue/notificaciones", usuario("tec@example.com", "TECNICO")), null));
+    }
+
+    private void conectar(String sesion, Principal user) {
+        sesiones.onConectado(new SessionConnectedEvent(this, mensaje(StompCommand.CONNECTED, sesion, user), user));
+    }
+
+    private void desconectar(String sesion, Principal user) {
+        sesiones.onDesconectado(new SessionDisconnectEvent(this, mensaje(StompCommand.DISCONNECT, sesion, user),
+            sesion, CloseStatus.NORMAL, user));
+    }
+
+    private static Message<byte[]> suscripcion(String destino, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destino);
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> mensaje(StompCommand comando, String sesion, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(comando);
+        accessor.setSessionId(sesion);
+        accessor.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal usuario(String correo, String rol) {
+        return UsernamePasswordAuthenticationToken.authenticated(correo, null,
+            List.of(new SimpleGrantedAuthority("ROLE_" + rol)));
+    }
+}